@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Riguz.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.riguz.commons.encrypt;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * XXH64, a fast non-cryptographic 64 bit hash. Use it for checksums and cache keys where MD5 or SHA would cost
+ * far more than the data is worth, never for anything security related.
+ *
+ * <pre>
+ * long hash = XxHash64.hash(bytes);
+ * long streamed = new XxHash64().update(head).update(tail).getValue();
+ * </pre>
+ *
+ * @author riguz
+ */
+public final class XxHash64 {
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private final long seed;
+    private final ByteBuffer buffer = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN);
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+    private long length;
+
+    public XxHash64() {
+        this(0);
+    }
+
+    public XxHash64(long seed) {
+        this.seed = seed;
+        this.reset();
+    }
+
+    public static long hash(byte[] bytes) {
+        return hash(bytes, 0, bytes.length, 0);
+    }
+
+    public static long hash(byte[] bytes, int offset, int length, long seed) {
+        return new XxHash64(seed).update(bytes, offset, length).getValue();
+    }
+
+    /**
+     * Hashes the remaining bytes of the buffer, its position is left untouched.
+     */
+    public static long hash(ByteBuffer bytes) {
+        return new XxHash64().update(bytes).getValue();
+    }
+
+    public XxHash64 reset() {
+        this.v1 = this.seed + PRIME1 + PRIME2;
+        this.v2 = this.seed + PRIME2;
+        this.v3 = this.seed;
+        this.v4 = this.seed - PRIME1;
+        this.length = 0;
+        this.buffer.clear();
+        return this;
+    }
+
+    public XxHash64 update(byte[] bytes, int offset, int length) {
+        return this.update(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    /**
+     * Adds the remaining bytes of the buffer, its position is left untouched.
+     */
+    public XxHash64 update(ByteBuffer bytes) {
+        ByteBuffer input = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.length += input.remaining();
+        if (this.buffer.position() > 0) {
+            while (this.buffer.hasRemaining() && input.hasRemaining())
+                this.buffer.put(input.get());
+            if (this.buffer.hasRemaining())
+                return this;
+            this.buffer.flip();
+            this.stripe(this.buffer);
+            this.buffer.clear();
+        }
+        while (input.remaining() >= 32)
+            this.stripe(input);
+        this.buffer.put(input);
+        return this;
+    }
+
+    public long getValue() {
+        long hash;
+        if (this.length >= 32) {
+            hash = Long.rotateLeft(this.v1, 1) + Long.rotateLeft(this.v2, 7)
+                    + Long.rotateLeft(this.v3, 12) + Long.rotateLeft(this.v4, 18);
+            hash = merge(hash, this.v1);
+            hash = merge(hash, this.v2);
+            hash = merge(hash, this.v3);
+            hash = merge(hash, this.v4);
+        } else {
+            hash = this.seed + PRIME5;
+        }
+        hash += this.length;
+
+        ByteBuffer tail = this.buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        tail.limit(tail.position());
+        tail.position(0);
+        while (tail.remaining() >= 8) {
+            hash ^= round(0, tail.getLong());
+            hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+        }
+        if (tail.remaining() >= 4) {
+            hash ^= (tail.getInt() & 0xFFFFFFFFL) * PRIME1;
+            hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+        }
+        while (tail.hasRemaining()) {
+            hash ^= (tail.get() & 0xFF) * PRIME5;
+            hash = Long.rotateLeft(hash, 11) * PRIME1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME2;
+        hash ^= hash >>> 29;
+        hash *= PRIME3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private void stripe(ByteBuffer input) {
+        this.v1 = round(this.v1, input.getLong());
+        this.v2 = round(this.v2, input.getLong());
+        this.v3 = round(this.v3, input.getLong());
+        this.v4 = round(this.v4, input.getLong());
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME1;
+    }
+
+    private static long merge(long hash, long acc) {
+        hash ^= round(0, acc);
+        return hash * PRIME1 + PRIME4;
+    }
+}
@@ -0,0 +1,43 @@
+package commons;
+
+import com.riguz.commons.encrypt.XxHash64;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class XxHash64Test {
+
+    @Test
+    public void knownValues() {
+        assertEquals(0xEF46DB3751D8E999L, XxHash64.hash(new byte[0]));
+        assertEquals(0xD24EC4F1A98C6E5BL, XxHash64.hash(bytes("a")));
+        assertEquals(0x44BC2CF5AD770999L, XxHash64.hash(bytes("abc")));
+        assertEquals(0xFBCEA83C8A378BF1L,
+                XxHash64.hash(bytes("Nobody inspects the spammish repetition")));
+    }
+
+    @Test
+    public void streamedEqualsOneShot() {
+        byte[] data = new byte[1000];
+        new Random(42).nextBytes(data);
+        long expected = XxHash64.hash(data);
+        for (int split : new int[]{0, 1, 7, 31, 32, 33, 100, 999}) {
+            XxHash64 hash = new XxHash64();
+            hash.update(data, 0, split);
+            hash.update(ByteBuffer.wrap(data, split, data.length - split));
+            assertEquals(expected, hash.getValue());
+        }
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+        direct.put(data).flip();
+        assertEquals(expected, XxHash64.hash(direct));
+        assertEquals(0, direct.position());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
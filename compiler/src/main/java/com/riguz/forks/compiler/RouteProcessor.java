@@ -0,0 +1,214 @@
+package com.riguz.forks.compiler;
+
+import com.riguz.commons.encrypt.XxHash64;
+import com.riguz.forks.config.route.ClassIdentifier;
+import com.riguz.forks.config.route.FunctionCall;
+import com.riguz.forks.config.route.RouteConfig;
+import com.riguz.forks.config.route.RouteParser;
+import com.riguz.forks.config.route.RouteRule;
+import com.riguz.forks.config.route.WebSocketRule;
+import com.riguz.forks.router.CompileRoutes;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the route file of the class annotated with {@link CompileRoutes} at build time, checks that its controllers,
+ * filters and actions exist, and generates the CompiledRoutes of the application with {@link RoutesWriter}.
+ */
+@SupportedAnnotationTypes("com.riguz.forks.router.CompileRoutes")
+@SupportedOptions(RouteProcessor.RESOURCES_OPTION)
+public class RouteProcessor extends AbstractProcessor {
+    public static final String RESOURCES_OPTION = "forks.resources";
+    private static final String FILTER = "com.riguz.forks.filter.Filter";
+    private static final String WEB_SOCKET_HANDLER = "com.riguz.forks.http.websocket.WebSocketHandler";
+
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(CompileRoutes.class)) {
+            if (this.generated) {
+                this.error(element, "Routes are already compiled for another class");
+                continue;
+            }
+            this.generated = true;
+            String file = element.getAnnotation(CompileRoutes.class).value();
+            byte[] source;
+            RouteConfig config;
+            try {
+                source = this.read(file);
+                config = RouteParser.fromString(new String(source, StandardCharsets.UTF_8)).getRouteConfig();
+            } catch (IOException e) {
+                this.error(element, "Failed to read " + file + ":" + e.getMessage());
+                continue;
+            } catch (RuntimeException e) {
+                this.error(element, "Invalid route file " + file + ":" + e.getMessage());
+                continue;
+            }
+            List<ExecutableElement> actions = this.validate(element, config);
+            if (actions == null)
+                continue;
+            String packageName = this.processingEnv.getElementUtils().getPackageOf(element).getQualifiedName()
+                    .toString();
+            try {
+                new RoutesWriter(this.processingEnv, packageName, config, actions, XxHash64.hash(source)).write();
+            } catch (IOException e) {
+                this.error(element, "Failed to generate routes:" + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The actions of the routes, in their order, or null if anything is missing.
+     */
+    private List<ExecutableElement> validate(Element element, RouteConfig config) {
+        Elements elements = this.processingEnv.getElementUtils();
+        boolean valid = true;
+        Map<String, TypeElement> controllers = new HashMap<>();
+        for (ClassIdentifier identifier : config.getControllers()) {
+            TypeElement controller = elements.getTypeElement(identifier.getClassName());
+            if (controller == null) {
+                this.error(element, "Controller not found:" + identifier.getClassName());
+                valid = false;
+            } else if (!controller.getModifiers().contains(Modifier.PUBLIC)) {
+                this.error(element, "Controller should be public:" + identifier.getClassName());
+                valid = false;
+            } else {
+                controllers.put(identifier.getAlias(), controller);
+            }
+        }
+        for (ClassIdentifier identifier : config.getFilters())
+            valid &= this.checkImplements(element, elements.getTypeElement(identifier.getClassName()),
+                    identifier.getClassName(), FILTER);
+        for (WebSocketRule rule : config.getWebSockets())
+            valid &= this.checkImplements(element, controllers.get(rule.getController()), rule.getController(),
+                    WEB_SOCKET_HANDLER);
+        List<ExecutableElement> actions = new ArrayList<>();
+        for (RouteRule rule : config.getRoutes()) {
+            FunctionCall call = rule.getFunctionCall();
+            TypeElement controller = controllers.get(call.getController());
+            ExecutableElement action = controller == null ? null : this.findAction(controller, call);
+            if (action == null) {
+                this.error(element, "Action not found:" + rule.getMethod() + " " + rule.getPattern() + " -> " + call);
+                valid = false;
+            }
+            actions.add(action);
+        }
+        return valid ? actions : null;
+    }
+
+    private boolean checkImplements(Element element, TypeElement type, String name, String interfaceName) {
+        if (type == null) {
+            this.error(element, "Class not found:" + name);
+            return false;
+        }
+        if (!type.getModifiers().contains(Modifier.PUBLIC)) {
+            this.error(element, "Class should be public:" + type.getQualifiedName());
+            return false;
+        }
+        Types types = this.processingEnv.getTypeUtils();
+        TypeElement expected = this.processingEnv.getElementUtils().getTypeElement(interfaceName);
+        if (expected != null && !types.isAssignable(types.erasure(type.asType()), types.erasure(expected.asType()))) {
+            this.error(element, type.getQualifiedName() + " should implement " + interfaceName);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Matches like Class.getMethod, a public method with exactly the parameter types of the call.
+     */
+    private ExecutableElement findAction(TypeElement controller, FunctionCall call) {
+        Types types = this.processingEnv.getTypeUtils();
+        Class<?>[] paramTypes = call.getParamTypes() == null ? new Class<?>[0] : call.getParamTypes();
+        for (ExecutableElement method : ElementFilter.methodsIn(
+                this.processingEnv.getElementUtils().getAllMembers(controller))) {
+            if (!method.getSimpleName().contentEquals(call.getMethod())
+                    || !method.getModifiers().contains(Modifier.PUBLIC)
+                    || method.getParameters().size() != paramTypes.length)
+                continue;
+            boolean matches = true;
+            for (int i = 0; i < paramTypes.length && matches; i++) {
+                TypeMirror expected = this.mirror(paramTypes[i]);
+                matches = expected != null
+                        && types.isSameType(types.erasure(method.getParameters().get(i).asType()), expected);
+            }
+            if (matches)
+                return method;
+        }
+        return null;
+    }
+
+    private TypeMirror mirror(Class<?> type) {
+        Types types = this.processingEnv.getTypeUtils();
+        if (type.isPrimitive())
+            return types.getPrimitiveType(TypeKind.valueOf(type.getName().toUpperCase()));
+        TypeElement element = this.processingEnv.getElementUtils().getTypeElement(type.getCanonicalName());
+        return element == null ? null : types.erasure(element.asType());
+    }
+
+    /**
+     * Looks in the directory of the resources option, then on the source and class paths. The build should pass the
+     * option and declare the route file as an input of the compilation, so that the routes are generated again when
+     * it changes.
+     */
+    private byte[] read(String file) throws IOException {
+        String directory = this.processingEnv.getOptions().get(RESOURCES_OPTION);
+        if (directory != null) {
+            Path path = Paths.get(directory, file);
+            if (Files.exists(path))
+                return Files.readAllBytes(path);
+        }
+        for (StandardLocation location : new StandardLocation[]{StandardLocation.SOURCE_PATH, StandardLocation.CLASS_PATH}) {
+            try (InputStream in = this.processingEnv.getFiler().getResource(location, "", file).openInputStream()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1)
+                    out.write(buffer, 0, read);
+                return out.toByteArray();
+            } catch (IOException | RuntimeException e) {
+                // not there
+            }
+        }
+        throw new FileNotFoundException(file + ", set -A" + RESOURCES_OPTION + " to the directory of the route file");
+    }
+
+    private void error(Element element, String message) {
+        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,413 @@
+package com.riguz.forks.compiler;
+
+import com.riguz.forks.config.route.ClassIdentifier;
+import com.riguz.forks.config.route.FunctionCall;
+import com.riguz.forks.config.route.PathParam;
+import com.riguz.forks.config.route.PoolRule;
+import com.riguz.forks.config.route.RouteConfig;
+import com.riguz.forks.config.route.RouteOption;
+import com.riguz.forks.config.route.RouteRule;
+import com.riguz.forks.config.route.WebSocketRule;
+import com.riguz.forks.router.CompiledRoutes;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates the source of the CompiledRoutes of an application: the hash of the route file, the route configuration
+ * rebuilt with constructors, one invoker per route calling its action directly, and class literals for the classes
+ * named in the route file.
+ */
+class RoutesWriter {
+    static final String CLASS_NAME = "GeneratedRoutes";
+    private static final String COMPLETION_STAGE = "java.util.concurrent.CompletionStage";
+
+    private final ProcessingEnvironment environment;
+    private final String packageName;
+    private final RouteConfig config;
+    private final List<ExecutableElement> actions;
+    private final long sourceHash;
+    private final StringBuilder source = new StringBuilder();
+
+    RoutesWriter(ProcessingEnvironment environment, String packageName, RouteConfig config,
+                 List<ExecutableElement> actions, long sourceHash) {
+        this.environment = environment;
+        this.packageName = packageName;
+        this.config = config;
+        this.actions = actions;
+        this.sourceHash = sourceHash;
+    }
+
+    void write() throws IOException {
+        String qualifiedName = this.packageName.isEmpty() ? CLASS_NAME : this.packageName + "." + CLASS_NAME;
+        this.generate();
+        try (Writer writer = this.environment.getFiler().createSourceFile(qualifiedName).openWriter()) {
+            writer.write(this.source.toString());
+        }
+        try (Writer writer = this.environment.getFiler()
+                .createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + CompiledRoutes.class.getName())
+                .openWriter()) {
+            writer.write(qualifiedName + "\n");
+        }
+    }
+
+    String generate() {
+        if (!this.packageName.isEmpty())
+            this.line(0, "package " + this.packageName + ";").line(0, "");
+        this.line(0, "// Generated by " + RouteProcessor.class.getName() + " from the route file, do not edit.")
+                .line(0, "");
+        boolean java = false;
+        for (String name : this.imports()) {
+            if (!java && name.startsWith("java.")) {
+                this.line(0, "");
+                java = true;
+            }
+            this.line(0, "import " + name + ";");
+        }
+        this.line(0, "")
+                .line(0, "public final class " + CLASS_NAME + " implements CompiledRoutes {");
+        this.line(1, "@Override").line(1, "public long getSourceHash() {")
+                .line(2, String.format("return 0x%016xL;", this.sourceHash))
+                .line(1, "}")
+                .line(0, "");
+        this.writeRouteConfig();
+        this.writeActions();
+        this.writeTypes();
+        if (this.hasOptions())
+            this.line(1, "private static Map<String, Object> arguments(Object... keyValues) {")
+                    .line(2, "Map<String, Object> arguments = new LinkedHashMap<>();")
+                    .line(2, "for (int i = 0; i < keyValues.length; i += 2)")
+                    .line(3, "arguments.put((String) keyValues[i], keyValues[i + 1]);")
+                    .line(2, "return arguments;")
+                    .line(1, "}");
+        this.line(0, "}");
+        return this.source.toString();
+    }
+
+    /**
+     * Only what the generated class refers to, sorted so the java packages come last.
+     */
+    private Set<String> imports() {
+        Set<String> imports = new TreeSet<>();
+        imports.add(ClassIdentifier.class.getName());
+        imports.add(RouteConfig.class.getName());
+        imports.add("com.riguz.forks.router.CompiledAction");
+        imports.add(CompiledRoutes.class.getName());
+        imports.add("java.util.ArrayList");
+        imports.add("java.util.List");
+        if (!this.config.getRoutes().isEmpty()) {
+            imports.add(FunctionCall.class.getName());
+            imports.add(RouteRule.class.getName());
+            imports.add("java.util.Arrays");
+        }
+        for (RouteRule rule : this.config.getRoutes()) {
+            if (rule.getFunctionCall().getParams() != null)
+                imports.add(PathParam.class.getName());
+        }
+        if (this.hasOptions()) {
+            imports.add(RouteOption.class.getName());
+            imports.add("java.util.LinkedHashMap");
+            imports.add("java.util.Map");
+        }
+        for (RouteRule rule : this.config.getRoutes()) {
+            for (RouteOption option : rule.getOptions()) {
+                for (Object value : option.getArguments().values()) {
+                    if (hasDuration(value))
+                        imports.add(Duration.class.getName());
+                }
+            }
+        }
+        if (!this.config.getWebSockets().isEmpty())
+            imports.add(WebSocketRule.class.getName());
+        if (!this.config.getPools().isEmpty())
+            imports.add(PoolRule.class.getName());
+        if (!this.actions.isEmpty()) {
+            imports.add("com.riguz.forks.mvc.ActionInvoker");
+            imports.add("com.riguz.forks.mvc.ParameterBinder");
+            imports.add("com.riguz.forks.mvc.RequestContext");
+        }
+        return imports;
+    }
+
+    private boolean hasOptions() {
+        for (RouteRule rule : this.config.getRoutes()) {
+            if (!rule.getOptions().isEmpty())
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean hasDuration(Object value) {
+        if (value instanceof Duration)
+            return true;
+        if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                if (hasDuration(item))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeRouteConfig() {
+        this.line(1, "@Override").line(1, "public RouteConfig getRouteConfig() {");
+        this.line(2, "List<ClassIdentifier> controllers = new ArrayList<>();");
+        for (ClassIdentifier identifier : this.config.getControllers())
+            this.line(2, "controllers.add(" + classIdentifier(identifier) + ");");
+        this.line(2, "List<ClassIdentifier> filters = new ArrayList<>();");
+        for (ClassIdentifier identifier : this.config.getFilters())
+            this.line(2, "filters.add(" + classIdentifier(identifier) + ");");
+        // routes of a block share their options, loaders rely on it
+        Map<RouteOption, String> options = new IdentityHashMap<>();
+        for (RouteRule rule : this.config.getRoutes()) {
+            for (RouteOption option : rule.getOptions()) {
+                if (options.containsKey(option))
+                    continue;
+                String name = "option" + options.size();
+                options.put(option, name);
+                StringBuilder arguments = new StringBuilder();
+                for (Map.Entry<String, Object> argument : option.getArguments().entrySet()) {
+                    if (arguments.length() > 0)
+                        arguments.append(", ");
+                    arguments.append(literal(argument.getKey())).append(", ").append(value(argument.getValue()));
+                }
+                this.line(2, "RouteOption " + name + " = new RouteOption(" + literal(option.getName())
+                        + ", arguments(" + arguments + "));");
+            }
+        }
+        // lists left empty are created in place, so their element types need no import
+        String routes = "new ArrayList<>()";
+        if (!this.config.getRoutes().isEmpty()) {
+            routes = "routes";
+            this.line(2, "List<RouteRule> routes = new ArrayList<>();");
+        }
+        for (RouteRule rule : this.config.getRoutes()) {
+            StringBuilder ruleOptions = new StringBuilder();
+            for (RouteOption option : rule.getOptions())
+                ruleOptions.append(ruleOptions.length() > 0 ? ", " : "").append(options.get(option));
+            this.line(2, "routes.add(new RouteRule(" + strings(rule.getFilters()) + ", "
+                    + literal(rule.getMethod()) + ", " + literal(rule.getPattern()) + ", "
+                    + functionCall(rule.getFunctionCall()) + ", "
+                    + (ruleOptions.length() == 0 ? "new ArrayList<>()" : "Arrays.asList(" + ruleOptions + ")")
+                    + "));");
+        }
+        String webSockets = "new ArrayList<>()";
+        if (!this.config.getWebSockets().isEmpty()) {
+            webSockets = "webSockets";
+            this.line(2, "List<WebSocketRule> webSockets = new ArrayList<>();");
+        }
+        for (WebSocketRule rule : this.config.getWebSockets())
+            this.line(2, "webSockets.add(new WebSocketRule(" + literal(rule.getPattern()) + ", "
+                    + literal(rule.getController()) + "));");
+        String pools = "new ArrayList<>()";
+        if (!this.config.getPools().isEmpty()) {
+            pools = "pools";
+            this.line(2, "List<PoolRule> pools = new ArrayList<>();");
+        }
+        for (PoolRule pool : this.config.getPools())
+            this.line(2, "pools.add(new PoolRule(" + literal(pool.getName()) + ", " + pool.getSize() + ", "
+                    + pool.getQueue() + "));");
+        this.line(2, "return new RouteConfig(controllers, filters, " + routes + ", " + webSockets + ", " + pools
+                + ");")
+                .line(1, "}")
+                .line(0, "");
+    }
+
+    private void writeActions() {
+        this.line(1, "@Override").line(1, "public CompiledAction[] getActions() {");
+        this.line(2, "return new CompiledAction[]{");
+        for (int i = 0; i < this.actions.size(); i++) {
+            ExecutableElement action = this.actions.get(i);
+            String controller = this.erasure(action.getEnclosingElement().asType());
+            this.line(3, "new CompiledAction(" + controller + ".class, " + this.resultType(action) + ".class, "
+                    + "new ActionInvoker() {");
+            this.line(4, "@Override")
+                    .line(4, "public Object invoke(Object controller, Object... arguments) throws Throwable {")
+                    .line(5, this.call(action, "arguments[%d]"))
+                    .line(4, "}")
+                    .line(0, "")
+                    .line(4, "@Override")
+                    .line(4, "public Object invoke(Object controller, ParameterBinder[] binders, "
+                            + "RequestContext context) throws Throwable {")
+                    .line(5, this.call(action, "binders[%d].bind(context)"))
+                    .line(4, "}")
+                    .line(3, "})" + (i < this.actions.size() - 1 ? "," : ""));
+        }
+        this.line(2, "};").line(1, "}").line(0, "");
+    }
+
+    private void writeTypes() {
+        Set<String> classNames = new LinkedHashSet<>();
+        for (ClassIdentifier identifier : this.config.getControllers())
+            classNames.add(identifier.getClassName());
+        for (ClassIdentifier identifier : this.config.getFilters())
+            classNames.add(identifier.getClassName());
+        this.line(1, "@Override").line(1, "public Class<?> getType(String className) {");
+        this.line(2, "switch (className) {");
+        for (String className : classNames) {
+            TypeElement type = this.environment.getElementUtils().getTypeElement(className);
+            this.line(3, "case " + literal(className) + ":")
+                    .line(4, "return " + type.getQualifiedName() + ".class;");
+        }
+        this.line(3, "default:").line(4, "return null;").line(2, "}").line(1, "}").line(0, "");
+    }
+
+    /**
+     * A statement calling the action with each argument cast to its parameter type, returning what it returned.
+     */
+    private String call(ExecutableElement action, String argument) {
+        StringBuilder call = new StringBuilder();
+        if (action.getModifiers().contains(Modifier.STATIC))
+            call.append(this.erasure(action.getEnclosingElement().asType()));
+        else
+            call.append("((").append(this.erasure(action.getEnclosingElement().asType())).append(") controller)");
+        call.append('.').append(action.getSimpleName()).append('(');
+        for (int i = 0; i < action.getParameters().size(); i++) {
+            if (i > 0)
+                call.append(", ");
+            call.append('(').append(this.boxed(action.getParameters().get(i).asType())).append(") ")
+                    .append(String.format(argument, i));
+        }
+        call.append(')');
+        if (action.getReturnType().getKind() == TypeKind.VOID)
+            return call + ";\n" + indent(5) + "return null;";
+        return "return " + call + ";";
+    }
+
+    /**
+     * The declared return type, or the type of the value for actions returning a CompletionStage.
+     */
+    private String resultType(ExecutableElement action) {
+        Types types = this.environment.getTypeUtils();
+        TypeMirror returned = action.getReturnType();
+        TypeElement stage = this.environment.getElementUtils().getTypeElement(COMPLETION_STAGE);
+        if (returned.getKind() == TypeKind.DECLARED
+                && types.isAssignable(types.erasure(returned), types.erasure(stage.asType()))) {
+            List<? extends TypeMirror> arguments = ((DeclaredType) returned).getTypeArguments();
+            return arguments.size() == 1 && arguments.get(0).getKind() == TypeKind.DECLARED
+                    ? this.erasure(arguments.get(0)) : "Object";
+        }
+        return this.erasure(returned);
+    }
+
+    private String boxed(TypeMirror type) {
+        if (type.getKind().isPrimitive())
+            return this.environment.getTypeUtils().boxedClass((PrimitiveType) type)
+                    .getQualifiedName().toString();
+        return this.erasure(type);
+    }
+
+    private String erasure(TypeMirror type) {
+        return this.environment.getTypeUtils().erasure(type).toString();
+    }
+
+    private static String classIdentifier(ClassIdentifier identifier) {
+        String className = identifier.getClassName();
+        int dot = className.lastIndexOf('.');
+        return "ClassIdentifier.of(" + literal(className.substring(0, dot)) + ", "
+                + literal(className.substring(dot + 1)) + ", " + literal(identifier.getAlias()) + ")";
+    }
+
+    private static String functionCall(FunctionCall call) {
+        String params = "null";
+        if (call.getParams() != null) {
+            StringBuilder array = new StringBuilder("new PathParam[]{");
+            PathParam[] pathParams = call.getParams();
+            for (int i = 0; i < pathParams.length; i++) {
+                PathParam param = pathParams[i];
+                array.append(i > 0 ? ", " : "").append("new PathParam(").append(literal(param.getName()))
+                        .append(", ").append(param.getType().getCanonicalName()).append(".class, PathParam.Source.")
+                        .append(param.getSource().name()).append(", ").append(literal(param.getKey()))
+                        .append(", ").append(param.isOptional()).append(", ")
+                        .append(param.getDefaultValue() == null ? "null" : literal(param.getDefaultValue()))
+                        .append(")");
+            }
+            params = array.append("}").toString();
+        }
+        return "new FunctionCall(" + literal(call.getController()) + ", " + literal(call.getMethod()) + ", "
+                + params + ")";
+    }
+
+    private static String value(Object value) {
+        if (value instanceof Long)
+            return "Long.valueOf(" + value + "L)";
+        if (value instanceof Duration)
+            return "Duration.ofNanos(" + ((Duration) value).toNanos() + "L)";
+        if (value instanceof List) {
+            StringBuilder list = new StringBuilder("Arrays.<Object>asList(");
+            List<?> values = (List<?>) value;
+            for (int i = 0; i < values.size(); i++)
+                list.append(i > 0 ? ", " : "").append(value(values.get(i)));
+            return list.append(")").toString();
+        }
+        return literal(String.valueOf(value));
+    }
+
+    private static String strings(List<String> values) {
+        StringBuilder list = new StringBuilder("Arrays.<String>asList(");
+        for (int i = 0; i < values.size(); i++)
+            list.append(i > 0 ? ", " : "").append(literal(values.get(i)));
+        return list.append(")").toString();
+    }
+
+    static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    literal.append("\\\"");
+                    break;
+                case '\\':
+                    literal.append("\\\\");
+                    break;
+                case '\n':
+                    literal.append("\\n");
+                    break;
+                case '\r':
+                    literal.append("\\r");
+                    break;
+                case '\t':
+                    literal.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e)
+                        literal.append(String.format("\\u%04x", (int) c));
+                    else
+                        literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private RoutesWriter line(int depth, String line) {
+        if (!line.isEmpty())
+            this.source.append(indent(depth)).append(line);
+        this.source.append('\n');
+        return this;
+    }
+
+    private static String indent(int depth) {
+        StringBuilder indent = new StringBuilder();
+        for (int i = 0; i < depth; i++)
+            indent.append("    ");
+        return indent.toString();
+    }
+}
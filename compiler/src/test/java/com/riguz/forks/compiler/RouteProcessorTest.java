@@ -0,0 +1,210 @@
+package com.riguz.forks.compiler;
+
+import com.riguz.commons.encrypt.XxHash64;
+import com.riguz.forks.config.route.RouteConfig;
+import com.riguz.forks.config.route.RouteRule;
+import com.riguz.forks.mvc.ParameterBinder;
+import com.riguz.forks.router.CompiledAction;
+import com.riguz.forks.router.CompiledRouteLoader;
+import com.riguz.forks.router.CompiledRoutes;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RouteProcessorTest {
+    private static final String CONTROLLER = "package com.example;\n"
+            + "import java.util.List;\n"
+            + "import java.util.concurrent.CompletableFuture;\n"
+            + "public class HelloController {\n"
+            + "    public String hello() { return \"hello\"; }\n"
+            + "    public int add(int a, long b) { return a + (int) b; }\n"
+            + "    public void ping() { }\n"
+            + "    public CompletableFuture<List<String>> later() { return null; }\n"
+            + "}\n";
+    private static final String APPLICATION = "package com.example;\n"
+            + "@com.riguz.forks.router.CompileRoutes\n"
+            + "public class App {\n"
+            + "}\n";
+    private static final String ROUTES = "controllers {\n"
+            + "package com.example\n"
+            + "HelloController\n"
+            + "}\n"
+            + "\n"
+            + "routes default {\n"
+            + "get  /hello              HelloController.hello()\n"
+            + "get  /add/:a             HelloController.add(a: Integer, query b: Long = 2)\n"
+            + "}\n"
+            + "\n"
+            + "routes limited @rateLimit(rate=10, per=1s) {\n"
+            + "post /ping               HelloController.ping()\n"
+            + "get  /later              HelloController.later()\n"
+            + "}\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private Path sources;
+    private Path resources;
+    private Path classes;
+
+    @Before
+    public void init() throws IOException {
+        this.sources = this.folder.newFolder("sources").toPath();
+        this.resources = this.folder.newFolder("resources").toPath();
+        this.classes = this.folder.newFolder("classes").toPath();
+        Files.createDirectories(this.sources.resolve("com/example"));
+        Files.write(this.sources.resolve("com/example/HelloController.java"), CONTROLLER.getBytes(StandardCharsets.UTF_8));
+        Files.write(this.sources.resolve("com/example/App.java"), APPLICATION.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<Diagnostic<? extends JavaFileObject>> compile(String routes) throws IOException {
+        Files.write(this.resources.resolve("route.cf"), routes.getBytes(StandardCharsets.UTF_8));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            List<String> options = new ArrayList<>(Arrays.asList(
+                    "-classpath", System.getProperty("java.class.path"),
+                    "-d", this.classes.toString(),
+                    "-A" + RouteProcessor.RESOURCES_OPTION + "=" + this.resources));
+            JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics, options, null,
+                    files.getJavaFileObjects(this.sources.resolve("com/example/HelloController.java").toFile(),
+                            this.sources.resolve("com/example/App.java").toFile()));
+            task.setProcessors(Collections.singletonList(new RouteProcessor()));
+            task.call();
+        }
+        return diagnostics.getDiagnostics();
+    }
+
+    private static boolean hasError(List<Diagnostic<? extends JavaFileObject>> diagnostics, String message) {
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR && diagnostic.getMessage(null).contains(message))
+                return true;
+        }
+        return false;
+    }
+
+    @Test
+    public void generateRoutes() throws Throwable {
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = this.compile(ROUTES);
+        assertFalse(diagnostics.toString(), hasError(diagnostics, ""));
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{this.classes.toUri().toURL()},
+                getClass().getClassLoader())) {
+            CompiledRoutes routes = ServiceLoader.load(CompiledRoutes.class, loader).iterator().next();
+            assertEquals("com.example.GeneratedRoutes", routes.getClass().getName());
+            assertEquals(XxHash64.hash(ROUTES.getBytes(StandardCharsets.UTF_8)), routes.getSourceHash());
+
+            RouteConfig config = routes.getRouteConfig();
+            assertEquals(4, config.getRoutes().size());
+            RouteRule ping = config.getRoutes().get(2);
+            assertEquals("/ping", ping.getPattern());
+            assertEquals(10L, ping.getOption("rateLimit").getLong("rate", 0));
+            assertSame(ping.getOption("rateLimit"), config.getRoutes().get(3).getOption("rateLimit"));
+            assertEquals("2", config.getRoutes().get(1).getFunctionCall().getParams()[1].getDefaultValue());
+
+            Class<?> controllerClass = routes.getType("com.example.HelloController");
+            assertEquals(loader.loadClass("com.example.HelloController"), controllerClass);
+            assertNull(routes.getType("com.example.Missing"));
+
+            Object controller = controllerClass.getDeclaredConstructor().newInstance();
+            CompiledAction[] actions = routes.getActions();
+            assertEquals(String.class, actions[0].getResultType());
+            assertEquals(int.class, actions[1].getResultType());
+            assertEquals(void.class, actions[2].getResultType());
+            assertEquals(List.class, actions[3].getResultType());
+            assertEquals("hello", actions[0].getInvoker().invoke(controller));
+            assertEquals(5, actions[1].getInvoker().invoke(controller, 2, 3L));
+            ParameterBinder[] binders = {context -> 40, context -> 2L};
+            assertEquals(42, actions[1].getInvoker().invoke(controller, binders, null));
+            assertNull(actions[2].getInvoker().invoke(controller));
+        }
+        String source = this.generatedSource();
+        assertTrue(source.contains("import java.time.Duration;"));
+        assertTrue(source.contains("private static Map<String, Object> arguments("));
+        assertFalse(source.contains("PoolRule"));
+        assertFalse(source.contains("WebSocketRule"));
+    }
+
+    @Test
+    public void skipRoutesCompiledFromAnotherFile() throws IOException {
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = this.compile(ROUTES);
+        assertFalse(diagnostics.toString(), hasError(diagnostics, ""));
+        Thread thread = Thread.currentThread();
+        ClassLoader original = thread.getContextClassLoader();
+        // looks in the application first, the class path of the tests may hold other route files
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{this.classes.toUri().toURL(),
+                this.resources.toUri().toURL()}, getClass().getClassLoader()) {
+            @Override
+            public URL getResource(String name) {
+                URL found = this.findResource(name);
+                return found == null ? super.getResource(name) : found;
+            }
+        }) {
+            thread.setContextClassLoader(loader);
+            assertNotNull(CompiledRouteLoader.find("route.cf"));
+            Files.write(this.resources.resolve("route.cf"), ROUTES.replace("/hello", "/hi")
+                    .getBytes(StandardCharsets.UTF_8));
+            assertNull(CompiledRouteLoader.find("route.cf"));
+        } finally {
+            thread.setContextClassLoader(original);
+        }
+    }
+
+    @Test
+    public void importOnlyWhatIsUsed() throws IOException {
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = this.compile("controllers {\n"
+                + "package com.example\n"
+                + "HelloController\n"
+                + "}\n"
+                + "\n"
+                + "routes default {\n"
+                + "get  /hello              HelloController.hello()\n"
+                + "}\n");
+        assertFalse(diagnostics.toString(), hasError(diagnostics, ""));
+        String source = this.generatedSource();
+        assertFalse(source.contains("Duration"));
+        assertFalse(source.contains("RouteOption"));
+        assertFalse(source.contains("PathParam"));
+        assertFalse(source.contains("Map"));
+        assertFalse(source.contains("arguments("));
+    }
+
+    private String generatedSource() throws IOException {
+        return new String(Files.readAllBytes(this.classes.resolve("com/example/GeneratedRoutes.java")),
+                StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void rejectMissingActions() throws IOException {
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = this.compile(ROUTES.replace("hello()", "bye()")
+                .replace("add(a: Integer", "add(a: String"));
+        assertTrue(diagnostics.toString(), hasError(diagnostics, "Action not found:GET /hello"));
+        assertTrue(diagnostics.toString(), hasError(diagnostics, "Action not found:GET /add/:a"));
+        assertFalse(new File(this.classes.toFile(), "com/example/GeneratedRoutes.class").exists());
+    }
+}
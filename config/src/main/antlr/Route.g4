@@ -4,6 +4,7 @@ grammar Route;
 routeConfig
     : (controllers)+
       (filters)*
+      (pools)*
       (routes)+
       EOF
     ;
@@ -17,6 +18,14 @@ filters
         classNames
       '}'
     ;
+pools
+    : POOLS '{'
+        pool*
+      '}'
+    ;
+pool
+    : IDENTIFIER '(' optionArgument (',' optionArgument)* ')'
+    ;
 classNames
     : packageName
       (classIdentifier )+
@@ -32,13 +41,29 @@ applyFilters
     : ('+' IDENTIFIER )+
     ;
 routes
-    : ROUTES IDENTIFIER? '{'
+    : ROUTES IDENTIFIER? routeOption* '{'
         applyFilters?
-        (route)*
+        (route | webSocketRoute)*
       '}'
     ;
 route
-    : methods pattern functionCall
+    : routeOption* methods pattern functionCall
+    ;
+webSocketRoute
+    : WEBSOCKET pattern IDENTIFIER
+    ;
+routeOption
+    : '@' IDENTIFIER ('(' (optionArgument (',' optionArgument)*)? ')')?
+    ;
+optionArgument
+    : (IDENTIFIER '=')? optionValue
+    ;
+optionValue
+    : NUMBER
+    | DURATION
+    | IDENTIFIER
+    | QUOTED
+    | '[' (optionValue (',' optionValue)*)? ']'
     ;
 methods
     : GET | POST | PUT | PATCH | DELETE
@@ -53,7 +78,18 @@ functionCall
     : FUNCTION params? ')'
     ;
 params
-    : (IDENTIFIER ':' pathParamTypes)(',' IDENTIFIER ':' pathParamTypes)*
+    : param (',' param)*
+    ;
+param
+    : paramSource? IDENTIFIER ':' pathParamTypes (optional='?')? ('=' paramDefault)?
+    ;
+paramSource
+    : IDENTIFIER ('(' QUOTED ')')?
+    ;
+paramDefault
+    : NUMBER
+    | QUOTED
+    | IDENTIFIER
     ;
 
 pathParamTypes
@@ -64,6 +100,7 @@ pathParamTypes
 CONTROLLERS: 'controllers';
 FILTERS    : 'filters';
 ROUTES     : 'routes';
+POOLS      : 'pools';
 PACKAGE    : 'package';
 
 GET   : 'get';
@@ -71,11 +108,15 @@ POST  : 'post';
 PUT   : 'put';
 DELETE: 'delete';
 PATCH : 'patch';
+WEBSOCKET: 'ws';
 
 INT   : 'Integer';
 LONG  : 'Long';
 STRING: 'String';
 
+DURATION     : [0-9]+ ('ms' | 's' | 'm' | 'h');
+NUMBER       : [0-9]+;
+QUOTED       : '"' ~["\r\n]* '"';
 IDENTIFIER   : [a-zA-Z_][a-zA-Z_0-9]*;
 PACKAGE_NAME : IDENTIFIER ('.' IDENTIFIER)*;
 FUNCTION     : IDENTIFIER '.' IDENTIFIER '(';
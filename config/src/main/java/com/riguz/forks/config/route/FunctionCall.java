@@ -8,10 +8,12 @@ public class FunctionCall {
     private final String method;
     private final String[] paramNames;
     private final Class<?>[] paramTypes;
+    private final PathParam[] params;
 
     public FunctionCall(String controller, String method, PathParam[] params) {
         this.controller = controller;
         this.method = method;
+        this.params = params;
         if (params == null) {
             this.paramNames = null;
             this.paramTypes = null;
@@ -37,6 +39,10 @@ public class FunctionCall {
         return paramTypes;
     }
 
+    public PathParam[] getParams() {
+        return params;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -1,12 +1,34 @@
 package com.riguz.forks.config.route;
 
+/**
+ * A parameter of an action. Path parameters are written {@code id: Long}, query and header parameters name their
+ * source first, optionally with the name of the query parameter or header when it differs, e.g.
+ * {@code query page: Integer = 1}, {@code query q: String?} or {@code header("X-Api-Key") key: String}.
+ * Optional parameters without a default are passed as null, so their type is boxed.
+ */
 public class PathParam {
+    public enum Source {
+        PATH, QUERY, HEADER
+    }
+
     private final String name;
     private final Class<?> type;
+    private final Source source;
+    private final String key;
+    private final boolean optional;
+    private final String defaultValue;
 
     public PathParam(String name, Class<?> type) {
+        this(name, type, Source.PATH, name, false, null);
+    }
+
+    public PathParam(String name, Class<?> type, Source source, String key, boolean optional, String defaultValue) {
         this.name = name;
         this.type = type;
+        this.source = source;
+        this.key = key;
+        this.optional = optional;
+        this.defaultValue = defaultValue;
     }
 
     public String getName() {
@@ -16,4 +38,23 @@ public class PathParam {
     public Class<?> getType() {
         return type;
     }
+
+    public Source getSource() {
+        return source;
+    }
+
+    /**
+     * Name of the path variable, query parameter or header the value is taken from.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public boolean isOptional() {
+        return optional;
+    }
+
+    public String getDefaultValue() {
+        return defaultValue;
+    }
 }
@@ -0,0 +1,38 @@
+package com.riguz.forks.config.route;
+
+/**
+ * A named executor pool declared in a pools block as {@code name(size=4, queue=16)}, routes pick it with
+ * {@code @pool(name)}. A queue of 0 hands tasks over to idle threads only.
+ */
+public class PoolRule {
+    private final String name;
+    private final int size;
+    private final int queue;
+
+    public PoolRule(String name, int size, int queue) {
+        this.name = name;
+        this.size = size;
+        this.queue = queue;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getQueue() {
+        return queue;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolRule{" +
+                "name='" + name + '\'' +
+                ", size=" + size +
+                ", queue=" + queue +
+                '}';
+    }
+}
@@ -7,11 +7,30 @@ public class RouteConfig {
     private List<ClassIdentifier> controllers = Collections.emptyList();
     private List<ClassIdentifier> filters = Collections.emptyList();
     private List<RouteRule> routes = Collections.emptyList();
+    private List<WebSocketRule> webSockets = Collections.emptyList();
+    private List<PoolRule> pools = Collections.emptyList();
 
     public RouteConfig(List<ClassIdentifier> controllers, List<ClassIdentifier> filters, List<RouteRule> routes) {
+        this(controllers, filters, routes, Collections.emptyList());
+    }
+
+    public RouteConfig(List<ClassIdentifier> controllers,
+                       List<ClassIdentifier> filters,
+                       List<RouteRule> routes,
+                       List<WebSocketRule> webSockets) {
+        this(controllers, filters, routes, webSockets, Collections.emptyList());
+    }
+
+    public RouteConfig(List<ClassIdentifier> controllers,
+                       List<ClassIdentifier> filters,
+                       List<RouteRule> routes,
+                       List<WebSocketRule> webSockets,
+                       List<PoolRule> pools) {
         this.controllers = Collections.unmodifiableList(controllers);
         this.filters = Collections.unmodifiableList(filters);
         this.routes = Collections.unmodifiableList(routes);
+        this.webSockets = Collections.unmodifiableList(webSockets);
+        this.pools = Collections.unmodifiableList(pools);
     }
 
     public List<ClassIdentifier> getControllers() {
@@ -25,4 +44,12 @@ public class RouteConfig {
     public List<RouteRule> getRoutes() {
         return routes;
     }
+
+    public List<WebSocketRule> getWebSockets() {
+        return webSockets;
+    }
+
+    public List<PoolRule> getPools() {
+        return pools;
+    }
 }
@@ -0,0 +1,312 @@
+package com.riguz.forks.config.route;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary form of a parsed RouteConfig, read back without the lexer and parser. The header carries two
+ * hashes given by the caller, telling which inputs the snapshot was taken from. Options shared by the routes of a
+ * block are written once and stay shared when read.
+ */
+public final class RouteConfigSnapshot {
+    private static final int MAGIC = 0x464b5253;
+    private static final int VERSION = 1;
+    private static final int NULL = -1;
+    private static final byte LONG = 0;
+    private static final byte DURATION = 1;
+    private static final byte STRING = 2;
+    private static final byte LIST = 3;
+
+    private final long sourceHash;
+    private final long classesHash;
+    private final RouteConfig config;
+
+    public RouteConfigSnapshot(long sourceHash, long classesHash, RouteConfig config) {
+        this.sourceHash = sourceHash;
+        this.classesHash = classesHash;
+        this.config = config;
+    }
+
+    public long getSourceHash() {
+        return sourceHash;
+    }
+
+    public long getClassesHash() {
+        return classesHash;
+    }
+
+    public RouteConfig getConfig() {
+        return config;
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(this.sourceHash);
+            out.writeLong(this.classesHash);
+            writeClasses(out, this.config.getControllers());
+            writeClasses(out, this.config.getFilters());
+            Map<RouteOption, Integer> options = new IdentityHashMap<>();
+            List<RouteOption> ordered = new ArrayList<>();
+            for (RouteRule rule : this.config.getRoutes()) {
+                for (RouteOption option : rule.getOptions()) {
+                    if (!options.containsKey(option)) {
+                        options.put(option, ordered.size());
+                        ordered.add(option);
+                    }
+                }
+            }
+            out.writeInt(ordered.size());
+            for (RouteOption option : ordered) {
+                writeString(out, option.getName());
+                out.writeInt(option.getArguments().size());
+                for (Map.Entry<String, Object> argument : option.getArguments().entrySet()) {
+                    writeString(out, argument.getKey());
+                    writeValue(out, argument.getValue());
+                }
+            }
+            out.writeInt(this.config.getRoutes().size());
+            for (RouteRule rule : this.config.getRoutes()) {
+                writeStrings(out, rule.getFilters());
+                writeString(out, rule.getMethod());
+                writeString(out, rule.getPattern());
+                writeFunctionCall(out, rule.getFunctionCall());
+                out.writeInt(rule.getOptions().size());
+                for (RouteOption option : rule.getOptions())
+                    out.writeInt(options.get(option));
+            }
+            out.writeInt(this.config.getWebSockets().size());
+            for (WebSocketRule rule : this.config.getWebSockets()) {
+                writeString(out, rule.getPattern());
+                writeString(out, rule.getController());
+            }
+            out.writeInt(this.config.getPools().size());
+            for (PoolRule pool : this.config.getPools()) {
+                writeString(out, pool.getName());
+                out.writeInt(pool.getSize());
+                out.writeInt(pool.getQueue());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a snapshot, throwing IllegalArgumentException if the buffer doesn't hold one of this version.
+     */
+    public static RouteConfigSnapshot decode(ByteBuffer buffer) {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+                throw new IllegalArgumentException("Not a route snapshot of version " + VERSION);
+            long sourceHash = buffer.getLong();
+            long classesHash = buffer.getLong();
+            List<ClassIdentifier> controllers = readClasses(buffer);
+            List<ClassIdentifier> filters = readClasses(buffer);
+            RouteOption[] options = new RouteOption[readCount(buffer)];
+            for (int i = 0; i < options.length; i++) {
+                String name = readString(buffer);
+                int count = readCount(buffer);
+                Map<String, Object> arguments = new LinkedHashMap<>();
+                for (int j = 0; j < count; j++)
+                    arguments.put(readString(buffer), readValue(buffer));
+                options[i] = new RouteOption(name, arguments);
+            }
+            int routeCount = readCount(buffer);
+            List<RouteRule> routes = new ArrayList<>(routeCount);
+            for (int i = 0; i < routeCount; i++) {
+                List<String> ruleFilters = readStrings(buffer);
+                String method = readString(buffer);
+                String pattern = readString(buffer);
+                FunctionCall functionCall = readFunctionCall(buffer);
+                int optionCount = readCount(buffer);
+                List<RouteOption> ruleOptions = new ArrayList<>(optionCount);
+                for (int j = 0; j < optionCount; j++)
+                    ruleOptions.add(options[buffer.getInt()]);
+                routes.add(new RouteRule(ruleFilters, method, pattern, functionCall, ruleOptions));
+            }
+            int webSocketCount = readCount(buffer);
+            List<WebSocketRule> webSockets = new ArrayList<>(webSocketCount);
+            for (int i = 0; i < webSocketCount; i++)
+                webSockets.add(new WebSocketRule(readString(buffer), readString(buffer)));
+            int poolCount = readCount(buffer);
+            List<PoolRule> pools = new ArrayList<>(poolCount);
+            for (int i = 0; i < poolCount; i++)
+                pools.add(new PoolRule(readString(buffer), buffer.getInt(), buffer.getInt()));
+            return new RouteConfigSnapshot(sourceHash, classesHash,
+                    new RouteConfig(controllers, filters, routes, webSockets, pools));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Truncated route snapshot", e);
+        }
+    }
+
+    private static int readCount(ByteBuffer buffer) {
+        return checkCount(buffer.getInt(), buffer);
+    }
+
+    /**
+     * Every element takes at least one byte, a count beyond the bytes left comes from a corrupt snapshot and would
+     * otherwise allocate up to gigabytes before the read fails.
+     */
+    private static int checkCount(int count, ByteBuffer buffer) {
+        if (count < 0 || count > buffer.remaining())
+            throw new IllegalArgumentException("Corrupt route snapshot, count out of range:" + count);
+        return count;
+    }
+
+    private static void writeClasses(DataOutputStream out, List<ClassIdentifier> classes) throws IOException {
+        out.writeInt(classes.size());
+        for (ClassIdentifier identifier : classes) {
+            writeString(out, identifier.getClassName());
+            writeString(out, identifier.getAlias());
+        }
+    }
+
+    private static List<ClassIdentifier> readClasses(ByteBuffer buffer) {
+        int count = readCount(buffer);
+        List<ClassIdentifier> classes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String className = readString(buffer);
+            int dot = className.lastIndexOf('.');
+            classes.add(ClassIdentifier.of(className.substring(0, dot), className.substring(dot + 1),
+                    readString(buffer)));
+        }
+        return classes;
+    }
+
+    private static void writeFunctionCall(DataOutputStream out, FunctionCall call) throws IOException {
+        writeString(out, call.getController());
+        writeString(out, call.getMethod());
+        PathParam[] params = call.getParams();
+        out.writeInt(params == null ? NULL : params.length);
+        if (params == null)
+            return;
+        for (PathParam param : params) {
+            writeString(out, param.getName());
+            writeString(out, param.getType().getName());
+            out.writeByte(param.getSource().ordinal());
+            writeString(out, param.getKey());
+            out.writeBoolean(param.isOptional());
+            writeString(out, param.getDefaultValue());
+        }
+    }
+
+    private static FunctionCall readFunctionCall(ByteBuffer buffer) {
+        String controller = readString(buffer);
+        String method = readString(buffer);
+        int count = buffer.getInt();
+        PathParam[] params = null;
+        if (count != NULL) {
+            params = new PathParam[checkCount(count, buffer)];
+            for (int i = 0; i < count; i++) {
+                String name = readString(buffer);
+                Class<?> type = type(readString(buffer));
+                PathParam.Source source = PathParam.Source.values()[buffer.get()];
+                params[i] = new PathParam(name, type, source, readString(buffer), buffer.get() != 0,
+                        readString(buffer));
+            }
+        }
+        return new FunctionCall(controller, method, params);
+    }
+
+    private static Class<?> type(String name) {
+        switch (name) {
+            case "int":
+                return int.class;
+            case "long":
+                return long.class;
+            case "java.lang.Integer":
+                return Integer.class;
+            case "java.lang.Long":
+                return Long.class;
+            case "java.lang.String":
+                return String.class;
+            default:
+                throw new IllegalArgumentException("Unsupported parameter type:" + name);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Duration) {
+            out.writeByte(DURATION);
+            out.writeLong(((Duration) value).toNanos());
+        } else if (value instanceof List) {
+            out.writeByte(LIST);
+            List<?> values = (List<?>) value;
+            out.writeInt(values.size());
+            for (Object item : values)
+                writeValue(out, item);
+        } else {
+            out.writeByte(STRING);
+            writeString(out, String.valueOf(value));
+        }
+    }
+
+    private static Object readValue(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        switch (tag) {
+            case LONG:
+                return buffer.getLong();
+            case DURATION:
+                return Duration.ofNanos(buffer.getLong());
+            case STRING:
+                return readString(buffer);
+            case LIST:
+                int count = readCount(buffer);
+                List<Object> values = new ArrayList<>(count);
+                for (int i = 0; i < count; i++)
+                    values.add(readValue(buffer));
+                return values;
+            default:
+                throw new IllegalArgumentException("Unknown option value:" + tag);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values)
+            writeString(out, value);
+    }
+
+    private static List<String> readStrings(ByteBuffer buffer) {
+        int count = readCount(buffer);
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            values.add(readString(buffer));
+        return values;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL)
+            return null;
+        byte[] bytes = new byte[checkCount(length, buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,70 @@
+package com.riguz.forks.config.route;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An option attached to a routes block, written as {@code @name(key=value, ...)}. Values are Long for numbers,
+ * Duration for values like 5s or 100ms, String for identifiers and quoted strings and List for [a, b]. A value
+ * without a key is stored under "value".
+ */
+public class RouteOption {
+    public static final String DEFAULT_KEY = "value";
+
+    private final String name;
+    private final Map<String, Object> arguments;
+
+    public RouteOption(String name, Map<String, Object> arguments) {
+        this.name = name;
+        this.arguments = Collections.unmodifiableMap(arguments);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, Object> getArguments() {
+        return arguments;
+    }
+
+    public boolean has(String key) {
+        return this.arguments.containsKey(key);
+    }
+
+    public String getString(String key, String defaultValue) {
+        Object value = this.arguments.get(key);
+        return value == null ? defaultValue : value.toString();
+    }
+
+    public long getLong(String key, long defaultValue) {
+        Object value = this.get(key, Long.class);
+        return value == null ? defaultValue : (Long) value;
+    }
+
+    public Duration getDuration(String key, Duration defaultValue) {
+        Object value = this.get(key, Duration.class);
+        return value == null ? defaultValue : (Duration) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Object> getList(String key) {
+        Object value = this.arguments.get(key);
+        if (value == null)
+            return Collections.emptyList();
+        return value instanceof List ? (List<Object>) value : Collections.singletonList(value);
+    }
+
+    private Object get(String key, Class<?> type) {
+        Object value = this.arguments.get(key);
+        if (value != null && !type.isInstance(value))
+            throw new IllegalArgumentException("@" + this.name + "(" + key + ") should be a " + type.getSimpleName());
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "@" + name + arguments;
+    }
+}
@@ -8,12 +8,22 @@ public class RouteRule {
     private final String method;
     private final String pattern;
     private final FunctionCall functionCall;
+    private final List<RouteOption> options;
 
     public RouteRule(List<String> filters, String method, String pattern, FunctionCall functionCall) {
+        this(filters, method, pattern, functionCall, Collections.emptyList());
+    }
+
+    public RouteRule(List<String> filters,
+                     String method,
+                     String pattern,
+                     FunctionCall functionCall,
+                     List<RouteOption> options) {
         this.filters = Collections.unmodifiableList(filters);
         this.method = method;
         this.pattern = pattern;
         this.functionCall = functionCall;
+        this.options = Collections.unmodifiableList(options);
     }
 
     public List<String> getFilters() {
@@ -31,4 +41,16 @@ public class RouteRule {
     public FunctionCall getFunctionCall() {
         return functionCall;
     }
+
+    public List<RouteOption> getOptions() {
+        return options;
+    }
+
+    public RouteOption getOption(String name) {
+        for (RouteOption option : this.options) {
+            if (option.getName().equals(name))
+                return option;
+        }
+        return null;
+    }
 }
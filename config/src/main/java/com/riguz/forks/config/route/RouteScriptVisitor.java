@@ -5,9 +5,13 @@ import com.riguz.forks.antlr.RouteParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 public class RouteScriptVisitor extends RouteBaseVisitor<RouteConfig> {
     private static final Logger logger = LoggerFactory.getLogger(RouteScriptVisitor.class);
@@ -17,22 +21,32 @@ public class RouteScriptVisitor extends RouteBaseVisitor<RouteConfig> {
         final List<ClassIdentifier> controllers = new LinkedList<>();
         final List<ClassIdentifier> filters = new LinkedList<>();
         final List<RouteRule> rules = new LinkedList<>();
+        final List<WebSocketRule> webSockets = new LinkedList<>();
+        final List<PoolRule> pools = new LinkedList<>();
         ctx.controllers().forEach(controllersContext -> {
             controllers.addAll(controllersContext.accept(classNamesVisitor));
         });
         ctx.filters().forEach(filtersContext -> {
             filters.addAll(filtersContext.accept(classNamesVisitor));
         });
+        ctx.pools().forEach(poolsContext -> {
+            poolsContext.pool().forEach(poolContext -> pools.add(poolContext.accept(poolVisitor)));
+        });
         ctx.routes().forEach(routesContext -> {
             rules.addAll(routesContext.accept(routesVisitor));
+            routesContext.webSocketRoute().forEach(webSocketContext -> {
+                webSockets.add(webSocketContext.accept(webSocketVisitor));
+            });
         });
-        return new RouteConfig(controllers, filters, rules);
+        return new RouteConfig(controllers, filters, rules, webSockets, pools);
     }
 
     static final ClassNamesVisitor classNamesVisitor = new ClassNamesVisitor();
 
     static final PackageNameVisitor packageNameVisitor = new PackageNameVisitor();
     static final RoutesVisitor routesVisitor = new RoutesVisitor();
+    static final WebSocketRouteVisitor webSocketVisitor = new WebSocketRouteVisitor();
+    static final AppliedFiltersVisitor appliedFiltersVisitor = new AppliedFiltersVisitor();
 
     public static class ClassNamesVisitor extends RouteBaseVisitor<List<ClassIdentifier>> {
         @Override
@@ -98,7 +112,13 @@ public class RouteScriptVisitor extends RouteBaseVisitor<RouteConfig> {
         @Override
         public List<RouteRule> visitRoutes(RouteParser.RoutesContext ctx) {
             List<RouteRule> rules = new LinkedList<>();
-            RouteVisitor routeVisitor = new RouteVisitor();
+            List<RouteOption> options = new ArrayList<>();
+            ctx.routeOption().forEach(optionContext -> {
+                options.add(optionContext.accept(routeOptionVisitor));
+            });
+            List<String> filters = ctx.applyFilters() == null ?
+                    Collections.emptyList() : ctx.applyFilters().accept(appliedFiltersVisitor);
+            RouteVisitor routeVisitor = new RouteVisitor(options, filters);
             ctx.route().forEach(routeContext -> {
                 logger.debug("Visit rule:{}", routeContext.getText());
                 rules.add(routeContext.accept(routeVisitor));
@@ -107,17 +127,105 @@ public class RouteScriptVisitor extends RouteBaseVisitor<RouteConfig> {
         }
     }
 
+    static class WebSocketRouteVisitor extends RouteBaseVisitor<WebSocketRule> {
+        private final RouteVisitor.PatternVisitor patternVisitor = new RouteVisitor.PatternVisitor();
+
+        @Override
+        public WebSocketRule visitWebSocketRoute(RouteParser.WebSocketRouteContext ctx) {
+            String pattern = ctx.pattern().accept(patternVisitor);
+            return new WebSocketRule(pattern, ctx.IDENTIFIER().getText());
+        }
+    }
+
+    static final PoolVisitor poolVisitor = new PoolVisitor();
+
+    static class PoolVisitor extends RouteBaseVisitor<PoolRule> {
+        @Override
+        public PoolRule visitPool(RouteParser.PoolContext ctx) {
+            String name = ctx.IDENTIFIER().getText();
+            RouteOption option = new RouteOption(name, RouteOptionVisitor.arguments(ctx.optionArgument()));
+            long size = option.getLong("size", option.getLong(RouteOption.DEFAULT_KEY, 0));
+            if (size <= 0)
+                throw new IllegalArgumentException("Pool " + name + " requires a positive size");
+            return new PoolRule(name, (int) size, (int) option.getLong("queue", 0));
+        }
+    }
+
+    static final RouteOptionVisitor routeOptionVisitor = new RouteOptionVisitor();
+
+    static class RouteOptionVisitor extends RouteBaseVisitor<RouteOption> {
+        @Override
+        public RouteOption visitRouteOption(RouteParser.RouteOptionContext ctx) {
+            return new RouteOption(ctx.IDENTIFIER().getText(), arguments(ctx.optionArgument()));
+        }
+
+        static Map<String, Object> arguments(List<RouteParser.OptionArgumentContext> contexts) {
+            Map<String, Object> arguments = new LinkedHashMap<>();
+            contexts.forEach(argumentContext -> {
+                String key = argumentContext.IDENTIFIER() == null ?
+                        RouteOption.DEFAULT_KEY : argumentContext.IDENTIFIER().getText();
+                arguments.put(key, value(argumentContext.optionValue()));
+            });
+            return arguments;
+        }
+
+        private static Object value(RouteParser.OptionValueContext ctx) {
+            if (ctx.NUMBER() != null)
+                return Long.valueOf(ctx.NUMBER().getText());
+            if (ctx.DURATION() != null)
+                return duration(ctx.DURATION().getText());
+            if (ctx.IDENTIFIER() != null)
+                return ctx.IDENTIFIER().getText();
+            if (ctx.QUOTED() != null)
+                return unquote(ctx.QUOTED().getText());
+            List<Object> values = new ArrayList<>();
+            ctx.optionValue().forEach(valueContext -> values.add(value(valueContext)));
+            return values;
+        }
+
+        private static Duration duration(String text) {
+            if (text.endsWith("ms"))
+                return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+            long amount = Long.parseLong(text.substring(0, text.length() - 1));
+            switch (text.charAt(text.length() - 1)) {
+                case 's':
+                    return Duration.ofSeconds(amount);
+                case 'm':
+                    return Duration.ofMinutes(amount);
+                default:
+                    return Duration.ofHours(amount);
+            }
+        }
+    }
+
     static class RouteVisitor extends RouteBaseVisitor<RouteRule> {
         private final MethodVisitor methodVisitor = new MethodVisitor();
         private final PatternVisitor patternVisitor = new PatternVisitor();
         private final FunctionCallVisitor functionVisitor = new FunctionCallVisitor();
+        private final List<RouteOption> options;
+        private final List<String> filters;
+
+        RouteVisitor() {
+            this(Collections.emptyList(), Collections.emptyList());
+        }
+
+        RouteVisitor(List<RouteOption> options, List<String> filters) {
+            this.options = options;
+            this.filters = filters;
+        }
 
         @Override
         public RouteRule visitRoute(RouteParser.RouteContext ctx) {
             String method = ctx.methods().accept(methodVisitor);
             String pattern = ctx.pattern().accept(patternVisitor);
             FunctionCall functionCall = ctx.functionCall().accept(functionVisitor);
-            return new RouteRule(Collections.emptyList(), method, pattern, functionCall);
+            if (ctx.routeOption().isEmpty())
+                return new RouteRule(this.filters, method, pattern, functionCall, this.options);
+            // options of the route come first, so they override those of the block
+            List<RouteOption> options = new ArrayList<>();
+            ctx.routeOption().forEach(optionContext -> options.add(optionContext.accept(routeOptionVisitor)));
+            options.addAll(this.options);
+            return new RouteRule(this.filters, method, pattern, functionCall, options);
         }
 
         private class FunctionCallVisitor extends RouteBaseVisitor<FunctionCall> {
@@ -137,15 +245,46 @@ public class RouteScriptVisitor extends RouteBaseVisitor<RouteConfig> {
             private class ParamVisitor extends RouteBaseVisitor<PathParam[]> {
                 @Override
                 public PathParam[] visitParams(RouteParser.ParamsContext ctx) {
-                    PathParam[] params = new PathParam[ctx.pathParamTypes().size()];
-                    for (int i = 0; i < ctx.pathParamTypes().size(); i++) {
-                        String name = ctx.IDENTIFIER().get(i).getText();
-                        Class<?> type = this.getType(ctx.pathParamTypes().get(i));
-                        params[i] = new PathParam(name, type);
-                    }
+                    PathParam[] params = new PathParam[ctx.param().size()];
+                    for (int i = 0; i < params.length; i++)
+                        params[i] = this.getParam(ctx.param(i));
                     return params;
                 }
 
+                private PathParam getParam(RouteParser.ParamContext ctx) {
+                    String name = ctx.IDENTIFIER().getText();
+                    PathParam.Source source = PathParam.Source.PATH;
+                    String key = name;
+                    if (ctx.paramSource() != null) {
+                        String sourceName = ctx.paramSource().IDENTIFIER().getText();
+                        if (!sourceName.equals("path") && !sourceName.equals("query") && !sourceName.equals("header"))
+                            throw new IllegalArgumentException("Unknown source of parameter " + name + ":" + sourceName);
+                        source = PathParam.Source.valueOf(sourceName.toUpperCase());
+                        if (ctx.paramSource().QUOTED() != null)
+                            key = unquote(ctx.paramSource().QUOTED().getText());
+                    }
+                    boolean optional = ctx.optional != null;
+                    String defaultValue = null;
+                    if (ctx.paramDefault() != null) {
+                        defaultValue = ctx.paramDefault().QUOTED() != null ?
+                                unquote(ctx.paramDefault().QUOTED().getText()) : ctx.paramDefault().getText();
+                    }
+                    if (source == PathParam.Source.PATH && (optional || defaultValue != null))
+                        throw new IllegalArgumentException("Path parameter " + name + " can't be optional");
+                    Class<?> type = this.getType(ctx.pathParamTypes());
+                    if (optional && defaultValue == null)
+                        type = boxed(type);
+                    return new PathParam(name, type, source, key, optional || defaultValue != null, defaultValue);
+                }
+
+                private Class<?> boxed(Class<?> type) {
+                    if (type == int.class)
+                        return Integer.class;
+                    if (type == long.class)
+                        return Long.class;
+                    return type;
+                }
+
                 private Class<?> getType(RouteParser.PathParamTypesContext ctx) {
                     if (ctx.INT() != null)
                         return int.class;
@@ -158,7 +297,7 @@ public class RouteScriptVisitor extends RouteBaseVisitor<RouteConfig> {
             }
         }
 
-        private class PatternVisitor extends RouteBaseVisitor<String> {
+        static class PatternVisitor extends RouteBaseVisitor<String> {
             @Override
             public String visitPattern(RouteParser.PatternContext ctx) {
                 if (ctx.INDEX_PATH() != null)
@@ -201,4 +340,8 @@ public class RouteScriptVisitor extends RouteBaseVisitor<RouteConfig> {
             }
         }
     }
+
+    private static String unquote(String quoted) {
+        return quoted.substring(1, quoted.length() - 1);
+    }
 }
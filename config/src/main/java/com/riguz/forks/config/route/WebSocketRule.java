@@ -0,0 +1,27 @@
+package com.riguz.forks.config.route;
+
+public class WebSocketRule {
+    private final String pattern;
+    private final String controller;
+
+    public WebSocketRule(String pattern, String controller) {
+        this.pattern = pattern;
+        this.controller = controller;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public String getController() {
+        return controller;
+    }
+
+    @Override
+    public String toString() {
+        return "WebSocketRule{" +
+                "pattern='" + pattern + '\'' +
+                ", controller='" + controller + '\'' +
+                '}';
+    }
+}
@@ -3,10 +3,16 @@ package com.riguz.forks.config;
 import com.riguz.forks.config.route.*;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class RouteTest {
     final String controllers1 = "controllers admin{\n" +
@@ -82,4 +88,174 @@ public class RouteTest {
         assertEquals("/posts/:id", rules.get(1).getPattern());
         assertEquals("GET", rules.get(1).getMethod());
     }
+
+    @Test
+    public void loadWebSocketRoute() {
+        String cfg = controllers1 + "routes live {\n" +
+                "get /posts      PostUserController.getPosts()\n" +
+                "ws  /chat/:room ChatController\n" +
+                "}";
+        RouteConfig config = RouteParser.fromString(cfg).getRouteConfig();
+        assertEquals(1, config.getRoutes().size());
+        assertEquals(1, config.getWebSockets().size());
+        assertEquals("/chat/:room", config.getWebSockets().get(0).getPattern());
+        assertEquals("ChatController", config.getWebSockets().get(0).getController());
+    }
+
+    @Test
+    public void loadRouteOptions() {
+        String cfg = controllers1 + "routes api @rateLimit(rate=100, per=1s, header=\"X-Api-Key\") @tags([a, b]) @cached {\n" +
+                "get /posts      PostUserController.getPosts()\n" +
+                "}" + route1;
+        List<RouteRule> rules = RouteParser.fromString(cfg).getRouteConfig().getRoutes();
+        assertEquals(3, rules.size());
+        assertEquals(3, rules.get(0).getOptions().size());
+        RouteOption rateLimit = rules.get(0).getOption("rateLimit");
+        assertEquals(100, rateLimit.getLong("rate", 0));
+        assertEquals(Duration.ofSeconds(1), rateLimit.getDuration("per", null));
+        assertEquals("X-Api-Key", rateLimit.getString("header", null));
+        assertEquals(Arrays.asList("a", "b"), rules.get(0).getOption("tags").getList(RouteOption.DEFAULT_KEY));
+        assertNotNull(rules.get(0).getOption("cached"));
+        assertEquals(0, rules.get(1).getOptions().size());
+    }
+
+    @Test
+    public void loadRouteLevelOptions() {
+        String cfg = controllers1 + "routes api @etag @rateLimit(10) {\n" +
+                "@etag(off) get /posts      PostUserController.getPosts()\n" +
+                "get /posts/:id  PostUserController.getPost(id: String)\n" +
+                "}";
+        List<RouteRule> rules = RouteParser.fromString(cfg).getRouteConfig().getRoutes();
+        assertEquals(3, rules.get(0).getOptions().size());
+        assertEquals("off", rules.get(0).getOption("etag").getString(RouteOption.DEFAULT_KEY, null));
+        assertEquals(2, rules.get(1).getOptions().size());
+        assertEquals(null, rules.get(1).getOption("etag").getString(RouteOption.DEFAULT_KEY, null));
+        assertSame(rules.get(0).getOption("rateLimit"), rules.get(1).getOption("rateLimit"));
+    }
+
+    @Test
+    public void loadPools() {
+        String cfg = controllers1 + "pools {\n" +
+                "reports(size=4, queue=16)\n" +
+                "fast(32)\n" +
+                "}\n" +
+                "routes api @pool(fast) {\n" +
+                "@pool(reports) get /posts PostUserController.getPosts()\n" +
+                "}";
+        RouteConfig config = RouteParser.fromString(cfg).getRouteConfig();
+        assertEquals(2, config.getPools().size());
+        PoolRule reports = config.getPools().get(0);
+        assertEquals("reports", reports.getName());
+        assertEquals(4, reports.getSize());
+        assertEquals(16, reports.getQueue());
+        assertEquals(32, config.getPools().get(1).getSize());
+        assertEquals(0, config.getPools().get(1).getQueue());
+        assertEquals("reports",
+                config.getRoutes().get(0).getOption("pool").getString(RouteOption.DEFAULT_KEY, null));
+    }
+
+    @Test
+    public void loadQueryAndHeaderParams() {
+        String cfg = controllers1 + "routes api {\n" +
+                "get /posts PostUserController.getPosts(query page: Integer = 1, query q: String?, " +
+                "query size: Long?, header(\"X-Api-Key\") key: String)\n" +
+                "}";
+        FunctionCall call = RouteParser.fromString(cfg).getRouteConfig().getRoutes().get(0).getFunctionCall();
+        PathParam[] params = call.getParams();
+        assertEquals(PathParam.Source.QUERY, params[0].getSource());
+        assertEquals(int.class, params[0].getType());
+        assertEquals("1", params[0].getDefaultValue());
+        assertTrue(params[1].isOptional());
+        assertEquals(Long.class, params[2].getType());
+        assertEquals(PathParam.Source.HEADER, params[3].getSource());
+        assertEquals("X-Api-Key", params[3].getKey());
+        assertEquals("key", params[3].getName());
+        assertFalse(params[3].isOptional());
+    }
+
+    @Test
+    public void loadAppliedFilters() {
+        String cfg = controllers1 + "filters {\n" +
+                "package com.riguz.forks.demo.filters\n" +
+                "AuthorizationFilter\n" +
+                "}\n" +
+                "routes api {\n" +
+                "+AuthorizationFilter\n" +
+                "get /posts PostUserController.getPosts()\n" +
+                "}\n" +
+                "routes guest {\n" +
+                "get /about PostUserController.about()\n" +
+                "}";
+        RouteConfig config = RouteParser.fromString(cfg).getRouteConfig();
+        assertEquals(1, config.getFilters().size());
+        assertEquals(Arrays.asList("AuthorizationFilter"), config.getRoutes().get(0).getFilters());
+        assertEquals(0, config.getRoutes().get(1).getFilters().size());
+    }
+
+    @Test
+    public void readSnapshot() {
+        String cfg = controllers1 + "filters {\n" +
+                "package com.riguz.forks.demo.filters\n" +
+                "AuthorizationFilter\n" +
+                "}\n" +
+                "pools {\n" +
+                "reports(size=4, queue=16)\n" +
+                "}\n" +
+                "routes api @rateLimit(rate=100, per=1s) @tags([a, b]) {\n" +
+                "+AuthorizationFilter\n" +
+                "@etag(off) get /posts PostUserController.getPosts(query page: Integer = 1, query q: String?, " +
+                "header(\"X-Api-Key\") key: String)\n" +
+                "get /posts/:id  PostUserController.getPost(id: Long)\n" +
+                "ws  /chat/:room ChatController\n" +
+                "}";
+        RouteConfig config = RouteParser.fromString(cfg).getRouteConfig();
+        byte[] bytes = new RouteConfigSnapshot(1L, 2L, config).encode();
+        RouteConfigSnapshot snapshot = RouteConfigSnapshot.decode(ByteBuffer.wrap(bytes));
+        assertEquals(1L, snapshot.getSourceHash());
+        assertEquals(2L, snapshot.getClassesHash());
+
+        RouteConfig read = snapshot.getConfig();
+        assertEquals(config.getControllers(), read.getControllers());
+        assertEquals(config.getFilters(), read.getFilters());
+        assertEquals(2, read.getRoutes().size());
+        RouteRule posts = read.getRoutes().get(0);
+        assertEquals(Arrays.asList("AuthorizationFilter"), posts.getFilters());
+        assertEquals("GET", posts.getMethod());
+        assertEquals("/posts", posts.getPattern());
+        assertEquals(config.getRoutes().get(0).getFunctionCall().toString(), posts.getFunctionCall().toString());
+        PathParam[] params = posts.getFunctionCall().getParams();
+        assertEquals(int.class, params[0].getType());
+        assertEquals(PathParam.Source.QUERY, params[0].getSource());
+        assertEquals("1", params[0].getDefaultValue());
+        assertTrue(params[1].isOptional());
+        assertEquals("X-Api-Key", params[2].getKey());
+        assertEquals(long.class, read.getRoutes().get(1).getFunctionCall().getParams()[0].getType());
+
+        RouteOption rateLimit = posts.getOption("rateLimit");
+        assertEquals(100, rateLimit.getLong("rate", 0));
+        assertEquals(Duration.ofSeconds(1), rateLimit.getDuration("per", null));
+        assertEquals(Arrays.asList("a", "b"), posts.getOption("tags").getList(RouteOption.DEFAULT_KEY));
+        assertEquals("off", posts.getOption("etag").getString(RouteOption.DEFAULT_KEY, null));
+        assertSame(rateLimit, read.getRoutes().get(1).getOption("rateLimit"));
+
+        assertEquals("/chat/:room", read.getWebSockets().get(0).getPattern());
+        assertEquals("ChatController", read.getWebSockets().get(0).getController());
+        assertEquals(16, read.getPools().get(0).getQueue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectTruncatedSnapshot() {
+        byte[] bytes = new RouteConfigSnapshot(1L, 2L, RouteParser.fromString(controllers1 + route1).getRouteConfig())
+                .encode();
+        RouteConfigSnapshot.decode(ByteBuffer.wrap(bytes, 0, bytes.length - 3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectOversizedStringInSnapshot() {
+        byte[] bytes = new RouteConfigSnapshot(1L, 2L, RouteParser.fromString(controllers1 + route1).getRouteConfig())
+                .encode();
+        // the length of the first controller name, right after the header and the controller count
+        ByteBuffer.wrap(bytes).putInt(28, Integer.MAX_VALUE);
+        RouteConfigSnapshot.decode(ByteBuffer.wrap(bytes));
+    }
 }
@@ -2,7 +2,9 @@ package com.riguz.demo;
 
 import com.riguz.forks.DefaultConfig;
 import com.riguz.forks.Forks;
+import com.riguz.forks.router.CompileRoutes;
 
+@CompileRoutes
 public class App {
 
     public static void main(String args[]) {
@@ -1,29 +1,58 @@
 package com.riguz.forks;
 
+import com.riguz.forks.accesslog.AccessLog;
+import com.riguz.forks.codec.Serializers;
 import com.riguz.forks.exceptions.InitializeException;
+import com.riguz.forks.http.CompositeServer;
 import com.riguz.forks.http.NetworkServer;
 import com.riguz.forks.http.RequestDelegate;
 import com.riguz.forks.http.Router;
 import com.riguz.forks.http.undertow.UndertowServer;
+import com.riguz.forks.http.unix.UnixSocketServer;
 import com.riguz.forks.ioc.Bind;
 import com.riguz.forks.ioc.Injector;
 import com.riguz.forks.json.DslJsonSerializer;
 import com.riguz.forks.json.JsonSerializer;
 import com.riguz.forks.mvc.*;
+import com.riguz.forks.router.CompiledRouteLoader;
+import com.riguz.forks.router.CompiledRoutes;
 import com.riguz.forks.router.FileBasedPatternRouteLoader;
+import com.riguz.forks.router.RouteConfigCache;
 import com.riguz.forks.router.RouteLoader;
+import com.riguz.forks.session.ShardedSessionStore;
+import com.riguz.forks.session.SessionStore;
+import com.riguz.forks.template.TemplateEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 
 public class DefaultConfig {
     private static final Logger logger = LoggerFactory.getLogger(DefaultConfig.class);
     public static final String ROUTER_FILE = "route.cf";
+    public static final int SESSION_SEGMENTS = 64;
+    public static final long SESSION_TIMEOUT_MINUTES = 30;
+    public static final String ACCESS_LOG_FILE = "logs/access.log";
+    public static final String UNIX_SOCKET_PROPERTY = "forks.unixSocket";
+    public static final String TEMPLATE_ROOT = "templates";
+    public static final String TEMPLATE_RELOAD_PROPERTY = "forks.templates.reload";
+    public static final String ROUTE_CACHE_PROPERTY = "forks.routeCache";
 
 
+    /**
+     * Statuses of the exceptions that are answered without logging them as errors, add mappings to the defaults to
+     * answer exceptions of the application.
+     */
+    @Bind
+    @Singleton
+    public ExceptionMappings exceptionMappings() {
+        return ExceptionMappings.defaults();
+    }
+
     @Bind
     @Named("exceptionResolver")
     public Resolver<Exception> exceptionResolver(ExceptionResolver exceptionResolver) {
@@ -41,12 +70,46 @@ public class DefaultConfig {
         return new DslJsonSerializer();
     }
 
+    /**
+     * Results are written as JSON. Override to add other formats such as CborSerializer, responses are then negotiated
+     * on the Accept header and vary on it.
+     */
+    @Bind
+    @Singleton
+    public Serializers serializers(JsonSerializer jsonSerializer) {
+        return new Serializers(jsonSerializer);
+    }
+
+    /**
+     * Templates are read from the class path, set the system property forks.templates.reload to true to compile them
+     * again when they change.
+     */
+    @Bind
+    @Singleton
+    public TemplateEngine templateEngine() {
+        return new TemplateEngine(TEMPLATE_ROOT, Boolean.getBoolean(TEMPLATE_RELOAD_PROPERTY));
+    }
+
+    /**
+     * Routes compiled at build time are used when the application has them and the route file on the class path is
+     * the one they were compiled from, otherwise the route file is parsed. Set the system property forks.routeCache to
+     * a directory to keep the parsed routes there for the next start.
+     */
     @Bind
     @Singleton
     public Router<RequestHandler> router(Injector injector) {
+        CompiledRoutes compiled = CompiledRouteLoader.find(ROUTER_FILE);
+        if (compiled != null) {
+            logger.info("Using compiled routes:{}", compiled.getClass().getName());
+            return new CompiledRouteLoader(compiled, injector).load();
+        }
         RouteLoader<RequestHandler> loader = null;
         try {
-            loader = new FileBasedPatternRouteLoader(ROUTER_FILE, injector);
+            String cacheDirectory = System.getProperty(ROUTE_CACHE_PROPERTY);
+            loader = cacheDirectory == null
+                    ? new FileBasedPatternRouteLoader(ROUTER_FILE, injector)
+                    : new FileBasedPatternRouteLoader(ROUTER_FILE, new RouteConfigCache(Paths.get(cacheDirectory)),
+                    injector);
         } catch (IOException e) {
             logger.error("Failed to load route:{}", e);
             throw new InitializeException("Failed to load route from " + ROUTER_FILE);
@@ -54,15 +117,38 @@ public class DefaultConfig {
         return loader.load();
     }
 
+    /**
+     * Sessions are kept on heap by default, override this to return an OffHeapSessionStore when holding many of them.
+     */
+    @Bind
+    @Singleton
+    public SessionStore sessionStore() {
+        return ShardedSessionStore.create(SESSION_SEGMENTS, SESSION_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @Bind
+    @Singleton
+    public AccessLog accessLog() {
+        return new AccessLog(Paths.get(ACCESS_LOG_FILE));
+    }
+
     @Bind
     @Singleton
     public RequestDelegate delegator(Dispatcher dispatcher) {
         return dispatcher;
     }
 
+    /**
+     * Set the system property forks.unixSocket to a path to also listen there, override this to serve the unix socket
+     * alone.
+     */
     @Bind
     @Singleton
     public NetworkServer server(RequestDelegate delegate) {
-        return new UndertowServer(8080, delegate);
+        NetworkServer tcp = new UndertowServer(8080, delegate);
+        String unixSocket = System.getProperty(UNIX_SOCKET_PROPERTY);
+        if (unixSocket == null)
+            return tcp;
+        return new CompositeServer(tcp, new UnixSocketServer(Paths.get(unixSocket), delegate));
     }
 }
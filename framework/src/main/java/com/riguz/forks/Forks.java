@@ -1,5 +1,6 @@
 package com.riguz.forks;
 
+import com.riguz.forks.accesslog.AccessLog;
 import com.riguz.forks.http.NetworkServer;
 import com.riguz.forks.http.Router;
 import com.riguz.forks.ioc.Injector;
@@ -21,6 +22,9 @@ public final class Forks {
     @Inject
     private NetworkServer networkServer;
 
+    @Inject
+    private AccessLog accessLog;
+
     private Forks() {
         this.injector = null;
     }
@@ -38,5 +42,6 @@ public final class Forks {
 
     public void stop() {
         this.networkServer.stop();
+        this.accessLog.close();
     }
 }
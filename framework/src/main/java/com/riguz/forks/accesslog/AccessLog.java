@@ -0,0 +1,246 @@
+package com.riguz.forks.accesslog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Access log fed through a bounded multi-producer ring buffer. Request threads claim a slot with a CAS, fill in
+ * a fixed record of primitives and publish it, a single background thread formats records in batches and appends
+ * them to a size rotated file. When the buffer is full records are dropped and counted, producers never wait.
+ */
+public class AccessLog implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(AccessLog.class);
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final long DEFAULT_MAX_FILE_SIZE = 64L * 1024 * 1024;
+    public static final int DEFAULT_MAX_FILES = 5;
+    private static final int FIELDS = 4;
+    private static final int BATCH = 1024;
+    private static final DateTimeFormatter SECONDS =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.").withZone(ZoneOffset.UTC);
+
+    private final int mask;
+    private final long[] records;
+    private final String[] routes;
+    private final AtomicLongArray published;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    private final Path file;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private FileChannel channel;
+    private long fileSize;
+    private final StringBuilder line = new StringBuilder(256);
+    private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private long lastSecond = -1;
+    private String secondPrefix;
+
+    public AccessLog(Path file) {
+        this(file, DEFAULT_CAPACITY, DEFAULT_MAX_FILE_SIZE, DEFAULT_MAX_FILES);
+    }
+
+    public AccessLog(Path file, int capacity, long maxFileSize, int maxFiles) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.records = new long[size * FIELDS];
+        this.routes = new String[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++)
+            this.published.set(i, -1);
+        this.file = file;
+        this.maxFileSize = maxFileSize;
+        this.maxFiles = maxFiles;
+        this.writer = new Thread(this::drainLoop, "forks-access-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Returns false if the record was dropped because the writer fell behind.
+     */
+    public boolean record(String route, int status, long latencyNanos, long bytes) {
+        long sequence;
+        do {
+            sequence = this.tail.get();
+            if (sequence - this.head > this.mask) {
+                this.dropped.increment();
+                return false;
+            }
+        } while (!this.tail.compareAndSet(sequence, sequence + 1));
+        int slot = (int) sequence & this.mask;
+        int offset = slot * FIELDS;
+        this.records[offset] = System.currentTimeMillis();
+        this.records[offset + 1] = status;
+        this.records[offset + 2] = latencyNanos;
+        this.records[offset + 3] = bytes;
+        this.routes[slot] = route;
+        this.published.lazySet(slot, sequence);
+        return true;
+    }
+
+    public long getDropped() {
+        return this.dropped.sum();
+    }
+
+    public long getWritten() {
+        return this.written.sum();
+    }
+
+    private void drainLoop() {
+        while (true) {
+            boolean stopping = !this.running;
+            int drained;
+            try {
+                drained = this.drain();
+            } catch (IOException e) {
+                logger.error("Failed to write access log", e);
+                drained = 0;
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            }
+            if (drained == 0) {
+                if (stopping)
+                    return;
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+    }
+
+    private int drain() throws IOException {
+        long sequence = this.head;
+        int count = 0;
+        while (count < BATCH) {
+            int slot = (int) sequence & this.mask;
+            if (this.published.get(slot) != sequence)
+                break;
+            int offset = slot * FIELDS;
+            this.format(this.records[offset], this.routes[slot], (int) this.records[offset + 1],
+                    this.records[offset + 2], this.records[offset + 3]);
+            this.routes[slot] = null;
+            sequence++;
+            count++;
+        }
+        if (count == 0)
+            return 0;
+        this.head = sequence;
+        this.flush();
+        this.written.add(count);
+        return count;
+    }
+
+    private void format(long timestamp, String route, int status, long latencyNanos, long bytes) throws IOException {
+        long second = timestamp / 1000;
+        if (second != this.lastSecond) {
+            this.lastSecond = second;
+            this.secondPrefix = SECONDS.format(Instant.ofEpochSecond(second));
+        }
+        int millis = (int) (timestamp % 1000);
+        StringBuilder line = this.line;
+        line.setLength(0);
+        line.append(this.secondPrefix);
+        if (millis < 100)
+            line.append('0');
+        if (millis < 10)
+            line.append('0');
+        line.append(millis).append("Z ")
+                .append(route == null ? "-" : route).append(' ')
+                .append(status).append(' ')
+                .append(latencyNanos / 1000).append("us ")
+                .append(bytes).append('\n');
+        int length = line.length();
+        if (length * 3 > this.buffer.remaining()) {
+            this.flush();
+            if (length * 3 > this.buffer.capacity())
+                this.buffer = ByteBuffer.allocate(length * 3);
+        }
+        if (this.channel == null)
+            this.open();
+        long size = this.fileSize + this.buffer.position();
+        if (size > 0 && size + length > this.maxFileSize) {
+            this.flush();
+            this.rotate();
+        }
+        for (int i = 0; i < length; i++) {
+            char c = line.charAt(i);
+            if (c >= 0x80) {
+                // routes are ascii in practice, only lines that are not pay for a full encode
+                this.buffer.position(this.buffer.position() - i);
+                this.buffer.put(line.toString().getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            this.buffer.put((byte) c);
+        }
+    }
+
+    private void flush() throws IOException {
+        if (this.buffer.position() == 0)
+            return;
+        this.buffer.flip();
+        while (this.buffer.hasRemaining())
+            this.fileSize += this.channel.write(this.buffer);
+        this.buffer.clear();
+    }
+
+    private void open() throws IOException {
+        Path parent = this.file.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+        this.channel = FileChannel.open(this.file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.fileSize = this.channel.size();
+    }
+
+    private void rotate() throws IOException {
+        this.channel.close();
+        this.channel = null;
+        for (int i = this.maxFiles - 1; i > 0; i--) {
+            Path source = this.rotated(i);
+            if (Files.exists(source))
+                Files.move(source, this.rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(this.file, this.rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        this.open();
+    }
+
+    private Path rotated(int index) {
+        return this.file.resolveSibling(this.file.getFileName() + "." + index);
+    }
+
+    /**
+     * Stops the writer after it wrote out the records published so far.
+     */
+    @Override
+    public void close() {
+        this.running = false;
+        try {
+            this.writer.join(TimeUnit.SECONDS.toMillis(5));
+            if (this.channel != null)
+                this.channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.warn("Failed to close access log", e);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.riguz.forks.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects concurrent invocations of an action and serves them with one call of a batch method, which takes the
+ * list of distinct keys and returns either a list of results in the same order or a map from key to result.
+ *
+ * <p>The window adapts to load: while no batch is running a key is flushed right away, so a lone request waits
+ * for nothing. While batches are running keys pile up and go out together as soon as one finishes, once max keys
+ * are collected, or at the latest after the maximum window.
+ */
+public class Batcher {
+    public static final int DEFAULT_MAX_SIZE = 64;
+    public static final Duration DEFAULT_MAX_WINDOW = Duration.ofMillis(5);
+    private static final Logger logger = LoggerFactory.getLogger(Batcher.class);
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "forks-batch-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Object target;
+    private final Method method;
+    private final int maxSize;
+    private final long maxWindowNanos;
+    private final int concurrency;
+    private final Executor executor;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder items = new LongAdder();
+    private Map<Object, CompletableFuture<Object>> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> deadline;
+    private int running;
+
+    public Batcher(Object target,
+                   Method method,
+                   int maxSize,
+                   long maxWindow,
+                   TimeUnit unit,
+                   int concurrency,
+                   Executor executor) {
+        this.target = target;
+        this.method = method;
+        this.maxSize = maxSize;
+        this.maxWindowNanos = unit.toNanos(maxWindow);
+        this.concurrency = concurrency;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Object> submit(Object key) {
+        this.items.increment();
+        synchronized (this) {
+            CompletableFuture<Object> future = this.pending.get(key);
+            if (future != null)
+                return future;
+            future = new CompletableFuture<>();
+            this.pending.put(key, future);
+            if (this.pending.size() >= this.maxSize || this.running < this.concurrency)
+                this.flush();
+            else if (this.deadline == null)
+                this.deadline = timer.schedule(this::expire, this.maxWindowNanos, TimeUnit.NANOSECONDS);
+            return future;
+        }
+    }
+
+    /**
+     * Batch method calls so far.
+     */
+    public long getBatches() {
+        return this.batches.sum();
+    }
+
+    /**
+     * Invocations served so far, divided by the batches it is the average batch size.
+     */
+    public long getItems() {
+        return this.items.sum();
+    }
+
+    private synchronized void expire() {
+        this.deadline = null;
+        if (!this.pending.isEmpty())
+            this.flush();
+    }
+
+    // called holding the lock
+    private void flush() {
+        Map<Object, CompletableFuture<Object>> batch = this.pending;
+        this.pending = new LinkedHashMap<>();
+        if (this.deadline != null) {
+            this.deadline.cancel(false);
+            this.deadline = null;
+        }
+        this.running++;
+        this.batches.increment();
+        try {
+            this.executor.execute(() -> this.run(batch));
+        } catch (RuntimeException e) {
+            this.running--;
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private void run(Map<Object, CompletableFuture<Object>> batch) {
+        try {
+            List<Object> keys = new ArrayList<>(batch.keySet());
+            this.complete(batch, keys, this.method.invoke(this.target, keys));
+        } catch (InvocationTargetException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e.getCause()));
+        } catch (IllegalAccessException | RuntimeException e) {
+            logger.error("Batch of {} failed", this.method, e);
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        } finally {
+            synchronized (this) {
+                this.running--;
+                if (!this.pending.isEmpty())
+                    this.flush();
+            }
+        }
+    }
+
+    private void complete(Map<Object, CompletableFuture<Object>> batch, List<Object> keys, Object results) {
+        if (results instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) results;
+            batch.forEach((key, future) -> future.complete(map.get(key)));
+            return;
+        }
+        if (!(results instanceof List) || ((List<?>) results).size() != keys.size())
+            throw new IllegalStateException(this.method + " should return a map or a list of " + keys.size()
+                    + " results");
+        List<?> list = (List<?>) results;
+        for (int i = 0; i < keys.size(); i++)
+            batch.get(keys.get(i)).complete(list.get(i));
+    }
+}
@@ -0,0 +1,112 @@
+package com.riguz.forks.bulkhead;
+
+import com.riguz.forks.mvc.EncodedResponse;
+
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A named, bounded pool that runs the actions of the routes assigned to it, so a slow group of routes can only take
+ * its own threads. Tasks beyond the free threads and the queue are rejected instead of waiting.
+ */
+public class Bulkhead implements Executor {
+    private final String name;
+    private final int size;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejected = new LongAdder();
+    private final EncodedResponse rejectedResponse;
+
+    public Bulkhead(String name, int size, int queueCapacity) {
+        if (size <= 0 || queueCapacity < 0)
+            throw new IllegalArgumentException("Invalid size of pool " + name);
+        this.name = name;
+        this.size = size;
+        this.queueCapacity = queueCapacity;
+        BlockingQueue<Runnable> queue = queueCapacity == 0 ?
+                new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, "forks-" + name + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.rejectedResponse = new EncodedResponse(503,
+                Collections.singletonMap("Retry-After", "1"), "Service unavailable");
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        try {
+            this.executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            this.rejected.increment();
+            throw e;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Threads currently running an action.
+     */
+    public int getActive() {
+        return this.executor.getActiveCount();
+    }
+
+    public int getQueued() {
+        return this.executor.getQueue().size();
+    }
+
+    public long getCompleted() {
+        return this.executor.getCompletedTaskCount();
+    }
+
+    public long getRejected() {
+        return this.rejected.sum();
+    }
+
+    /**
+     * Share of threads and queue slots in use, 1 means new tasks are rejected.
+     */
+    public double getSaturation() {
+        return (double) (this.getActive() + this.getQueued()) / (this.size + this.queueCapacity);
+    }
+
+    public EncodedResponse getRejectedResponse() {
+        return rejectedResponse;
+    }
+
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "Bulkhead{" +
+                "name='" + name + '\'' +
+                ", active=" + getActive() +
+                ", queued=" + getQueued() +
+                ", rejected=" + getRejected() +
+                '}';
+    }
+}
@@ -0,0 +1,28 @@
+package com.riguz.forks.bulkhead;
+
+import javax.inject.Singleton;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The pools declared in the route file, inject it to report their saturation.
+ */
+@Singleton
+public class Bulkheads {
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    public void register(Bulkhead bulkhead) {
+        if (this.bulkheads.putIfAbsent(bulkhead.getName(), bulkhead) != null)
+            throw new IllegalStateException("Duplicate pool:" + bulkhead.getName());
+    }
+
+    public Bulkhead get(String name) {
+        return this.bulkheads.get(name);
+    }
+
+    public Collection<Bulkhead> getAll() {
+        return Collections.unmodifiableCollection(this.bulkheads.values());
+    }
+}
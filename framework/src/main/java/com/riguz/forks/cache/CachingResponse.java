@@ -0,0 +1,27 @@
+package com.riguz.forks.cache;
+
+import com.riguz.forks.http.HttpResponse;
+import com.riguz.forks.mvc.CapturingResponse;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Stores a successful response in the cache as it is written.
+ */
+public class CachingResponse extends CapturingResponse {
+    private final ResponseCache cache;
+    private final String key;
+
+    public CachingResponse(HttpResponse response, ResponseCache cache, String key) {
+        super(response);
+        this.cache = cache;
+        this.key = key;
+    }
+
+    @Override
+    protected void capture(int status, Map<String, String> headers, ByteBuffer body) {
+        if (status == 200)
+            this.cache.put(this.key, status, headers, body);
+    }
+}
@@ -0,0 +1,118 @@
+package com.riguz.forks.cache;
+
+import com.riguz.forks.http.HttpRequest;
+import com.riguz.forks.mvc.EncodedResponse;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Complete responses of GET routes, keyed by path, the values of the parameters they vary by and the negotiated media
+ * type. Entries expire
+ * after the ttl, bodies may be kept in direct memory to stay out of the heap.
+ */
+public class ResponseCache {
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+    private static final char SEPARATOR = '\0';
+
+    private final String name;
+    private final long ttlNanos;
+    private final List<String> vary;
+    private final boolean offHeap;
+    private final WTinyLfuCache<String, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ResponseCache(String name, Duration ttl, int maxEntries, List<String> vary, boolean offHeap) {
+        this.name = name;
+        this.ttlNanos = ttl.toNanos();
+        this.vary = Collections.unmodifiableList(vary);
+        this.offHeap = offHeap;
+        this.entries = new WTinyLfuCache<>(maxEntries);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String keyOf(HttpRequest request) {
+        return this.keyOf(request, null);
+    }
+
+    /**
+     * The key of the request for a response in the media type, null if the route only answers in one.
+     */
+    public String keyOf(HttpRequest request, String mediaType) {
+        if (this.vary.isEmpty() && mediaType == null)
+            return request.getPath();
+        StringBuilder key = new StringBuilder(request.getPath());
+        for (String param : this.vary) {
+            key.append(SEPARATOR).append(param).append('=');
+            String[] values = request.getParamValues(param);
+            if (values != null)
+                key.append(String.join(",", values));
+        }
+        if (mediaType != null)
+            key.append(SEPARATOR).append(mediaType);
+        return key.toString();
+    }
+
+    public EncodedResponse get(String key) {
+        Entry entry = this.entries.get(key);
+        if (entry == null || System.nanoTime() - entry.expiresAt >= 0) {
+            this.misses.increment();
+            return null;
+        }
+        this.hits.increment();
+        return entry.response;
+    }
+
+    /**
+     * Copies the remaining bytes of the body, its position is left untouched.
+     */
+    public void put(String key, int status, Map<String, String> headers, ByteBuffer body) {
+        ByteBuffer copy = this.offHeap ? ByteBuffer.allocateDirect(body.remaining())
+                : ByteBuffer.allocate(body.remaining());
+        copy.put(body.duplicate()).flip();
+        this.entries.put(key, new Entry(new EncodedResponse(status, headers, copy),
+                System.nanoTime() + this.ttlNanos));
+    }
+
+    /**
+     * Drops the cached responses of a path, of every parameter combination.
+     */
+    public void invalidate(String path) {
+        String prefix = path + SEPARATOR;
+        this.entries.removeIf(key -> key.equals(path) || key.startsWith(prefix));
+    }
+
+    public void invalidateAll() {
+        this.entries.clear();
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    private static final class Entry {
+        final EncodedResponse response;
+        final long expiresAt;
+
+        Entry(EncodedResponse response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
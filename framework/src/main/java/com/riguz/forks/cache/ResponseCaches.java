@@ -0,0 +1,39 @@
+package com.riguz.forks.cache;
+
+import javax.inject.Singleton;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The response caches of all routes, inject it into a controller to invalidate cached responses after a change.
+ */
+@Singleton
+public class ResponseCaches {
+    private final Map<String, ResponseCache> caches = new ConcurrentHashMap<>();
+
+    public void register(ResponseCache cache) {
+        if (this.caches.putIfAbsent(cache.getName(), cache) != null)
+            throw new IllegalStateException("Duplicate response cache:" + cache.getName());
+    }
+
+    public ResponseCache get(String name) {
+        return this.caches.get(name);
+    }
+
+    public Collection<ResponseCache> getAll() {
+        return Collections.unmodifiableCollection(this.caches.values());
+    }
+
+    /**
+     * Drops the cached responses of the path from every cache.
+     */
+    public void invalidate(String path) {
+        this.caches.values().forEach(cache -> cache.invalidate(path));
+    }
+
+    public void invalidateAll() {
+        this.caches.values().forEach(ResponseCache::invalidateAll);
+    }
+}
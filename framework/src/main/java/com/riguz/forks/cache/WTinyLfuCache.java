@@ -0,0 +1,209 @@
+package com.riguz.forks.cache;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * A size bounded cache with W-TinyLFU eviction. New entries enter a small LRU window, entries leaving the window
+ * are only admitted into the main segmented LRU if a frequency sketch says they are used more often than the entry
+ * they would evict. That keeps one-off keys, such as scans, from flushing the popular ones.
+ *
+ * <p>Lookups go through a concurrent map. The policy is updated under a lock which reads only try to take, so under
+ * contention some reads are not recorded, what only makes the frequencies a little less precise.
+ */
+public class WTinyLfuCache<K, V> {
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final ConcurrentMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final List<Queue<K, V>> queues;
+    private final int maximum;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+
+    public WTinyLfuCache(int maximum) {
+        if (maximum <= 0)
+            throw new IllegalArgumentException("Maximum should be positive");
+        this.maximum = maximum;
+        this.windowMaximum = Math.max(1, maximum / 100);
+        this.protectedMaximum = (int) ((maximum - this.windowMaximum) * 0.8);
+        this.sketch = new FrequencySketch(maximum);
+        this.queues = Arrays.asList(new Queue<>(), new Queue<>(), new Queue<>());
+    }
+
+    public V get(K key) {
+        Node<K, V> node = this.data.get(key);
+        if (node == null)
+            return null;
+        if (this.lock.tryLock()) {
+            try {
+                if (node.queue >= 0)
+                    this.onAccess(node);
+            } finally {
+                this.lock.unlock();
+            }
+        }
+        return node.value;
+    }
+
+    public void put(K key, V value) {
+        this.lock.lock();
+        try {
+            Node<K, V> node = this.data.get(key);
+            if (node != null) {
+                node.value = value;
+                this.onAccess(node);
+                return;
+            }
+            node = new Node<>(key, value);
+            this.data.put(key, node);
+            this.sketch.increment(key);
+            this.queues.get(WINDOW).addLast(node, WINDOW);
+            this.evict();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public V remove(K key) {
+        this.lock.lock();
+        try {
+            Node<K, V> node = this.data.remove(key);
+            if (node == null)
+                return null;
+            this.queues.get(node.queue).remove(node);
+            return node.value;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public void removeIf(Predicate<K> predicate) {
+        this.lock.lock();
+        try {
+            this.data.values().removeIf(node -> {
+                if (!predicate.test(node.key))
+                    return false;
+                this.queues.get(node.queue).remove(node);
+                return true;
+            });
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public void clear() {
+        this.removeIf(key -> true);
+    }
+
+    public int size() {
+        return this.data.size();
+    }
+
+    public int getMaximum() {
+        return maximum;
+    }
+
+    private void onAccess(Node<K, V> node) {
+        this.sketch.increment(node.key);
+        switch (node.queue) {
+            case WINDOW:
+                this.queues.get(WINDOW).moveToLast(node);
+                break;
+            case PROBATION:
+                this.queues.get(PROBATION).remove(node);
+                this.queues.get(PROTECTED).addLast(node, PROTECTED);
+                while (this.queues.get(PROTECTED).size > this.protectedMaximum) {
+                    Node<K, V> demoted = this.queues.get(PROTECTED).first();
+                    this.queues.get(PROTECTED).remove(demoted);
+                    this.queues.get(PROBATION).addLast(demoted, PROBATION);
+                }
+                break;
+            default:
+                this.queues.get(PROTECTED).moveToLast(node);
+        }
+    }
+
+    private void evict() {
+        while (this.queues.get(WINDOW).size > this.windowMaximum) {
+            Node<K, V> candidate = this.queues.get(WINDOW).first();
+            this.queues.get(WINDOW).remove(candidate);
+            this.queues.get(PROBATION).addLast(candidate, PROBATION);
+            if (this.data.size() <= this.maximum)
+                continue;
+            Node<K, V> victim = this.queues.get(PROBATION).first();
+            if (victim != candidate
+                    && this.sketch.frequency(candidate.key) > this.sketch.frequency(victim.key))
+                this.drop(victim);
+            else
+                this.drop(candidate);
+        }
+    }
+
+    private void drop(Node<K, V> node) {
+        this.queues.get(node.queue).remove(node);
+        this.data.remove(node.key, node);
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        // -1 once unlinked
+        int queue = -1;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list in access order, least recently used first.
+     */
+    private static final class Queue<K, V> {
+        private final Node<K, V> head = new Node<>(null, null);
+        int size;
+
+        Queue() {
+            this.head.prev = this.head;
+            this.head.next = this.head;
+        }
+
+        Node<K, V> first() {
+            return this.head.next;
+        }
+
+        void addLast(Node<K, V> node, int queue) {
+            node.queue = queue;
+            node.prev = this.head.prev;
+            node.next = this.head;
+            this.head.prev.next = node;
+            this.head.prev = node;
+            this.size++;
+        }
+
+        void remove(Node<K, V> node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+            node.queue = -1;
+            this.size--;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            int queue = node.queue;
+            this.remove(node);
+            this.addLast(node, queue);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.riguz.forks.coalesce;
+
+import com.riguz.forks.http.HttpRequest;
+import com.riguz.forks.http.HttpResponse;
+import com.riguz.forks.mvc.CapturingResponse;
+import com.riguz.forks.mvc.EncodedResponse;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Lets concurrent identical requests of a route share one execution. The first request for a key leads and runs
+ * the action, the others wait without a thread until its response was sent and then get a copy of it. Only use it
+ * for responses that don't depend on who asked.
+ */
+public class Coalescer {
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public String keyOf(HttpRequest request) {
+        return this.keyOf(request, null);
+    }
+
+    /**
+     * The key of the request for a response in the media type, null if the route only answers in one.
+     */
+    public String keyOf(HttpRequest request, String mediaType) {
+        String query = request.getRequestQuery();
+        String key = query == null || query.isEmpty() ? request.getPath() : request.getPath() + '?' + query;
+        return mediaType == null ? key : key + '\0' + mediaType;
+    }
+
+    /**
+     * Returns the flight the caller has to lead, or null when the waiter joined the flight running for the key. The
+     * waiter receives the leader's response, or null if it could not be shared and the waiter has to execute itself.
+     */
+    public Flight join(String key, Consumer<EncodedResponse> waiter) {
+        while (true) {
+            Flight flight = this.flights.get(key);
+            if (flight == null) {
+                Flight created = new Flight(key);
+                flight = this.flights.putIfAbsent(key, created);
+                if (flight == null) {
+                    this.executed.increment();
+                    return created;
+                }
+            }
+            if (flight.add(waiter)) {
+                this.coalesced.increment();
+                return null;
+            }
+            // landed between our lookup and the join
+            this.flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * Requests that ran the action.
+     */
+    public long getExecuted() {
+        return this.executed.sum();
+    }
+
+    /**
+     * Requests that waited for another one instead of running the action.
+     */
+    public long getCoalesced() {
+        return this.coalesced.sum();
+    }
+
+    /**
+     * Waiters that had to run the action anyway because the leader's response could not be shared.
+     */
+    public long getFallbacks() {
+        return this.fallbacks.sum();
+    }
+
+    public class Flight {
+        private final String key;
+        private List<Consumer<EncodedResponse>> waiters = new ArrayList<>();
+        private volatile EncodedResponse response;
+
+        Flight(String key) {
+            this.key = key;
+        }
+
+        synchronized boolean add(Consumer<EncodedResponse> waiter) {
+            if (this.waiters == null)
+                return false;
+            this.waiters.add(waiter);
+            return true;
+        }
+
+        /**
+         * Wraps the leader's response to keep a copy of it for the waiters.
+         */
+        public HttpResponse capture(HttpResponse response) {
+            return new CapturingResponse(response) {
+                @Override
+                protected void capture(int status, Map<String, String> headers, ByteBuffer body) {
+                    ByteBuffer copy = ByteBuffer.allocate(body.remaining());
+                    copy.put(body.duplicate()).flip();
+                    Flight.this.response = new EncodedResponse(status, headers, copy);
+                }
+            };
+        }
+
+        /**
+         * Called once the leader's response was sent, hands it to everyone who joined in the meantime.
+         */
+        public void land() {
+            flights.remove(this.key, this);
+            List<Consumer<EncodedResponse>> waiters;
+            synchronized (this) {
+                waiters = this.waiters;
+                this.waiters = null;
+            }
+            if (this.response == null)
+                fallbacks.add(waiters.size());
+            waiters.forEach(waiter -> waiter.accept(this.response));
+        }
+    }
+}
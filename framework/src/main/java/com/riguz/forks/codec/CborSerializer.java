@@ -0,0 +1,342 @@
+package com.riguz.forks.codec;
+
+import java.io.IOException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Serializes into CBOR (RFC 7049), for clients sending Accept: application/cbor. It is not registered by default,
+ * add it to the Serializers of the application. DTOs are written as maps of their getters, the encoder of each class
+ * is built once, with property names encoded up front and getters called through classes spun by LambdaMetafactory.
+ * UUIDs are written as text like the JSON serializer does, other JDK classes such as java.time types or Optional have
+ * no JSON encoding either and are rejected rather than written as maps of their getters.
+ */
+public class CborSerializer implements Serializer {
+    public static final String MEDIA_TYPE = "application/cbor";
+    private static final int MAX_RETAINED_SIZE = 64 * 1024;
+
+    private static final int UNSIGNED = 0;
+    private static final int NEGATIVE = 1 << 5;
+    private static final int BYTES = 2 << 5;
+    private static final int TEXT = 3 << 5;
+    private static final int ARRAY = 4 << 5;
+    private static final int MAP = 5 << 5;
+    private static final int TAG = 6 << 5;
+    private static final int FALSE = 0xf4;
+    private static final int TRUE = 0xf5;
+    private static final int NULL = 0xf6;
+    private static final int FLOAT = 0xfa;
+    private static final int DOUBLE = 0xfb;
+    private static final int INDEFINITE_ARRAY = 0x9f;
+    private static final int BREAK = 0xff;
+    private static final int EPOCH_TAG = 1;
+
+    private static final ClassValue<BeanEncoder> encoders = new ClassValue<BeanEncoder>() {
+        @Override
+        protected BeanEncoder computeValue(Class<?> type) {
+            return new BeanEncoder(type);
+        }
+    };
+    private static final ThreadLocal<Writer> writerProvider = ThreadLocal.withInitial(Writer::new);
+
+    @Override
+    public String getMediaType() {
+        return MEDIA_TYPE;
+    }
+
+    @Override
+    public byte[] serialize(Object original) throws IOException {
+        Writer writer = writerProvider.get();
+        writer.reset();
+        writer.write(original);
+        return writer.toByteArray();
+    }
+
+    static final class Writer {
+        private byte[] bytes = new byte[1024];
+        private int size;
+
+        void reset() {
+            this.size = 0;
+            if (this.bytes.length > MAX_RETAINED_SIZE)
+                this.bytes = new byte[1024];
+        }
+
+        byte[] toByteArray() {
+            byte[] copy = new byte[this.size];
+            System.arraycopy(this.bytes, 0, copy, 0, this.size);
+            return copy;
+        }
+
+        void write(Object value) {
+            if (value == null)
+                this.writeByte(NULL);
+            else if (value instanceof CharSequence)
+                this.writeText(value.toString());
+            else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                    || value instanceof Byte)
+                this.writeLong(((Number) value).longValue());
+            else if (value instanceof Double)
+                this.writeDouble((Double) value);
+            else if (value instanceof Float)
+                this.writeFloat((Float) value);
+            else if (value instanceof Boolean)
+                this.writeByte((Boolean) value ? TRUE : FALSE);
+            else if (value instanceof BigInteger || value instanceof BigDecimal || value instanceof Character)
+                this.writeText(value.toString());
+            else if (value instanceof UUID)
+                this.writeText(value.toString());
+            else if (value instanceof Enum)
+                this.writeText(((Enum<?>) value).name());
+            else if (value instanceof Date)
+                this.writeDate((Date) value);
+            else if (value instanceof byte[])
+                this.writeBytes((byte[]) value);
+            else if (value instanceof Map)
+                this.writeMap((Map<?, ?>) value);
+            else if (value instanceof Collection)
+                this.writeCollection((Collection<?>) value);
+            else if (value instanceof Iterable)
+                this.writeIterable((Iterable<?>) value);
+            else if (value.getClass().isArray())
+                this.writeArray(value);
+            else
+                encoders.get(value.getClass()).encode(value, this);
+        }
+
+        void writeLong(long value) {
+            if (value < 0)
+                this.writeHead(NEGATIVE, -1 - value);
+            else
+                this.writeHead(UNSIGNED, value);
+        }
+
+        private void writeDouble(double value) {
+            this.ensure(9);
+            this.bytes[this.size++] = (byte) DOUBLE;
+            this.writeRaw(Double.doubleToLongBits(value), 8);
+        }
+
+        private void writeFloat(float value) {
+            this.ensure(5);
+            this.bytes[this.size++] = (byte) FLOAT;
+            this.writeRaw(Float.floatToIntBits(value), 4);
+        }
+
+        private void writeText(String text) {
+            byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+            this.writeHead(TEXT, encoded.length);
+            this.writeEncoded(encoded);
+        }
+
+        private void writeBytes(byte[] value) {
+            this.writeHead(BYTES, value.length);
+            this.writeEncoded(value);
+        }
+
+        private void writeDate(Date date) {
+            this.writeHead(TAG, EPOCH_TAG);
+            long millis = date.getTime();
+            if (millis % 1000 == 0)
+                this.writeLong(millis / 1000);
+            else
+                this.writeDouble(millis / 1000.0);
+        }
+
+        private void writeMap(Map<?, ?> map) {
+            this.writeHead(MAP, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                this.write(entry.getKey());
+                this.write(entry.getValue());
+            }
+        }
+
+        private void writeCollection(Collection<?> collection) {
+            this.writeHead(ARRAY, collection.size());
+            for (Object item : collection)
+                this.write(item);
+        }
+
+        private void writeIterable(Iterable<?> iterable) {
+            this.writeByte(INDEFINITE_ARRAY);
+            for (Object item : iterable)
+                this.write(item);
+            this.writeByte(BREAK);
+        }
+
+        private void writeArray(Object array) {
+            int length = Array.getLength(array);
+            this.writeHead(ARRAY, length);
+            for (int i = 0; i < length; i++)
+                this.write(Array.get(array, i));
+        }
+
+        void writeEncoded(byte[] encoded) {
+            this.ensure(encoded.length);
+            System.arraycopy(encoded, 0, this.bytes, this.size, encoded.length);
+            this.size += encoded.length;
+        }
+
+        void writeHead(int major, long value) {
+            this.ensure(9);
+            this.size = head(this.bytes, this.size, major, value);
+        }
+
+        private void writeByte(int value) {
+            this.ensure(1);
+            this.bytes[this.size++] = (byte) value;
+        }
+
+        private void writeRaw(long value, int length) {
+            for (int shift = (length - 1) * 8; shift >= 0; shift -= 8)
+                this.bytes[this.size++] = (byte) (value >>> shift);
+        }
+
+        private void ensure(int more) {
+            if (this.size + more <= this.bytes.length)
+                return;
+            byte[] grown = new byte[Math.max(this.bytes.length * 2, this.size + more)];
+            System.arraycopy(this.bytes, 0, grown, 0, this.size);
+            this.bytes = grown;
+        }
+    }
+
+    static int head(byte[] bytes, int offset, int major, long value) {
+        int length;
+        if (value < 24) {
+            bytes[offset++] = (byte) (major | value);
+            return offset;
+        } else if (value <= 0xff) {
+            bytes[offset++] = (byte) (major | 24);
+            length = 1;
+        } else if (value <= 0xffff) {
+            bytes[offset++] = (byte) (major | 25);
+            length = 2;
+        } else if (value <= 0xffffffffL) {
+            bytes[offset++] = (byte) (major | 26);
+            length = 4;
+        } else {
+            bytes[offset++] = (byte) (major | 27);
+            length = 8;
+        }
+        for (int shift = (length - 1) * 8; shift >= 0; shift -= 8)
+            bytes[offset++] = (byte) (value >>> shift);
+        return offset;
+    }
+
+    /**
+     * Writes a DTO as a map of its getters, sorted by property name.
+     */
+    static final class BeanEncoder {
+        private final byte[] header;
+        private final byte[][] names;
+        private final List<Function<Object, Object>> getters;
+
+        BeanEncoder(Class<?> type) {
+            if (type.getName().startsWith("java."))
+                throw new IllegalArgumentException("No CBOR encoding for " + type.getName());
+            List<Method> properties = new ArrayList<>();
+            for (Method method : type.getMethods()) {
+                if (propertyName(method) != null)
+                    properties.add(method);
+            }
+            properties.sort(Comparator.comparing(BeanEncoder::propertyName));
+            this.names = new byte[properties.size()][];
+            this.getters = new ArrayList<>(properties.size());
+            for (int i = 0; i < properties.size(); i++) {
+                Method method = properties.get(i);
+                byte[] name = propertyName(method).getBytes(StandardCharsets.UTF_8);
+                byte[] encoded = new byte[9 + name.length];
+                int offset = head(encoded, 0, TEXT, name.length);
+                System.arraycopy(name, 0, encoded, offset, name.length);
+                this.names[i] = Arrays.copyOf(encoded, offset + name.length);
+                this.getters.add(getter(method));
+            }
+            byte[] header = new byte[9];
+            this.header = Arrays.copyOf(header, head(header, 0, MAP, properties.size()));
+        }
+
+        void encode(Object bean, Writer writer) {
+            writer.writeEncoded(this.header);
+            for (int i = 0; i < this.names.length; i++) {
+                writer.writeEncoded(this.names[i]);
+                writer.write(this.getters.get(i).apply(bean));
+            }
+        }
+
+        private static String propertyName(Method method) {
+            if (method.getParameterCount() != 0 || Modifier.isStatic(method.getModifiers())
+                    || method.getDeclaringClass() == Object.class)
+                return null;
+            String name = method.getName();
+            int prefix;
+            if (name.startsWith("get") && method.getReturnType() != void.class)
+                prefix = 3;
+            else if (name.startsWith("is") && method.getReturnType() == boolean.class)
+                prefix = 2;
+            else
+                return null;
+            if (name.length() == prefix)
+                return null;
+            return Character.toLowerCase(name.charAt(prefix)) + name.substring(prefix + 1);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Function<Object, Object> getter(Method method) {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            if (isLinkable(method)) {
+                try {
+                    MethodHandle implementation = lookup.unreflect(method);
+                    return (Function<Object, Object>) LambdaMetafactory.metafactory(lookup, "apply",
+                            MethodType.methodType(Function.class), MethodType.genericMethodType(1), implementation,
+                            implementation.type().wrap())
+                            .getTarget()
+                            .invoke();
+                } catch (Throwable e) {
+                    // fall back to the method handle below
+                }
+            }
+            try {
+                method.setAccessible(true);
+                MethodHandle handle = lookup.unreflect(method).asType(MethodType.genericMethodType(1));
+                return bean -> {
+                    try {
+                        return handle.invokeExact(bean);
+                    } catch (Throwable e) {
+                        throw new IllegalStateException("Failed to read " + method, e);
+                    }
+                };
+            } catch (IllegalAccessException | RuntimeException e) {
+                throw new IllegalStateException("Getter is not accessible:" + method, e);
+            }
+        }
+
+        private static boolean isLinkable(Method method) {
+            Class<?> type = method.getDeclaringClass();
+            if (!Modifier.isPublic(type.getModifiers()))
+                return false;
+            try {
+                return Class.forName(type.getName(), false, CborSerializer.class.getClassLoader()) == type;
+            } catch (ClassNotFoundException e) {
+                return false;
+            }
+        }
+    }
+}
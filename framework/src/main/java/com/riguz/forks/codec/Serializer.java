@@ -0,0 +1,19 @@
+package com.riguz.forks.codec;
+
+import java.io.IOException;
+
+public interface Serializer {
+    /**
+     * The media type this serializer produces, matched against Accept headers.
+     */
+    String getMediaType();
+
+    /**
+     * The Content-Type header of serialized results.
+     */
+    default String getContentType() {
+        return this.getMediaType();
+    }
+
+    byte[] serialize(Object original) throws IOException;
+}
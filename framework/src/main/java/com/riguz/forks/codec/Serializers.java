@@ -0,0 +1,103 @@
+package com.riguz.forks.codec;
+
+import com.riguz.forks.json.JsonSerializer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The serializers results can be written with, picked by the Accept header of each request. JSON comes first and is
+ * used when the header is missing or accepts none of them. Choices are cached by header value, clients tend to send
+ * the same few.
+ */
+public class Serializers {
+    private static final int MAX_CACHED_CHOICES = 256;
+
+    private final JsonSerializer json;
+    private final List<Serializer> serializers;
+    private final Map<String, Serializer> choices = new ConcurrentHashMap<>();
+
+    public Serializers(JsonSerializer json, Serializer... others) {
+        this.json = json;
+        List<Serializer> serializers = new ArrayList<>();
+        serializers.add(json);
+        serializers.addAll(Arrays.asList(others));
+        this.serializers = Collections.unmodifiableList(serializers);
+    }
+
+    public JsonSerializer getJson() {
+        return this.json;
+    }
+
+    public List<Serializer> getSerializers() {
+        return this.serializers;
+    }
+
+    /**
+     * Only one serializer to choose from, negotiating can be skipped.
+     */
+    public boolean isSingle() {
+        return this.serializers.size() == 1;
+    }
+
+    public Serializer negotiate(String accept) {
+        if (accept == null || this.isSingle())
+            return this.json;
+        Serializer chosen = this.choices.get(accept);
+        if (chosen == null) {
+            chosen = this.choose(accept);
+            if (this.choices.size() < MAX_CACHED_CHOICES)
+                this.choices.put(accept, chosen);
+        }
+        return chosen;
+    }
+
+    /**
+     * The serializer with the highest quality in the header, the first registered on ties.
+     */
+    private Serializer choose(String accept) {
+        Serializer chosen = this.json;
+        double best = 0;
+        for (String range : accept.split(",")) {
+            String[] parts = range.split(";");
+            String type = parts[0].trim();
+            double quality = quality(parts);
+            if (quality <= best)
+                continue;
+            for (Serializer serializer : this.serializers) {
+                if (matches(type, serializer.getMediaType())) {
+                    chosen = serializer;
+                    best = quality;
+                    break;
+                }
+            }
+        }
+        return chosen;
+    }
+
+    private static double quality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static boolean matches(String range, String mediaType) {
+        if ("*/*".equals(range))
+            return true;
+        if (range.endsWith("/*"))
+            return mediaType.regionMatches(true, 0, range, 0, range.length() - 1);
+        return range.equalsIgnoreCase(mediaType);
+    }
+}
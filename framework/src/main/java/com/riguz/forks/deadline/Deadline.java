@@ -0,0 +1,41 @@
+package com.riguz.forks.deadline;
+
+import com.riguz.forks.exceptions.DeadlineExceededException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The point in time after which the client no longer waits for the response, on the System.nanoTime clock.
+ */
+public final class Deadline {
+    private final long expiresAt;
+
+    private Deadline(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public static Deadline after(long start, long timeout, TimeUnit unit) {
+        return new Deadline(start + unit.toNanos(timeout));
+    }
+
+    public boolean isExpired() {
+        return System.nanoTime() - this.expiresAt >= 0;
+    }
+
+    public long remaining(TimeUnit unit) {
+        return unit.convert(Math.max(0, this.expiresAt - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Lets long running actions give up once the client is gone, the exception is answered with 504.
+     */
+    public void check() {
+        if (this.isExpired())
+            throw new DeadlineExceededException();
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline{remaining=" + this.remaining(TimeUnit.MILLISECONDS) + "ms}";
+    }
+}
@@ -0,0 +1,74 @@
+package com.riguz.forks.deadline;
+
+import com.riguz.forks.http.HttpRequest;
+
+import javax.inject.Singleton;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resolves the deadline of requests and counts the requests dropped because they expired before their action ran.
+ * <p>
+ * Clients announce their timeout with the X-Request-Timeout header, in milliseconds or with a unit such as 2s, and
+ * routes may set a default with {@code @deadline(2s)}. The shorter of both wins.
+ */
+@Singleton
+public class Deadlines {
+    public static final String HEADER = "X-Request-Timeout";
+
+    private final LongAdder dropped = new LongAdder();
+    private final Map<String, LongAdder> droppedByRoute = new ConcurrentHashMap<>();
+
+    /**
+     * The deadline of a request that arrived at start, null if neither the client nor the route set a timeout.
+     */
+    public Deadline of(HttpRequest request, long start, long routeTimeoutNanos) {
+        long timeout = parseTimeout(request.getHeader(HEADER));
+        if (routeTimeoutNanos > 0 && (timeout < 0 || routeTimeoutNanos < timeout))
+            timeout = routeTimeoutNanos;
+        return timeout < 0 ? null : Deadline.after(start, timeout, TimeUnit.NANOSECONDS);
+    }
+
+    public void drop(String route) {
+        this.dropped.increment();
+        this.droppedByRoute.computeIfAbsent(route, key -> new LongAdder()).increment();
+    }
+
+    public long getDropped() {
+        return this.dropped.sum();
+    }
+
+    public long getDropped(String route) {
+        LongAdder counter = this.droppedByRoute.get(route);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public Map<String, LongAdder> getDroppedByRoute() {
+        return Collections.unmodifiableMap(this.droppedByRoute);
+    }
+
+    /**
+     * Timeout in nanoseconds, -1 for a missing or malformed value.
+     */
+    static long parseTimeout(String value) {
+        if (value == null)
+            return -1;
+        value = value.trim();
+        TimeUnit unit = TimeUnit.MILLISECONDS;
+        if (value.endsWith("ms")) {
+            value = value.substring(0, value.length() - 2);
+        } else if (value.endsWith("s")) {
+            value = value.substring(0, value.length() - 1);
+            unit = TimeUnit.SECONDS;
+        }
+        try {
+            long amount = Long.parseLong(value);
+            return amount < 0 ? -1 : unit.toNanos(amount);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.riguz.forks.etag;
+
+import com.riguz.commons.encrypt.XxHash64;
+import com.riguz.forks.http.HttpRequest;
+import com.riguz.forks.http.HttpResponse;
+import com.riguz.forks.http.HttpResponseWrapper;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tags successful bodies with a weak ETag hashed from the bytes being written, and answers 304 without the body
+ * when the client already holds them. Bodies written through the output stream or a response stream pass
+ * untagged.
+ */
+public class ETagResponse extends HttpResponseWrapper {
+    public static final String ETAG = "ETag";
+    public static final String IF_NONE_MATCH = "If-None-Match";
+
+    private final HttpRequest request;
+    private long contentLength = -1;
+
+    public ETagResponse(HttpRequest request, HttpResponse response) {
+        super(response);
+        this.request = request;
+    }
+
+    /**
+     * Held back until the body is written, a 304 is sent without the length of the body it replaces.
+     */
+    @Override
+    public HttpResponse setContentLength(long length) {
+        if (this.getStatus() != 200)
+            return super.setContentLength(length);
+        this.contentLength = length;
+        return this;
+    }
+
+    @Override
+    public HttpResponse writeContent(String content) {
+        return this.writeContent(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public HttpResponse writeContent(ByteBuffer byteBuffer) {
+        if (this.getStatus() != 200)
+            return super.writeContent(byteBuffer);
+        long length = this.contentLength;
+        this.contentLength = -1;
+        String etag = etagOf(byteBuffer);
+        this.setHeader(ETAG, etag);
+        if (matches(this.request.getHeader(IF_NONE_MATCH), etag)) {
+            this.setStatus(304);
+            return this;
+        }
+        if (length >= 0)
+            super.setContentLength(length);
+        return super.writeContent(byteBuffer);
+    }
+
+    static String etagOf(ByteBuffer body) {
+        String hash = Long.toHexString(XxHash64.hash(body));
+        StringBuilder etag = new StringBuilder(20).append("W/\"");
+        for (int i = hash.length(); i < 16; i++)
+            etag.append('0');
+        return etag.append(hash).append('"').toString();
+    }
+
+    /**
+     * Weak comparison as required for If-None-Match, W/"x" matches "x".
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null)
+            return false;
+        String opaque = etag.substring(2);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*"))
+                return true;
+            if (candidate.startsWith("W/"))
+                candidate = candidate.substring(2);
+            if (candidate.equals(opaque))
+                return true;
+        }
+        return false;
+    }
+}
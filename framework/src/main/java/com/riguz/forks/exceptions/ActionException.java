@@ -1,7 +1,10 @@
 package com.riguz.forks.exceptions;
 
+/**
+ * Wraps what an action threw, the cause already has the stack trace so this one doesn't fill in its own.
+ */
 public class ActionException extends Exception {
     public ActionException(Throwable cause) {
-        super(cause);
+        super(cause == null ? null : cause.toString(), cause, false, false);
     }
 }
@@ -0,0 +1,11 @@
+package com.riguz.forks.exceptions;
+
+/**
+ * An expected failure answered with a status, like a malformed parameter. These are thrown for every bad request, so
+ * they don't fill in a stack trace.
+ */
+public class ControlFlowException extends RuntimeException {
+    public ControlFlowException(String message) {
+        super(message, null, false, false);
+    }
+}
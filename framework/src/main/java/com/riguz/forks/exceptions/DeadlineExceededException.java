@@ -0,0 +1,7 @@
+package com.riguz.forks.exceptions;
+
+public class DeadlineExceededException extends ControlFlowException {
+    public DeadlineExceededException() {
+        super("Deadline exceeded");
+    }
+}
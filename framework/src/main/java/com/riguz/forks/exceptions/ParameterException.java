@@ -0,0 +1,10 @@
+package com.riguz.forks.exceptions;
+
+/**
+ * A parameter of the action is missing or malformed, answered with 400.
+ */
+public class ParameterException extends ControlFlowException {
+    public ParameterException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.riguz.forks.exceptions;
+
+public class TemplateException extends RuntimeException {
+    public TemplateException(String message) {
+        super(message);
+    }
+
+    public TemplateException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
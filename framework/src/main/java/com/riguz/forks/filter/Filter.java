@@ -0,0 +1,20 @@
+package com.riguz.forks.filter;
+
+import com.riguz.forks.http.HttpRequest;
+import com.riguz.forks.http.HttpResponse;
+import com.riguz.forks.mvc.EncodedResponse;
+
+/**
+ * Runs before the route of a request, in the order filters are applied with {@code +Name} in the routes block.
+ * Filters are created once through the injector and shared by all routes, so they must be thread safe.
+ * <p>
+ * Return null to pass the request on, or a response to answer it with right away. Such responses are usually built
+ * once up front. Work that should happen once the response was sent, like metrics, registers itself with
+ * {@link HttpResponse#onComplete(Runnable)}.
+ */
+@FunctionalInterface
+public interface Filter {
+    Filter[] NONE = new Filter[0];
+
+    EncodedResponse filter(HttpRequest request, HttpResponse response);
+}
@@ -8,6 +8,10 @@ import java.io.IOException;
 
 @Singleton
 public class DslJsonSerializer implements JsonSerializer {
+    /**
+     * Writers grown past this by a large result are dropped afterwards rather than kept for the life of the thread.
+     */
+    public static final int MAX_RETAINED_SIZE = 64 * 1024;
     private static final DslJson<Object> dslJson = new DslJson<>();
     private static final ThreadLocal<JsonWriter> jsonWriterProvider = ThreadLocal.withInitial(dslJson::newWriter);
 
@@ -16,6 +20,9 @@ public class DslJsonSerializer implements JsonSerializer {
         final JsonWriter writer = jsonWriterProvider.get();
         writer.reset();
         dslJson.serialize(writer, original);
-        return writer.toByteArray();
+        byte[] serialized = writer.toByteArray();
+        if (writer.getByteBuffer().length > MAX_RETAINED_SIZE)
+            jsonWriterProvider.remove();
+        return serialized;
     }
 }
@@ -1,7 +1,22 @@
 package com.riguz.forks.json;
 
+import com.riguz.forks.codec.Serializer;
+
 import java.io.IOException;
 
-public interface JsonSerializer {
+public interface JsonSerializer extends Serializer {
+    String MEDIA_TYPE = "application/json";
+
+    @Override
+    default String getMediaType() {
+        return MEDIA_TYPE;
+    }
+
+    @Override
+    default String getContentType() {
+        return MEDIA_TYPE + ";charset=UTF-8";
+    }
+
+    @Override
     byte[] serialize(Object original) throws IOException;
 }
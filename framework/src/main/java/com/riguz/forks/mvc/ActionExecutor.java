@@ -1,47 +1,28 @@
 package com.riguz.forks.mvc;
 
-import com.riguz.forks.config.route.FunctionCall;
 import com.riguz.forks.exceptions.ActionException;
 
-import java.lang.reflect.InvocationTargetException;
-import java.util.ArrayList;
-import java.util.List;
-
 public class ActionExecutor {
     public Object execute(RequestHandler handler, RequestContext context) throws ActionException {
-        Object controller = handler.getController();
         try {
-            return handler.getAction().invoke(controller,
-                    this.bindActionParams(handler.getFunctionCall(), context));
-        } catch (IllegalAccessException | InvocationTargetException e) {
+            return handler.getInvoker().invoke(handler.getController(), handler.getBinders(), context);
+        } catch (Exception e) {
+            throw new ActionException(e);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw new ActionException(e);
-        } catch (NumberFormatException ex) {
-            throw new ActionException(ex);
-        }
-    }
-
-    private Object[] bindActionParams(FunctionCall functionCall, RequestContext context) {
-        List<Object> arguments = new ArrayList<>();
-        String[] pathParamNames = functionCall.getParamNames();
-        if(pathParamNames != null) {
-            Class<?>[] pathParamTypes = functionCall.getParamTypes();
-            for (int i = 0; i < pathParamNames.length; i++) {
-                System.out.println(pathParamNames[i]);
-                String param = context.getPathVariable(pathParamNames[i]);
-                Class<?> paramType = pathParamTypes[i];
-                arguments.add(convert(param, paramType));
-            }
         }
-        return arguments.toArray();
     }
 
-    private static <T> T convert(String argument, Class<T> argumentType) {
-        if (argumentType == int.class)
-            return (T) Integer.valueOf(argument);
-        else if (argumentType == long.class)
-            return (T) Long.valueOf(argument);
-        else
-            return (T) argument;
+    /**
+     * The arguments the action would be invoked with.
+     */
+    public Object[] bindArguments(RequestHandler handler, RequestContext context) {
+        ParameterBinder[] binders = handler.getBinders();
+        Object[] arguments = new Object[binders.length];
+        for (int i = 0; i < binders.length; i++)
+            arguments[i] = binders[i].bind(context);
+        return arguments;
     }
-
 }
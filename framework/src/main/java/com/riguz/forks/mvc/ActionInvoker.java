@@ -0,0 +1,228 @@
+package com.riguz.forks.mvc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Calls an action without reflection. For actions with up to four parameters a class implementing the call directly
+ * is spun with LambdaMetafactory when the route is loaded, so the JIT can inline the action into it and primitive
+ * parameters are unboxed right there. Other actions, and controllers the framework can't link against, are called
+ * through a method handle.
+ * <p>
+ * Invoking with binders passes each bound argument straight to the action, without an argument array for the
+ * direct invokers.
+ */
+public abstract class ActionInvoker {
+    private static final Logger logger = LoggerFactory.getLogger(ActionInvoker.class);
+    private static final int MAX_DIRECT_ARITY = 4;
+    private static final Class<?>[] TARGETS = {Target0.class, Target1.class, Target2.class, Target3.class, Target4.class};
+
+    public abstract Object invoke(Object controller, Object... arguments) throws Throwable;
+
+    public abstract Object invoke(Object controller, ParameterBinder[] binders, RequestContext context)
+            throws Throwable;
+
+    public static ActionInvoker of(Method action) {
+        int arity = action.getParameterCount();
+        if (arity <= MAX_DIRECT_ARITY && action.getReturnType() != void.class
+                && !Modifier.isStatic(action.getModifiers()) && isLinkable(action)) {
+            try {
+                return direct(action, arity);
+            } catch (Throwable e) {
+                logger.debug("Calling {} through a method handle", action, e);
+            }
+        }
+        return new HandleInvoker(action);
+    }
+
+    private static ActionInvoker direct(Method action, int arity) throws Throwable {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle implementation = lookup.unreflect(action);
+        MethodType instantiated = implementation.type().wrap();
+        Object target = LambdaMetafactory.metafactory(lookup, "invoke", MethodType.methodType(TARGETS[arity]),
+                MethodType.genericMethodType(arity + 1), implementation, instantiated)
+                .getTarget()
+                .invoke();
+        switch (arity) {
+            case 0:
+                return new Invoker0((Target0) target);
+            case 1:
+                return new Invoker1((Target1) target);
+            case 2:
+                return new Invoker2((Target2) target);
+            case 3:
+                return new Invoker3((Target3) target);
+            default:
+                return new Invoker4((Target4) target);
+        }
+    }
+
+    /**
+     * The spun class lives next to this one, it can only call public methods of public classes it can see.
+     */
+    private static boolean isLinkable(Method action) {
+        Class<?> type = action.getDeclaringClass();
+        if (!Modifier.isPublic(type.getModifiers()) || !Modifier.isPublic(action.getModifiers()))
+            return false;
+        try {
+            return Class.forName(type.getName(), false, ActionInvoker.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    @FunctionalInterface
+    interface Target0 {
+        Object invoke(Object controller);
+    }
+
+    @FunctionalInterface
+    interface Target1 {
+        Object invoke(Object controller, Object a);
+    }
+
+    @FunctionalInterface
+    interface Target2 {
+        Object invoke(Object controller, Object a, Object b);
+    }
+
+    @FunctionalInterface
+    interface Target3 {
+        Object invoke(Object controller, Object a, Object b, Object c);
+    }
+
+    @FunctionalInterface
+    interface Target4 {
+        Object invoke(Object controller, Object a, Object b, Object c, Object d);
+    }
+
+    static final class Invoker0 extends ActionInvoker {
+        private final Target0 target;
+
+        Invoker0(Target0 target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object controller, Object... arguments) {
+            return this.target.invoke(controller);
+        }
+
+        @Override
+        public Object invoke(Object controller, ParameterBinder[] binders, RequestContext context) {
+            return this.target.invoke(controller);
+        }
+    }
+
+    static final class Invoker1 extends ActionInvoker {
+        private final Target1 target;
+
+        Invoker1(Target1 target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object controller, Object... arguments) {
+            return this.target.invoke(controller, arguments[0]);
+        }
+
+        @Override
+        public Object invoke(Object controller, ParameterBinder[] binders, RequestContext context) {
+            return this.target.invoke(controller, binders[0].bind(context));
+        }
+    }
+
+    static final class Invoker2 extends ActionInvoker {
+        private final Target2 target;
+
+        Invoker2(Target2 target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object controller, Object... arguments) {
+            return this.target.invoke(controller, arguments[0], arguments[1]);
+        }
+
+        @Override
+        public Object invoke(Object controller, ParameterBinder[] binders, RequestContext context) {
+            return this.target.invoke(controller, binders[0].bind(context), binders[1].bind(context));
+        }
+    }
+
+    static final class Invoker3 extends ActionInvoker {
+        private final Target3 target;
+
+        Invoker3(Target3 target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object controller, Object... arguments) {
+            return this.target.invoke(controller, arguments[0], arguments[1], arguments[2]);
+        }
+
+        @Override
+        public Object invoke(Object controller, ParameterBinder[] binders, RequestContext context) {
+            return this.target.invoke(controller, binders[0].bind(context), binders[1].bind(context),
+                    binders[2].bind(context));
+        }
+    }
+
+    static final class Invoker4 extends ActionInvoker {
+        private final Target4 target;
+
+        Invoker4(Target4 target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object controller, Object... arguments) {
+            return this.target.invoke(controller, arguments[0], arguments[1], arguments[2], arguments[3]);
+        }
+
+        @Override
+        public Object invoke(Object controller, ParameterBinder[] binders, RequestContext context) {
+            return this.target.invoke(controller, binders[0].bind(context), binders[1].bind(context),
+                    binders[2].bind(context), binders[3].bind(context));
+        }
+    }
+
+    static final class HandleInvoker extends ActionInvoker {
+        private final MethodHandle handle;
+
+        HandleInvoker(Method action) {
+            action.setAccessible(true);
+            try {
+                MethodHandle handle = MethodHandles.lookup().unreflect(action);
+                if (Modifier.isStatic(action.getModifiers()))
+                    handle = MethodHandles.dropArguments(handle, 0, Object.class);
+                this.handle = handle
+                        .asSpreader(Object[].class, action.getParameterCount())
+                        .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Action is not accessible:" + action, e);
+            }
+        }
+
+        @Override
+        public Object invoke(Object controller, Object... arguments) throws Throwable {
+            return this.handle.invokeExact(controller, arguments);
+        }
+
+        @Override
+        public Object invoke(Object controller, ParameterBinder[] binders, RequestContext context) throws Throwable {
+            Object[] arguments = new Object[binders.length];
+            for (int i = 0; i < binders.length; i++)
+                arguments[i] = binders[i].bind(context);
+            return this.handle.invokeExact(controller, arguments);
+        }
+    }
+}
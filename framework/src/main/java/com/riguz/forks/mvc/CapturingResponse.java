@@ -0,0 +1,71 @@
+package com.riguz.forks.mvc;
+
+import com.riguz.forks.http.Cookie;
+import com.riguz.forks.http.HttpResponse;
+import com.riguz.forks.http.HttpResponseWrapper;
+import com.riguz.forks.http.ResponseStream;
+import com.riguz.forks.http.websocket.WebSocketHandler;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Passes the response through and hands a copy of it to capture, if it was written in one piece. Responses setting
+ * cookies are specific to one client and never captured.
+ */
+public abstract class CapturingResponse extends HttpResponseWrapper {
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private boolean capturable = true;
+
+    public CapturingResponse(HttpResponse response) {
+        super(response);
+    }
+
+    protected abstract void capture(int status, Map<String, String> headers, ByteBuffer body);
+
+    @Override
+    public HttpResponse setHeader(String name, String value) {
+        this.headers.put(name, value);
+        return super.setHeader(name, value);
+    }
+
+    @Override
+    public HttpResponse addCookie(Cookie cookie) {
+        this.capturable = false;
+        return super.addCookie(cookie);
+    }
+
+    @Override
+    public HttpResponse writeContent(String content) {
+        return this.writeContent(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public HttpResponse writeContent(ByteBuffer byteBuffer) {
+        if (this.capturable)
+            this.capture(this.getStatus(), this.headers, byteBuffer);
+        this.capturable = false;
+        return super.writeContent(byteBuffer);
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        this.capturable = false;
+        return super.getOutputStream();
+    }
+
+    @Override
+    public ResponseStream startStream() {
+        this.capturable = false;
+        return super.startStream();
+    }
+
+    @Override
+    public void acceptWebSocket(WebSocketHandler handler) {
+        this.capturable = false;
+        super.acceptWebSocket(handler);
+    }
+}
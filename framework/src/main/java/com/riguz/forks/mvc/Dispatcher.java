@@ -1,6 +1,17 @@
 package com.riguz.forks.mvc;
 
 import com.riguz.commons.tuple.Pair;
+import com.riguz.forks.accesslog.AccessLog;
+import com.riguz.forks.bulkhead.Bulkhead;
+import com.riguz.forks.cache.CachingResponse;
+import com.riguz.forks.cache.ResponseCache;
+import com.riguz.forks.coalesce.Coalescer;
+import com.riguz.forks.codec.Serializers;
+import com.riguz.forks.deadline.Deadline;
+import com.riguz.forks.deadline.Deadlines;
+import com.riguz.forks.etag.ETagResponse;
+import com.riguz.forks.exceptions.UnexpectedException;
+import com.riguz.forks.filter.Filter;
 import com.riguz.forks.http.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,6 +20,9 @@ import javax.inject.Inject;
 import javax.inject.Named;
 
 import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
 
 public class Dispatcher implements RequestDelegate {
     private static final Logger logger = LoggerFactory.getLogger(Dispatcher.class);
@@ -17,37 +31,185 @@ public class Dispatcher implements RequestDelegate {
     protected final ActionExecutor actionExecutor;
     protected final Resolver<Exception> exceptionResolver;
     protected final Resolver<Object> responseResolver;
+    protected final AccessLog accessLog;
+    protected final Deadlines deadlines;
+    protected final Serializers serializers;
 
     @Inject
     public Dispatcher(Router<RequestHandler> router,
                       ActionExecutor actionExecutor,
                       @Named("exceptionResolver") Resolver<Exception> exceptionResolver,
-                      @Named("responseResolver") Resolver<Object> responseResolver) {
+                      @Named("responseResolver") Resolver<Object> responseResolver,
+                      AccessLog accessLog,
+                      Deadlines deadlines,
+                      Serializers serializers) {
         this.router = router;
         this.actionExecutor = actionExecutor;
         this.exceptionResolver = exceptionResolver;
         this.responseResolver = responseResolver;
+        this.accessLog = accessLog;
+        this.deadlines = deadlines;
+        this.serializers = serializers;
     }
 
     @Override
     public void delegate(HttpRequest request, HttpResponse response) {
-        logger.info("=>Resolving :{}", request.getRequestURI());
+        long start = System.nanoTime();
         Endpoint<RequestHandler> endpoint = this.router.route(request);
+        String route = endpoint == null ? null : endpoint.getHandler().getRoute();
+        response.onComplete(() -> this.accessLog.record(route,
+                response.getStatus(), System.nanoTime() - start, response.getBytesSent()));
         if (endpoint == null) {
             this.resolve404(request, response);
             return;
         }
         RequestHandler handler = endpoint.getHandler();
+        for (Filter filter : handler.getFilters()) {
+            EncodedResponse rejected = filter.filter(request, response);
+            if (rejected != null) {
+                rejected.send(response);
+                return;
+            }
+        }
+        if (handler.getWebSocketHandler() != null) {
+            response.acceptWebSocket(handler.getWebSocketHandler());
+            return;
+        }
+        Deadline deadline = this.deadlines.of(request, start, handler.getTimeout());
         Map<String, String> pathVariables = endpoint.getPathVariables();
         logger.debug("Resolved path variables:{}", pathVariables);
+        if (request.getHttpMethod() != HttpMethod.GET) {
+            this.dispatch(handler, request, response, pathVariables, deadline);
+            return;
+        }
+        HttpResponse actionResponse = response;
+        ResponseCache cache = handler.getResponseCache();
+        if (cache != null) {
+            String key = cache.keyOf(request, this.mediaTypeOf(request));
+            EncodedResponse cached = cache.get(key);
+            if (cached != null) {
+                cached.send(this.tag(handler, request, response));
+                return;
+            }
+            actionResponse = new CachingResponse(response, cache, key);
+        }
+        if (handler.getCoalescer() != null)
+            this.coalesce(handler, request, actionResponse, pathVariables, deadline);
+        else
+            this.dispatch(handler, request, this.tag(handler, request, actionResponse), pathVariables, deadline);
+    }
+
+    /**
+     * The media type a result of the request would be serialized as, null if there is only one. Cached and coalesced
+     * responses are keyed by it, so clients negotiating different ones don't get each other's bodies.
+     */
+    private String mediaTypeOf(HttpRequest request) {
+        if (this.serializers.isSingle())
+            return null;
+        return this.serializers.negotiate(request.getHeader("Accept")).getMediaType();
+    }
+
+    /**
+     * The request either leads and runs the action, or waits suspended for the response of the leader.
+     */
+    private void coalesce(RequestHandler handler,
+                          HttpRequest request,
+                          HttpResponse response,
+                          Map<String, String> pathVariables,
+                          Deadline deadline) {
+        Coalescer coalescer = handler.getCoalescer();
+        response.suspend();
+        String key = coalescer.keyOf(request, this.mediaTypeOf(request));
+        Coalescer.Flight flight = coalescer.join(key, shared -> response.resume(() -> {
+            if (shared != null)
+                shared.send(this.tag(handler, request, response));
+            else
+                this.dispatch(handler, request, this.tag(handler, request, response), pathVariables, deadline);
+        }));
+        if (flight == null)
+            return;
+        response.onComplete(flight::land);
+        response.resume(() -> this.dispatch(handler, request,
+                flight.capture(this.tag(handler, request, response)), pathVariables, deadline));
+    }
+
+    /**
+     * Hands the action over to the pool of the route, a full pool answers 503 right away.
+     */
+    private void dispatch(RequestHandler handler,
+                          HttpRequest request,
+                          HttpResponse response,
+                          Map<String, String> pathVariables,
+                          Deadline deadline) {
+        Bulkhead bulkhead = handler.getBulkhead();
+        if (bulkhead == null) {
+            this.execute(handler, request, response, pathVariables, deadline);
+            return;
+        }
+        response.suspend();
+        try {
+            response.resume(bulkhead, () -> this.execute(handler, request, response, pathVariables, deadline));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Pool {} is saturated, rejecting {}", bulkhead.getName(), handler.getRoute());
+            response.resume(() -> bulkhead.getRejectedResponse().send(response));
+        }
+    }
+
+    private void execute(RequestHandler handler,
+                         HttpRequest request,
+                         HttpResponse response,
+                         Map<String, String> pathVariables,
+                         Deadline deadline) {
+        if (deadline != null && deadline.isExpired()) {
+            // the client gave up while the request was queued, running the action would only waste capacity
+            this.deadlines.drop(handler.getRoute());
+            response.sendError(504, "Deadline exceeded");
+            return;
+        }
+        RequestContext context = new RequestContext(request, response, pathVariables, deadline);
+        RequestContext.bind(context);
         try {
-            final Object result = this.actionExecutor.execute(handler, new RequestContext(request, response, pathVariables));
-            this.responseResolver.resolve(request, response, result);
+            final Object result = handler.getBatcher() != null
+                    ? handler.getBatcher().submit(this.actionExecutor.bindArguments(handler, context)[0])
+                    : this.actionExecutor.execute(handler, context);
+            Resolver<Object> resolver = handler.getResultResolver() != null
+                    ? handler.getResultResolver() : this.responseResolver;
+            if (result instanceof CompletionStage)
+                this.resolveLater(request, response, (CompletionStage<?>) result, resolver);
+            else if (result != null)
+                resolver.resolve(request, response, result);
         } catch (Exception e) {
             this.exceptionResolver.resolve(request, response, e);
+        } finally {
+            RequestContext.unbind();
         }
     }
 
+    /**
+     * Actions returning a CompletionStage release the thread, the response is written once the stage completed.
+     */
+    private void resolveLater(HttpRequest request,
+                              HttpResponse response,
+                              CompletionStage<?> result,
+                              Resolver<Object> resolver) {
+        response.suspend();
+        result.whenComplete((value, error) -> response.resume(() -> {
+            if (error == null) {
+                if (value != null)
+                    resolver.resolve(request, response, value);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            this.exceptionResolver.resolve(request, response,
+                    cause instanceof Exception ? (Exception) cause : new UnexpectedException(cause));
+        }));
+    }
+
+    private HttpResponse tag(RequestHandler handler, HttpRequest request, HttpResponse response) {
+        return handler.isETag() ? new ETagResponse(request, response) : response;
+    }
+
     private void resolve404(HttpRequest request, HttpResponse response) {
         response.sendError(404, "Not found");
     }
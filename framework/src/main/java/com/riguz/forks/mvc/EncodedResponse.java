@@ -0,0 +1,54 @@
+package com.riguz.forks.mvc;
+
+import com.riguz.forks.http.HttpResponse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A complete response encoded up front, for answers that are the same every time they are sent.
+ */
+public class EncodedResponse {
+    private final int status;
+    private final Map<String, String> headers;
+    private final ByteBuffer body;
+
+    public EncodedResponse(int status, String contentType, String body) {
+        this(status, Collections.singletonMap("Content-Type", contentType), body);
+    }
+
+    public EncodedResponse(int status, Map<String, String> headers, String body) {
+        this(status, headers, ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * The body is kept as it is, heap or direct, and must not be changed afterwards.
+     */
+    public EncodedResponse(int status, Map<String, String> headers, ByteBuffer body) {
+        this.status = status;
+        this.headers = Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+        this.body = body.asReadOnlyBuffer();
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public int getContentLength() {
+        return this.body.remaining();
+    }
+
+    public void send(HttpResponse response) {
+        response.setStatus(this.status);
+        this.headers.forEach(response::setHeader);
+        response.setContentLength(this.body.remaining());
+        response.writeContent(this.body.duplicate());
+    }
+}
@@ -0,0 +1,85 @@
+package com.riguz.forks.mvc;
+
+import com.riguz.forks.exceptions.DeadlineExceededException;
+import com.riguz.forks.exceptions.ParameterException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Statuses for exceptions that are expected, keyed by exception type. A type is answered by the mapping of its
+ * nearest mapped superclass, looked up once per type. A mapping either has a fixed body, encoded when registered, or
+ * answers with the message of the exception.
+ */
+public class ExceptionMappings {
+    public static final String CONTENT_TYPE = "text/plain;charset=UTF-8";
+    private static final Mapping NONE = new Mapping(500, null);
+
+    private final Map<Class<?>, Mapping> mappings = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Mapping> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * Parameters the framework can't bind and missed deadlines. Exceptions thrown by actions, even ones as common as
+     * NumberFormatException, are only mapped by the application, they may as well be bugs of the server.
+     */
+    public static ExceptionMappings defaults() {
+        return new ExceptionMappings()
+                .map(ParameterException.class, 400)
+                .map(DeadlineExceededException.class, 504);
+    }
+
+    public ExceptionMappings map(Class<? extends Throwable> type, int status) {
+        return this.put(type, new Mapping(status, null));
+    }
+
+    public ExceptionMappings map(Class<? extends Throwable> type, int status, String body) {
+        ByteBuffer encoded = ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+        return this.put(type, new Mapping(status, encoded));
+    }
+
+    private ExceptionMappings put(Class<? extends Throwable> type, Mapping mapping) {
+        this.mappings.put(type, mapping);
+        this.resolved.clear();
+        return this;
+    }
+
+    /**
+     * The mapping of the exception type, or null if it isn't mapped.
+     */
+    public Mapping find(Class<?> type) {
+        Mapping mapping = this.resolved.computeIfAbsent(type, this::lookup);
+        return mapping == NONE ? null : mapping;
+    }
+
+    private Mapping lookup(Class<?> type) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            Mapping mapping = this.mappings.get(current);
+            if (mapping != null)
+                return mapping;
+        }
+        return NONE;
+    }
+
+    public static class Mapping {
+        private final int status;
+        private final ByteBuffer body;
+
+        Mapping(int status, ByteBuffer body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * The encoded body, or null to answer with the message of the exception.
+         */
+        public ByteBuffer getBody() {
+            return body == null ? null : body.duplicate();
+        }
+    }
+}
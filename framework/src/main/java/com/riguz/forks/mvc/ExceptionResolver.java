@@ -2,15 +2,95 @@ package com.riguz.forks.mvc;
 
 import com.riguz.forks.http.HttpRequest;
 import com.riguz.forks.http.HttpResponse;
+import com.riguz.forks.http.multipart.MultipartException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.inject.Inject;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers mapped exceptions with their status, anything else with 500. Logging is limited to one message per exception
+ * type in each interval, the messages left out are counted in the next one, so a burst of bad requests doesn't turn
+ * into a burst of log writes.
+ */
 public class ExceptionResolver implements Resolver<Exception> {
     private static final Logger logger = LoggerFactory.getLogger(ExceptionResolver.class);
+    public static final long LOG_INTERVAL_SECONDS = 10;
+
+    private final ExceptionMappings mappings;
+    private final long logInterval;
+    private final Map<Class<?>, LogWindow> logWindows = new ConcurrentHashMap<>();
+
+    public ExceptionResolver() {
+        this(ExceptionMappings.defaults());
+    }
+
+    @Inject
+    public ExceptionResolver(ExceptionMappings mappings) {
+        this(mappings, LOG_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public ExceptionResolver(ExceptionMappings mappings, long logInterval, TimeUnit unit) {
+        this.mappings = mappings;
+        this.logInterval = unit.toNanos(logInterval);
+    }
 
     @Override
     public void resolve(HttpRequest request, HttpResponse response, Exception exception) {
-        logger.error("Resolving exception:{}", exception);
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MultipartException) {
+                MultipartException multipartException = (MultipartException) cause;
+                response.sendError(multipartException.getStatus().getStatusCode(), multipartException.getMessage());
+                return;
+            }
+            ExceptionMappings.Mapping mapping = this.mappings.find(cause.getClass());
+            if (mapping != null) {
+                long suppressed = this.suppressed(cause.getClass(), System.nanoTime());
+                if (suppressed >= 0 && logger.isDebugEnabled())
+                    logger.debug("Answering {} with {} ({} more since last logged):{}",
+                            cause.getClass().getName(), mapping.getStatus(), suppressed, cause.getMessage());
+                ByteBuffer body = mapping.getBody();
+                if (body == null) {
+                    response.sendError(mapping.getStatus(), cause.getMessage());
+                } else {
+                    response.setStatus(mapping.getStatus());
+                    response.setHeader("Content-Type", ExceptionMappings.CONTENT_TYPE);
+                    response.writeContent(body);
+                }
+                return;
+            }
+        }
+        Throwable cause = exception.getCause() != null ? exception.getCause() : exception;
+        long suppressed = this.suppressed(cause.getClass(), System.nanoTime());
+        if (suppressed >= 0)
+            logger.error("Resolving exception ({} more since last logged):", suppressed, exception);
         response.sendError(500, exception.getMessage());
     }
+
+    /**
+     * How many exceptions of the type were left out since the last one logged if this one should be logged, otherwise
+     * -1.
+     */
+    long suppressed(Class<?> type, long now) {
+        LogWindow window = this.logWindows.computeIfAbsent(type, key -> new LogWindow(now));
+        long next = window.next.get();
+        if (now - next >= 0 && window.next.compareAndSet(next, now + this.logInterval))
+            return window.suppressed.getAndSet(0);
+        window.suppressed.incrementAndGet();
+        return -1;
+    }
+
+    private static class LogWindow {
+        private final AtomicLong next;
+        private final AtomicLong suppressed = new AtomicLong();
+
+        LogWindow(long now) {
+            this.next = new AtomicLong(now);
+        }
+    }
 }
@@ -0,0 +1,97 @@
+package com.riguz.forks.mvc;
+
+import com.riguz.forks.config.route.FunctionCall;
+import com.riguz.forks.config.route.PathParam;
+import com.riguz.forks.exceptions.ParameterException;
+
+import java.util.function.Function;
+
+/**
+ * Produces one argument of an action. Binders are compiled once per route with their source and converter already
+ * resolved, so binding a request neither branches on parameter types nor allocates temporary collections.
+ */
+@FunctionalInterface
+public interface ParameterBinder {
+    ParameterBinder[] NONE = new ParameterBinder[0];
+
+    Object bind(RequestContext context);
+
+    static ParameterBinder[] compile(FunctionCall functionCall) {
+        PathParam[] params = functionCall.getParams();
+        if (params == null)
+            return NONE;
+        ParameterBinder[] binders = new ParameterBinder[params.length];
+        for (int i = 0; i < params.length; i++)
+            binders[i] = compile(params[i]);
+        return binders;
+    }
+
+    static ParameterBinder compile(PathParam param) {
+        Function<String, ?> converter = converter(param.getType(), param.getKey());
+        switch (param.getSource()) {
+            case QUERY:
+                return optional(context -> context.getQueryParameter(param.getKey()), converter, param, "query");
+            case HEADER:
+                return optional(context -> context.getRequest().getHeader(param.getKey()), converter, param, "header");
+            default:
+                return pathVariable(param.getKey(), converter);
+        }
+    }
+
+    static ParameterBinder pathVariable(String name, Function<String, ?> converter) {
+        return context -> converter.apply(context.getPathVariable(name));
+    }
+
+    /**
+     * Missing values fall back to the default of the parameter, to null if it is optional, or are rejected with 400.
+     */
+    static ParameterBinder optional(Function<RequestContext, String> source,
+                                    Function<String, ?> converter,
+                                    PathParam param,
+                                    String sourceName) {
+        if (param.getDefaultValue() != null) {
+            Object defaultValue = converter.apply(param.getDefaultValue());
+            return context -> {
+                String value = source.apply(context);
+                return value == null ? defaultValue : converter.apply(value);
+            };
+        }
+        if (param.isOptional()) {
+            return context -> {
+                String value = source.apply(context);
+                return value == null ? null : converter.apply(value);
+            };
+        }
+        String message = "Missing " + sourceName + " parameter:" + param.getKey();
+        return context -> {
+            String value = source.apply(context);
+            if (value == null)
+                throw new ParameterException(message);
+            return converter.apply(value);
+        };
+    }
+
+    static Function<String, ?> converter(Class<?> type) {
+        return converter(type, type.getSimpleName());
+    }
+
+    static Function<String, ?> converter(Class<?> type, String name) {
+        if (type == String.class)
+            return Function.identity();
+        Function<String, ?> parser;
+        if (type == int.class || type == Integer.class)
+            parser = Integer::valueOf;
+        else if (type == long.class || type == Long.class)
+            parser = Long::valueOf;
+        else
+            throw new IllegalArgumentException("Unsupported parameter type:" + type);
+        String message = "Invalid " + type.getSimpleName() + " parameter:" + name;
+        return value -> {
+            try {
+                return parser.apply(value);
+            } catch (NumberFormatException e) {
+                throw new ParameterException(message);
+            }
+        };
+    }
+}
@@ -1,20 +1,51 @@
 package com.riguz.forks.mvc;
 
+import com.riguz.forks.deadline.Deadline;
 import com.riguz.forks.http.HttpRequest;
 import com.riguz.forks.http.HttpResponse;
+import com.riguz.forks.http.QueryString;
+import com.riguz.forks.http.multipart.Multipart;
+import com.riguz.forks.session.Session;
 
 import java.util.Map;
 
 public class RequestContext {
+    private static final ThreadLocal<RequestContext> current = new ThreadLocal<>();
 
     private final HttpRequest request;
     private final HttpResponse response;
     private final Map<String, String> pathVariables;
+    private final Deadline deadline;
+    private QueryString queryString;
+    private Session session;
 
     public RequestContext(HttpRequest request, HttpResponse response, Map<String, String> pathVariables) {
+        this(request, response, pathVariables, null);
+    }
+
+    public RequestContext(HttpRequest request,
+                          HttpResponse response,
+                          Map<String, String> pathVariables,
+                          Deadline deadline) {
         this.request = request;
         this.response = response;
         this.pathVariables = pathVariables;
+        this.deadline = deadline;
+    }
+
+    /**
+     * The context of the request being handled by the calling thread, or null outside of a request.
+     */
+    public static RequestContext current() {
+        return current.get();
+    }
+
+    static void bind(RequestContext context) {
+        current.set(context);
+    }
+
+    static void unbind() {
+        current.remove();
     }
 
     public HttpRequest getRequest() {
@@ -28,4 +59,32 @@ public class RequestContext {
     public String getPathVariable(String name) {
         return this.pathVariables.get(name);
     }
+
+    /**
+     * A parameter of the query string, parsed from the raw query on first use.
+     */
+    public String getQueryParameter(String name) {
+        if (this.queryString == null)
+            this.queryString = QueryString.parse(this.request.getRequestQuery());
+        return this.queryString.get(name);
+    }
+
+    /**
+     * When the client stops waiting, null if the request has no deadline. Long running actions should check it.
+     */
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
+    public Multipart getMultipart() {
+        return this.request.getMultipart();
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    public void setSession(Session session) {
+        this.session = session;
+    }
 }
@@ -1,18 +1,40 @@
 package com.riguz.forks.mvc;
 
 import com.riguz.commons.encrypt.Hashs;
+import com.riguz.forks.batch.Batcher;
+import com.riguz.forks.bulkhead.Bulkhead;
+import com.riguz.forks.cache.ResponseCache;
+import com.riguz.forks.coalesce.Coalescer;
 import com.riguz.forks.config.route.FunctionCall;
 import com.riguz.forks.config.route.RouteRule;
 import com.riguz.forks.exceptions.ActionNotFoundException;
+import com.riguz.forks.filter.Filter;
+import com.riguz.forks.http.websocket.WebSocketHandler;
+import com.riguz.forks.ratelimit.RateLimiter;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
 
 public class RequestHandler {
 
     private final String id;
     private final Object controller;
     private final Method action;
+    private final ActionInvoker invoker;
+    private final Type resultType;
+    private final ParameterBinder[] binders;
     private final FunctionCall functionCall;
+    private final WebSocketHandler webSocketHandler;
+    private String route;
+    private Filter[] filters = Filter.NONE;
+    private Resolver<Object> resultResolver;
+    private RateLimiter rateLimiter;
+    private boolean etag;
+    private ResponseCache responseCache;
+    private Coalescer coalescer;
+    private Batcher batcher;
+    private Bulkhead bulkhead;
+    private long timeout;
 
     public RequestHandler(Object controller, Method action, FunctionCall functionCall) throws ActionNotFoundException {
         this(Hashs.md5(controller.getClass().toString()), controller, action, functionCall);
@@ -22,17 +44,67 @@ public class RequestHandler {
         this.id = id;
         this.controller = controller;
         this.action = action;
+        this.invoker = ActionInvoker.of(action);
+        this.resultType = action.getGenericReturnType();
+        this.binders = ParameterBinder.compile(functionCall);
         this.functionCall = functionCall;
+        this.webSocketHandler = null;
+    }
+
+    /**
+     * A handler calling the action through an invoker generated at build time, without looking the action up.
+     */
+    public RequestHandler(Object controller, ActionInvoker invoker, Type resultType, FunctionCall functionCall) {
+        this.id = Hashs.md5(controller.getClass().toString());
+        this.controller = controller;
+        this.action = null;
+        this.invoker = invoker;
+        this.resultType = resultType;
+        this.binders = ParameterBinder.compile(functionCall);
+        this.functionCall = functionCall;
+        this.webSocketHandler = null;
+    }
+
+    public RequestHandler(WebSocketHandler webSocketHandler) {
+        this.id = Hashs.md5(webSocketHandler.getClass().toString());
+        this.controller = webSocketHandler;
+        this.action = null;
+        this.invoker = null;
+        this.resultType = null;
+        this.binders = ParameterBinder.NONE;
+        this.functionCall = null;
+        this.webSocketHandler = webSocketHandler;
     }
 
     public String getId() {
         return id;
     }
 
+    /**
+     * The action method, null for WebSocket routes and for actions called through generated invokers.
+     */
     public Method getAction() {
         return action;
     }
 
+    /**
+     * The declared return type of the action.
+     */
+    public Type getResultType() {
+        return resultType;
+    }
+
+    public ActionInvoker getInvoker() {
+        return invoker;
+    }
+
+    /**
+     * One binder per parameter of the action, compiled when the route is loaded.
+     */
+    public ParameterBinder[] getBinders() {
+        return binders;
+    }
+
     public Object getController() {
         return controller;
     }
@@ -41,8 +113,121 @@ public class RequestHandler {
         return functionCall;
     }
 
+    /**
+     * The handler of a WebSocket route, null for action routes.
+     */
+    public WebSocketHandler getWebSocketHandler() {
+        return webSocketHandler;
+    }
+
+    /**
+     * Method and pattern of the route, as shown in the access log.
+     */
+    public String getRoute() {
+        return route;
+    }
+
+    public void setRoute(String route) {
+        this.route = route;
+    }
+
+    /**
+     * The filters of the route flattened into their order, the rate limiter of the route first.
+     */
+    public Filter[] getFilters() {
+        return filters;
+    }
+
+    public void setFilters(Filter[] filters) {
+        this.filters = filters;
+    }
+
+    /**
+     * Writes the results of the action, picked from its declared return type when the route is loaded.
+     */
+    public Resolver<Object> getResultResolver() {
+        return resultResolver;
+    }
+
+    public void setResultResolver(Resolver<Object> resultResolver) {
+        this.resultResolver = resultResolver;
+    }
+
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Whether successful GET responses are tagged with an ETag and answered with 304 when unchanged.
+     */
+    public boolean isETag() {
+        return etag;
+    }
+
+    public void setETag(boolean etag) {
+        this.etag = etag;
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Shares one execution among concurrent identical GET requests, null if the route doesn't coalesce.
+     */
+    public Coalescer getCoalescer() {
+        return coalescer;
+    }
+
+    public void setCoalescer(Coalescer coalescer) {
+        this.coalescer = coalescer;
+    }
+
+    /**
+     * Serves the action through its batch method, null if the route doesn't batch.
+     */
+    public Batcher getBatcher() {
+        return batcher;
+    }
+
+    public void setBatcher(Batcher batcher) {
+        this.batcher = batcher;
+    }
+
+    /**
+     * The pool the action runs on, null to run it on the thread of the server.
+     */
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    public void setBulkhead(Bulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    /**
+     * Default deadline of requests in nanoseconds, 0 if only the timeout sent by clients applies.
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
     @Override
     public String toString() {
+        if (webSocketHandler != null)
+            return "(ws " + controller.getClass().getName() + ")";
         return "(" + action + ")";
     }
 }
@@ -1,32 +1,23 @@
 package com.riguz.forks.mvc;
 
-import com.riguz.forks.exceptions.UnexpectedException;
 import com.riguz.forks.http.HttpRequest;
 import com.riguz.forks.http.HttpResponse;
-import com.riguz.forks.json.JsonSerializer;
 
 import javax.inject.Inject;
-import java.io.IOException;
-import java.nio.ByteBuffer;
 
+/**
+ * Resolves results by their class, for results whose route has no resolver picked from the declared return type.
+ */
 public class ResponseResolver implements Resolver<Object> {
-    private final JsonSerializer jsonSerializer;
+    private final Resolver<Object> resolver;
 
     @Inject
-    public ResponseResolver(JsonSerializer jsonSerializer) {
-        this.jsonSerializer = jsonSerializer;
+    public ResponseResolver(ResultResolvers resultResolvers) {
+        this.resolver = resultResolvers.dynamic();
     }
 
     @Override
     public void resolve(HttpRequest request, HttpResponse response, Object result) {
-        if (result == null) {
-        } else {
-            try {
-                final byte[] serialized = jsonSerializer.serialize(result);
-                response.writeContent(ByteBuffer.wrap(serialized));
-            } catch (IOException e) {
-                throw new UnexpectedException(e);
-            }
-        }
+        this.resolver.resolve(request, response, result);
     }
 }
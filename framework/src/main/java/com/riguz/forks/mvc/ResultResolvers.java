@@ -0,0 +1,252 @@
+package com.riguz.forks.mvc;
+
+import com.riguz.forks.codec.Serializer;
+import com.riguz.forks.codec.Serializers;
+import com.riguz.forks.exceptions.UnexpectedException;
+import com.riguz.forks.http.HttpResponse;
+import com.riguz.forks.json.JsonSerializer;
+import com.riguz.forks.mvc.stream.IteratorStreamer;
+import com.riguz.forks.mvc.stream.JsonStreamer;
+import com.riguz.forks.mvc.stream.SseEmitter;
+import com.riguz.forks.mvc.stream.SseEvent;
+import com.riguz.forks.mvc.view.ErrorResult;
+import com.riguz.forks.mvc.view.Redirect;
+import com.riguz.forks.mvc.view.View;
+import com.riguz.forks.template.TemplateEngine;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Stream;
+
+/**
+ * Resolvers writing action results, by result type. The resolver of a route is picked once from the declared return
+ * type of its action, declared types that don't tell which resolver applies, like Object or Result, are dispatched on
+ * the class of each result instead.
+ * <p>
+ * Strings, numbers, booleans and characters are written as plain text, Stream results as a JSON array written in
+ * chunks, iterators as server-sent events, or like streams for clients accepting only JSON, Redirect and
+ * ErrorResult as such, views rendered by the template engine and everything else with the serializer the request
+ * accepts, JSON by default. The status of Result instances is applied.
+ */
+@Singleton
+public class ResultResolvers {
+    private static final String TEXT = "text/plain;charset=UTF-8";
+    private static final String HTML = "text/html;charset=UTF-8";
+
+    private final JsonSerializer jsonSerializer;
+    private final Map<Class<?>, Resolver<Object>> resolvers = new LinkedHashMap<>();
+    private final Resolver<Object> serialized;
+    private final Resolver<Object> dynamic = (request, response, result) -> {
+        if (result != null)
+            this.forClass(result.getClass()).resolve(request, response, result);
+    };
+    private volatile ClassValue<Resolver<Object>> byClass = this.newCache();
+
+    @Inject
+    public ResultResolvers(Serializers serializers, TemplateEngine templateEngine) {
+        this(serializers);
+        this.register(View.class, (request, response, view) -> {
+            ByteBuffer page = templateEngine.render(view.getPath(), view.getParameters());
+            response.setStatus(view.getHttpStatus().getStatusCode());
+            response.setHeader("Content-Type", HTML);
+            response.writeContent(page);
+        });
+    }
+
+    public ResultResolvers(JsonSerializer jsonSerializer) {
+        this(new Serializers(jsonSerializer));
+    }
+
+    public ResultResolvers(Serializers serializers) {
+        this.jsonSerializer = serializers.getJson();
+        if (serializers.isSingle())
+            this.serialized = (request, response, result) -> writeSerialized(serializers.getJson(), response, result);
+        else
+            this.serialized = (request, response, result) -> {
+                response.setHeader("Vary", "Accept");
+                writeSerialized(serializers.negotiate(request.getHeader("Accept")), response, result);
+            };
+        this.register(SseEmitter.class, (request, response, emitter) -> emitter.attach(response));
+        this.register(Stream.class, (request, response, stream) ->
+                new JsonStreamer(stream.iterator(), this.jsonSerializer, stream).start(response));
+        this.register(Iterator.class, (request, response, iterator) -> {
+            if (acceptsJsonStream(request.getHeader("Accept")))
+                new JsonStreamer(iterator, this.jsonSerializer,
+                        iterator instanceof AutoCloseable ? (AutoCloseable) iterator : null).start(response);
+            else
+                new IteratorStreamer(iterator, this::encodeEvent).start(response);
+        });
+        this.register(Redirect.class, (request, response, redirect) -> {
+            response.setStatus(redirect.getHttpStatus().getStatusCode());
+            response.sendRedirect(redirect.getPath());
+        });
+        this.register(ErrorResult.class, (request, response, error) ->
+                response.sendError(error.getHttpStatus().getStatusCode(), error.getMessage()));
+        this.register(CharSequence.class, (request, response, text) -> writeText(response, text.toString()));
+        this.register(Integer.class, (request, response, number) -> writeText(response, number.longValue()));
+        this.register(Long.class, (request, response, number) -> writeText(response, number.longValue()));
+        this.register(Number.class, (request, response, number) -> writeText(response, number.toString()));
+        this.register(Boolean.class, (request, response, bool) -> writeText(response, bool.toString()));
+        this.register(Character.class, (request, response, character) -> writeText(response, character.toString()));
+    }
+
+    /**
+     * Adds a resolver for results of the type and its subtypes, types registered first take precedence. Register
+     * before routes are loaded.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> void register(Class<T> type, Resolver<? super T> resolver) {
+        this.resolvers.put(type, (Resolver<Object>) resolver);
+        this.byClass = this.newCache();
+    }
+
+    /**
+     * The resolver for results of an action declaring the type. For CompletionStage it resolves the completed value.
+     */
+    public Resolver<Object> forType(Type declared) {
+        if (declared instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) declared;
+            Class<?> raw = (Class<?>) parameterized.getRawType();
+            if (CompletionStage.class.isAssignableFrom(raw))
+                return this.forType(parameterized.getActualTypeArguments()[0]);
+            return this.forType(raw);
+        }
+        if (!(declared instanceof Class))
+            return this.dynamic;
+        Class<?> type = (Class<?>) declared;
+        if (type == void.class || type == Void.class)
+            return (request, response, result) -> {
+            };
+        if (type.isPrimitive())
+            return this.forClass(box(type));
+        if (CompletionStage.class.isAssignableFrom(type))
+            return this.dynamic;
+        Resolver<Object> resolver = this.forClass(type);
+        if (resolver != this.serialized)
+            return resolver;
+        // results of an open type may still be of a type with its own resolver
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || this.isSupertypeOfRegistered(type))
+            return this.dynamic;
+        return this.serialized;
+    }
+
+    /**
+     * Picks the resolver of every result from its class, for resolving results outside of a route.
+     */
+    public Resolver<Object> dynamic() {
+        return this.dynamic;
+    }
+
+    public Resolver<Object> forClass(Class<?> type) {
+        return this.byClass.get(type);
+    }
+
+    private ClassValue<Resolver<Object>> newCache() {
+        return new ClassValue<Resolver<Object>>() {
+            @Override
+            protected Resolver<Object> computeValue(Class<?> type) {
+                synchronized (ResultResolvers.this) {
+                    for (Map.Entry<Class<?>, Resolver<Object>> entry : resolvers.entrySet()) {
+                        if (entry.getKey().isAssignableFrom(type))
+                            return entry.getValue();
+                    }
+                }
+                return serialized;
+            }
+        };
+    }
+
+    private synchronized boolean isSupertypeOfRegistered(Class<?> type) {
+        for (Class<?> registered : this.resolvers.keySet()) {
+            if (type.isAssignableFrom(registered))
+                return true;
+        }
+        return false;
+    }
+
+    private static void writeSerialized(Serializer serializer, HttpResponse response, Object result) {
+        if (result instanceof Result)
+            response.setStatus(((Result) result).getHttpStatus().getStatusCode());
+        try {
+            byte[] serialized = serializer.serialize(result);
+            response.setHeader("Content-Type", serializer.getContentType());
+            response.writeContent(ByteBuffer.wrap(serialized));
+        } catch (IOException e) {
+            throw new UnexpectedException(e);
+        }
+    }
+
+    private ByteBuffer encodeEvent(Object item) {
+        if (item instanceof SseEvent)
+            return ((SseEvent) item).encode();
+        try {
+            return new SseEvent(new String(this.jsonSerializer.serialize(item), StandardCharsets.UTF_8)).encode();
+        } catch (IOException e) {
+            throw new UnexpectedException(e);
+        }
+    }
+
+    /**
+     * Iterators are streamed as events, unless the client asks for JSON and not for events.
+     */
+    private static boolean acceptsJsonStream(String accept) {
+        return accept != null && accept.contains(JsonSerializer.MEDIA_TYPE) && !accept.contains(SseEmitter.MEDIA_TYPE);
+    }
+
+    private static void writeText(HttpResponse response, String text) {
+        response.setHeader("Content-Type", TEXT);
+        response.writeContent(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Writes the digits of the number straight into a buffer of the exact size.
+     */
+    private static void writeText(HttpResponse response, long value) {
+        if (value == Long.MIN_VALUE) {
+            writeText(response, Long.toString(value));
+            return;
+        }
+        boolean negative = value < 0;
+        long rest = negative ? -value : value;
+        int length = negative ? 2 : 1;
+        for (long shifted = rest / 10; shifted != 0; shifted /= 10)
+            length++;
+        byte[] digits = new byte[length];
+        for (int i = length - 1; i >= (negative ? 1 : 0); i--) {
+            digits[i] = (byte) ('0' + rest % 10);
+            rest /= 10;
+        }
+        if (negative)
+            digits[0] = '-';
+        response.setHeader("Content-Type", TEXT);
+        response.writeContent(ByteBuffer.wrap(digits));
+    }
+
+    private static Class<?> box(Class<?> primitive) {
+        if (primitive == int.class)
+            return Integer.class;
+        if (primitive == long.class)
+            return Long.class;
+        if (primitive == boolean.class)
+            return Boolean.class;
+        if (primitive == char.class)
+            return Character.class;
+        if (primitive == double.class)
+            return Double.class;
+        if (primitive == float.class)
+            return Float.class;
+        if (primitive == short.class)
+            return Short.class;
+        return Byte.class;
+    }
+}
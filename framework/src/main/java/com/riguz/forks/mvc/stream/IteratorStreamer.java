@@ -0,0 +1,59 @@
+package com.riguz.forks.mvc.stream;
+
+import com.riguz.forks.http.HttpResponse;
+import com.riguz.forks.http.ResponseStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * Writes the elements of an iterator as events. Elements are only pulled while the connection can take them, and
+ * pulling resumes on the IO thread once it drained, so the iterator must not block.
+ */
+public class IteratorStreamer implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(IteratorStreamer.class);
+
+    private final Iterator<?> iterator;
+    private final Function<Object, ByteBuffer> encoder;
+    private ResponseStream stream;
+
+    public IteratorStreamer(Iterator<?> iterator, Function<Object, ByteBuffer> encoder) {
+        this.iterator = iterator;
+        this.encoder = encoder;
+    }
+
+    public void start(HttpResponse response) {
+        SseEmitter.prepare(response);
+        this.stream = response.startStream();
+        if (this.iterator instanceof AutoCloseable)
+            this.stream.onClose(this::closeIterator);
+        this.run();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (this.stream.isOpen() && this.iterator.hasNext()) {
+                if (!this.stream.isWritable()) {
+                    this.stream.onWritable(this);
+                    return;
+                }
+                this.stream.write(this.encoder.apply(this.iterator.next()));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to stream response", e);
+        }
+        this.stream.close();
+    }
+
+    private void closeIterator() {
+        try {
+            ((AutoCloseable) this.iterator).close();
+        } catch (Exception e) {
+            logger.warn("Failed to close iterator", e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.riguz.forks.mvc.stream;
+
+import com.riguz.forks.http.HttpResponse;
+import com.riguz.forks.http.ResponseStream;
+import com.riguz.forks.json.JsonSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Writes the elements of an iterator as one JSON array. Elements are serialized one at a time and gathered into
+ * chunks, a chunk is written once full, and elements are only pulled while the connection can take more, so memory
+ * stays bounded by a few chunks however many elements there are. The iterator is always pulled on the executor and
+ * the chunks are handed to the IO thread, so it may block, e.g. on a database cursor. If pulling fails part way the
+ * connection is aborted, clients never take a truncated array for a complete one.
+ */
+public class JsonStreamer implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(JsonStreamer.class);
+    public static final int CHUNK_SIZE = 16 * 1024;
+    private static final ExecutorService pullers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "forks-json-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Iterator<?> iterator;
+    private final JsonSerializer serializer;
+    private final AutoCloseable resource;
+    private final Executor executor;
+    private ResponseStream stream;
+    private byte[] chunk = new byte[CHUNK_SIZE];
+    private int size;
+    private boolean first = true;
+
+    /**
+     * @param resource what the iterator reads from, closed once the response ended, or null
+     */
+    public JsonStreamer(Iterator<?> iterator, JsonSerializer serializer, AutoCloseable resource) {
+        this(iterator, serializer, resource, pullers);
+    }
+
+    /**
+     * @param resource what the iterator reads from, closed once the response ended, or null
+     * @param executor where the iterator is pulled
+     */
+    public JsonStreamer(Iterator<?> iterator, JsonSerializer serializer, AutoCloseable resource, Executor executor) {
+        this.iterator = iterator;
+        this.serializer = serializer;
+        this.resource = resource;
+        this.executor = executor;
+    }
+
+    public void start(HttpResponse response) {
+        response.setHeader("Content-Type", this.serializer.getContentType());
+        this.stream = response.startStream();
+        if (this.resource != null)
+            this.stream.onClose(this::closeResource);
+        this.append('[');
+        this.executor.execute(this);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (this.stream.isOpen() && this.iterator.hasNext()) {
+                if (!this.stream.isWritable()) {
+                    this.stream.onWritable(() -> this.executor.execute(this));
+                    return;
+                }
+                if (!this.first)
+                    this.append(',');
+                this.first = false;
+                this.append(this.serializer.serialize(this.iterator.next()));
+            }
+            this.append(']');
+            this.flush();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to stream response", e);
+            this.stream.abort();
+            return;
+        }
+        this.stream.close();
+    }
+
+    private void append(char c) {
+        if (this.size == this.chunk.length)
+            this.flush();
+        this.chunk[this.size++] = (byte) c;
+    }
+
+    private void append(byte[] element) {
+        if (this.size + element.length > this.chunk.length) {
+            this.flush();
+            if (element.length > this.chunk.length) {
+                this.stream.write(ByteBuffer.wrap(element));
+                return;
+            }
+        }
+        System.arraycopy(element, 0, this.chunk, this.size, element.length);
+        this.size += element.length;
+    }
+
+    /**
+     * The stream keeps the written buffer until it is sent, so every chunk gets a new array.
+     */
+    private void flush() {
+        if (this.size == 0)
+            return;
+        this.stream.write(ByteBuffer.wrap(this.chunk, 0, this.size));
+        this.chunk = new byte[CHUNK_SIZE];
+        this.size = 0;
+    }
+
+    private void closeResource() {
+        try {
+            this.resource.close();
+        } catch (Exception e) {
+            logger.warn("Failed to close iterator", e);
+        }
+    }
+}
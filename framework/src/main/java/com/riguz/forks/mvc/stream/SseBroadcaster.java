@@ -0,0 +1,50 @@
+package com.riguz.forks.mvc.stream;
+
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fans events out to many emitters. Each event is encoded once and the same bytes are queued on every connection,
+ * emitters leave the broadcaster by themselves when their connection closes.
+ */
+public class SseBroadcaster {
+    private final Set<SseEmitter> subscribers = ConcurrentHashMap.newKeySet();
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter();
+        this.subscribe(emitter);
+        return emitter;
+    }
+
+    public void subscribe(SseEmitter emitter) {
+        this.subscribers.add(emitter);
+        emitter.onClose(() -> this.subscribers.remove(emitter));
+    }
+
+    public void unsubscribe(SseEmitter emitter) {
+        this.subscribers.remove(emitter);
+    }
+
+    /**
+     * Returns the number of subscribers the event was queued for.
+     */
+    public int broadcast(SseEvent event) {
+        ByteBuffer encoded = event.encode();
+        int delivered = 0;
+        for (SseEmitter emitter : this.subscribers) {
+            if (emitter.send(encoded))
+                delivered++;
+        }
+        return delivered;
+    }
+
+    public int size() {
+        return this.subscribers.size();
+    }
+
+    public void close() {
+        this.subscribers.forEach(SseEmitter::complete);
+        this.subscribers.clear();
+    }
+}
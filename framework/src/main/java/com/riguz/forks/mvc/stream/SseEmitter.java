@@ -0,0 +1,129 @@
+package com.riguz.forks.mvc.stream;
+
+import com.riguz.forks.http.HttpResponse;
+import com.riguz.forks.http.ResponseStream;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Return it from an action to keep the response open as an event stream, events may be sent from any thread before
+ * or after the action returned. Events a slow client can't take are dropped rather than buffered without bound.
+ */
+public class SseEmitter {
+    public static final String MEDIA_TYPE = "text/event-stream";
+    public static final long DEFAULT_HEARTBEAT_SECONDS = 15;
+    private static final ByteBuffer HEARTBEAT = ByteBuffer.wrap(":\n\n".getBytes(StandardCharsets.UTF_8))
+            .asReadOnlyBuffer();
+
+    private final long heartbeatMillis;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile ResponseStream stream;
+    private List<ByteBuffer> pending = new ArrayList<>();
+    private List<Runnable> closeListeners = new ArrayList<>();
+    private boolean completed;
+
+    public SseEmitter() {
+        this(DEFAULT_HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param heartbeat interval of the comment lines keeping idle connections alive through proxies, 0 to disable
+     */
+    public SseEmitter(long heartbeat, TimeUnit unit) {
+        this.heartbeatMillis = unit.toMillis(heartbeat);
+    }
+
+    public boolean send(String data) {
+        return this.send(new SseEvent(data));
+    }
+
+    public boolean send(SseEvent event) {
+        return this.send(event.encode());
+    }
+
+    boolean send(ByteBuffer encoded) {
+        ResponseStream stream = this.stream;
+        if (stream == null) {
+            synchronized (this) {
+                stream = this.stream;
+                if (stream == null) {
+                    if (this.completed)
+                        return false;
+                    this.pending.add(encoded);
+                    return true;
+                }
+            }
+        }
+        if (stream.write(encoded))
+            return true;
+        if (stream.isOpen())
+            this.dropped.incrementAndGet();
+        return false;
+    }
+
+    public void attach(HttpResponse response) {
+        prepare(response);
+        ResponseStream stream = response.startStream();
+        if (this.heartbeatMillis > 0)
+            stream.schedule(() -> stream.write(HEARTBEAT), this.heartbeatMillis, TimeUnit.MILLISECONDS);
+        synchronized (this) {
+            this.pending.forEach(stream::write);
+            this.closeListeners.forEach(stream::onClose);
+            this.pending = null;
+            this.closeListeners = null;
+            this.stream = stream;
+            if (this.completed)
+                stream.close();
+        }
+    }
+
+    public void onClose(Runnable callback) {
+        ResponseStream stream = this.stream;
+        if (stream == null) {
+            synchronized (this) {
+                stream = this.stream;
+                if (stream == null) {
+                    this.closeListeners.add(callback);
+                    return;
+                }
+            }
+        }
+        stream.onClose(callback);
+    }
+
+    public boolean isOpen() {
+        ResponseStream stream = this.stream;
+        return stream == null ? !this.completed : stream.isOpen();
+    }
+
+    public void complete() {
+        ResponseStream stream = this.stream;
+        if (stream == null) {
+            synchronized (this) {
+                stream = this.stream;
+                if (stream == null) {
+                    this.completed = true;
+                    return;
+                }
+            }
+        }
+        stream.close();
+    }
+
+    /**
+     * Number of events dropped because the client did not keep up.
+     */
+    public long getDroppedEvents() {
+        return this.dropped.get();
+    }
+
+    static void prepare(HttpResponse response) {
+        response.setHeader("Content-Type", MEDIA_TYPE + ";charset=UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+    }
+}
@@ -0,0 +1,95 @@
+package com.riguz.forks.mvc.stream;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A server-sent event. The wire format is encoded once and the same read-only bytes are shared by every connection
+ * the event is sent to.
+ */
+public class SseEvent {
+    private String id;
+    private String event;
+    private String data;
+    private long retry = -1;
+    private volatile ByteBuffer encoded;
+
+    public SseEvent(String data) {
+        this.data = data;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public SseEvent setId(String id) {
+        this.id = id;
+        this.encoded = null;
+        return this;
+    }
+
+    public String getEvent() {
+        return event;
+    }
+
+    public SseEvent setEvent(String event) {
+        this.event = event;
+        this.encoded = null;
+        return this;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    public SseEvent setData(String data) {
+        this.data = data;
+        this.encoded = null;
+        return this;
+    }
+
+    public long getRetry() {
+        return retry;
+    }
+
+    public SseEvent setRetry(long retry) {
+        this.retry = retry;
+        this.encoded = null;
+        return this;
+    }
+
+    public ByteBuffer encode() {
+        ByteBuffer encoded = this.encoded;
+        if (encoded == null) {
+            StringBuilder builder = new StringBuilder(32 + (this.data == null ? 0 : this.data.length()));
+            if (this.id != null)
+                builder.append("id: ").append(this.id).append('\n');
+            if (this.event != null)
+                builder.append("event: ").append(this.event).append('\n');
+            if (this.retry >= 0)
+                builder.append("retry: ").append(this.retry).append('\n');
+            if (this.data != null) {
+                int start = 0;
+                for (int i = 0; i <= this.data.length(); i++) {
+                    if (i == this.data.length() || this.data.charAt(i) == '\n') {
+                        builder.append("data: ").append(this.data, start, i).append('\n');
+                        start = i + 1;
+                    }
+                }
+            }
+            builder.append('\n');
+            encoded = ByteBuffer.wrap(builder.toString().getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+            this.encoded = encoded;
+        }
+        return encoded;
+    }
+
+    @Override
+    public String toString() {
+        return "SseEvent{" +
+                "id='" + id + '\'' +
+                ", event='" + event + '\'' +
+                ", data='" + data + '\'' +
+                '}';
+    }
+}
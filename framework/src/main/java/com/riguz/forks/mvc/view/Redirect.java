@@ -1,5 +1,6 @@
 package com.riguz.forks.mvc.view;
 
+import com.riguz.forks.http.HttpStatus;
 import com.riguz.forks.mvc.Result;
 
 public class Redirect extends Result {
@@ -7,7 +8,11 @@ public class Redirect extends Result {
     String path = "";
 
     public Redirect(String path) {
-        super();
+        this(path, HttpStatus.FOUND);
+    }
+
+    public Redirect(String path, HttpStatus httpStatus) {
+        super(httpStatus);
         this.path = path;
     }
 
@@ -0,0 +1,185 @@
+package com.riguz.forks.ratelimit;
+
+import com.riguz.forks.filter.Filter;
+import com.riguz.forks.http.HttpRequest;
+import com.riguz.forks.http.HttpResponse;
+import com.riguz.forks.mvc.EncodedResponse;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * GCRA rate limiter keyed by client address or by a request header such as an api key.
+ * <p>
+ * The state of a key is a single long in an open-addressed table, holding a fingerprint of the key in the high bits
+ * and the theoretical arrival time in the low bits, and it is only ever updated with CAS. No object is allocated
+ * per key. A slot whose arrival time has passed carries no state and is taken over by the next key probing it. The
+ * table is split in stripes that are allocated on first use, so a limiter sized for many clients costs little until
+ * they show up, and the state of a key never moves. When all slots probed by a key are held by clients still being
+ * limited, the least recent one is overwritten, so limits are slightly lenient for evicted keys.
+ */
+public class RateLimiter implements Filter {
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+    static final int STRIPE_SLOTS = 1 << 8;
+    static final int TIME_BITS = 44;
+    static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    static final long TICK_NANOS = 62_500;
+    static final int MAX_PROBES = 8;
+    /**
+     * Arrival times are counted in ticks, so requests can't be spaced closer than one tick.
+     */
+    public static final long MAX_RATE_PER_SECOND = 1_000_000_000L / TICK_NANOS;
+
+    private final AtomicReferenceArray<AtomicLongArray> stripes;
+    private final int stripeSlots;
+    private final int capacity;
+    private final long interval;
+    private final long tolerance;
+    private final String keyHeader;
+    private final EncodedResponse rejectedResponse;
+    private final long origin = System.nanoTime();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param rate      requests allowed per period
+     * @param burst     requests a client may send at once before being spaced out to the rate
+     * @param keyHeader header identifying clients, null to limit by remote address
+     * @param capacity  maximum number of slots, rounded up to a power of two
+     */
+    public RateLimiter(long rate, Duration period, long burst, String keyHeader, int capacity) {
+        if (rate <= 0 || burst <= 0 || capacity <= 0)
+            throw new IllegalArgumentException("Rate, burst and capacity should be positive");
+        if (period.toNanos() / (double) rate < TICK_NANOS)
+            throw new IllegalArgumentException("Rate should not exceed " + MAX_RATE_PER_SECOND + " per second:"
+                    + rate + " per " + period);
+        this.interval = Math.max(1, Math.round(period.toNanos() / (double) rate / TICK_NANOS));
+        this.tolerance = this.interval * (burst - 1);
+        this.keyHeader = keyHeader;
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.stripeSlots = Math.min(STRIPE_SLOTS, this.capacity);
+        this.stripes = new AtomicReferenceArray<>(this.capacity / this.stripeSlots);
+        long retryAfter = Math.max(1, (this.interval * TICK_NANOS + 999_999_999) / 1_000_000_000);
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Content-Type", "text/plain;charset=UTF-8");
+        headers.put("Retry-After", String.valueOf(retryAfter));
+        this.rejectedResponse = new EncodedResponse(429, Collections.unmodifiableMap(headers), "Too many requests");
+    }
+
+    @Override
+    public EncodedResponse filter(HttpRequest request, HttpResponse response) {
+        return this.tryAcquire(request) ? null : this.rejectedResponse;
+    }
+
+    public boolean tryAcquire(HttpRequest request) {
+        String key = this.keyHeader == null ? null : request.getHeader(this.keyHeader);
+        return this.tryAcquire(key == null ? request.getRemoteAddress() : key);
+    }
+
+    public boolean tryAcquire(String key) {
+        return this.tryAcquire(key, (System.nanoTime() - this.origin) / TICK_NANOS + 1);
+    }
+
+    boolean tryAcquire(String key, long now) {
+        long hash = hash(key);
+        long fingerprint = (hash >>> TIME_BITS) | 1;
+        int index = (int) hash & (this.capacity - 1);
+        AtomicLongArray stripe = this.stripe(index / this.stripeSlots);
+        int mask = this.stripeSlots - 1;
+        while (true) {
+            int slot = -1;
+            long current = 0;
+            int free = -1;
+            long freeValue = 0;
+            int victim = index & mask;
+            long victimValue = Long.MAX_VALUE;
+            for (int i = 0; i < MAX_PROBES; i++) {
+                int probe = (index + i) & mask;
+                long value = stripe.get(probe);
+                if (value != 0 && value >>> TIME_BITS == fingerprint) {
+                    slot = probe;
+                    current = value;
+                    break;
+                }
+                // slots are never cleared, so no key was placed past an empty one
+                if (value == 0 || (value & TIME_MASK) <= now) {
+                    if (free < 0) {
+                        free = probe;
+                        freeValue = value;
+                    }
+                    if (value == 0)
+                        break;
+                } else if ((value & TIME_MASK) < (victimValue & TIME_MASK)) {
+                    victim = probe;
+                    victimValue = value;
+                }
+            }
+            long arrival = now;
+            if (slot >= 0) {
+                arrival = Math.max(current & TIME_MASK, now);
+            } else if (free >= 0) {
+                slot = free;
+                current = freeValue;
+            } else {
+                slot = victim;
+                current = victimValue;
+            }
+            if (arrival - now > this.tolerance) {
+                this.rejected.increment();
+                return false;
+            }
+            long next = fingerprint << TIME_BITS | ((arrival + this.interval) & TIME_MASK);
+            if (stripe.compareAndSet(slot, current, next))
+                return true;
+        }
+    }
+
+    private AtomicLongArray stripe(int index) {
+        AtomicLongArray stripe = this.stripes.get(index);
+        if (stripe == null) {
+            stripe = new AtomicLongArray(this.stripeSlots);
+            if (!this.stripes.compareAndSet(index, null, stripe))
+                stripe = this.stripes.get(index);
+        }
+        return stripe;
+    }
+
+    /**
+     * Number of slots allocated so far.
+     */
+    int size() {
+        int stripes = 0;
+        for (int i = 0; i < this.stripes.length(); i++) {
+            if (this.stripes.get(i) != null)
+                stripes++;
+        }
+        return stripes * this.stripeSlots;
+    }
+
+    /**
+     * The 429 answer, encoded once with a Retry-After matching the rate.
+     */
+    public EncodedResponse getRejectedResponse() {
+        return rejectedResponse;
+    }
+
+    public long getRejected() {
+        return this.rejected.sum();
+    }
+
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
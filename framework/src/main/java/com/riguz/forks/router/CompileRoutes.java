@@ -0,0 +1,17 @@
+package com.riguz.forks.router;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Put on one class of the application to have the processor of the compiler module check the route file against the
+ * controllers and generate CompiledRoutes for it next to the class. The route file is looked up among the resources
+ * of the project, or in the directory given with -Aforks.resources.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface CompileRoutes {
+    String value() default "route.cf";
+}
@@ -0,0 +1,32 @@
+package com.riguz.forks.router;
+
+import com.riguz.forks.mvc.ActionInvoker;
+
+import java.lang.reflect.Type;
+
+public class CompiledAction {
+    private final Class<?> controller;
+    private final Type resultType;
+    private final ActionInvoker invoker;
+
+    public CompiledAction(Class<?> controller, Type resultType, ActionInvoker invoker) {
+        this.controller = controller;
+        this.resultType = resultType;
+        this.invoker = invoker;
+    }
+
+    public Class<?> getController() {
+        return controller;
+    }
+
+    /**
+     * The declared return type of the action, the type of the value for actions completing later.
+     */
+    public Type getResultType() {
+        return resultType;
+    }
+
+    public ActionInvoker getInvoker() {
+        return invoker;
+    }
+}
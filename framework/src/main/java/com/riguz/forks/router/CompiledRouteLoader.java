@@ -0,0 +1,101 @@
+package com.riguz.forks.router;
+
+import com.riguz.commons.encrypt.XxHash64;
+import com.riguz.forks.config.route.FunctionCall;
+import com.riguz.forks.config.route.RouteConfig;
+import com.riguz.forks.config.route.RouteRule;
+import com.riguz.forks.exceptions.ActionNotFoundException;
+import com.riguz.forks.exceptions.InitializeException;
+import com.riguz.forks.ioc.Injector;
+import com.riguz.forks.mvc.RequestHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Loads routes compiled at build time, the same way as from the route file but without parsing it, and calling
+ * actions through the generated invokers.
+ */
+public class CompiledRouteLoader extends FileBasedPatternRouteLoader {
+    private static final Logger logger = LoggerFactory.getLogger(CompiledRouteLoader.class);
+    private final CompiledRoutes routes;
+    private final Map<FunctionCall, CompiledAction> actions = new IdentityHashMap<>();
+
+    public CompiledRouteLoader(CompiledRoutes routes, Injector injector) {
+        this(routes, routes.getRouteConfig(), injector);
+    }
+
+    private CompiledRouteLoader(CompiledRoutes routes, RouteConfig config, Injector injector) {
+        super(config, injector);
+        this.routes = routes;
+        CompiledAction[] compiled = routes.getActions();
+        List<RouteRule> rules = config.getRoutes();
+        if (compiled.length != rules.size())
+            throw new InitializeException("Compiled routes are out of date, rebuild the application");
+        for (int i = 0; i < compiled.length; i++)
+            this.actions.put(rules.get(i).getFunctionCall(), compiled[i]);
+    }
+
+    /**
+     * The routes generated for the application, null if it was built without them or if they were compiled from
+     * another version of the route file than the one on the class path.
+     */
+    public static CompiledRoutes find(String routerFilePath) {
+        Iterator<CompiledRoutes> found = ServiceLoader.load(CompiledRoutes.class).iterator();
+        if (!found.hasNext())
+            return null;
+        CompiledRoutes routes = found.next();
+        byte[] source;
+        try {
+            source = readResource(routerFilePath);
+        } catch (IOException e) {
+            logger.error("Failed to read {}", routerFilePath, e);
+            throw new InitializeException("Failed to read " + routerFilePath);
+        }
+        if (source != null && XxHash64.hash(source) != routes.getSourceHash()) {
+            logger.warn("Compiled routes {} are out of date with {}, rebuild the application",
+                    routes.getClass().getName(), routerFilePath);
+            return null;
+        }
+        return routes;
+    }
+
+    private static byte[] readResource(String name) throws IOException {
+        try (InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(name)) {
+            if (in == null)
+                return null;
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+            return out.toByteArray();
+        }
+    }
+
+    @Override
+    protected Class<?> loadClass(String className) throws ClassNotFoundException {
+        Class<?> type = this.routes.getType(className);
+        if (type == null)
+            throw new ClassNotFoundException(className);
+        return type;
+    }
+
+    @Override
+    protected RequestHandler getHandler(Map<String, String> controllerAlias, FunctionCall functionCall)
+            throws ActionNotFoundException {
+        CompiledAction action = this.actions.get(functionCall);
+        if (action == null)
+            throw new ActionNotFoundException(functionCall);
+        Object controller = this.getInjector().getInstance(action.getController());
+        return new RequestHandler(controller, action.getInvoker(), action.getResultType(), functionCall);
+    }
+}
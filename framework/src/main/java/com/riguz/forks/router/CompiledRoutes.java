@@ -0,0 +1,26 @@
+package com.riguz.forks.router;
+
+import com.riguz.forks.config.route.RouteConfig;
+
+/**
+ * Routes compiled at build time, implemented by the class generated for {@link CompileRoutes} and found through
+ * ServiceLoader. Loading them needs neither the route parser nor reflection.
+ */
+public interface CompiledRoutes {
+    /**
+     * XxHash64 of the route file the routes were compiled from.
+     */
+    long getSourceHash();
+
+    RouteConfig getRouteConfig();
+
+    /**
+     * The actions of the routes, in the order of {@link RouteConfig#getRoutes()}.
+     */
+    CompiledAction[] getActions();
+
+    /**
+     * The controller or filter class of the name, null if the routes don't use it.
+     */
+    Class<?> getType(String className);
+}
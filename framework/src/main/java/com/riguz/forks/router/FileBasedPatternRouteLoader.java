@@ -1,60 +1,251 @@
 package com.riguz.forks.router;
 
+import com.riguz.forks.batch.Batcher;
+import com.riguz.forks.bulkhead.Bulkhead;
+import com.riguz.forks.bulkhead.Bulkheads;
+import com.riguz.forks.cache.ResponseCache;
+import com.riguz.forks.cache.ResponseCaches;
+import com.riguz.forks.coalesce.Coalescer;
 import com.riguz.forks.config.route.ClassIdentifier;
 import com.riguz.forks.config.route.FunctionCall;
 import com.riguz.forks.config.route.RouteConfig;
+import com.riguz.forks.config.route.RouteOption;
 import com.riguz.forks.config.route.RouteParser;
+import com.riguz.forks.config.route.WebSocketRule;
 import com.riguz.forks.exceptions.ActionNotFoundException;
 import com.riguz.forks.exceptions.InitializeException;
+import com.riguz.forks.filter.Filter;
 import com.riguz.forks.http.HttpMethod;
 import com.riguz.forks.http.Router;
 import com.riguz.forks.http.trie.PatternTrieRouter;
+import com.riguz.forks.http.websocket.WebSocketHandler;
 import com.riguz.forks.ioc.Injector;
 import com.riguz.forks.mvc.RequestHandler;
+import com.riguz.forks.mvc.ResultResolvers;
+import com.riguz.forks.ratelimit.RateLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class FileBasedPatternRouteLoader implements RouteLoader<RequestHandler> {
     private static final Logger logger = LoggerFactory.getLogger(FileBasedPatternRouteLoader.class);
-    private final String routerFilePath;
-    private final RouteParser routeParser;
+    private final RouteConfig config;
     private final Injector injector;
+    private ExecutorService batchExecutor;
 
     public FileBasedPatternRouteLoader(String routerFilePath, Injector injector) throws IOException {
-        this.routerFilePath = routerFilePath;
-        this.routeParser = RouteParser.fromResource(routerFilePath);
+        this(RouteParser.fromResource(routerFilePath).getRouteConfig(), injector);
+    }
+
+    public FileBasedPatternRouteLoader(String routerFilePath, RouteConfigCache cache, Injector injector)
+            throws IOException {
+        this(cache.load(routerFilePath), injector);
+    }
+
+    protected FileBasedPatternRouteLoader(RouteConfig config, Injector injector) {
+        this.config = config;
         this.injector = injector;
     }
 
     @Override
     public Router<RequestHandler> load() {
-        RouteConfig config = this.routeParser.getRouteConfig();
+        RouteConfig config = this.config;
         Map<String, String> controllers = config.getControllers()
                 .stream()
                 .collect(Collectors.toMap(ClassIdentifier::getAlias, ClassIdentifier::getClassName));
+        Map<String, Filter> filters = new HashMap<>();
+        config.getFilters().forEach(identifier -> filters.put(identifier.getAlias(), this.getFilter(identifier)));
         Router<RequestHandler> router = new PatternTrieRouter<>();
+        // options are shared by all routes of a block, so routes of one block share one limiter
+        Map<RouteOption, RateLimiter> rateLimiters = new IdentityHashMap<>();
+        Map<RouteOption, ResponseCache> responseCaches = new IdentityHashMap<>();
+        ResponseCaches caches = this.injector.getInstance(ResponseCaches.class);
+        Bulkheads bulkheads = this.injector.getInstance(Bulkheads.class);
+        ResultResolvers resultResolvers = this.injector.getInstance(ResultResolvers.class);
+        config.getPools().forEach(pool -> {
+            logger.info("Adding pool:{} size={} queue={}", pool.getName(), pool.getSize(), pool.getQueue());
+            bulkheads.register(new Bulkhead(pool.getName(), pool.getSize(), pool.getQueue()));
+        });
         config.getRoutes().forEach(routeRule -> {
             HttpMethod method = HttpMethod.valueOf(routeRule.getMethod());
             try {
                 RequestHandler handler = this.getHandler(controllers, routeRule.getFunctionCall());
+                handler.setRoute(method + " " + routeRule.getPattern());
+                handler.setResultResolver(resultResolvers.forType(handler.getResultType()));
+                List<Filter> chain = new ArrayList<>();
+                RouteOption rateLimit = routeRule.getOption("rateLimit");
+                if (rateLimit != null) {
+                    handler.setRateLimiter(rateLimiters.computeIfAbsent(rateLimit, this::createRateLimiter));
+                    chain.add(handler.getRateLimiter());
+                }
+                routeRule.getFilters().forEach(name -> {
+                    Filter filter = filters.get(name);
+                    if (filter == null)
+                        throw new InitializeException("Filter not found:" + name);
+                    chain.add(filter);
+                });
+                if (!chain.isEmpty())
+                    handler.setFilters(chain.toArray(new Filter[0]));
+                handler.setETag(isEnabled(routeRule.getOption("etag")));
+                if (isEnabled(routeRule.getOption("coalesce")) && method == HttpMethod.GET)
+                    handler.setCoalescer(new Coalescer());
+                RouteOption batch = routeRule.getOption("batch");
+                if (batch != null)
+                    handler.setBatcher(this.createBatcher(batch, handler));
+                RouteOption deadline = routeRule.getOption("deadline");
+                if (deadline != null)
+                    handler.setTimeout(this.getTimeout(deadline));
+                RouteOption pool = routeRule.getOption("pool");
+                if (pool != null)
+                    handler.setBulkhead(this.getBulkhead(bulkheads, pool));
+                RouteOption cache = routeRule.getOption("cache");
+                if (cache != null && method == HttpMethod.GET)
+                    handler.setResponseCache(responseCaches.computeIfAbsent(cache, option -> {
+                        ResponseCache responseCache = this.createResponseCache(option, handler.getRoute());
+                        caches.register(responseCache);
+                        return responseCache;
+                    }));
                 logger.info("Adding route:{} {} -> {}", method, routeRule.getPattern(), routeRule.getFunctionCall());
                 router.addRoute(method, routeRule.getPattern(), handler);
             } catch (ActionNotFoundException e) {
                 throw new InitializeException("Action not found:" + e.getMessage());
             }
         });
+        config.getWebSockets().forEach(rule -> {
+            logger.info("Adding websocket:{} -> {}", rule.getPattern(), rule.getController());
+            RequestHandler handler = this.getWebSocketHandler(controllers, rule);
+            handler.setRoute("WS " + rule.getPattern());
+            router.addRoute(HttpMethod.GET, rule.getPattern(), handler);
+        });
         // router.complete();
         return router;
     }
 
-    private RequestHandler getHandler(Map<String, String> controllerAlias, FunctionCall functionCall) throws ActionNotFoundException {
+    private RateLimiter createRateLimiter(RouteOption option) {
+        long rate = option.getLong("rate", option.getLong(RouteOption.DEFAULT_KEY, 0));
+        if (rate <= 0)
+            throw new InitializeException("@rateLimit requires a positive rate");
+        try {
+            return new RateLimiter(rate,
+                    option.getDuration("per", Duration.ofSeconds(1)),
+                    option.getLong("burst", rate),
+                    option.getString("header", null),
+                    (int) option.getLong("capacity", RateLimiter.DEFAULT_CAPACITY));
+        } catch (IllegalArgumentException e) {
+            throw new InitializeException("Invalid @rateLimit:" + e.getMessage());
+        }
+    }
+
+    private Batcher createBatcher(RouteOption option, RequestHandler handler) {
+        String name = option.getString("method", option.getString(RouteOption.DEFAULT_KEY, null));
+        if (name == null)
+            throw new InitializeException("@batch requires the name of the batch method");
+        if (handler.getBinders().length != 1)
+            throw new InitializeException("Batched action should take exactly one parameter:" + handler.getFunctionCall());
+        Method method;
+        try {
+            method = handler.getController().getClass().getMethod(name, List.class);
+        } catch (NoSuchMethodException e) {
+            throw new InitializeException("Batch method not found:" + name + "(List)");
+        }
+        if (this.batchExecutor == null)
+            this.batchExecutor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "forks-batch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        return new Batcher(handler.getController(), method,
+                (int) option.getLong("max", Batcher.DEFAULT_MAX_SIZE),
+                option.getDuration("window", Batcher.DEFAULT_MAX_WINDOW).toNanos(), TimeUnit.NANOSECONDS,
+                (int) option.getLong("concurrency", 1),
+                this.batchExecutor);
+    }
+
+    private long getTimeout(RouteOption option) {
+        Duration timeout = option.getDuration("timeout", option.getDuration(RouteOption.DEFAULT_KEY, null));
+        if (timeout == null || timeout.isZero() || timeout.isNegative())
+            throw new InitializeException("@deadline requires a positive timeout");
+        return timeout.toNanos();
+    }
+
+    private Bulkhead getBulkhead(Bulkheads bulkheads, RouteOption option) {
+        String name = option.getString("name", option.getString(RouteOption.DEFAULT_KEY, null));
+        if (name == null)
+            throw new InitializeException("@pool requires the name of a pool");
+        Bulkhead bulkhead = bulkheads.get(name);
+        if (bulkhead == null)
+            throw new InitializeException("Pool not found:" + name);
+        return bulkhead;
+    }
+
+    private ResponseCache createResponseCache(RouteOption option, String route) {
+        Duration ttl = option.getDuration("ttl", option.getDuration(RouteOption.DEFAULT_KEY, null));
+        if (ttl == null)
+            throw new InitializeException("@cache requires a ttl");
+        long maxEntries = option.getLong("maxEntries", ResponseCache.DEFAULT_MAX_ENTRIES);
+        List<String> vary = option.getList("vary").stream().map(Object::toString).collect(Collectors.toList());
+        return new ResponseCache(option.getString("name", route), ttl, (int) maxEntries, vary,
+                "true".equals(option.getString("offHeap", "false")));
+    }
+
+    /**
+     * A flag option is on when present, {@code @name(off)} or {@code @name(false)} turns it off again for a route.
+     */
+    private static boolean isEnabled(RouteOption option) {
+        if (option == null)
+            return false;
+        String value = option.getString(RouteOption.DEFAULT_KEY, "on");
+        return !value.equals("off") && !value.equals("false");
+    }
+
+    private Filter getFilter(ClassIdentifier identifier) {
+        try {
+            Object filter = this.injector.getInstance(this.loadClass(identifier.getClassName()));
+            if (!(filter instanceof Filter))
+                throw new InitializeException(identifier.getClassName() + " should implement Filter");
+            return (Filter) filter;
+        } catch (ClassNotFoundException e) {
+            throw new InitializeException("Filter not found:" + identifier.getClassName());
+        }
+    }
+
+    private RequestHandler getWebSocketHandler(Map<String, String> controllerAlias, WebSocketRule rule) {
+        String className = controllerAlias.get(rule.getController());
+        if (className == null)
+            throw new InitializeException("Controller not found:" + rule.getController());
+        try {
+            Object controller = this.injector.getInstance(this.loadClass(className));
+            if (!(controller instanceof WebSocketHandler))
+                throw new InitializeException(className + " should implement WebSocketHandler");
+            return new RequestHandler((WebSocketHandler) controller);
+        } catch (ClassNotFoundException e) {
+            throw new InitializeException("Controller not found:" + className);
+        }
+    }
+
+    protected Class<?> loadClass(String className) throws ClassNotFoundException {
+        return Class.forName(className);
+    }
+
+    protected Injector getInjector() {
+        return this.injector;
+    }
+
+    protected RequestHandler getHandler(Map<String, String> controllerAlias, FunctionCall functionCall) throws ActionNotFoundException {
         try {
-            Class<?> controllerClass = Class.forName(controllerAlias.get(functionCall.getController()));
+            Class<?> controllerClass = this.loadClass(controllerAlias.get(functionCall.getController()));
             Object controller = this.injector.getInstance(controllerClass);
             Method action = controllerClass.getMethod(functionCall.getMethod(), functionCall.getParamTypes());
             return new RequestHandler(controller, action, functionCall);
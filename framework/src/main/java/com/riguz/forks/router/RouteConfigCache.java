@@ -0,0 +1,148 @@
+package com.riguz.forks.router;
+
+import com.riguz.commons.encrypt.XxHash64;
+import com.riguz.forks.config.route.ClassIdentifier;
+import com.riguz.forks.config.route.RouteConfig;
+import com.riguz.forks.config.route.RouteConfigSnapshot;
+import com.riguz.forks.config.route.RouteParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps the parsed route file as a snapshot in a directory, so later starts read the snapshot instead of parsing.
+ * Snapshots are named by the hash of the route file and also hold a hash of the class files of the controllers and
+ * filters, a snapshot is only used while both match and is replaced otherwise. Their names start with a hash of
+ * where the route file was loaded from, so applications sharing the directory only replace their own snapshots.
+ */
+public class RouteConfigCache {
+    private static final Logger logger = LoggerFactory.getLogger(RouteConfigCache.class);
+    private static final String PREFIX = "routes-";
+    private static final String SUFFIX = ".bin";
+
+    private final Path directory;
+    private final ClassLoader classLoader;
+
+    public RouteConfigCache(Path directory) {
+        this(directory, Thread.currentThread().getContextClassLoader());
+    }
+
+    public RouteConfigCache(Path directory, ClassLoader classLoader) {
+        this.directory = directory;
+        this.classLoader = classLoader;
+    }
+
+    public RouteConfig load(String routerFilePath) throws IOException {
+        byte[] source = this.readResource(routerFilePath);
+        if (source == null)
+            throw new FileNotFoundException("Resource not found:" + routerFilePath);
+        long sourceHash = XxHash64.hash(source);
+        String prefix = this.prefixOf(routerFilePath);
+        Path file = this.directory.resolve(String.format("%s%016x%s", prefix, sourceHash, SUFFIX));
+        if (Files.isRegularFile(file)) {
+            RouteConfig config = this.read(file, sourceHash);
+            if (config != null)
+                return config;
+        }
+        RouteConfig config = RouteParser.fromString(new String(source, StandardCharsets.UTF_8)).getRouteConfig();
+        try {
+            this.write(file, prefix, new RouteConfigSnapshot(sourceHash, this.hashClasses(config), config));
+        } catch (IOException e) {
+            logger.warn("Failed to write route snapshot {}", file, e);
+        }
+        return config;
+    }
+
+    private RouteConfig read(Path file, long sourceHash) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            RouteConfigSnapshot snapshot = RouteConfigSnapshot.decode(buffer);
+            if (snapshot.getSourceHash() != sourceHash
+                    || snapshot.getClassesHash() != this.hashClasses(snapshot.getConfig())) {
+                logger.info("Route snapshot {} is out of date", file);
+                return null;
+            }
+            logger.info("Using route snapshot:{}", file);
+            return snapshot.getConfig();
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Failed to read route snapshot {}:{}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The start of the names of the snapshots of the route file, followed by the hash of its content.
+     */
+    String prefixOf(String routerFilePath) {
+        URL location = this.classLoader.getResource(routerFilePath);
+        byte[] bytes = String.valueOf(location).getBytes(StandardCharsets.UTF_8);
+        return String.format("%s%016x-", PREFIX, XxHash64.hash(bytes));
+    }
+
+    /**
+     * Written next to the snapshot and moved in place, so a concurrent start never reads half a file. Older
+     * snapshots of the same route file are deleted afterwards.
+     */
+    private void write(Path file, String prefix, RouteConfigSnapshot snapshot) throws IOException {
+        Files.createDirectories(this.directory);
+        Path temp = Files.createTempFile(this.directory, PREFIX, ".tmp");
+        try {
+            Files.write(temp, snapshot.encode());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(this.directory, prefix + "*" + SUFFIX)) {
+            for (Path path : stale) {
+                if (!path.equals(file))
+                    Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Hashes the class files rather than loading the classes, a class missing from the class path is hashed by name.
+     */
+    long hashClasses(RouteConfig config) throws IOException {
+        XxHash64 hash = new XxHash64();
+        for (ClassIdentifier identifier : config.getControllers())
+            this.hashClass(hash, identifier.getClassName());
+        for (ClassIdentifier identifier : config.getFilters())
+            this.hashClass(hash, identifier.getClassName());
+        return hash.getValue();
+    }
+
+    private void hashClass(XxHash64 hash, String className) throws IOException {
+        byte[] name = className.getBytes(StandardCharsets.UTF_8);
+        hash.update(name, 0, name.length);
+        byte[] bytes = this.readResource(className.replace('.', '/') + ".class");
+        if (bytes != null)
+            hash.update(bytes, 0, bytes.length);
+    }
+
+    private byte[] readResource(String name) throws IOException {
+        try (InputStream in = this.classLoader.getResourceAsStream(name)) {
+            if (in == null)
+                return null;
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+            return out.toByteArray();
+        }
+    }
+}
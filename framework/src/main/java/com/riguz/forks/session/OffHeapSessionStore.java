@@ -0,0 +1,98 @@
+package com.riguz.forks.session;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps encoded session payloads in direct memory slabs so that large session populations stay out of the GC heap.
+ * Only the index lives on heap, every lookup decodes a fresh copy of the session. Attribute values are limited to what
+ * {@link SessionCodec} encodes, a session too large for a slab is kept on heap instead.
+ */
+public class OffHeapSessionStore extends ShardedSessionStore {
+    public static final int DEFAULT_SLAB_SIZE = 1 << 20;
+
+    private final int slabSize;
+
+    protected OffHeapSessionStore(int segments, long ttl, TimeUnit unit, int slabSize) {
+        super(segments, ttl, unit);
+        if (Integer.bitCount(slabSize) != 1 || slabSize < SlabAllocator.MIN_BLOCK)
+            throw new IllegalArgumentException("Slab size should be a power of two not less than "
+                    + SlabAllocator.MIN_BLOCK);
+        this.slabSize = slabSize;
+    }
+
+    public static OffHeapSessionStore create(int segments, long ttl, TimeUnit unit) {
+        return create(segments, ttl, unit, DEFAULT_SLAB_SIZE);
+    }
+
+    public static OffHeapSessionStore create(int segments, long ttl, TimeUnit unit, int slabSize) {
+        OffHeapSessionStore store = new OffHeapSessionStore(segments, ttl, unit, slabSize);
+        store.start();
+        return store;
+    }
+
+    @Override
+    protected Segment newSegment(long now) {
+        return new OffHeapSegment(now);
+    }
+
+    int slabs() {
+        int slabs = 0;
+        for (Segment segment : this.getSegments()) {
+            SlabAllocator allocator = ((OffHeapSegment) segment).allocator;
+            slabs += allocator == null ? 0 : allocator.slabs();
+        }
+        return slabs;
+    }
+
+    private class OffHeapSegment extends Segment {
+        private final SessionCodec codec = new SessionCodec();
+        private SlabAllocator allocator;
+
+        OffHeapSegment(long now) {
+            super(now);
+        }
+
+        @Override
+        protected void store(Entry entry, Session session) {
+            byte[] payload = this.codec.encode(session);
+            int length = this.codec.size();
+            this.release(entry);
+            if (length > slabSize) {
+                entry.session = session;
+                this.codec.trim(slabSize);
+                return;
+            }
+            if (this.allocator == null)
+                this.allocator = new SlabAllocator(slabSize);
+            long address = this.allocator.allocate(length);
+            this.allocator.write(address, payload, length);
+            entry.address = address;
+            entry.length = length;
+        }
+
+        @Override
+        protected Session load(Entry entry) {
+            if (entry.session != null)
+                return entry.session;
+            return SessionCodec.decode(entry.id, this.allocator.read(entry.address, entry.length),
+                    OffHeapSessionStore.this);
+        }
+
+        @Override
+        protected void release(Entry entry) {
+            entry.session = null;
+            if (entry.length > 0) {
+                this.allocator.free(entry.address);
+                entry.length = 0;
+            }
+        }
+
+        @Override
+        protected void dispose() {
+            if (this.allocator != null) {
+                this.allocator.close();
+                this.allocator = null;
+            }
+        }
+    }
+}
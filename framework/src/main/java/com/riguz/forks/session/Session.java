@@ -0,0 +1,71 @@
+package com.riguz.forks.session;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class Session {
+    private final String id;
+    private final long createdAt;
+    private final Map<String, Object> attributes;
+    private final SessionStore store;
+
+    Session(String id, SessionStore store) {
+        this(id, System.currentTimeMillis(), new ConcurrentHashMap<>(8), store);
+    }
+
+    Session(String id, long createdAt, Map<String, Object> attributes, SessionStore store) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.attributes = attributes;
+        this.store = store;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getAttribute(String name) {
+        return (T) this.attributes.get(name);
+    }
+
+    public Set<String> getAttributeNames() {
+        return Collections.unmodifiableSet(this.attributes.keySet());
+    }
+
+    /**
+     * Attributes are written through to the store, values are limited to strings, boxed primitives and byte arrays
+     * when the store keeps sessions off heap.
+     */
+    public Session setAttribute(String name, Object value) {
+        if (value == null)
+            return this.removeAttribute(name);
+        this.attributes.put(name, value);
+        this.store.save(this);
+        return this;
+    }
+
+    public Session removeAttribute(String name) {
+        if (this.attributes.remove(name) != null)
+            this.store.save(this);
+        return this;
+    }
+
+    Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public String toString() {
+        return "Session{" +
+                "id='" + id + '\'' +
+                ", attributes=" + attributes.keySet() +
+                '}';
+    }
+}
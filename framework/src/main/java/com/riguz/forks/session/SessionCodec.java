@@ -0,0 +1,154 @@
+package com.riguz.forks.session;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodes sessions for the off heap store with a fixed binary layout: the creation time, the attribute count, then for
+ * every attribute its name and a tagged value. Only strings, boxed primitives and byte arrays are supported, so
+ * decoding never instantiates classes named by the stored bytes.
+ */
+final class SessionCodec {
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte BYTES = 6;
+
+    private byte[] buffer = new byte[256];
+    private int size;
+
+    /**
+     * Encodes into a buffer owned by the codec, valid until the next call.
+     */
+    byte[] encode(Session session) {
+        this.size = 0;
+        this.writeLong(session.getCreatedAt());
+        Map<String, Object> attributes = session.getAttributes();
+        this.writeInt(attributes.size());
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            this.writeString(attribute.getKey());
+            this.writeValue(attribute.getKey(), attribute.getValue());
+        }
+        return this.buffer;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Drops the buffer if an oversized session grew it past the limit.
+     */
+    void trim(int limit) {
+        if (this.buffer.length > limit)
+            this.buffer = new byte[256];
+    }
+
+    static Session decode(String id, ByteBuffer bytes, SessionStore store) {
+        try {
+            long createdAt = bytes.getLong();
+            int count = bytes.getInt();
+            Map<String, Object> attributes = new ConcurrentHashMap<>(Math.max(8, count * 2));
+            for (int i = 0; i < count; i++)
+                attributes.put(readString(bytes), readValue(bytes));
+            return new Session(id, createdAt, attributes, store);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalStateException("Corrupt session:" + id, e);
+        }
+    }
+
+    private void writeValue(String name, Object value) {
+        if (value instanceof String) {
+            this.writeByte(STRING);
+            this.writeString((String) value);
+        } else if (value instanceof Integer) {
+            this.writeByte(INT);
+            this.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            this.writeByte(LONG);
+            this.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            this.writeByte(DOUBLE);
+            this.writeLong(Double.doubleToRawLongBits((Double) value));
+        } else if (value instanceof Boolean) {
+            this.writeByte(BOOLEAN);
+            this.writeByte((Boolean) value ? 1 : 0);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            this.writeByte(BYTES);
+            this.writeInt(bytes.length);
+            this.writeBytes(bytes);
+        } else {
+            throw new IllegalArgumentException("Unsupported session attribute type:" + name + "="
+                    + value.getClass().getName());
+        }
+    }
+
+    private static Object readValue(ByteBuffer bytes) {
+        byte tag = bytes.get();
+        switch (tag) {
+            case STRING:
+                return readString(bytes);
+            case INT:
+                return bytes.getInt();
+            case LONG:
+                return bytes.getLong();
+            case DOUBLE:
+                return Double.longBitsToDouble(bytes.getLong());
+            case BOOLEAN:
+                return bytes.get() != 0;
+            case BYTES:
+                byte[] value = new byte[bytes.getInt()];
+                bytes.get(value);
+                return value;
+            default:
+                throw new IllegalStateException("Unknown session attribute type:" + tag);
+        }
+    }
+
+    private void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        this.writeInt(bytes.length);
+        this.writeBytes(bytes);
+    }
+
+    private static String readString(ByteBuffer bytes) {
+        byte[] value = new byte[bytes.getInt()];
+        bytes.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private void writeByte(int value) {
+        this.ensure(1);
+        this.buffer[this.size++] = (byte) value;
+    }
+
+    private void writeInt(int value) {
+        this.ensure(4);
+        for (int shift = 24; shift >= 0; shift -= 8)
+            this.buffer[this.size++] = (byte) (value >>> shift);
+    }
+
+    private void writeLong(long value) {
+        this.ensure(8);
+        for (int shift = 56; shift >= 0; shift -= 8)
+            this.buffer[this.size++] = (byte) (value >>> shift);
+    }
+
+    private void writeBytes(byte[] bytes) {
+        this.ensure(bytes.length);
+        System.arraycopy(bytes, 0, this.buffer, this.size, bytes.length);
+        this.size += bytes.length;
+    }
+
+    private void ensure(int length) {
+        if (this.size + length > this.buffer.length)
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.size + length));
+    }
+}
@@ -0,0 +1,73 @@
+package com.riguz.forks.session;
+
+import com.riguz.forks.http.Cookie;
+import com.riguz.forks.mvc.RequestContext;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Resolves the session of the current request from its session cookie. Inject it into controllers and call
+ * {@link #current()} while handling a request.
+ */
+@Singleton
+public class SessionManager {
+    public static final String COOKIE_NAME = "FORKSSESSIONID";
+    private static final int ID_BYTES = 18;
+
+    private final SessionStore store;
+    private final SecureRandom random = new SecureRandom();
+
+    @Inject
+    public SessionManager(SessionStore store) {
+        this.store = store;
+    }
+
+    public Session current() {
+        return this.current(true);
+    }
+
+    public Session current(boolean create) {
+        RequestContext context = currentContext();
+        Session session = context.getSession();
+        if (session != null)
+            return session;
+        session = this.store.get(context.getRequest().getCookie(COOKIE_NAME));
+        if (session == null && create) {
+            session = new Session(this.nextId(), this.store);
+            this.store.save(session);
+            context.getResponse().addCookie(new Cookie(COOKIE_NAME, session.getId()));
+        }
+        context.setSession(session);
+        return session;
+    }
+
+    public void invalidate() {
+        Session session = this.current(false);
+        if (session == null)
+            return;
+        this.store.remove(session.getId());
+        RequestContext context = currentContext();
+        context.setSession(null);
+        context.getResponse().addCookie(new Cookie(COOKIE_NAME, "").setMaxAge(0));
+    }
+
+    public SessionStore getStore() {
+        return store;
+    }
+
+    private String nextId() {
+        byte[] bytes = new byte[ID_BYTES];
+        this.random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static RequestContext currentContext() {
+        RequestContext context = RequestContext.current();
+        if (context == null)
+            throw new IllegalStateException("Session is only available while handling a request");
+        return context;
+    }
+}
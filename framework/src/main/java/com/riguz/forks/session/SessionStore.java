@@ -0,0 +1,17 @@
+package com.riguz.forks.session;
+
+public interface SessionStore {
+
+    /**
+     * Looks up a live session and extends its time to live, returns null if not found or expired.
+     */
+    Session get(String id);
+
+    void save(Session session);
+
+    boolean remove(String id);
+
+    int size();
+
+    void close();
+}
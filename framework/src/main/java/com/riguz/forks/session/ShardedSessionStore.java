@@ -0,0 +1,252 @@
+package com.riguz.forks.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In memory session store. Sessions are spread over lock-striped segments by id, each segment expires its own
+ * entries with a timer wheel driven by a single background thread.
+ */
+public class ShardedSessionStore implements SessionStore {
+    private static final Logger logger = LoggerFactory.getLogger(ShardedSessionStore.class);
+    static final long TICK_MILLIS = 1000;
+    static final int WHEEL_SIZE = 512;
+
+    protected final long ttlMillis;
+    private final int segmentCount;
+    private Segment[] segments;
+    private int mask;
+    private ScheduledExecutorService expirer;
+
+    /**
+     * Use {@link #create} or call {@link #start()} before using the store, segments are only created there so that
+     * subclasses are initialized before {@link #newSegment} runs.
+     */
+    protected ShardedSessionStore(int segments, long ttl, TimeUnit unit) {
+        if (segments <= 0 || ttl <= 0)
+            throw new IllegalArgumentException("Segments and ttl should be positive");
+        this.ttlMillis = unit.toMillis(ttl);
+        this.segmentCount = Integer.highestOneBit(Math.max(2, segments) - 1) << 1;
+    }
+
+    public static ShardedSessionStore create(int segments, long ttl, TimeUnit unit) {
+        ShardedSessionStore store = new ShardedSessionStore(segments, ttl, unit);
+        store.start();
+        return store;
+    }
+
+    /**
+     * Creates the segments and starts expiring sessions in the background.
+     */
+    protected synchronized void start() {
+        if (this.segments != null)
+            throw new IllegalStateException("Session store already started");
+        Segment[] segments = new Segment[this.segmentCount];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < segments.length; i++)
+            segments[i] = this.newSegment(now);
+        this.mask = segments.length - 1;
+        this.segments = segments;
+        this.expirer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "forks-session-expirer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.expirer.scheduleAtFixedRate(() -> this.expire(System.currentTimeMillis()),
+                TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    protected Segment newSegment(long now) {
+        return new Segment(now);
+    }
+
+    protected Segment[] getSegments() {
+        return segments;
+    }
+
+    private Segment segmentFor(String id) {
+        int h = id.hashCode();
+        return this.segments[(h ^ (h >>> 16)) & this.mask];
+    }
+
+    @Override
+    public Session get(String id) {
+        if (id == null)
+            return null;
+        return this.segmentFor(id).get(id, System.currentTimeMillis());
+    }
+
+    @Override
+    public void save(Session session) {
+        this.segmentFor(session.getId()).put(session, System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean remove(String id) {
+        return id != null && this.segmentFor(id).remove(id);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment : this.segments)
+            size += segment.size();
+        return size;
+    }
+
+    int expire(long now) {
+        int expired = 0;
+        for (Segment segment : this.segments)
+            expired += segment.expire(now);
+        if (expired > 0)
+            logger.debug("Expired {} sessions", expired);
+        return expired;
+    }
+
+    @Override
+    public void close() {
+        this.expirer.shutdownNow();
+        for (Segment segment : this.segments)
+            segment.close();
+    }
+
+    protected static final class Entry extends TimerWheel.Node {
+        final String id;
+        Session session;
+        long address;
+        int length;
+
+        Entry(String id) {
+            this.id = id;
+        }
+    }
+
+    protected class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Entry> entries = new HashMap<>();
+        private final TimerWheel wheel;
+
+        protected Segment(long now) {
+            this.wheel = new TimerWheel(WHEEL_SIZE, TICK_MILLIS, now);
+        }
+
+        Session get(String id, long now) {
+            this.lock.lock();
+            try {
+                Entry entry = this.entries.get(id);
+                if (entry == null)
+                    return null;
+                if (entry.deadline <= now) {
+                    this.evict(entry);
+                    return null;
+                }
+                entry.deadline = now + ttlMillis;
+                return this.load(entry);
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        void put(Session session, long now) {
+            this.lock.lock();
+            try {
+                Entry entry = this.entries.get(session.getId());
+                if (entry == null) {
+                    entry = new Entry(session.getId());
+                    this.store(entry, session);
+                    this.entries.put(entry.id, entry);
+                } else {
+                    this.store(entry, session);
+                }
+                entry.deadline = now + ttlMillis;
+                if (!entry.isScheduled())
+                    this.wheel.schedule(entry);
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        boolean remove(String id) {
+            this.lock.lock();
+            try {
+                Entry entry = this.entries.get(id);
+                if (entry == null)
+                    return false;
+                this.evict(entry);
+                return true;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        int size() {
+            this.lock.lock();
+            try {
+                return this.entries.size();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        int expire(long now) {
+            this.lock.lock();
+            try {
+                int before = this.entries.size();
+                this.wheel.advance(now, node -> {
+                    Entry entry = (Entry) node;
+                    this.entries.remove(entry.id);
+                    this.release(entry);
+                });
+                return before - this.entries.size();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        void close() {
+            this.lock.lock();
+            try {
+                for (Entry entry : this.entries.values())
+                    this.release(entry);
+                this.entries.clear();
+                this.dispose();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private void evict(Entry entry) {
+            this.entries.remove(entry.id);
+            this.wheel.unschedule(entry);
+            this.release(entry);
+        }
+
+        /**
+         * Stores the session into a new or existing entry, replacing whatever the entry held before.
+         */
+        protected void store(Entry entry, Session session) {
+            entry.session = session;
+        }
+
+        protected Session load(Entry entry) {
+            return entry.session;
+        }
+
+        protected void release(Entry entry) {
+            entry.session = null;
+        }
+
+        /**
+         * Frees what the segment holds once the store closed.
+         */
+        protected void dispose() {
+        }
+    }
+}
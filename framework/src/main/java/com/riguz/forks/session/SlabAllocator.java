@@ -0,0 +1,209 @@
+package com.riguz.forks.session;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Carves direct memory slabs into power of two blocks. An address packs the size class, slab index and offset of a
+ * block into one long. A slab whose blocks are all free is released once its size class has another slab with free
+ * blocks, so memory shrinks back after a peak. Not thread safe, each session segment owns its allocator.
+ */
+final class SlabAllocator {
+    static final int MIN_BLOCK = 128;
+
+    private final int slabSize;
+    private final SizeClass[] classes;
+
+    SlabAllocator(int slabSize) {
+        if (Integer.bitCount(slabSize) != 1 || slabSize < MIN_BLOCK)
+            throw new IllegalArgumentException("Slab size should be a power of two not less than " + MIN_BLOCK);
+        this.slabSize = slabSize;
+        int count = Integer.numberOfTrailingZeros(slabSize) - Integer.numberOfTrailingZeros(MIN_BLOCK) + 1;
+        this.classes = new SizeClass[count];
+        for (int i = 0; i < count; i++)
+            this.classes[i] = new SizeClass(MIN_BLOCK << i);
+    }
+
+    int getSlabSize() {
+        return slabSize;
+    }
+
+    long allocate(int length) {
+        if (length > this.slabSize)
+            throw new IllegalArgumentException("Block too large:" + length + " > " + this.slabSize);
+        int sizeClass = this.sizeClassOf(length);
+        return ((long) sizeClass << 56) | this.classes[sizeClass].allocate();
+    }
+
+    void free(long address) {
+        this.classes[(int) (address >>> 56)].free(address & 0x00FF_FFFF_FFFF_FFFFL);
+    }
+
+    void write(long address, byte[] bytes, int length) {
+        ByteBuffer slab = this.slabOf(address);
+        slab.position((int) address);
+        slab.put(bytes, 0, length);
+    }
+
+    /**
+     * A view of the block, valid until the block is freed.
+     */
+    ByteBuffer read(long address, int length) {
+        ByteBuffer view = this.slabOf(address).duplicate();
+        view.limit((int) address + length).position((int) address);
+        return view;
+    }
+
+    /**
+     * Number of slabs currently allocated.
+     */
+    int slabs() {
+        int slabs = 0;
+        for (SizeClass sizeClass : this.classes)
+            slabs += sizeClass.allocated;
+        return slabs;
+    }
+
+    /**
+     * Releases all slabs, the allocator can't be used afterwards.
+     */
+    void close() {
+        for (SizeClass sizeClass : this.classes)
+            sizeClass.close();
+    }
+
+    private ByteBuffer slabOf(long address) {
+        return this.classes[(int) (address >>> 56)].slabs.get((int) ((address >>> 32) & 0x00FF_FFFF)).buffer;
+    }
+
+    private int sizeClassOf(int length) {
+        if (length <= MIN_BLOCK)
+            return 0;
+        return 32 - Integer.numberOfLeadingZeros(length - 1) - Integer.numberOfTrailingZeros(MIN_BLOCK);
+    }
+
+    private final class Slab {
+        final int index;
+        final ByteBuffer buffer;
+        final int[] free;
+        int freeCount;
+
+        Slab(int index, int blockSize) {
+            this.index = index;
+            this.buffer = ByteBuffer.allocateDirect(slabSize);
+            this.free = new int[slabSize / blockSize];
+            for (int i = 0; i < this.free.length; i++)
+                this.free[i] = (this.free.length - 1 - i) * blockSize;
+            this.freeCount = this.free.length;
+        }
+    }
+
+    private final class SizeClass {
+        final int blockSize;
+        final List<Slab> slabs = new ArrayList<>();
+        final ArrayDeque<Slab> available = new ArrayDeque<>();
+        int allocated;
+
+        SizeClass(int blockSize) {
+            this.blockSize = blockSize;
+        }
+
+        long allocate() {
+            Slab slab = this.available.peekFirst();
+            if (slab == null) {
+                slab = this.grow();
+                this.available.addFirst(slab);
+            }
+            int offset = slab.free[--slab.freeCount];
+            if (slab.freeCount == 0)
+                this.available.pollFirst();
+            return ((long) slab.index << 32) | offset;
+        }
+
+        void free(long block) {
+            Slab slab = this.slabs.get((int) (block >>> 32));
+            slab.free[slab.freeCount++] = (int) block;
+            if (slab.freeCount == 1)
+                this.available.addLast(slab);
+            else if (slab.freeCount == slab.free.length && this.available.size() > 1)
+                this.release(slab);
+        }
+
+        private Slab grow() {
+            int index = this.slabs.indexOf(null);
+            if (index < 0) {
+                index = this.slabs.size();
+                this.slabs.add(null);
+            }
+            Slab slab = new Slab(index, this.blockSize);
+            this.slabs.set(index, slab);
+            this.allocated++;
+            return slab;
+        }
+
+        private void release(Slab slab) {
+            this.available.remove(slab);
+            this.slabs.set(slab.index, null);
+            this.allocated--;
+            DirectMemory.free(slab.buffer);
+        }
+
+        void close() {
+            for (Slab slab : this.slabs) {
+                if (slab != null)
+                    DirectMemory.free(slab.buffer);
+            }
+            this.slabs.clear();
+            this.available.clear();
+            this.allocated = 0;
+        }
+    }
+
+    /**
+     * Frees a direct buffer right away instead of waiting for it to be collected. Falls back to leaving it to the
+     * collector where neither the Java 9 Unsafe.invokeCleaner nor the Java 8 cleaner is reachable.
+     */
+    static final class DirectMemory {
+        private static final Object UNSAFE;
+        private static final Method INVOKE_CLEANER;
+
+        static {
+            Object unsafe = null;
+            Method invokeCleaner = null;
+            try {
+                Class<?> type = Class.forName("sun.misc.Unsafe");
+                invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+                Field field = type.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                unsafe = field.get(null);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                invokeCleaner = null;
+            }
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invokeCleaner;
+        }
+
+        private DirectMemory() {
+        }
+
+        static void free(ByteBuffer buffer) {
+            try {
+                if (INVOKE_CLEANER != null) {
+                    INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                    return;
+                }
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null)
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // left to the garbage collector
+            }
+        }
+    }
+}
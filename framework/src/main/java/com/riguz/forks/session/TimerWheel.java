@@ -0,0 +1,79 @@
+package com.riguz.forks.session;
+
+import java.util.function.Consumer;
+
+/**
+ * A hashed timer wheel with intrusive nodes. Deadlines may move forward without rescheduling, a node whose bucket
+ * comes due before its deadline is simply put back into the wheel. Not thread safe, callers hold the owning lock.
+ */
+final class TimerWheel {
+    static class Node {
+        long deadline;
+        Node prev;
+        Node next;
+
+        boolean isScheduled() {
+            return this.prev != null;
+        }
+    }
+
+    private final Node[] buckets;
+    private final int mask;
+    private final long tickMillis;
+    private long currentTick;
+
+    TimerWheel(int size, long tickMillis, long now) {
+        int buckets = Integer.highestOneBit(Math.max(2, size) - 1) << 1;
+        this.buckets = new Node[buckets];
+        for (int i = 0; i < buckets; i++) {
+            Node sentinel = new Node();
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            this.buckets[i] = sentinel;
+        }
+        this.mask = buckets - 1;
+        this.tickMillis = tickMillis;
+        this.currentTick = now / tickMillis;
+    }
+
+    void schedule(Node node) {
+        long tick = Math.max(node.deadline / this.tickMillis, this.currentTick + 1);
+        Node sentinel = this.buckets[(int) (tick & this.mask)];
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+
+    void unschedule(Node node) {
+        if (!node.isScheduled())
+            return;
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+    void advance(long now, Consumer<Node> expired) {
+        long targetTick = now / this.tickMillis;
+        long ticks = Math.min(targetTick - this.currentTick, this.buckets.length);
+        for (long i = 0; i < ticks; i++) {
+            this.currentTick++;
+            Node sentinel = this.buckets[(int) (this.currentTick & this.mask)];
+            Node node = sentinel.next;
+            sentinel.next = sentinel;
+            sentinel.prev = sentinel;
+            while (node != sentinel) {
+                Node next = node.next;
+                node.prev = null;
+                node.next = null;
+                if (node.deadline <= now)
+                    expired.accept(node);
+                else
+                    this.schedule(node);
+                node = next;
+            }
+        }
+        this.currentTick = Math.max(this.currentTick, targetTick);
+    }
+}
@@ -0,0 +1,214 @@
+package com.riguz.forks.template;
+
+import com.riguz.forks.exceptions.TemplateException;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A compiled template, a tree of nodes writing straight into the output. Static text is encoded once when compiling,
+ * values are looked up in the parameters, or in the items of the enclosing sections, by name.
+ */
+public final class Template {
+    private static final Object MISSING = new Object();
+    private static final ClassValue<Map<String, Object>> ACCESSORS = new ClassValue<Map<String, Object>>() {
+        @Override
+        protected Map<String, Object> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final String name;
+    private final Node[] nodes;
+    private final long lastModified;
+
+    Template(String name, Node[] nodes, long lastModified) {
+        this.name = name;
+        this.nodes = nodes;
+        this.lastModified = lastModified;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    long getLastModified() {
+        return this.lastModified;
+    }
+
+    public void render(Map<String, Object> parameters, TemplateOutput output) {
+        renderAll(this.nodes, new Scope(parameters, null), output);
+    }
+
+    /**
+     * Renders into the output of the calling thread and returns the page in a buffer of the exact size.
+     */
+    public ByteBuffer render(Map<String, Object> parameters) {
+        TemplateOutput output = TemplateOutput.acquire();
+        this.render(parameters, output);
+        return output.toByteBuffer();
+    }
+
+    static void renderAll(Node[] nodes, Scope scope, TemplateOutput output) {
+        for (Node node : nodes)
+            node.render(scope, output);
+    }
+
+    interface Node {
+        void render(Scope scope, TemplateOutput output);
+    }
+
+    static final class Scope {
+        final Object value;
+        final Scope parent;
+
+        Scope(Object value, Scope parent) {
+            this.value = value;
+            this.parent = parent;
+        }
+    }
+
+    static final class Text implements Node {
+        private final byte[] encoded;
+
+        Text(byte[] encoded) {
+            this.encoded = encoded;
+        }
+
+        @Override
+        public void render(Scope scope, TemplateOutput output) {
+            output.write(this.encoded);
+        }
+    }
+
+    static final class Value implements Node {
+        private final String[] path;
+        private final boolean escape;
+
+        Value(String[] path, boolean escape) {
+            this.path = path;
+            this.escape = escape;
+        }
+
+        @Override
+        public void render(Scope scope, TemplateOutput output) {
+            Object value = lookup(scope, this.path);
+            if (value == null)
+                return;
+            CharSequence text = value instanceof CharSequence ? (CharSequence) value : value.toString();
+            if (this.escape)
+                output.writeEscaped(text);
+            else
+                output.writeText(text);
+        }
+    }
+
+    /**
+     * Rendered once for each item of a collection or array, once for true or any other value and not at all for
+     * missing, false or empty values. Inverted sections are rendered only for those.
+     */
+    static final class Section implements Node {
+        private final String[] path;
+        private final boolean inverted;
+        private final Node[] children;
+
+        Section(String[] path, boolean inverted, Node[] children) {
+            this.path = path;
+            this.inverted = inverted;
+            this.children = children;
+        }
+
+        @Override
+        public void render(Scope scope, TemplateOutput output) {
+            Object value = lookup(scope, this.path);
+            if (this.inverted) {
+                if (isEmpty(value))
+                    renderAll(this.children, scope, output);
+                return;
+            }
+            if (isEmpty(value))
+                return;
+            if (value instanceof Boolean) {
+                renderAll(this.children, scope, output);
+            } else if (value instanceof Iterable) {
+                for (Object item : (Iterable<?>) value)
+                    renderAll(this.children, new Scope(item, scope), output);
+            } else if (value.getClass().isArray()) {
+                int length = Array.getLength(value);
+                for (int i = 0; i < length; i++)
+                    renderAll(this.children, new Scope(Array.get(value, i), scope), output);
+            } else {
+                renderAll(this.children, new Scope(value, scope), output);
+            }
+        }
+
+        private static boolean isEmpty(Object value) {
+            if (value == null || Boolean.FALSE.equals(value))
+                return true;
+            if (value instanceof Collection)
+                return ((Collection<?>) value).isEmpty();
+            if (value instanceof Iterable)
+                return !((Iterable<?>) value).iterator().hasNext();
+            return value.getClass().isArray() && Array.getLength(value) == 0;
+        }
+    }
+
+    /**
+     * The first name is looked up from the innermost scope outwards, the rest of a dotted path in the value found.
+     */
+    static Object lookup(Scope scope, String[] path) {
+        if (path.length == 0)
+            return scope.value;
+        Object value = MISSING;
+        for (Scope current = scope; current != null && value == MISSING; current = current.parent)
+            value = property(current.value, path[0]);
+        for (int i = 1; i < path.length && value != MISSING && value != null; i++)
+            value = property(value, path[i]);
+        return value == MISSING ? null : value;
+    }
+
+    private static Object property(Object target, String name) {
+        if (target == null)
+            return MISSING;
+        if (target instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) target;
+            Object value = map.get(name);
+            return value != null || map.containsKey(name) ? value : MISSING;
+        }
+        Map<String, Object> accessors = ACCESSORS.get(target.getClass());
+        Object accessor = accessors.get(name);
+        if (accessor == null) {
+            accessor = accessor(target.getClass(), name);
+            accessors.put(name, accessor);
+        }
+        if (accessor == MISSING)
+            return MISSING;
+        try {
+            return ((Method) accessor).invoke(target);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new TemplateException("Failed to read " + name + " of " + target.getClass().getName(), e);
+        }
+    }
+
+    private static Object accessor(Class<?> type, String name) {
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (String candidate : new String[]{"get" + capitalized, "is" + capitalized, name}) {
+            try {
+                Method method = type.getMethod(candidate);
+                if (method.getReturnType() == void.class || Modifier.isStatic(method.getModifiers()))
+                    continue;
+                method.setAccessible(true);
+                return method;
+            } catch (NoSuchMethodException | RuntimeException e) {
+                // try the next accessor name
+            }
+        }
+        return MISSING;
+    }
+}
@@ -0,0 +1,113 @@
+package com.riguz.forks.template;
+
+import com.riguz.forks.exceptions.TemplateException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Compiles mustache-like templates:
+ * <ul>
+ * <li>{@code {{name}}} writes a value, HTML escaped, {@code {{{name}}}} writes it as is</li>
+ * <li>{@code {{#name}}...{{/name}}} renders a section for each item, or if the value is present</li>
+ * <li>{@code {{^name}}...{{/name}}} renders a section if the value is missing, false or empty</li>
+ * <li>{@code {{! comment}}} is dropped</li>
+ * </ul>
+ * Names may be dotted paths, {@code {{.}}} is the current item.
+ */
+public final class TemplateCompiler {
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private TemplateCompiler() {
+    }
+
+    public static Template compile(String name, String source) {
+        return compile(name, source, 0);
+    }
+
+    static Template compile(String name, String source, long lastModified) {
+        Deque<Frame> frames = new ArrayDeque<>();
+        Frame current = new Frame(null, false);
+        int position = 0;
+        while (position < source.length()) {
+            int open = source.indexOf(OPEN, position);
+            if (open < 0) {
+                current.text(source.substring(position));
+                break;
+            }
+            current.text(source.substring(position, open));
+            boolean raw = source.startsWith("{", open + OPEN.length());
+            String close = raw ? "}" + CLOSE : CLOSE;
+            int start = open + OPEN.length() + (raw ? 1 : 0);
+            int end = source.indexOf(close, start);
+            if (end < 0)
+                throw error(name, source, open, "Unclosed tag");
+            String tag = source.substring(start, end).trim();
+            position = end + close.length();
+            if (tag.isEmpty())
+                throw error(name, source, open, "Empty tag");
+            char kind = raw ? 0 : tag.charAt(0);
+            switch (kind) {
+                case '!':
+                    break;
+                case '#':
+                case '^':
+                    frames.push(current);
+                    current = new Frame(tag.substring(1).trim(), kind == '^');
+                    break;
+                case '/':
+                    String closing = tag.substring(1).trim();
+                    if (current.name == null || !current.name.equals(closing))
+                        throw error(name, source, open, "Unexpected end of section " + closing);
+                    Frame parent = frames.pop();
+                    parent.nodes.add(current.toSection());
+                    current = parent;
+                    break;
+                default:
+                    current.nodes.add(new Template.Value(path(tag), !raw));
+            }
+        }
+        if (current.name != null)
+            throw new TemplateException("Unclosed section " + current.name + " in template " + name);
+        return new Template(name, current.nodes.toArray(new Template.Node[0]), lastModified);
+    }
+
+    private static String[] path(String name) {
+        if (".".equals(name))
+            return new String[0];
+        return name.split("\\.");
+    }
+
+    private static TemplateException error(String name, String source, int offset, String message) {
+        int line = 1;
+        for (int i = 0; i < offset; i++) {
+            if (source.charAt(i) == '\n')
+                line++;
+        }
+        return new TemplateException(message + " in template " + name + " at line " + line);
+    }
+
+    private static final class Frame {
+        final String name;
+        final boolean inverted;
+        final List<Template.Node> nodes = new ArrayList<>();
+
+        Frame(String name, boolean inverted) {
+            this.name = name;
+            this.inverted = inverted;
+        }
+
+        void text(String text) {
+            if (!text.isEmpty())
+                this.nodes.add(new Template.Text(text.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        Template.Node toSection() {
+            return new Template.Section(path(this.name), this.inverted, this.nodes.toArray(new Template.Node[0]));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.riguz.forks.template;
+
+import com.riguz.forks.exceptions.TemplateException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Templates loaded from the class path under a root, compiled on first use and cached. With reloading on, templates
+ * coming from files are compiled again when the file changed, which is meant for development only.
+ */
+public class TemplateEngine {
+    private static final Logger logger = LoggerFactory.getLogger(TemplateEngine.class);
+    private static final String SUFFIX = ".html";
+
+    private final String root;
+    private final boolean reload;
+    private final ClassLoader classLoader;
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+
+    public TemplateEngine(String root, boolean reload) {
+        this(root, reload, TemplateEngine.class.getClassLoader());
+    }
+
+    public TemplateEngine(String root, boolean reload, ClassLoader classLoader) {
+        this.root = root.endsWith("/") ? root : root + "/";
+        this.reload = reload;
+        this.classLoader = classLoader;
+    }
+
+    public ByteBuffer render(String path, Map<String, Object> parameters) {
+        return this.get(path).render(parameters);
+    }
+
+    /**
+     * The compiled template of a path relative to the root, .html is appended to paths without an extension.
+     */
+    public Template get(String path) {
+        Template template = this.templates.get(path);
+        if (template == null)
+            return this.templates.computeIfAbsent(path, this::load);
+        if (this.reload && this.isModified(path, template)) {
+            template = this.load(path);
+            this.templates.put(path, template);
+            logger.info("Reloaded template:{}", path);
+        }
+        return template;
+    }
+
+    public void invalidate() {
+        this.templates.clear();
+    }
+
+    private Template load(String path) {
+        URL resource = this.resource(path);
+        try (InputStream in = resource.openStream()) {
+            ByteArrayOutputStream source = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer))
+                source.write(buffer, 0, read);
+            return TemplateCompiler.compile(path, new String(source.toByteArray(), StandardCharsets.UTF_8),
+                    lastModified(resource));
+        } catch (IOException e) {
+            throw new TemplateException("Failed to read template " + path, e);
+        }
+    }
+
+    private boolean isModified(String path, Template template) {
+        long lastModified = lastModified(this.resource(path));
+        return lastModified != 0 && lastModified != template.getLastModified();
+    }
+
+    private URL resource(String path) {
+        String name = this.root + (path.startsWith("/") ? path.substring(1) : path);
+        if (name.lastIndexOf('.') <= name.lastIndexOf('/'))
+            name += SUFFIX;
+        URL resource = this.classLoader.getResource(name);
+        if (resource == null)
+            throw new TemplateException("Template not found:" + name);
+        return resource;
+    }
+
+    private static long lastModified(URL resource) {
+        if (!"file".equals(resource.getProtocol()))
+            return 0;
+        try {
+            return new File(resource.toURI()).lastModified();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return 0;
+        }
+    }
+}
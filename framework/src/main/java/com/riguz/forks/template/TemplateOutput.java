@@ -0,0 +1,122 @@
+package com.riguz.forks.template;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The bytes of a rendering. Each thread reuses its own output, so rendering doesn't grow a new buffer per request,
+ * the rendered page is copied out once into a buffer of the exact size.
+ */
+public final class TemplateOutput {
+    private static final int INITIAL_SIZE = 8 * 1024;
+    private static final int MAX_RETAINED_SIZE = 256 * 1024;
+    private static final ThreadLocal<TemplateOutput> POOL = ThreadLocal.withInitial(TemplateOutput::new);
+
+    private byte[] bytes = new byte[INITIAL_SIZE];
+    private int size;
+
+    /**
+     * The output of the calling thread, emptied.
+     */
+    static TemplateOutput acquire() {
+        TemplateOutput output = POOL.get();
+        output.size = 0;
+        if (output.bytes.length > MAX_RETAINED_SIZE)
+            output.bytes = new byte[INITIAL_SIZE];
+        return output;
+    }
+
+    public void write(byte[] encoded) {
+        this.ensure(encoded.length);
+        System.arraycopy(encoded, 0, this.bytes, this.size, encoded.length);
+        this.size += encoded.length;
+    }
+
+    public void writeText(CharSequence text) {
+        this.write(text, false);
+    }
+
+    /**
+     * Writes the text with HTML special characters replaced by entities.
+     */
+    public void writeEscaped(CharSequence text) {
+        this.write(text, true);
+    }
+
+    private void write(CharSequence text, boolean escape) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                if (escape && this.writeEntity(c))
+                    continue;
+                this.ensure(1);
+                this.bytes[this.size++] = (byte) c;
+            } else if (c < 0x800) {
+                this.ensure(2);
+                this.bytes[this.size++] = (byte) (0xc0 | c >> 6);
+                this.bytes[this.size++] = (byte) (0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                this.ensure(4);
+                this.bytes[this.size++] = (byte) (0xf0 | codePoint >> 18);
+                this.bytes[this.size++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                this.bytes[this.size++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                this.bytes[this.size++] = (byte) (0x80 | codePoint & 0x3f);
+            } else if (Character.isSurrogate(c)) {
+                this.ensure(1);
+                this.bytes[this.size++] = '?';
+            } else {
+                this.ensure(3);
+                this.bytes[this.size++] = (byte) (0xe0 | c >> 12);
+                this.bytes[this.size++] = (byte) (0x80 | c >> 6 & 0x3f);
+                this.bytes[this.size++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+    }
+
+    private boolean writeEntity(char c) {
+        String entity;
+        switch (c) {
+            case '&':
+                entity = "&amp;";
+                break;
+            case '<':
+                entity = "&lt;";
+                break;
+            case '>':
+                entity = "&gt;";
+                break;
+            case '"':
+                entity = "&quot;";
+                break;
+            case '\'':
+                entity = "&#39;";
+                break;
+            default:
+                return false;
+        }
+        this.ensure(entity.length());
+        for (int i = 0; i < entity.length(); i++)
+            this.bytes[this.size++] = (byte) entity.charAt(i);
+        return true;
+    }
+
+    private void ensure(int more) {
+        if (this.size + more <= this.bytes.length)
+            return;
+        byte[] grown = new byte[Math.max(this.bytes.length * 2, this.size + more)];
+        System.arraycopy(this.bytes, 0, grown, 0, this.size);
+        this.bytes = grown;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public ByteBuffer toByteBuffer() {
+        byte[] copy = new byte[this.size];
+        System.arraycopy(this.bytes, 0, copy, 0, this.size);
+        return ByteBuffer.wrap(copy);
+    }
+}
@@ -1,16 +1,126 @@
 package com.riguz.forks;
 
+import com.riguz.forks.coalesce.Coalescer;
+import com.riguz.forks.codec.CborSerializer;
+import com.riguz.forks.codec.Serializers;
+import com.riguz.forks.emmbed.BatchController;
+import com.riguz.forks.emmbed.EchoController;
+import com.riguz.forks.emmbed.OrderedController;
+import com.riguz.forks.emmbed.SlowController;
+import com.riguz.forks.emmbed.TenantFilter;
+import com.riguz.forks.emmbed.UserController;
+import com.riguz.forks.http.HttpMethod;
+import com.riguz.forks.http.Routable;
+import com.riguz.forks.http.Router;
+import com.riguz.forks.ioc.Bind;
+import com.riguz.forks.ioc.Injector;
+import com.riguz.forks.json.JsonSerializer;
+import com.riguz.forks.mvc.EncodedResponse;
+import com.riguz.forks.mvc.RequestHandler;
+import com.riguz.forks.mvc.stream.SseEvent;
+import com.riguz.forks.session.OffHeapSessionStore;
+import com.riguz.forks.session.SessionManager;
+import com.riguz.forks.session.SessionStore;
+import io.restassured.response.Response;
 import org.junit.After;
 import org.junit.Before;
-import org.junit.Ignore;
+import io.undertow.server.DefaultByteBufferPool;
+import io.undertow.websockets.client.WebSocketClient;
+import io.undertow.websockets.core.AbstractReceiveListener;
+import io.undertow.websockets.core.BufferedTextMessage;
+import io.undertow.websockets.core.WebSocketChannel;
+import io.undertow.websockets.core.WebSockets;
 import org.junit.Test;
+import org.xnio.OptionMap;
+import org.xnio.Xnio;
+import org.xnio.XnioWorker;
 
+import javax.inject.Singleton;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static io.restassured.RestAssured.given;
 import static io.restassured.RestAssured.when;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class ForksTest {
-    Forks forks = new Forks(new DefaultConfig());
+    /**
+     * Keeps sessions off heap so the session test goes through the encoded store, negotiates CBOR, and counts the
+     * requests joining a running report.
+     */
+    public static class TestConfig extends DefaultConfig {
+        static volatile CountDownLatch joined = new CountDownLatch(0);
+
+        @Bind
+        @Singleton
+        @Override
+        public SessionStore sessionStore() {
+            return OffHeapSessionStore.create(SESSION_SEGMENTS, SESSION_TIMEOUT_MINUTES, TimeUnit.MINUTES, 4096);
+        }
+
+        @Bind
+        @Singleton
+        @Override
+        public Serializers serializers(JsonSerializer jsonSerializer) {
+            return new Serializers(jsonSerializer, new CborSerializer());
+        }
+
+        @Bind
+        @Singleton
+        @Override
+        public Router<RequestHandler> router(Injector injector) {
+            Router<RequestHandler> router = super.router(injector);
+            RequestHandler report = router.route(new Routable() {
+                @Override
+                public HttpMethod getHttpMethod() {
+                    return HttpMethod.GET;
+                }
+
+                @Override
+                public String getPath() {
+                    return "/report";
+                }
+            }).getHandler();
+            report.setCoalescer(new Coalescer() {
+                @Override
+                public Flight join(String key, Consumer<EncodedResponse> waiter) {
+                    Flight flight = super.join(key, waiter);
+                    if (flight == null)
+                        joined.countDown();
+                    return flight;
+                }
+            });
+            return router;
+        }
+    }
+
+    Forks forks = new Forks(new TestConfig());
 
     @Before
     public void init() {
@@ -23,7 +133,6 @@ public class ForksTest {
     }
 
     @Test
-    @Ignore
     public void getString() {
         when().
                 get("/foo").
@@ -40,4 +149,347 @@ public class ForksTest {
                 statusCode(200).
                 body(equalTo("1024"));
     }
+
+    @Test
+    public void upload() {
+        given().
+                multiPart("name", "riguz").
+                multiPart("file", "data.bin", new byte[100 * 1024]).
+                when().
+                post("/upload").
+                then().
+                statusCode(200).
+                body(equalTo(String.valueOf(5 + 100 * 1024)));
+    }
+
+    @Test
+    public void events() {
+        when().
+                get("/events").
+                then().
+                statusCode(200).
+                header("Content-Type", "text/event-stream;charset=UTF-8").
+                body(equalTo("id: 1\ndata: hello\n\ndata: world\n\n"));
+    }
+
+    @Test
+    public void iterator() {
+        when().
+                get("/ticks").
+                then().
+                statusCode(200).
+                body(equalTo("data: 1\n\ndata: 2\n\ndata: 3\n\n"));
+    }
+
+    @Test
+    public void jsonStreams() {
+        assertEquals("[1,2,3]", given().header("Accept", "application/json").get("/ticks").then().statusCode(200)
+                .contentType("application/json;charset=UTF-8").extract().asString());
+        StringBuilder expected = new StringBuilder("[");
+        for (int i = 0; i < 20000; i++)
+            expected.append(i == 0 ? "" : ",").append(i);
+        assertEquals(expected.append(']').toString(), when().get("/export").then().statusCode(200)
+                .contentType("application/json;charset=UTF-8").extract().asString());
+        for (String thread : UserController.exportThreads)
+            assertTrue(thread, thread.startsWith("forks-json-stream"));
+    }
+
+    @Test
+    public void abortFailedJsonStream() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8080/export/broken")
+                .openConnection();
+        assertEquals(200, connection.getResponseCode());
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) != -1) {
+                // read until the connection is cut
+            }
+            fail("Truncated stream ended cleanly");
+        } catch (IOException e) {
+            // expected, the body never ends
+        }
+    }
+
+    @Test
+    public void broadcast() throws IOException, InterruptedException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8080/subscribe").openConnection();
+        assertEquals(200, connection.getResponseCode());
+        while (UserController.broadcaster.size() == 0)
+            Thread.sleep(10);
+        UserController.broadcaster.broadcast(new SseEvent("first\nsecond").setEvent("update"));
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            assertEquals("event: update", reader.readLine());
+            assertEquals("data: first", reader.readLine());
+            assertEquals("data: second", reader.readLine());
+            UserController.broadcaster.close();
+            assertEquals("", reader.readLine());
+            assertEquals(null, reader.readLine());
+        }
+    }
+
+    @Test
+    public void webSocket() throws Exception {
+        XnioWorker worker = Xnio.getInstance().createWorker(OptionMap.EMPTY);
+        try {
+            WebSocketChannel channel = WebSocketClient.connectionBuilder(worker,
+                    new DefaultByteBufferPool(false, 1024), new URI("ws://localhost:8080/echo")).connect().get();
+            BlockingQueue<String> received = new LinkedBlockingQueue<>();
+            channel.getReceiveSetter().set(new AbstractReceiveListener() {
+                @Override
+                protected void onFullTextMessage(WebSocketChannel channel, BufferedTextMessage message) {
+                    received.add(message.getData());
+                }
+            });
+            channel.resumeReceives();
+
+            WebSockets.sendText("hi", channel, null);
+            assertEquals("echo:hi", received.poll(5, TimeUnit.SECONDS));
+            assertEquals(1, EchoController.room.broadcast("news"));
+            assertEquals("news", received.poll(5, TimeUnit.SECONDS));
+            channel.sendClose();
+        } finally {
+            worker.shutdown();
+        }
+    }
+
+    @Test
+    public void blockingWebSocketKeepsOrder() throws Exception {
+        XnioWorker worker = Xnio.getInstance().createWorker(OptionMap.EMPTY);
+        try {
+            WebSocketChannel channel = WebSocketClient.connectionBuilder(worker,
+                    new DefaultByteBufferPool(false, 1024), new URI("ws://localhost:8080/ordered")).connect().get();
+            BlockingQueue<String> received = new LinkedBlockingQueue<>();
+            channel.getReceiveSetter().set(new AbstractReceiveListener() {
+                @Override
+                protected void onFullTextMessage(WebSocketChannel channel, BufferedTextMessage message) {
+                    received.add(message.getData());
+                }
+            });
+            channel.resumeReceives();
+
+            for (int i = 0; i < 50; i++)
+                WebSockets.sendText(String.valueOf(i), channel, null);
+            for (int i = 0; i < 50; i++)
+                assertEquals(String.valueOf(i), received.poll(5, TimeUnit.SECONDS));
+            assertFalse(OrderedController.overlapped);
+            channel.sendClose();
+        } finally {
+            worker.shutdown();
+        }
+    }
+
+    @Test
+    public void webSocketWithoutUpgrade() {
+        when().
+                get("/echo").
+                then().
+                statusCode(426);
+    }
+
+    @Test
+    public void rateLimit() {
+        for (int i = 0; i < 2; i++)
+            when().get("/limited").then().statusCode(200);
+        when().
+                get("/limited").
+                then().
+                statusCode(429).
+                header("Retry-After", "30").
+                body(equalTo("Too many requests"));
+    }
+
+    @Test
+    public void etag() {
+        String etag = when().
+                get("/tagged").
+                then().
+                statusCode(200).
+                body(equalTo("1024")).
+                extract().header("ETag");
+        assertEquals(true, etag.startsWith("W/\""));
+        given().
+                header("If-None-Match", etag).
+                when().
+                get("/tagged").
+                then().
+                statusCode(304).
+                header("ETag", etag).
+                body(equalTo(""));
+        given().
+                header("If-None-Match", "W/\"0000000000000000\"").
+                when().
+                get("/tagged").
+                then().
+                statusCode(200).
+                body(equalTo("1024"));
+        when().get("/number").then().statusCode(200).header("ETag", nullValue());
+    }
+
+    @Test
+    public void etagOfCachedResponse() {
+        String etag = when().
+                get("/counter/tagged").
+                then().
+                statusCode(200).
+                body(equalTo("tagged")).
+                extract().header("ETag");
+        given().
+                header("If-None-Match", etag).
+                when().
+                get("/counter/tagged").
+                then().
+                statusCode(304).
+                header("Content-Length", nullValue()).
+                body(equalTo(""));
+    }
+
+    @Test
+    public void sessions() {
+        Response first = when().get("/visit");
+        assertEquals(200, first.statusCode());
+        assertEquals("1", first.asString());
+        String id = first.getCookie(SessionManager.COOKIE_NAME);
+        assertNotNull(id);
+        assertEquals("2", given().cookie(SessionManager.COOKIE_NAME, id).get("/visit")
+                .then().statusCode(200).extract().asString());
+        assertEquals("3", given().cookie(SessionManager.COOKIE_NAME, id).get("/visit")
+                .then().statusCode(200).extract().asString());
+        Response other = when().get("/visit");
+        assertEquals("1", other.asString());
+        assertNotEquals(id, other.getCookie(SessionManager.COOKIE_NAME));
+
+        assertEquals("1", given().cookie(SessionManager.COOKIE_NAME, id).post("/logout")
+                .then().statusCode(200).extract().asString());
+        Response again = given().cookie(SessionManager.COOKIE_NAME, id).get("/visit");
+        assertEquals("1", again.asString());
+        assertNotEquals(id, again.getCookie(SessionManager.COOKIE_NAME));
+    }
+
+    @Test
+    public void responseCache() {
+        when().get("/counter").then().statusCode(200).body(equalTo("1"));
+        when().get("/counter").then().statusCode(200).body(equalTo("1"));
+        when().get("/counter?page=2").then().statusCode(200).body(equalTo("2"));
+        when().get("/counter?page=2").then().statusCode(200).body(equalTo("2"));
+        when().post("/counter/reset").then().statusCode(200);
+        when().get("/counter").then().statusCode(200).body(equalTo("3"));
+        when().get("/counter?page=2").then().statusCode(200).body(equalTo("4"));
+    }
+
+    @Test
+    public void cacheByMediaType() {
+        for (int i = 0; i < 2; i++) {
+            byte[] cbor = given().header("Accept", "application/cbor").get("/counter/tags").then().statusCode(200)
+                    .contentType("application/cbor").extract().asByteArray();
+            assertEquals("[-126, 97, 97, 97, 98]", Arrays.toString(cbor));
+            assertEquals("[\"a\",\"b\"]", given().header("Accept", "application/json").get("/counter/tags").then()
+                    .statusCode(200).contentType("application/json;charset=UTF-8").extract().asString());
+        }
+    }
+
+    @Test
+    public void coalesce() throws Exception {
+        SlowController.invocations.set(0);
+        SlowController.pending = new CompletableFuture<>();
+        TestConfig.joined = new CountDownLatch(4);
+        ExecutorService clients = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<String>> responses = new ArrayList<>();
+            for (int i = 0; i < 5; i++)
+                responses.add(clients.submit(() -> when().get("/report").then().statusCode(200)
+                        .extract().asString()));
+            assertTrue(TestConfig.joined.await(5, TimeUnit.SECONDS));
+            SlowController.pending.complete("done");
+            for (Future<String> response : responses)
+                assertEquals("done", response.get(5, TimeUnit.SECONDS));
+            assertEquals(1, SlowController.invocations.get());
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    public void batch() throws Exception {
+        BatchController.batches.set(0);
+        ExecutorService clients = Executors.newFixedThreadPool(20);
+        try {
+            List<Future<String>> responses = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                int id = i;
+                responses.add(clients.submit(() -> when().get("/batch/users/" + id).then().statusCode(200)
+                        .extract().asString()));
+            }
+            for (int i = 0; i < 20; i++)
+                assertEquals("user" + i, responses.get(i).get(5, TimeUnit.SECONDS));
+            assertTrue(BatchController.batches.get() < 20);
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    public void bulkhead() throws Exception {
+        ExecutorService clients = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> running = clients.submit(() -> when().get("/render").then().statusCode(200)
+                    .extract().asString());
+            assertTrue(SlowController.rendering.await(5, TimeUnit.SECONDS));
+            // the only thread of the pool is taken, other routes are not affected
+            when().get("/render").then().statusCode(503).header("Retry-After", equalTo("1"));
+            when().get("/number").then().statusCode(200);
+            SlowController.rendered.countDown();
+            assertTrue(running.get(5, TimeUnit.SECONDS).startsWith("forks-narrow-"));
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    public void deadline() {
+        long remaining = Long.parseLong(when().get("/remaining").then().statusCode(200).extract().asString());
+        assertTrue(remaining > 0 && remaining <= 10000);
+        remaining = Long.parseLong(given().header("X-Request-Timeout", "2s").get("/remaining").then()
+                .statusCode(200).extract().asString());
+        assertTrue(remaining > 0 && remaining <= 2000);
+        given().header("X-Request-Timeout", "0").get("/number").then().statusCode(504);
+        given().header("X-Request-Timeout", "0").get("/dropped").then().statusCode(504);
+        when().get("/dropped").then().statusCode(200).body(equalTo("2"));
+    }
+
+    @Test
+    public void queryAndHeaderParams() {
+        assertEquals("acme:hello world:3", given().header("X-Tenant", "acme")
+                .queryParam("q", "hello world").queryParam("page", 3).get("/search")
+                .then().statusCode(200).extract().asString());
+        assertEquals("acme:null:1", given().header("X-Tenant", "acme").get("/search")
+                .then().statusCode(200).extract().asString());
+        when().get("/search?q=x").then().statusCode(400);
+        given().header("X-Tenant", "acme").get("/search?page=first").then().statusCode(400);
+    }
+
+    @Test
+    public void filters() throws Exception {
+        TenantFilter.completed.set(0);
+        when().get("/tenant").then().statusCode(401).body(equalTo("Tenant required"));
+        given().header("X-Tenant", "acme").get("/tenant").then().statusCode(200);
+        when().get("/foo").then().statusCode(200);
+        assertEquals(1, TenantFilter.completed.get());
+    }
+
+    @Test
+    public void resultResolvers() {
+        when().get("/number").then().statusCode(200)
+                .contentType("text/plain;charset=UTF-8").body(equalTo("1024"));
+        assertEquals("[\"a\",\"b\"]", when().get("/tags").then().statusCode(200)
+                .contentType("application/json;charset=UTF-8").extract().asString());
+        given().redirects().follow(false).get("/home").then().statusCode(302).header("Location", equalTo("/foo"));
+        when().get("/missing").then().statusCode(404).body(equalTo("Nothing here"));
+        byte[] cbor = given().header("Accept", "application/cbor").get("/tags").then().statusCode(200)
+                .contentType("application/cbor").extract().asByteArray();
+        assertEquals("[-126, 97, 97, 97, 98]", Arrays.toString(cbor));
+        assertEquals("<h1>Users &amp; friends</h1>\n\n<ul><li>alice</li><li>&lt;bob&gt;</li></ul>\n\n",
+                when().get("/users").then().statusCode(200)
+                        .contentType("text/html;charset=UTF-8").extract().asString());
+    }
 }
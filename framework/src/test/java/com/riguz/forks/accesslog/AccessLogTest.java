@@ -0,0 +1,70 @@
+package com.riguz.forks.accesslog;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class AccessLogTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writeRecords() throws IOException {
+        Path dir = this.folder.getRoot().toPath();
+        Path file = dir.resolve("access.log");
+        AccessLog log = new AccessLog(file);
+        assertTrue(log.record("GET /users/:id", 200, 1_500_000, 512));
+        assertTrue(log.record(null, 404, 20_000, 9));
+        log.close();
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0), lines.get(0).matches("\\d{4}-\\d\\d-\\d\\dT\\d\\d:\\d\\d:\\d\\d\\.\\d{3}Z GET /users/:id 200 1500us 512"));
+        assertTrue(lines.get(1), lines.get(1).endsWith("Z - 404 20us 9"));
+        assertEquals(2, log.getWritten());
+    }
+
+    @Test
+    public void concurrentProducersAndRotation() throws Exception {
+        Path dir = this.folder.getRoot().toPath();
+        Path file = dir.resolve("access.log");
+        AccessLog log = new AccessLog(file, 1024, 4096, 3);
+        int threads = 4;
+        int perThread = 5000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread producer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++)
+                    log.record("GET /", 200, 1000, 1);
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        start.countDown();
+        for (Thread producer : producers)
+            producer.join();
+        log.close();
+
+        assertEquals(threads * perThread, log.getWritten() + log.getDropped());
+        assertTrue(Files.exists(dir.resolve("access.log.1")));
+        assertTrue(Files.exists(dir.resolve("access.log.3")));
+        assertFalse(Files.exists(dir.resolve("access.log.4")));
+        assertTrue(Files.size(file) <= 4096);
+    }
+}
@@ -0,0 +1,87 @@
+package com.riguz.forks.batch;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class BatcherTest {
+    public static class Users {
+        final List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+        volatile CountDownLatch gate = new CountDownLatch(0);
+
+        public List<String> getUsers(List<Integer> ids) throws InterruptedException {
+            this.gate.await();
+            this.sizes.add(ids.size());
+            return ids.stream().map(id -> "user" + id).collect(Collectors.toList());
+        }
+
+        public Map<Integer, String> getNames(List<Integer> ids) {
+            return Collections.singletonMap(ids.get(0), "only");
+        }
+    }
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private Batcher batcher(Users users, String method, int max) throws NoSuchMethodException {
+        return new Batcher(users, Users.class.getMethod(method, List.class), max, 50, TimeUnit.MILLISECONDS, 1,
+                this.executor);
+    }
+
+    @Test
+    public void loneKeyIsFlushedRightAway() throws Exception {
+        Users users = new Users();
+        Batcher batcher = this.batcher(users, "getUsers", 64);
+        assertEquals("user1", batcher.submit(1).get(20, TimeUnit.MILLISECONDS));
+        assertEquals(Collections.singletonList(1), users.sizes);
+    }
+
+    @Test
+    public void keysPileUpWhileBatchRuns() throws Exception {
+        Users users = new Users();
+        users.gate = new CountDownLatch(1);
+        Batcher batcher = this.batcher(users, "getUsers", 64);
+        CompletableFuture<Object> first = batcher.submit(0);
+        List<CompletableFuture<Object>> rest = new ArrayList<>();
+        for (int i = 1; i <= 10; i++)
+            rest.add(batcher.submit(i));
+        CompletableFuture<Object> duplicate = batcher.submit(5);
+        users.gate.countDown();
+        assertEquals("user0", first.get(1, TimeUnit.SECONDS));
+        for (int i = 0; i < rest.size(); i++)
+            assertEquals("user" + (i + 1), rest.get(i).get(1, TimeUnit.SECONDS));
+        assertSame(rest.get(4), duplicate);
+        assertEquals(2, batcher.getBatches());
+        assertEquals(12, batcher.getItems());
+        assertEquals(10, (int) users.sizes.get(1));
+    }
+
+    @Test
+    public void fullBatchIsFlushedEarly() throws Exception {
+        Users users = new Users();
+        users.gate = new CountDownLatch(1);
+        Batcher batcher = this.batcher(users, "getUsers", 4);
+        batcher.submit(0);
+        for (int i = 1; i <= 4; i++)
+            batcher.submit(i);
+        users.gate.countDown();
+        batcher.submit(9).get(1, TimeUnit.SECONDS);
+        assertEquals(3, batcher.getBatches());
+    }
+
+    @Test
+    public void mapResults() throws Exception {
+        Batcher batcher = this.batcher(new Users(), "getNames", 64);
+        assertEquals("only", batcher.submit(7).get(1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,54 @@
+package com.riguz.forks.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WTinyLfuCacheTest {
+
+    @Test
+    public void boundedBySize() {
+        WTinyLfuCache<Integer, String> cache = new WTinyLfuCache<>(100);
+        for (int i = 0; i < 1000; i++)
+            cache.put(i, "v" + i);
+        assertEquals(100, cache.size());
+    }
+
+    @Test
+    public void popularKeysSurviveScan() {
+        WTinyLfuCache<Integer, String> cache = new WTinyLfuCache<>(100);
+        for (int i = 0; i < 50; i++)
+            cache.put(i, "hot" + i);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++)
+                assertNotNull(cache.get(i));
+        }
+        // a scan of keys seen once must not flush the frequently read ones
+        for (int i = 1000; i < 11000; i++)
+            cache.put(i, "cold" + i);
+        int survived = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.get(i) != null)
+                survived++;
+        }
+        assertTrue("Only " + survived + " hot keys survived", survived >= 45);
+        assertEquals(100, cache.size());
+    }
+
+    @Test
+    public void removeAndReplace() {
+        WTinyLfuCache<String, String> cache = new WTinyLfuCache<>(10);
+        cache.put("a", "1");
+        cache.put("a", "2");
+        assertEquals("2", cache.get("a"));
+        assertEquals("2", cache.remove("a"));
+        assertNull(cache.get("a"));
+        cache.put("/users", "1");
+        cache.put("/users\0page=1", "2");
+        cache.put("/posts", "3");
+        cache.removeIf(key -> key.startsWith("/users"));
+        assertEquals(1, cache.size());
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+}
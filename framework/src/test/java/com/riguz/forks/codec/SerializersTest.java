@@ -0,0 +1,127 @@
+package com.riguz.forks.codec;
+
+import com.riguz.forks.json.DslJsonSerializer;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SerializersTest {
+    public static class Point {
+        private final int x;
+        private final String label;
+        private final boolean visible;
+
+        Point(int x, String label, boolean visible) {
+            this.x = x;
+            this.label = label;
+            this.visible = visible;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public boolean isVisible() {
+            return visible;
+        }
+    }
+
+    private final DslJsonSerializer json = new DslJsonSerializer();
+    private final CborSerializer cbor = new CborSerializer();
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++)
+            bytes[i] = (byte) values[i];
+        return bytes;
+    }
+
+    @Test
+    public void negotiate() {
+        Serializers serializers = new Serializers(json, cbor);
+        assertSame(json, serializers.negotiate(null));
+        assertSame(json, serializers.negotiate("text/html,*/*;q=0.8"));
+        assertSame(cbor, serializers.negotiate("application/cbor"));
+        assertSame(cbor, serializers.negotiate("application/json;q=0.5, application/cbor"));
+        assertSame(json, serializers.negotiate("application/cbor;q=0.2, application/*;q=0.9"));
+        assertSame(json, serializers.negotiate("image/png"));
+        assertSame(json, new Serializers(json).negotiate("application/cbor"));
+    }
+
+    @Test
+    public void encodeCbor() throws IOException {
+        assertArrayEquals(bytes(0x18, 0x64), cbor.serialize(100));
+        assertArrayEquals(bytes(0x39, 0x03, 0xe7), cbor.serialize(-1000));
+        assertArrayEquals(bytes(0x1b, 0, 0, 0, 0xe8, 0xd4, 0xa5, 0x10, 0), cbor.serialize(1000000000000L));
+        assertArrayEquals(bytes(0x61, 0x61), cbor.serialize("a"));
+        assertArrayEquals(bytes(0x83, 0x01, 0x02, 0x03), cbor.serialize(Arrays.asList(1, 2, 3)));
+        assertArrayEquals(bytes(0xa1, 0x61, 0x61, 0x01), cbor.serialize(Collections.singletonMap("a", 1)));
+        assertArrayEquals(bytes(0xfb, 0x3f, 0xf1, 0x99, 0x99, 0x99, 0x99, 0x99, 0x9a), cbor.serialize(1.1));
+        assertArrayEquals(bytes(0xc1, 0x1a, 0x51, 0x4b, 0x67, 0xb0), cbor.serialize(new Date(1363896240000L)));
+        assertArrayEquals(bytes(0xf6), cbor.serialize(null));
+    }
+
+    @Test
+    public void encodeBeans() throws IOException {
+        assertArrayEquals(bytes(0xa3,
+                0x65, 'l', 'a', 'b', 'e', 'l', 0x62, 'p', '1',
+                0x67, 'v', 'i', 's', 'i', 'b', 'l', 'e', 0xf5,
+                0x61, 'x', 0x18, 0x2a),
+                cbor.serialize(new Point(42, "p1", true)));
+    }
+
+    @Test
+    public void encodeUuidAsText() throws IOException {
+        UUID id = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+        byte[] text = id.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] expected = new byte[text.length + 2];
+        expected[0] = 0x78;
+        expected[1] = (byte) text.length;
+        System.arraycopy(text, 0, expected, 2, text.length);
+        assertArrayEquals(expected, cbor.serialize(id));
+        assertEquals("\"" + id + "\"", new String(json.serialize(id), StandardCharsets.UTF_8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectJavaTime() throws IOException {
+        cbor.serialize(LocalDate.of(2020, 1, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectOptional() throws IOException {
+        cbor.serialize(Collections.singletonList(Optional.of(1)));
+    }
+
+    @Test
+    public void smallerThanJson() throws IOException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", i);
+            row.put("name", "user" + i);
+            row.put("active", i % 2 == 0);
+            rows.add(row);
+        }
+        assertTrue(cbor.serialize(rows).length < json.serialize(rows).length);
+    }
+}
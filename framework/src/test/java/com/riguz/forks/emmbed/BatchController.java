@@ -0,0 +1,22 @@
+package com.riguz.forks.emmbed;
+
+import javax.inject.Singleton;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+@Singleton
+public class BatchController {
+    public static final AtomicInteger batches = new AtomicInteger();
+
+    public String getUser(int id) {
+        throw new UnsupportedOperationException("Served by getUsers");
+    }
+
+    public List<String> getUsers(List<Integer> ids) throws InterruptedException {
+        batches.incrementAndGet();
+        // a database round trip
+        Thread.sleep(20);
+        return ids.stream().map(id -> "user" + id).collect(Collectors.toList());
+    }
+}
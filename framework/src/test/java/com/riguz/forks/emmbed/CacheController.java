@@ -0,0 +1,37 @@
+package com.riguz.forks.emmbed;
+
+import com.riguz.forks.cache.ResponseCaches;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Singleton
+public class CacheController {
+    private final ResponseCaches caches;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Inject
+    public CacheController(ResponseCaches caches) {
+        this.caches = caches;
+    }
+
+    public int count() {
+        return this.counter.incrementAndGet();
+    }
+
+    public String tagged() {
+        return "tagged";
+    }
+
+    public List<String> tags() {
+        return Arrays.asList("a", "b");
+    }
+
+    public int reset() {
+        this.caches.get("counter").invalidate("/counter");
+        return this.counter.get();
+    }
+}
@@ -0,0 +1,27 @@
+package com.riguz.forks.emmbed;
+
+import com.riguz.forks.http.websocket.WebSocketBroadcaster;
+import com.riguz.forks.http.websocket.WebSocketHandler;
+import com.riguz.forks.http.websocket.WebSocketSession;
+
+import javax.inject.Singleton;
+
+@Singleton
+public class EchoController implements WebSocketHandler {
+    public static final WebSocketBroadcaster room = new WebSocketBroadcaster();
+
+    @Override
+    public void onOpen(WebSocketSession session) {
+        room.join(session);
+    }
+
+    @Override
+    public void onMessage(WebSocketSession session, String message) {
+        session.send("echo:" + message);
+    }
+
+    @Override
+    public void onClose(WebSocketSession session, int code, String reason) {
+        room.leave(session);
+    }
+}
@@ -0,0 +1,33 @@
+package com.riguz.forks.emmbed;
+
+import com.riguz.forks.http.websocket.WebSocketHandler;
+import com.riguz.forks.http.websocket.WebSocketSession;
+
+import javax.inject.Singleton;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Singleton
+public class OrderedController implements WebSocketHandler {
+    public static final AtomicInteger concurrent = new AtomicInteger();
+    public static volatile boolean overlapped;
+
+    @Override
+    public void onMessage(WebSocketSession session, String message) {
+        if (concurrent.incrementAndGet() > 1)
+            overlapped = true;
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            concurrent.decrementAndGet();
+        }
+        session.send(message);
+    }
+
+    @Override
+    public boolean isBlocking() {
+        return true;
+    }
+}
@@ -0,0 +1,30 @@
+package com.riguz.forks.emmbed;
+
+import com.riguz.forks.session.Session;
+import com.riguz.forks.session.SessionManager;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+@Singleton
+public class SessionController {
+    private final SessionManager sessions;
+
+    @Inject
+    public SessionController(SessionManager sessions) {
+        this.sessions = sessions;
+    }
+
+    public int visit() {
+        Session session = this.sessions.current();
+        Integer visits = session.getAttribute("visits");
+        int next = visits == null ? 1 : visits + 1;
+        session.setAttribute("visits", next);
+        return next;
+    }
+
+    public int logout() {
+        this.sessions.invalidate();
+        return this.sessions.getStore().size();
+    }
+}
@@ -0,0 +1,45 @@
+package com.riguz.forks.emmbed;
+
+import com.riguz.forks.deadline.Deadlines;
+import com.riguz.forks.mvc.RequestContext;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Singleton
+public class SlowController {
+    public static final AtomicInteger invocations = new AtomicInteger();
+    public static volatile CompletableFuture<String> pending = new CompletableFuture<>();
+    public static final CountDownLatch rendering = new CountDownLatch(1);
+    public static final CountDownLatch rendered = new CountDownLatch(1);
+
+    private final Deadlines deadlines;
+
+    @Inject
+    public SlowController(Deadlines deadlines) {
+        this.deadlines = deadlines;
+    }
+
+    public CompletableFuture<String> report() {
+        invocations.incrementAndGet();
+        return pending;
+    }
+
+    public String render() throws InterruptedException {
+        rendering.countDown();
+        rendered.await(5, TimeUnit.SECONDS);
+        return Thread.currentThread().getName();
+    }
+
+    public long remaining() {
+        return RequestContext.current().getDeadline().remaining(TimeUnit.MILLISECONDS);
+    }
+
+    public long dropped() {
+        return deadlines.getDropped();
+    }
+}
@@ -0,0 +1,23 @@
+package com.riguz.forks.emmbed;
+
+import com.riguz.forks.filter.Filter;
+import com.riguz.forks.http.HttpRequest;
+import com.riguz.forks.http.HttpResponse;
+import com.riguz.forks.mvc.EncodedResponse;
+
+import javax.inject.Singleton;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Singleton
+public class TenantFilter implements Filter {
+    public static final AtomicInteger completed = new AtomicInteger();
+    private static final EncodedResponse unauthorized = new EncodedResponse(401, "text/plain", "Tenant required");
+
+    @Override
+    public EncodedResponse filter(HttpRequest request, HttpResponse response) {
+        if (request.getHeader("X-Tenant") == null)
+            return unauthorized;
+        response.onComplete(completed::incrementAndGet);
+        return null;
+    }
+}
@@ -1,10 +1,30 @@
 package com.riguz.forks.emmbed;
 
+import com.riguz.forks.http.HttpStatus;
+import com.riguz.forks.http.multipart.Part;
+import com.riguz.forks.mvc.RequestContext;
+import com.riguz.forks.mvc.stream.SseBroadcaster;
+import com.riguz.forks.mvc.stream.SseEmitter;
+import com.riguz.forks.mvc.stream.SseEvent;
+import com.riguz.forks.mvc.view.ErrorResult;
+import com.riguz.forks.mvc.view.Redirect;
+import com.riguz.forks.mvc.view.View;
+
 import javax.inject.Singleton;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Singleton
 public class UserController {
+    public static final SseBroadcaster broadcaster = new SseBroadcaster();
+    public static final Set<String> exportThreads = ConcurrentHashMap.newKeySet();
+
     public String foo() {
         return "bar";
     }
@@ -13,6 +33,60 @@ public class UserController {
         return 1024;
     }
 
+    public List<String> tags() {
+        return Arrays.asList("a", "b");
+    }
+
+    public Redirect home() {
+        return new Redirect("/foo");
+    }
+
+    public View users() {
+        return new View("users").set("title", "Users & friends").set("users", Arrays.asList("alice", "<bob>"));
+    }
+
+    public ErrorResult missing() {
+        return new ErrorResult(HttpStatus.NOT_FOUND, "Nothing here");
+    }
+
+    public String search(int page, String q, String tenant) {
+        return tenant + ":" + q + ":" + page;
+    }
+
+    public long upload() {
+        long size = 0;
+        for (Part part : RequestContext.current().getMultipart().getParts())
+            size += part.getSize();
+        return size;
+    }
+
+    public SseEmitter events() {
+        SseEmitter emitter = new SseEmitter();
+        emitter.send(new SseEvent("hello").setId("1"));
+        emitter.send("world");
+        emitter.complete();
+        return emitter;
+    }
+
+    public Iterator<Integer> ticks() {
+        return Arrays.asList(1, 2, 3).iterator();
+    }
+
+    public Stream<Integer> export() {
+        return IntStream.range(0, 20000).boxed().peek(i -> exportThreads.add(Thread.currentThread().getName()));
+    }
+
+    public Stream<Integer> brokenExport() {
+        return IntStream.range(0, 20000).boxed().peek(i -> {
+            if (i == 10000)
+                throw new IllegalStateException("Cursor failed");
+        });
+    }
+
+    public SseEmitter subscribe() {
+        return broadcaster.subscribe();
+    }
+
     public UserDto getUser(int id) {
         UserDto user = new UserDto(1, "Riguz", new Date(), "Hello World!");
         return user;
@@ -0,0 +1,82 @@
+package com.riguz.forks.mvc;
+
+import java.lang.reflect.Method;
+
+/**
+ * Compares calling an action through Method.invoke, the spun invoker and the method handle fallback. Not run with the
+ * tests, start it with the test class path:
+ * {@code java com.riguz.forks.mvc.ActionInvokerBenchmark [calls per round] [rounds]}
+ */
+public class ActionInvokerBenchmark {
+    public static class Controller {
+        public long add(int a, long b) {
+            return a + b;
+        }
+    }
+
+    /**
+     * Sinks every result, so the JIT can't drop the calls as dead code.
+     */
+    private static final class Blackhole {
+        private volatile long published;
+        private long sum;
+
+        void consume(Object value) {
+            this.sum += value.hashCode();
+        }
+
+        void publish() {
+            this.published = this.sum;
+        }
+    }
+
+    public static void main(String[] args) throws Throwable {
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Method action = Controller.class.getMethod("add", int.class, long.class);
+        ActionInvoker direct = ActionInvoker.of(action);
+        ActionInvoker handle = new ActionInvoker.HandleInvoker(action);
+        Controller controller = new Controller();
+        Object[] ints = new Object[1024];
+        Object[] longs = new Object[1024];
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = i;
+            longs[i] = (long) i * 31;
+        }
+        Blackhole blackhole = new Blackhole();
+        for (int round = 0; round < rounds; round++) {
+            // the first round warms up all paths
+            report("reflection", round, calls, reflect(action, controller, ints, longs, calls, blackhole));
+            report("invoker   ", round, calls, invoke(direct, controller, ints, longs, calls, blackhole));
+            report("handle    ", round, calls, invoke(handle, controller, ints, longs, calls, blackhole));
+        }
+        blackhole.publish();
+    }
+
+    private static long reflect(Method action, Controller controller, Object[] ints, Object[] longs, int calls,
+                                Blackhole blackhole) throws Exception {
+        long started = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            int index = i & 1023;
+            blackhole.consume(action.invoke(controller, ints[index], longs[index]));
+        }
+        return System.nanoTime() - started;
+    }
+
+    /**
+     * Shared by the two invokers, the call site only ever sees these two classes so both can still be inlined.
+     */
+    private static long invoke(ActionInvoker invoker, Controller controller, Object[] ints, Object[] longs,
+                               int calls, Blackhole blackhole) throws Throwable {
+        long started = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            int index = i & 1023;
+            blackhole.consume(invoker.invoke(controller, ints[index], longs[index]));
+        }
+        return System.nanoTime() - started;
+    }
+
+    private static void report(String name, int round, int calls, long elapsed) {
+        System.out.printf("%s round %d: %.2fns/op%n", name, round, elapsed / (double) calls);
+    }
+}
@@ -0,0 +1,85 @@
+package com.riguz.forks.mvc;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ActionInvokerTest {
+    public static class Controller {
+        public String greet() {
+            return "hello";
+        }
+
+        public long add(int a, long b) {
+            return a + b;
+        }
+
+        public String join(String a, String b, String c, String d, String e) {
+            return a + b + c + d + e;
+        }
+
+        public void touch() {
+        }
+
+        public String fail() {
+            throw new IllegalStateException("failed");
+        }
+    }
+
+    private final Controller controller = new Controller();
+
+    @Test
+    public void invokeDirectly() throws Throwable {
+        ActionInvoker greet = ActionInvoker.of(Controller.class.getMethod("greet"));
+        assertTrue(greet instanceof ActionInvoker.Invoker0);
+        assertEquals("hello", greet.invoke(controller));
+
+        ActionInvoker add = ActionInvoker.of(Controller.class.getMethod("add", int.class, long.class));
+        assertTrue(add instanceof ActionInvoker.Invoker2);
+        assertEquals(3L, add.invoke(controller, 1, 2L));
+    }
+
+    @Test
+    public void fallBackToMethodHandle() throws Throwable {
+        ActionInvoker join = ActionInvoker.of(Controller.class.getMethod("join",
+                String.class, String.class, String.class, String.class, String.class));
+        assertTrue(join instanceof ActionInvoker.HandleInvoker);
+        assertEquals("abcde", join.invoke(controller, "a", "b", "c", "d", "e"));
+
+        ActionInvoker touch = ActionInvoker.of(Controller.class.getMethod("touch"));
+        assertTrue(touch instanceof ActionInvoker.HandleInvoker);
+        assertNull(touch.invoke(controller));
+    }
+
+    @Test
+    public void propagateExceptions() throws Throwable {
+        try {
+            ActionInvoker.of(Controller.class.getMethod("fail")).invoke(controller);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("failed", e.getMessage());
+        }
+    }
+
+    @Test
+    public void invokeWithBinders() throws Throwable {
+        Map<String, String> pathVariables = new HashMap<>();
+        pathVariables.put("a", "1");
+        pathVariables.put("b", "41");
+        RequestContext context = new RequestContext(null, null, pathVariables);
+        ParameterBinder[] binders = {
+                ParameterBinder.pathVariable("a", ParameterBinder.converter(int.class)),
+                ParameterBinder.pathVariable("b", ParameterBinder.converter(long.class))
+        };
+        ActionInvoker add = ActionInvoker.of(Controller.class.getMethod("add", int.class, long.class));
+        assertEquals(42L, add.invoke(controller, binders, context));
+        ActionInvoker handle = new ActionInvoker.HandleInvoker(Controller.class.getMethod("add", int.class, long.class));
+        assertEquals(42L, handle.invoke(controller, binders, context));
+    }
+}
@@ -0,0 +1,139 @@
+package com.riguz.forks.mvc;
+
+import com.riguz.forks.exceptions.ActionException;
+import com.riguz.forks.exceptions.DeadlineExceededException;
+import com.riguz.forks.exceptions.ParameterException;
+import com.riguz.forks.http.HttpResponse;
+import com.riguz.forks.http.HttpResponseWrapper;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ExceptionResolverTest {
+    static class MissingUserException extends ParameterException {
+        MissingUserException() {
+            super("Missing user");
+        }
+    }
+
+    /**
+     * Records what the resolver answered, nothing is sent.
+     */
+    static class RecordingResponse extends HttpResponseWrapper {
+        int status = 200;
+        final Map<String, String> headers = new HashMap<>();
+        String body;
+        String error;
+
+        RecordingResponse() {
+            super(null);
+        }
+
+        @Override
+        public HttpResponse setStatus(int status) {
+            this.status = status;
+            return this;
+        }
+
+        @Override
+        public int getStatus() {
+            return this.status;
+        }
+
+        @Override
+        public HttpResponse setHeader(String name, String value) {
+            this.headers.put(name, value);
+            return this;
+        }
+
+        @Override
+        public HttpResponse writeContent(ByteBuffer byteBuffer) {
+            this.body = StandardCharsets.UTF_8.decode(byteBuffer).toString();
+            return this;
+        }
+
+        @Override
+        public HttpResponse sendError(int status, String message) {
+            this.status = status;
+            this.error = message;
+            return this;
+        }
+    }
+
+    private static RecordingResponse resolve(ExceptionMappings mappings, Exception exception) {
+        RecordingResponse response = new RecordingResponse();
+        new ExceptionResolver(mappings).resolve(null, response, exception);
+        return response;
+    }
+
+    @Test
+    public void findMappings() {
+        ExceptionMappings mappings = ExceptionMappings.defaults().map(IllegalStateException.class, 409, "Conflict");
+        assertEquals(400, mappings.find(ParameterException.class).getStatus());
+        assertSame(mappings.find(ParameterException.class), mappings.find(MissingUserException.class));
+        assertEquals(504, mappings.find(DeadlineExceededException.class).getStatus());
+        assertNull(mappings.find(ParameterException.class).getBody());
+        assertEquals("Conflict",
+                StandardCharsets.UTF_8.decode(mappings.find(IllegalStateException.class).getBody()).toString());
+        assertEquals(8, mappings.find(IllegalStateException.class).getBody().remaining());
+        assertNull(mappings.find(RuntimeException.class));
+        assertNull(mappings.find(NumberFormatException.class));
+    }
+
+    @Test
+    public void resolveMappedStatuses() {
+        RecordingResponse missing = resolve(ExceptionMappings.defaults(), new MissingUserException());
+        assertEquals(400, missing.status);
+        assertEquals("Missing user", missing.error);
+        RecordingResponse wrapped = resolve(ExceptionMappings.defaults(),
+                new ActionException(new MissingUserException()));
+        assertEquals(400, wrapped.status);
+        assertEquals(504, resolve(ExceptionMappings.defaults(), new DeadlineExceededException()).status);
+    }
+
+    @Test
+    public void resolveFixedBody() {
+        RecordingResponse response = resolve(ExceptionMappings.defaults().map(IllegalStateException.class, 409,
+                "Conflict"), new ActionException(new IllegalStateException("version 3 != 4")));
+        assertEquals(409, response.status);
+        assertEquals(ExceptionMappings.CONTENT_TYPE, response.headers.get("Content-Type"));
+        assertEquals("Conflict", response.body);
+        assertNull(response.error);
+    }
+
+    @Test
+    public void resolveUnmappedAs500() {
+        RecordingResponse response = resolve(ExceptionMappings.defaults(),
+                new ActionException(new NumberFormatException("x")));
+        assertEquals(500, response.status);
+        assertNull(response.body);
+    }
+
+    @Test
+    public void skipStackTraces() {
+        assertEquals(0, new MissingUserException().getStackTrace().length);
+        assertEquals(0, new DeadlineExceededException().getStackTrace().length);
+        ActionException exception = new ActionException(new NumberFormatException("x"));
+        assertEquals(0, exception.getStackTrace().length);
+        assertEquals("java.lang.NumberFormatException: x", exception.getMessage());
+    }
+
+    @Test
+    public void limitLogging() {
+        ExceptionResolver resolver = new ExceptionResolver(ExceptionMappings.defaults(), 10, TimeUnit.NANOSECONDS);
+        assertEquals(0, resolver.suppressed(ParameterException.class, 100));
+        assertEquals(-1, resolver.suppressed(ParameterException.class, 101));
+        assertEquals(-1, resolver.suppressed(ParameterException.class, 109));
+        assertEquals(0, resolver.suppressed(NumberFormatException.class, 109));
+        assertEquals(2, resolver.suppressed(ParameterException.class, 110));
+        assertEquals(-1, resolver.suppressed(ParameterException.class, 115));
+    }
+}
@@ -0,0 +1,54 @@
+package com.riguz.forks.mvc;
+
+import com.riguz.forks.json.DslJsonSerializer;
+import com.riguz.forks.mvc.view.Redirect;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ResultResolversTest {
+    public static class Actions {
+        public int number() {
+            return 1;
+        }
+
+        public CompletableFuture<String> later() {
+            return null;
+        }
+
+        public Object anything() {
+            return null;
+        }
+
+        public Result result() {
+            return null;
+        }
+
+        public Redirect redirect() {
+            return null;
+        }
+    }
+
+    private final ResultResolvers resolvers = new ResultResolvers(new DslJsonSerializer());
+
+    private Resolver<Object> forAction(String name) throws NoSuchMethodException {
+        return resolvers.forType(Actions.class.getMethod(name).getGenericReturnType());
+    }
+
+    @Test
+    public void pickFromDeclaredType() throws Exception {
+        assertSame(resolvers.forClass(Integer.class), forAction("number"));
+        assertSame(resolvers.forClass(String.class), forAction("later"));
+        assertSame(resolvers.forClass(Redirect.class), forAction("redirect"));
+        assertNotSame(resolvers.forClass(String.class), resolvers.forClass(Integer.class));
+    }
+
+    @Test
+    public void dispatchOpenTypes() throws Exception {
+        assertSame(resolvers.dynamic(), forAction("anything"));
+        assertSame(resolvers.dynamic(), forAction("result"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.riguz.forks.ratelimit;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+public class RateLimiterTest {
+    private static final long SECOND = 1_000_000_000L / RateLimiter.TICK_NANOS;
+
+    @Test
+    public void burstThenRate() {
+        RateLimiter limiter = new RateLimiter(10, Duration.ofSeconds(1), 3, null, 1024);
+        long now = 1000;
+        for (int i = 0; i < 3; i++)
+            assertTrue(limiter.tryAcquire("10.0.0.1", now));
+        assertFalse(limiter.tryAcquire("10.0.0.1", now));
+        assertTrue(limiter.tryAcquire("10.0.0.2", now));
+
+        assertFalse(limiter.tryAcquire("10.0.0.1", now + SECOND / 20));
+        assertTrue(limiter.tryAcquire("10.0.0.1", now + SECOND / 10));
+        assertFalse(limiter.tryAcquire("10.0.0.1", now + SECOND / 10));
+        for (int i = 0; i < 3; i++)
+            assertTrue(limiter.tryAcquire("10.0.0.1", now + 10 * SECOND));
+        assertEquals(3, limiter.getRejected());
+    }
+
+    @Test
+    public void manyKeys() {
+        RateLimiter limiter = new RateLimiter(1, Duration.ofMinutes(1), 1, null, 64);
+        for (int i = 0; i < 10_000; i++)
+            assertTrue(limiter.tryAcquire("client-" + i, 1000));
+        // keys are evicted from such a small table, but a key that was just seen is still limited
+        assertFalse(limiter.tryAcquire("client-9999", 1000) && limiter.tryAcquire("client-9999", 1000));
+    }
+
+    @Test
+    public void allocateStripesOnFirstUse() {
+        RateLimiter limiter = new RateLimiter(1, Duration.ofMinutes(1), 1, null, RateLimiter.DEFAULT_CAPACITY);
+        assertEquals(0, limiter.size());
+        assertTrue(limiter.tryAcquire("client-0", 1000));
+        assertEquals(RateLimiter.STRIPE_SLOTS, limiter.size());
+        for (int i = 1; i < 10_000; i++)
+            assertTrue(limiter.tryAcquire("client-" + i, 1000));
+        assertTrue(limiter.size() <= RateLimiter.DEFAULT_CAPACITY);
+        assertFalse(limiter.tryAcquire("client-9999", 1000));
+    }
+
+    @Test
+    public void keepThrottledClientDuringBurstOfNewKeys() {
+        RateLimiter limiter = new RateLimiter(1, Duration.ofMinutes(1), 1, null, RateLimiter.DEFAULT_CAPACITY);
+        assertTrue(limiter.tryAcquire("10.0.0.1", 1000));
+        for (int i = 0; i < 1500; i++)
+            assertTrue(limiter.tryAcquire("client-" + i, 1000));
+        assertFalse(limiter.tryAcquire("10.0.0.1", 1000));
+    }
+
+    @Test
+    public void reuseExpiredSlots() {
+        RateLimiter limiter = new RateLimiter(1, Duration.ofMinutes(1), 1, null, RateLimiter.MAX_PROBES);
+        long minute = 60 * SECOND;
+        for (int i = 0; i < RateLimiter.MAX_PROBES; i++)
+            assertTrue(limiter.tryAcquire("old-" + i, 1000));
+        assertTrue(limiter.tryAcquire("10.0.0.1", 1000 + minute));
+        // every other slot has expired, so new keys take those instead of the least recent live one
+        for (int i = 0; i < RateLimiter.MAX_PROBES - 1; i++)
+            assertTrue(limiter.tryAcquire("new-" + i, 1000 + minute));
+        assertFalse(limiter.tryAcquire("10.0.0.1", 1000 + minute));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectRateAboveTickResolution() {
+        new RateLimiter(RateLimiter.MAX_RATE_PER_SECOND + 1, Duration.ofSeconds(1), 1, null, 1024);
+    }
+}
@@ -0,0 +1,136 @@
+package com.riguz.forks.router;
+
+import com.riguz.commons.encrypt.XxHash64;
+import com.riguz.forks.config.route.RouteConfig;
+import com.riguz.forks.config.route.RouteConfigSnapshot;
+import com.riguz.forks.config.route.RouteParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RouteConfigCacheTest {
+    private static final String ROUTES = "controllers {\n"
+            + "package com.example\n"
+            + "HelloController\n"
+            + "}\n"
+            + "routes default {\n"
+            + "get /hello HelloController.hello()\n"
+            + "}\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private Path resources;
+    private Path cacheDirectory;
+    private URLClassLoader classLoader;
+    private RouteConfigCache cache;
+
+    @Before
+    public void init() throws IOException {
+        this.resources = this.folder.newFolder("resources").toPath();
+        this.cacheDirectory = this.folder.getRoot().toPath().resolve("cache");
+        this.classLoader = new URLClassLoader(new URL[]{this.resources.toUri().toURL()}, null);
+        this.cache = new RouteConfigCache(this.cacheDirectory, this.classLoader);
+    }
+
+    @After
+    public void close() throws IOException {
+        this.classLoader.close();
+    }
+
+    private void writeRoutes(String routes) throws IOException {
+        Files.write(this.resources.resolve("route.cf"), routes.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Path snapshot(String routes) {
+        long hash = XxHash64.hash(routes.getBytes(StandardCharsets.UTF_8));
+        return this.cacheDirectory.resolve(String.format("%s%016x.bin", this.cache.prefixOf("route.cf"), hash));
+    }
+
+    private long snapshots() throws IOException {
+        try (Stream<Path> files = Files.list(this.cacheDirectory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    public void readSnapshotInsteadOfParsing() throws IOException {
+        this.writeRoutes(ROUTES);
+        RouteConfig config = this.cache.load("route.cf");
+        assertEquals("/hello", config.getRoutes().get(0).getPattern());
+        Path file = this.snapshot(ROUTES);
+        assertTrue(Files.exists(file));
+
+        // a snapshot of other routes under the same hashes is returned as is, so the route file wasn't parsed
+        RouteConfig other = RouteParser.fromString(ROUTES.replace("/hello", "/cached")).getRouteConfig();
+        long sourceHash = XxHash64.hash(ROUTES.getBytes(StandardCharsets.UTF_8));
+        Files.write(file, new RouteConfigSnapshot(sourceHash, this.cache.hashClasses(other), other).encode());
+        assertEquals("/cached", this.cache.load("route.cf").getRoutes().get(0).getPattern());
+    }
+
+    @Test
+    public void replaceSnapshotWhenRoutesChange() throws IOException {
+        this.writeRoutes(ROUTES);
+        this.cache.load("route.cf");
+        String changed = ROUTES.replace("/hello", "/hi");
+        this.writeRoutes(changed);
+        assertEquals("/hi", this.cache.load("route.cf").getRoutes().get(0).getPattern());
+        assertFalse(Files.exists(this.snapshot(ROUTES)));
+        assertTrue(Files.exists(this.snapshot(changed)));
+        assertEquals(1, this.snapshots());
+    }
+
+    @Test
+    public void keepSnapshotsOfOtherApplications() throws IOException {
+        Files.createDirectories(this.cacheDirectory);
+        Path other = this.cacheDirectory.resolve("routes-0000000000000001-0000000000000002.bin");
+        Path legacy = this.cacheDirectory.resolve("routes-0000000000000003.bin");
+        Files.write(other, new byte[]{1});
+        Files.write(legacy, new byte[]{1});
+        this.writeRoutes(ROUTES);
+        this.cache.load("route.cf");
+        this.writeRoutes(ROUTES.replace("/hello", "/hi"));
+        this.cache.load("route.cf");
+        assertTrue(Files.exists(other));
+        assertTrue(Files.exists(legacy));
+        assertEquals(3, this.snapshots());
+    }
+
+    @Test
+    public void replaceSnapshotWhenControllersChange() throws IOException {
+        this.writeRoutes(ROUTES);
+        Path file = this.snapshot(ROUTES);
+        this.cache.load("route.cf");
+        long classesHash = RouteConfigSnapshot.decode(
+                ByteBuffer.wrap(Files.readAllBytes(file))).getClassesHash();
+
+        Files.createDirectories(this.resources.resolve("com/example"));
+        Files.write(this.resources.resolve("com/example/HelloController.class"), new byte[]{1, 2, 3});
+        this.cache.load("route.cf");
+        assertTrue(classesHash != RouteConfigSnapshot.decode(
+                ByteBuffer.wrap(Files.readAllBytes(file))).getClassesHash());
+    }
+
+    @Test
+    public void parseCorruptSnapshot() throws IOException {
+        this.writeRoutes(ROUTES);
+        Files.createDirectories(this.cacheDirectory);
+        Files.write(this.snapshot(ROUTES), new byte[]{1, 2, 3});
+        assertEquals("/hello", this.cache.load("route.cf").getRoutes().get(0).getPattern());
+        assertTrue(Files.size(this.snapshot(ROUTES)) > 3);
+    }
+}
@@ -0,0 +1,114 @@
+package com.riguz.forks.session;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SessionStoreTest {
+
+    private void saveAndGet(SessionStore store) {
+        Session session = new Session("s1", store);
+        store.save(session);
+        session.setAttribute("user", "riguz").setAttribute("age", 18);
+
+        Session loaded = store.get("s1");
+        assertNotNull(loaded);
+        assertEquals("riguz", loaded.getAttribute("user"));
+        assertEquals(Integer.valueOf(18), loaded.getAttribute("age"));
+        assertEquals(session.getCreatedAt(), loaded.getCreatedAt());
+        assertNull(store.get("s2"));
+        assertNull(store.get(null));
+
+        loaded.removeAttribute("age");
+        assertNull(store.get("s1").getAttribute("age"));
+        assertEquals(1, store.size());
+
+        assertTrue(store.remove("s1"));
+        assertFalse(store.remove("s1"));
+        assertNull(store.get("s1"));
+        assertEquals(0, store.size());
+        store.close();
+    }
+
+    private void expire(ShardedSessionStore store) {
+        for (int i = 0; i < 100; i++)
+            store.save(new Session("session-" + i, store).setAttribute("index", i));
+        assertEquals(100, store.size());
+        assertEquals(0, store.expire(System.currentTimeMillis()));
+
+        assertEquals(100, store.expire(System.currentTimeMillis() + 2 * store.ttlMillis));
+        assertEquals(0, store.size());
+        assertNull(store.get("session-1"));
+        store.close();
+    }
+
+    @Test
+    public void heapStore() {
+        saveAndGet(ShardedSessionStore.create(4, 1, TimeUnit.MINUTES));
+        expire(ShardedSessionStore.create(4, 1, TimeUnit.MINUTES));
+    }
+
+    @Test
+    public void offHeapStore() {
+        saveAndGet(OffHeapSessionStore.create(4, 1, TimeUnit.MINUTES));
+        expire(OffHeapSessionStore.create(4, 1, TimeUnit.MINUTES, 4096));
+    }
+
+    @Test
+    public void largeAttributes() {
+        OffHeapSessionStore store = OffHeapSessionStore.create(2, 1, TimeUnit.MINUTES, 4096);
+        Session session = new Session("big", store);
+        store.save(session);
+        for (int size = 16; size <= 2048; size *= 2)
+            session.setAttribute("data", new byte[size]);
+        assertEquals(2048, ((byte[]) store.get("big").getAttribute("data")).length);
+        store.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedAttribute() {
+        OffHeapSessionStore store = OffHeapSessionStore.create(2, 1, TimeUnit.MINUTES);
+        new Session("s", store).setAttribute("lock", new Object());
+    }
+
+    @Test
+    public void keepOversizedSessionsOnHeap() {
+        OffHeapSessionStore store = OffHeapSessionStore.create(2, 1, TimeUnit.MINUTES, 4096);
+        Session session = new Session("big", store);
+        store.save(session);
+        session.setAttribute("data", new byte[8192]);
+        assertEquals(8192, ((byte[]) store.get("big").getAttribute("data")).length);
+        session.setAttribute("data", new byte[16]);
+        assertEquals(16, ((byte[]) store.get("big").getAttribute("data")).length);
+        store.close();
+    }
+
+    @Test
+    public void releaseEmptySlabs() {
+        OffHeapSessionStore store = OffHeapSessionStore.create(2, 1, TimeUnit.MINUTES, 4096);
+        for (int i = 0; i < 64; i++)
+            store.save(new Session("session-" + i, store).setAttribute("data", new byte[900]));
+        int peak = store.slabs();
+        assertTrue(peak > 1);
+        for (int i = 0; i < 64; i++)
+            store.remove("session-" + i);
+        assertEquals(2, store.slabs());
+        store.close();
+        assertEquals(0, store.slabs());
+    }
+
+    @Test
+    public void encodeSupportedTypes() {
+        OffHeapSessionStore store = OffHeapSessionStore.create(2, 1, TimeUnit.MINUTES);
+        new Session("s", store).setAttribute("name", "\u4f60\u597d").setAttribute("count", 3L)
+                .setAttribute("ratio", 0.5).setAttribute("admin", true);
+        Session loaded = store.get("s");
+        assertEquals("\u4f60\u597d", loaded.getAttribute("name"));
+        assertEquals(Long.valueOf(3), loaded.getAttribute("count"));
+        assertEquals(Double.valueOf(0.5), loaded.getAttribute("ratio"));
+        assertEquals(Boolean.TRUE, loaded.getAttribute("admin"));
+        store.close();
+    }
+}
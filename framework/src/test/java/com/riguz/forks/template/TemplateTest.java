@@ -0,0 +1,81 @@
+package com.riguz.forks.template;
+
+import com.riguz.forks.exceptions.TemplateException;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TemplateTest {
+    public static class User {
+        private final String name;
+        private final boolean admin;
+
+        User(String name, boolean admin) {
+            this.name = name;
+            this.admin = admin;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isAdmin() {
+            return admin;
+        }
+    }
+
+    private static String render(String source, Map<String, Object> parameters) {
+        ByteBuffer page = TemplateCompiler.compile("test", source).render(parameters);
+        return StandardCharsets.UTF_8.decode(page).toString();
+    }
+
+    @Test
+    public void renderValues() {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("name", "<Zoë & 😀>");
+        parameters.put("count", 3);
+        assertEquals("Hi &lt;Zoë &amp; 😀&gt;, <Zoë & 😀> has 3",
+                render("Hi {{name}}, {{{name}}} has {{ count }}{{missing}}{{! ignored }}", parameters));
+    }
+
+    @Test
+    public void renderSections() {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("users", Arrays.asList(new User("alice", true), new User("bob", false)));
+        parameters.put("title", "Users");
+        parameters.put("empty", Collections.emptyList());
+        assertEquals("alice(admin) in Users;bob in Users;none",
+                render("{{#users}}{{name}}{{#admin}}(admin){{/admin}} in {{title}};{{/users}}"
+                        + "{{#empty}}never{{/empty}}{{^empty}}none{{/empty}}", parameters));
+    }
+
+    @Test
+    public void renderDottedPaths() {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("user", new User("alice", true));
+        assertEquals("alice true", render("{{user.name}} {{user.admin}}", parameters));
+    }
+
+    @Test(expected = TemplateException.class)
+    public void rejectUnbalancedSections() {
+        TemplateCompiler.compile("test", "{{#users}}{{name}}{{/user}}");
+    }
+
+    @Test
+    public void cacheCompiledTemplates() {
+        TemplateEngine engine = new TemplateEngine("templates", false);
+        Template template = engine.get("users");
+        assertSame(template, engine.get("users"));
+        assertEquals("<h1>Empty</h1>\n\n<ul></ul>\n<p>No users</p>\n",
+                StandardCharsets.UTF_8.decode(engine.render("users", Collections.singletonMap("title", "Empty")))
+                        .toString());
+    }
+}
@@ -0,0 +1,47 @@
+package com.riguz.forks.http;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs several listeners as one server, e.g. TCP for outside clients next to a unix socket for the local proxy.
+ */
+public class CompositeServer extends NetworkServer {
+    private final List<NetworkServer> servers;
+
+    public CompositeServer(NetworkServer... servers) {
+        super(servers[0].port, servers[0].handler);
+        this.servers = Arrays.asList(servers);
+    }
+
+    public List<NetworkServer> getServers() {
+        return servers;
+    }
+
+    @Override
+    public void start() {
+        this.servers.forEach(NetworkServer::start);
+    }
+
+    @Override
+    public void afterStart() {
+        this.servers.forEach(NetworkServer::afterStart);
+    }
+
+    @Override
+    public void stop() {
+        RuntimeException failure = null;
+        for (NetworkServer server : this.servers) {
+            try {
+                server.stop();
+            } catch (RuntimeException e) {
+                if (failure == null)
+                    failure = e;
+                else
+                    failure.addSuppressed(e);
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+}
@@ -0,0 +1,69 @@
+package com.riguz.forks.http;
+
+public class Cookie {
+    private final String name;
+    private final String value;
+    private String path = "/";
+    private String domain;
+    private int maxAge = -1;
+    private boolean secure = false;
+    private boolean httpOnly = true;
+
+    public Cookie(String name, String value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public Cookie setPath(String path) {
+        this.path = path;
+        return this;
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public Cookie setDomain(String domain) {
+        this.domain = domain;
+        return this;
+    }
+
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    public Cookie setMaxAge(int maxAge) {
+        this.maxAge = maxAge;
+        return this;
+    }
+
+    public boolean isSecure() {
+        return secure;
+    }
+
+    public Cookie setSecure(boolean secure) {
+        this.secure = secure;
+        return this;
+    }
+
+    public boolean isHttpOnly() {
+        return httpOnly;
+    }
+
+    public Cookie setHttpOnly(boolean httpOnly) {
+        this.httpOnly = httpOnly;
+        return this;
+    }
+}
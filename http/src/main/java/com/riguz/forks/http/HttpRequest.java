@@ -1,5 +1,7 @@
 package com.riguz.forks.http;
 
+import com.riguz.forks.http.multipart.Multipart;
+
 import java.io.InputStream;
 
 public interface HttpRequest extends Routable {
@@ -12,8 +14,19 @@ public interface HttpRequest extends Routable {
 
     String getRequestURL();
 
+    String getRemoteAddress();
+
+    String getHeader(String name);
+
+    String getCookie(String name);
+
     InputStream getInputStream();
 
+    /**
+     * The parts of a multipart/form-data body, or null if the request has another content type.
+     */
+    Multipart getMultipart();
+
     String getParamValue(String name);
 
     String[] getParamValues(String name);
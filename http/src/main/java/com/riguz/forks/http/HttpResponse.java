@@ -1,7 +1,10 @@
 package com.riguz.forks.http;
 
+import com.riguz.forks.http.websocket.WebSocketHandler;
+
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
 
 public interface HttpResponse {
     HttpResponse setContentLength(long length);
@@ -14,13 +17,57 @@ public interface HttpResponse {
 
     void flash();
 
+    /**
+     * Switches the response to a stream that outlives the request handler, the exchange stays open until the stream
+     * is closed.
+     */
+    ResponseStream startStream();
+
+    /**
+     * Keeps the exchange open after the handler returned, so the response can be completed later from another
+     * thread with resume.
+     */
+    void suspend();
+
+    /**
+     * Runs the task where the suspended response may be written, the exchange ends once the task returned and what
+     * it wrote was sent, unless the task suspended it again.
+     */
+    void resume(Runnable task);
+
+    /**
+     * Like resume, but runs the task on the executor, so slow work doesn't hold the threads of the server. Throws the
+     * RejectedExecutionException of the executor, the response stays suspended then.
+     */
+    void resume(Executor executor, Runnable task);
+
+    /**
+     * Completes the WebSocket handshake and hands the connection over to the handler, requests that are no upgrade
+     * are answered with 426.
+     */
+    void acceptWebSocket(WebSocketHandler handler);
+
     HttpResponse sendError(int status, String message);
 
     HttpResponse sendError(int status);
 
+    /**
+     * Points the client to the url with 302, or with the 3xx status already set on the response.
+     */
     HttpResponse sendRedirect(String url);
 
     HttpResponse setHeader(String name, String value);
 
+    HttpResponse addCookie(Cookie cookie);
+
     HttpResponse setStatus(int status);
+
+    int getStatus();
+
+    long getBytesSent();
+
+    /**
+     * Runs the callback once the response was completely sent, streamed responses included.
+     */
+    void onComplete(Runnable callback);
 }
@@ -0,0 +1,126 @@
+package com.riguz.forks.http;
+
+import com.riguz.forks.http.websocket.WebSocketHandler;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+
+/**
+ * Delegates every call to the wrapped response, extend it to intercept some of them.
+ */
+public class HttpResponseWrapper implements HttpResponse {
+    protected final HttpResponse response;
+
+    public HttpResponseWrapper(HttpResponse response) {
+        this.response = response;
+    }
+
+    public HttpResponse getResponse() {
+        return response;
+    }
+
+    @Override
+    public HttpResponse setContentLength(long length) {
+        this.response.setContentLength(length);
+        return this;
+    }
+
+    @Override
+    public HttpResponse writeContent(String content) {
+        this.response.writeContent(content);
+        return this;
+    }
+
+    @Override
+    public HttpResponse writeContent(ByteBuffer byteBuffer) {
+        this.response.writeContent(byteBuffer);
+        return this;
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        return this.response.getOutputStream();
+    }
+
+    @Override
+    public void flash() {
+        this.response.flash();
+    }
+
+    @Override
+    public ResponseStream startStream() {
+        return this.response.startStream();
+    }
+
+    @Override
+    public void suspend() {
+        this.response.suspend();
+    }
+
+    @Override
+    public void resume(Runnable task) {
+        this.response.resume(task);
+    }
+
+    @Override
+    public void resume(Executor executor, Runnable task) {
+        this.response.resume(executor, task);
+    }
+
+    @Override
+    public void acceptWebSocket(WebSocketHandler handler) {
+        this.response.acceptWebSocket(handler);
+    }
+
+    @Override
+    public HttpResponse sendError(int status, String message) {
+        this.response.sendError(status, message);
+        return this;
+    }
+
+    @Override
+    public HttpResponse sendError(int status) {
+        this.response.sendError(status);
+        return this;
+    }
+
+    @Override
+    public HttpResponse sendRedirect(String url) {
+        this.response.sendRedirect(url);
+        return this;
+    }
+
+    @Override
+    public HttpResponse setHeader(String name, String value) {
+        this.response.setHeader(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpResponse addCookie(Cookie cookie) {
+        this.response.addCookie(cookie);
+        return this;
+    }
+
+    @Override
+    public HttpResponse setStatus(int status) {
+        this.response.setStatus(status);
+        return this;
+    }
+
+    @Override
+    public int getStatus() {
+        return this.response.getStatus();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return this.response.getBytesSent();
+    }
+
+    @Override
+    public void onComplete(Runnable callback) {
+        this.response.onComplete(callback);
+    }
+}
@@ -2,8 +2,12 @@ package com.riguz.forks.http;
 
 public enum HttpStatus {
     OK(200),
+    MOVED_PERMANENTLY(301),
+    FOUND(302),
+    SEE_OTHER(303),
+    BAD_REQUEST(400),
     NOT_FOUND(404),
-    BAD_REQUEST(401),
+    PAYLOAD_TOO_LARGE(413),
     SERVER_ERROR(500);
 
     private final int statusCode;
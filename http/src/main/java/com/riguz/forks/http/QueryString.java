@@ -0,0 +1,104 @@
+package com.riguz.forks.http;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+
+/**
+ * A raw query string split in one pass into the bounds of its pairs, without building a map. Names and values are
+ * only decoded when a parameter is looked up, and only if they contain escapes.
+ */
+public final class QueryString {
+    private static final int[] EMPTY = new int[0];
+
+    private final String raw;
+    // key start, '=' or end of the pair, end of the pair
+    private final int[] bounds;
+    private final int size;
+
+    private QueryString(String raw, int[] bounds, int size) {
+        this.raw = raw;
+        this.bounds = bounds;
+        this.size = size;
+    }
+
+    public static QueryString parse(String raw) {
+        if (raw == null || raw.isEmpty())
+            return new QueryString("", EMPTY, 0);
+        int[] bounds = new int[12];
+        int size = 0;
+        int start = 0;
+        int separator = -1;
+        int length = raw.length();
+        for (int i = 0; i <= length; i++) {
+            char c = i == length ? '&' : raw.charAt(i);
+            if (c == '=' && separator < 0) {
+                separator = i;
+            } else if (c == '&') {
+                if (i > start) {
+                    if (bounds.length < (size + 1) * 3) {
+                        int[] grown = new int[bounds.length * 2];
+                        System.arraycopy(bounds, 0, grown, 0, bounds.length);
+                        bounds = grown;
+                    }
+                    bounds[size * 3] = start;
+                    bounds[size * 3 + 1] = separator < 0 ? i : separator;
+                    bounds[size * 3 + 2] = i;
+                    size++;
+                }
+                start = i + 1;
+                separator = -1;
+            }
+        }
+        return new QueryString(raw, bounds, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The first value of the parameter, an empty string for a name without value and null if it is missing.
+     */
+    public String get(String name) {
+        for (int i = 0; i < this.size; i++) {
+            int start = this.bounds[i * 3];
+            int separator = this.bounds[i * 3 + 1];
+            if (this.nameEquals(name, start, separator)) {
+                int end = this.bounds[i * 3 + 2];
+                return separator == end ? "" : decode(this.raw, separator + 1, end);
+            }
+        }
+        return null;
+    }
+
+    private boolean nameEquals(String name, int start, int end) {
+        if (!isEscaped(this.raw, start, end))
+            return end - start == name.length() && this.raw.regionMatches(start, name, 0, name.length());
+        return name.equals(decode(this.raw, start, end));
+    }
+
+    private static boolean isEscaped(String raw, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = raw.charAt(i);
+            if (c == '%' || c == '+')
+                return true;
+        }
+        return false;
+    }
+
+    private static String decode(String raw, int start, int end) {
+        String value = raw.substring(start, end);
+        if (!isEscaped(raw, start, end))
+            return value;
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return value;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return raw;
+    }
+}
@@ -0,0 +1,50 @@
+package com.riguz.forks.http;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A response body written incrementally with chunked transfer encoding. Writes never block, they are queued and
+ * flushed by the connection's IO thread, and may be called from any thread.
+ */
+public interface ResponseStream {
+
+    /**
+     * Queues the remaining bytes of the buffer without copying them, the buffer itself is left untouched so one
+     * buffer can be written to many streams. Returns false, dropping the data, if the stream is closed or the
+     * client is not keeping up.
+     */
+    boolean write(ByteBuffer data);
+
+    /**
+     * Whether the queued bytes are below the high water mark, so a write would be accepted.
+     */
+    boolean isWritable();
+
+    long getPendingBytes();
+
+    /**
+     * Runs the callback once on the IO thread as soon as the queued bytes drained below the low water mark.
+     */
+    void onWritable(Runnable callback);
+
+    void onClose(Runnable callback);
+
+    /**
+     * Runs the task periodically on the connection's IO thread until the stream is closed.
+     */
+    void schedule(Runnable task, long period, TimeUnit unit);
+
+    boolean isOpen();
+
+    /**
+     * Ends the response once the queued bytes are flushed.
+     */
+    void close();
+
+    /**
+     * Drops the queued bytes and closes the connection without ending the body, so the client sees the response
+     * failed instead of taking what was sent so far as complete.
+     */
+    void abort();
+}
@@ -0,0 +1,23 @@
+package com.riguz.forks.http.multipart;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Read buffers shared by all parsers, so concurrent uploads reuse a fixed set of arrays instead of allocating.
+ */
+final class BufferPool {
+    static final int BUFFER_SIZE = 16 * 1024;
+    private static final ArrayBlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(64);
+
+    private BufferPool() {
+    }
+
+    static byte[] acquire() {
+        byte[] buffer = buffers.poll();
+        return buffer == null ? new byte[BUFFER_SIZE] : buffer;
+    }
+
+    static void release(byte[] buffer) {
+        buffers.offer(buffer);
+    }
+}
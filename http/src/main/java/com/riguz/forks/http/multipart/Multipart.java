@@ -0,0 +1,62 @@
+package com.riguz.forks.http.multipart;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Parts of a multipart/form-data request. The body is only read when the parts are first asked for, and the temp
+ * files of large parts are removed once the request completes unless they were moved away.
+ */
+public class Multipart {
+    private final MultipartParser parser;
+    private final Supplier<InputStream> input;
+    private List<Part> parts;
+
+    public Multipart(String boundary, MultipartLimits limits, Supplier<InputStream> input) {
+        this.parser = new MultipartParser(boundary, limits);
+        this.input = input;
+    }
+
+    public List<Part> getParts() {
+        if (this.parts == null) {
+            try {
+                this.parts = Collections.unmodifiableList(this.parser.parse(this.input.get()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return this.parts;
+    }
+
+    public Part getPart(String name) {
+        for (Part part : this.getParts()) {
+            if (part.getName().equals(name))
+                return part;
+        }
+        return null;
+    }
+
+    public List<Part> getParts(String name) {
+        return this.getParts().stream()
+                .filter(part -> part.getName().equals(name))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The value of a plain form field, or null if there is no such field.
+     */
+    public String getValue(String name) throws IOException {
+        Part part = this.getPart(name);
+        return part == null ? null : part.getString();
+    }
+
+    public void delete() {
+        if (this.parts != null)
+            this.parts.forEach(Part::delete);
+    }
+}
@@ -0,0 +1,19 @@
+package com.riguz.forks.http.multipart;
+
+import com.riguz.forks.http.HttpStatus;
+
+/**
+ * A malformed or oversized upload. Thrown for bad requests, so it doesn't fill in a stack trace.
+ */
+public class MultipartException extends RuntimeException {
+    private final HttpStatus status;
+
+    public MultipartException(HttpStatus status, String message) {
+        super(message, null, false, false);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,60 @@
+package com.riguz.forks.http.multipart;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class MultipartLimits {
+    private int memoryThreshold = 16 * 1024;
+    private long maxPartSize = 256L * 1024 * 1024;
+    private long maxRequestSize = 512L * 1024 * 1024;
+    private int maxParts = 128;
+    private Path tempDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+
+    public int getMemoryThreshold() {
+        return memoryThreshold;
+    }
+
+    /**
+     * Parts up to this size are kept on heap, larger ones are written to a file under the temp directory.
+     */
+    public MultipartLimits setMemoryThreshold(int memoryThreshold) {
+        this.memoryThreshold = memoryThreshold;
+        return this;
+    }
+
+    public long getMaxPartSize() {
+        return maxPartSize;
+    }
+
+    public MultipartLimits setMaxPartSize(long maxPartSize) {
+        this.maxPartSize = maxPartSize;
+        return this;
+    }
+
+    public long getMaxRequestSize() {
+        return maxRequestSize;
+    }
+
+    public MultipartLimits setMaxRequestSize(long maxRequestSize) {
+        this.maxRequestSize = maxRequestSize;
+        return this;
+    }
+
+    public int getMaxParts() {
+        return maxParts;
+    }
+
+    public MultipartLimits setMaxParts(int maxParts) {
+        this.maxParts = maxParts;
+        return this;
+    }
+
+    public Path getTempDirectory() {
+        return tempDirectory;
+    }
+
+    public MultipartLimits setTempDirectory(Path tempDirectory) {
+        this.tempDirectory = tempDirectory;
+        return this;
+    }
+}
@@ -0,0 +1,304 @@
+package com.riguz.forks.http.multipart;
+
+import com.riguz.forks.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming multipart/form-data parser. The body is scanned through a single pooled buffer, each part is copied
+ * either into a small array or, once it outgrows the memory threshold, straight into a temp file, so heap usage does
+ * not depend on the upload size.
+ */
+public class MultipartParser {
+    private static final int MAX_HEADER_SIZE = 8 * 1024;
+
+    private final byte[] delimiter;
+    private final int[] skip = new int[256];
+    private final MultipartLimits limits;
+
+    private InputStream input;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private long received;
+
+    public MultipartParser(String boundary, MultipartLimits limits) {
+        if (boundary == null || boundary.isEmpty() || boundary.length() > 70)
+            throw new MultipartException(HttpStatus.BAD_REQUEST, "Invalid multipart boundary");
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.limits = limits;
+        int last = this.delimiter.length - 1;
+        Arrays.fill(this.skip, this.delimiter.length);
+        for (int i = 0; i < last; i++)
+            this.skip[this.delimiter[i] & 0xff] = last - i;
+    }
+
+    /**
+     * Extracts the boundary from a content type, or returns null if it is not multipart/form-data.
+     */
+    public static String boundaryOf(String contentType) {
+        if (contentType == null || !contentType.regionMatches(true, 0, "multipart/form-data", 0, 19))
+            return null;
+        return parameters(contentType).get("boundary");
+    }
+
+    public List<Part> parse(InputStream input) throws IOException {
+        this.input = input;
+        this.buffer = BufferPool.acquire();
+        // the first delimiter may start right at the beginning of the body, pretend it was preceded by CRLF
+        this.buffer[0] = '\r';
+        this.buffer[1] = '\n';
+        this.position = 0;
+        this.limit = 2;
+        List<Part> parts = new ArrayList<>();
+        PartWriter writer = null;
+        try {
+            this.readBody(null);
+            while (true) {
+                this.require(2);
+                if (this.buffer[this.position] == '-' && this.buffer[this.position + 1] == '-')
+                    return parts;
+                this.skipLine();
+                if (parts.size() >= this.limits.getMaxParts())
+                    throw new MultipartException(HttpStatus.PAYLOAD_TOO_LARGE,
+                            "Too many parts, limit is " + this.limits.getMaxParts());
+                writer = new PartWriter(this.readHeaders());
+                this.readBody(writer);
+                parts.add(writer.finish());
+                writer = null;
+            }
+        } catch (IOException | RuntimeException e) {
+            if (writer != null)
+                writer.abort();
+            parts.forEach(Part::delete);
+            throw e;
+        } finally {
+            BufferPool.release(this.buffer);
+            this.buffer = null;
+            this.input = null;
+        }
+    }
+
+    private void readBody(PartWriter writer) throws IOException {
+        while (true) {
+            int index = this.indexOfDelimiter();
+            if (index >= 0) {
+                if (writer != null)
+                    writer.write(this.buffer, this.position, index - this.position);
+                this.position = index + this.delimiter.length;
+                return;
+            }
+            // keep a tail that may be the beginning of a delimiter split across reads
+            int safe = Math.max(this.position, this.limit - this.delimiter.length + 1);
+            if (writer != null)
+                writer.write(this.buffer, this.position, safe - this.position);
+            this.position = safe;
+            if (!this.fill())
+                throw malformed("Unexpected end of multipart body");
+        }
+    }
+
+    private int indexOfDelimiter() {
+        byte[] buffer = this.buffer;
+        int last = this.delimiter.length - 1;
+        int i = this.position;
+        while (i + last < this.limit) {
+            int j = last;
+            while (buffer[i + j] == this.delimiter[j]) {
+                if (j == 0)
+                    return i;
+                j--;
+            }
+            i += this.skip[buffer[i + last] & 0xff];
+        }
+        return -1;
+    }
+
+    private Map<String, String> readHeaders() throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        int size = 0;
+        while (true) {
+            int end = this.indexOfLineEnd();
+            int length = end - this.position;
+            size += length + 2;
+            if (size > MAX_HEADER_SIZE)
+                throw malformed("Part headers too large");
+            if (length == 0) {
+                this.position = end + 2;
+                return headers;
+            }
+            String line = new String(this.buffer, this.position, length, StandardCharsets.UTF_8);
+            this.position = end + 2;
+            int colon = line.indexOf(':');
+            if (colon <= 0)
+                throw malformed("Invalid part header: " + line);
+            headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+        }
+    }
+
+    private void skipLine() throws IOException {
+        this.position = this.indexOfLineEnd() + 2;
+    }
+
+    private int indexOfLineEnd() throws IOException {
+        int from = this.position;
+        while (true) {
+            for (int i = from; i < this.limit - 1; i++) {
+                if (this.buffer[i] == '\r' && this.buffer[i + 1] == '\n')
+                    return i;
+            }
+            from = Math.max(this.position, this.limit - 1);
+            int consumed = this.position;
+            if (!this.fill())
+                throw malformed("Unexpected end of multipart body");
+            from -= consumed;
+        }
+    }
+
+    private void require(int length) throws IOException {
+        while (this.limit - this.position < length) {
+            if (!this.fill())
+                throw malformed("Unexpected end of multipart body");
+        }
+    }
+
+    /**
+     * Moves the unread bytes to the start of the buffer and reads more, returns false at the end of the stream.
+     */
+    private boolean fill() throws IOException {
+        int remaining = this.limit - this.position;
+        if (remaining == this.buffer.length)
+            throw malformed("Multipart line too long");
+        System.arraycopy(this.buffer, this.position, this.buffer, 0, remaining);
+        this.position = 0;
+        this.limit = remaining;
+        int read = this.input.read(this.buffer, this.limit, this.buffer.length - this.limit);
+        if (read < 0)
+            return false;
+        this.limit += read;
+        this.received += read;
+        if (this.received > this.limits.getMaxRequestSize())
+            throw new MultipartException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Request exceeds " + this.limits.getMaxRequestSize() + " bytes");
+        return true;
+    }
+
+    private static MultipartException malformed(String message) {
+        return new MultipartException(HttpStatus.BAD_REQUEST, message);
+    }
+
+    static Map<String, String> parameters(String header) {
+        Map<String, String> parameters = new HashMap<>();
+        int i = header.indexOf(';');
+        while (i >= 0 && i < header.length()) {
+            int equals = header.indexOf('=', i);
+            if (equals < 0)
+                break;
+            String key = header.substring(i + 1, equals).trim().toLowerCase();
+            int start = equals + 1;
+            String value;
+            if (start < header.length() && header.charAt(start) == '"') {
+                StringBuilder quoted = new StringBuilder();
+                int j = start + 1;
+                for (; j < header.length() && header.charAt(j) != '"'; j++) {
+                    char c = header.charAt(j);
+                    if (c == '\\' && j + 1 < header.length())
+                        c = header.charAt(++j);
+                    quoted.append(c);
+                }
+                value = quoted.toString();
+                i = header.indexOf(';', j);
+            } else {
+                i = header.indexOf(';', start);
+                value = header.substring(start, i < 0 ? header.length() : i).trim();
+            }
+            parameters.put(key, value);
+        }
+        return parameters;
+    }
+
+    private final class PartWriter {
+        private final String name;
+        private final String fileName;
+        private final Map<String, String> headers;
+        private byte[] memory = new byte[256];
+        private long size;
+        private Path file;
+        private FileChannel channel;
+
+        PartWriter(Map<String, String> headers) {
+            String disposition = headers.get("content-disposition");
+            if (disposition == null || !disposition.regionMatches(true, 0, "form-data", 0, 9))
+                throw malformed("Part is missing form-data content disposition");
+            Map<String, String> parameters = parameters(disposition);
+            this.name = parameters.get("name");
+            if (this.name == null)
+                throw malformed("Part is missing a name");
+            this.fileName = parameters.get("filename");
+            this.headers = headers;
+        }
+
+        void write(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0)
+                return;
+            long total = this.size + length;
+            if (total > limits.getMaxPartSize())
+                throw new MultipartException(HttpStatus.PAYLOAD_TOO_LARGE,
+                        "Part " + this.name + " exceeds " + limits.getMaxPartSize() + " bytes");
+            if (this.channel == null && total <= limits.getMemoryThreshold()) {
+                if (total > this.memory.length)
+                    this.memory = Arrays.copyOf(this.memory,
+                            (int) Math.min(limits.getMemoryThreshold(), Math.max(total, this.memory.length * 2L)));
+                System.arraycopy(bytes, offset, this.memory, (int) this.size, length);
+            } else {
+                if (this.channel == null)
+                    this.spill();
+                writeFully(ByteBuffer.wrap(bytes, offset, length));
+            }
+            this.size = total;
+        }
+
+        private void spill() throws IOException {
+            this.file = Files.createTempFile(limits.getTempDirectory(), "forks-", ".part");
+            this.channel = FileChannel.open(this.file, StandardOpenOption.WRITE);
+            this.writeFully(ByteBuffer.wrap(this.memory, 0, (int) this.size));
+            this.memory = null;
+        }
+
+        private void writeFully(ByteBuffer source) throws IOException {
+            while (source.hasRemaining())
+                this.channel.write(source);
+        }
+
+        Part finish() throws IOException {
+            if (this.channel != null) {
+                this.channel.close();
+                return new Part(this.name, this.fileName, this.headers, null, this.file, this.size);
+            }
+            byte[] content = this.memory.length == this.size ? this.memory : Arrays.copyOf(this.memory, (int) this.size);
+            return new Part(this.name, this.fileName, this.headers, content, null, this.size);
+        }
+
+        void abort() {
+            try {
+                if (this.channel != null)
+                    this.channel.close();
+                if (this.file != null)
+                    Files.deleteIfExists(this.file);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.riguz.forks.http.multipart;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Map;
+
+public class Part {
+    private final String name;
+    private final String fileName;
+    private final Map<String, String> headers;
+    private final long size;
+    private byte[] content;
+    private Path file;
+
+    Part(String name, String fileName, Map<String, String> headers, byte[] content, Path file, long size) {
+        this.name = name;
+        this.fileName = fileName;
+        this.headers = headers;
+        this.content = content;
+        this.file = file;
+        this.size = size;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The file name sent by the client, or null if this part is a plain form field.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getContentType() {
+        return this.headers.get("content-type");
+    }
+
+    public String getHeader(String name) {
+        return this.headers.get(name.toLowerCase());
+    }
+
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public boolean isInMemory() {
+        return this.file == null;
+    }
+
+    /**
+     * The temp file holding the content, or null if the part is kept in memory.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    public InputStream getInputStream() throws IOException {
+        if (this.file != null)
+            return Files.newInputStream(this.file);
+        return new ByteArrayInputStream(this.content);
+    }
+
+    public byte[] getBytes() throws IOException {
+        if (this.file != null)
+            return Files.readAllBytes(this.file);
+        return this.content;
+    }
+
+    public String getString() throws IOException {
+        return this.getString(StandardCharsets.UTF_8);
+    }
+
+    public String getString(Charset charset) throws IOException {
+        return new String(this.getBytes(), charset);
+    }
+
+    /**
+     * Moves the content to the target path, temp files are renamed rather than copied when possible. A part backed by
+     * a temp file can't be read again afterwards.
+     */
+    public void transferTo(Path target) throws IOException {
+        if (this.file != null) {
+            Files.move(this.file, target, StandardCopyOption.REPLACE_EXISTING);
+            this.file = null;
+        } else {
+            Files.write(target, this.content);
+        }
+    }
+
+    public void delete() {
+        if (this.file == null)
+            return;
+        try {
+            Files.deleteIfExists(this.file);
+        } catch (IOException ignored) {
+        }
+        this.file = null;
+    }
+
+    @Override
+    public String toString() {
+        return "Part{" +
+                "name='" + name + '\'' +
+                ", fileName='" + fileName + '\'' +
+                ", size=" + size +
+                '}';
+    }
+}
@@ -26,7 +26,7 @@ public class PatternTrieRouter<T> implements Router<T> {
     @Override
     public Endpoint<T> route(Routable routable) {
         Map<String, String> pathVariables = new HashMap<>();
-        T handler = routes[routable.getHttpMethod().ordinal()].search(routable.getPath());
+        T handler = routes[routable.getHttpMethod().ordinal()].search(routable.getPath(), pathVariables);
 
         return handler == null ? null : new Endpoint<>(pathVariables, handler);
     }
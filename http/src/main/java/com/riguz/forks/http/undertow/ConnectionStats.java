@@ -0,0 +1,67 @@
+package com.riguz.forks.http.undertow;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accepted and open connections of a server, per IO thread.
+ */
+public class ConnectionStats {
+    private final LongAdder accepted = new LongAdder();
+    private final AtomicLongArray acceptedPerThread;
+    private final AtomicLongArray openPerThread;
+    private long lastSampleNanos = System.nanoTime();
+    private long lastSampleAccepted;
+
+    ConnectionStats(int ioThreads) {
+        this.acceptedPerThread = new AtomicLongArray(ioThreads);
+        this.openPerThread = new AtomicLongArray(ioThreads);
+    }
+
+    void opened(int ioThread) {
+        this.accepted.increment();
+        this.acceptedPerThread.incrementAndGet(ioThread);
+        this.openPerThread.incrementAndGet(ioThread);
+    }
+
+    void closed(int ioThread) {
+        this.openPerThread.decrementAndGet(ioThread);
+    }
+
+    public long getAccepted() {
+        return this.accepted.sum();
+    }
+
+    public long getAccepted(int ioThread) {
+        return this.acceptedPerThread.get(ioThread);
+    }
+
+    public long getOpen(int ioThread) {
+        return this.openPerThread.get(ioThread);
+    }
+
+    public long getOpen() {
+        long open = 0;
+        for (int i = 0; i < this.openPerThread.length(); i++)
+            open += this.openPerThread.get(i);
+        return open;
+    }
+
+    public int getIoThreads() {
+        return this.openPerThread.length();
+    }
+
+    /**
+     * Connections accepted per second since the previous call.
+     */
+    public synchronized double sampleAcceptRate() {
+        long now = System.nanoTime();
+        long accepted = this.accepted.sum();
+        double elapsed = (now - this.lastSampleNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        double rate = elapsed <= 0 ? 0 : (accepted - this.lastSampleAccepted) / elapsed;
+        this.lastSampleNanos = now;
+        this.lastSampleAccepted = accepted;
+        return rate;
+    }
+}
@@ -2,7 +2,14 @@ package com.riguz.forks.http.undertow;
 
 import com.riguz.forks.http.HttpMethod;
 import com.riguz.forks.http.HttpRequest;
+import com.riguz.forks.http.HttpStatus;
+import com.riguz.forks.http.multipart.Multipart;
+import com.riguz.forks.http.multipart.MultipartException;
+import com.riguz.forks.http.multipart.MultipartLimits;
+import com.riguz.forks.http.multipart.MultipartParser;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.Cookie;
+import io.undertow.util.Headers;
 
 import java.io.InputStream;
 import java.util.Deque;
@@ -11,11 +18,18 @@ import java.util.Map;
 public class UndertowRequest implements HttpRequest {
 
     private HttpServerExchange exchange;
+    private final MultipartLimits multipartLimits;
+    private Multipart multipart;
 
     Map<String, Deque<String>> params;
 
     public UndertowRequest(HttpServerExchange exchange) {
+        this(exchange, new MultipartLimits());
+    }
+
+    public UndertowRequest(HttpServerExchange exchange, MultipartLimits multipartLimits) {
         this.exchange = exchange;
+        this.multipartLimits = multipartLimits;
         this.params = exchange.getQueryParameters();
     }
 
@@ -49,11 +63,46 @@ public class UndertowRequest implements HttpRequest {
         return this.exchange.getRequestURL();
     }
 
+    @Override
+    public String getRemoteAddress() {
+        return this.exchange.getSourceAddress().getAddress().getHostAddress();
+    }
+
+    @Override
+    public String getHeader(String name) {
+        return this.exchange.getRequestHeaders().getFirst(name);
+    }
+
+    @Override
+    public String getCookie(String name) {
+        Cookie cookie = this.exchange.getRequestCookies().get(name);
+        return cookie == null ? null : cookie.getValue();
+    }
+
     @Override
     public InputStream getInputStream() {
         return this.exchange.getInputStream();
     }
 
+    @Override
+    public Multipart getMultipart() {
+        if (this.multipart != null)
+            return this.multipart;
+        String boundary = MultipartParser.boundaryOf(this.exchange.getRequestHeaders().getFirst(Headers.CONTENT_TYPE));
+        if (boundary == null)
+            return null;
+        if (this.exchange.getRequestContentLength() > this.multipartLimits.getMaxRequestSize())
+            throw new MultipartException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Request exceeds " + this.multipartLimits.getMaxRequestSize() + " bytes");
+        Multipart multipart = new Multipart(boundary, this.multipartLimits, this.exchange::getInputStream);
+        this.exchange.addExchangeCompleteListener((exchange, next) -> {
+            multipart.delete();
+            next.proceed();
+        });
+        this.multipart = multipart;
+        return multipart;
+    }
+
     @Override
     public String getParamValue(String name) {
         Deque<String> param = this.params.get(name);
@@ -1,15 +1,29 @@
 package com.riguz.forks.http.undertow;
 
+import com.riguz.forks.http.Cookie;
 import com.riguz.forks.http.HttpResponse;
+import com.riguz.forks.http.ResponseStream;
+import com.riguz.forks.http.websocket.WebSocketHandler;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.CookieImpl;
+import io.undertow.util.Headers;
 import io.undertow.util.HttpString;
+import io.undertow.util.SameThreadExecutor;
+import io.undertow.websockets.WebSocketConnectionCallback;
+import io.undertow.websockets.WebSocketProtocolHandshakeHandler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
 
 public class UndertowResponse implements HttpResponse {
+    private static final Logger logger = LoggerFactory.getLogger(UndertowResponse.class);
 
     private HttpServerExchange exchange;
+    private volatile boolean suspended;
 
     public UndertowResponse(HttpServerExchange exchange) {
         this.exchange = exchange;
@@ -43,6 +57,63 @@ public class UndertowResponse implements HttpResponse {
         this.exchange.endExchange();
     }
 
+    @Override
+    public ResponseStream startStream() {
+        UndertowResponseStream stream = new UndertowResponseStream(this.exchange);
+        // keeps undertow from ending the exchange when the handler returns
+        this.suspend();
+        return stream;
+    }
+
+    @Override
+    public void suspend() {
+        this.suspended = true;
+        this.exchange.dispatch(SameThreadExecutor.INSTANCE, () -> {
+        });
+    }
+
+    @Override
+    public void resume(Runnable task) {
+        // blocking exchanges may not write from the IO thread
+        Executor executor = this.exchange.isBlocking() ? this.exchange.getConnection().getWorker()
+                : this.exchange.getIoThread();
+        this.resume(executor, task);
+    }
+
+    @Override
+    public void resume(Executor executor, Runnable task) {
+        executor.execute(() -> {
+            this.suspended = false;
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Failed to resume response", e);
+                if (!this.exchange.isResponseStarted())
+                    this.exchange.setStatusCode(500);
+            } finally {
+                // the task may have suspended the response again
+                if (!this.suspended && !this.exchange.isResponseStarted())
+                    this.exchange.endExchange();
+            }
+        });
+    }
+
+    @Override
+    public void acceptWebSocket(WebSocketHandler handler) {
+        WebSocketConnectionCallback callback =
+                (exchange, channel) -> new UndertowWebSocketSession(channel, handler).open();
+        WebSocketProtocolHandshakeHandler handshake = new WebSocketProtocolHandshakeHandler(callback,
+                exchange -> {
+                    exchange.getResponseHeaders().put(Headers.UPGRADE, "websocket");
+                    exchange.setStatusCode(426);
+                });
+        try {
+            handshake.handleRequest(this.exchange);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public HttpResponse sendError(int status, String message) {
         this.exchange.setStatusCode(status);
@@ -58,7 +129,10 @@ public class UndertowResponse implements HttpResponse {
 
     @Override
     public HttpResponse sendRedirect(String url) {
-        return null;
+        if (this.exchange.getStatusCode() < 300 || this.exchange.getStatusCode() >= 400)
+            this.exchange.setStatusCode(302);
+        this.exchange.getResponseHeaders().put(Headers.LOCATION, url);
+        return this;
     }
 
     @Override
@@ -67,9 +141,43 @@ public class UndertowResponse implements HttpResponse {
         return this;
     }
 
+    @Override
+    public HttpResponse addCookie(Cookie cookie) {
+        CookieImpl impl = new CookieImpl(cookie.getName(), cookie.getValue())
+                .setPath(cookie.getPath())
+                .setDomain(cookie.getDomain())
+                .setSecure(cookie.isSecure())
+                .setHttpOnly(cookie.isHttpOnly());
+        if (cookie.getMaxAge() >= 0)
+            impl.setMaxAge(cookie.getMaxAge());
+        this.exchange.setResponseCookie(impl);
+        return this;
+    }
+
     @Override
     public HttpResponse setStatus(int status) {
         this.exchange.setStatusCode(status);
         return this;
     }
+
+    @Override
+    public int getStatus() {
+        return this.exchange.getStatusCode();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return this.exchange.getResponseBytesSent();
+    }
+
+    @Override
+    public void onComplete(Runnable callback) {
+        this.exchange.addExchangeCompleteListener((exchange, next) -> {
+            try {
+                callback.run();
+            } finally {
+                next.proceed();
+            }
+        });
+    }
 }
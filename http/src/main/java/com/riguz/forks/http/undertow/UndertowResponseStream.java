@@ -0,0 +1,219 @@
+package com.riguz.forks.http.undertow;
+
+import com.riguz.forks.http.ResponseStream;
+import io.undertow.server.HttpServerExchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnio.ChannelListeners;
+import org.xnio.IoUtils;
+import org.xnio.XnioExecutor;
+import org.xnio.XnioIoThread;
+import org.xnio.channels.StreamSinkChannel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writers from any thread append to a lock-free queue, the IO thread drains it into the non-blocking response
+ * channel and waits for write readiness instead of blocking when the socket buffer is full.
+ */
+class UndertowResponseStream implements ResponseStream {
+    private static final Logger logger = LoggerFactory.getLogger(UndertowResponseStream.class);
+    static final long HIGH_WATER = 256 * 1024;
+    static final long LOW_WATER = 64 * 1024;
+
+    private final HttpServerExchange exchange;
+    private final StreamSinkChannel channel;
+    private final XnioIoThread ioThread;
+    private final Queue<ByteBuffer> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final List<Runnable> closeListeners = new CopyOnWriteArrayList<>();
+    private final List<Timer> timers = new CopyOnWriteArrayList<>();
+    private volatile Runnable writableListener;
+    private volatile boolean closing;
+    private volatile boolean aborted;
+
+    UndertowResponseStream(HttpServerExchange exchange) {
+        this.exchange = exchange;
+        this.channel = exchange.getResponseChannel();
+        this.ioThread = exchange.getIoThread();
+        this.channel.getWriteSetter().set(channel -> this.drain());
+        exchange.getConnection().addCloseListener(connection -> this.closed());
+        // flushing right away sends the headers, so clients see the stream open before the first write
+        this.scheduleDrain();
+    }
+
+    @Override
+    public boolean write(ByteBuffer data) {
+        if (this.closing || this.pending.get() >= HIGH_WATER)
+            return false;
+        ByteBuffer view = data.duplicate();
+        this.pending.addAndGet(view.remaining());
+        this.queue.offer(view);
+        this.scheduleDrain();
+        return true;
+    }
+
+    @Override
+    public boolean isWritable() {
+        return !this.closing && this.pending.get() < HIGH_WATER;
+    }
+
+    @Override
+    public long getPendingBytes() {
+        return this.pending.get();
+    }
+
+    @Override
+    public void onWritable(Runnable callback) {
+        this.writableListener = callback;
+        this.scheduleDrain();
+    }
+
+    @Override
+    public void onClose(Runnable callback) {
+        this.closeListeners.add(callback);
+        if (this.closed.get() && this.closeListeners.remove(callback))
+            callback.run();
+    }
+
+    @Override
+    public void schedule(Runnable task, long period, TimeUnit unit) {
+        Timer timer = new Timer(task, unit.toMillis(period));
+        this.timers.add(timer);
+        timer.start();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !this.closing;
+    }
+
+    @Override
+    public void close() {
+        this.closing = true;
+        this.scheduleDrain();
+    }
+
+    @Override
+    public void abort() {
+        this.aborted = true;
+        this.closing = true;
+        this.ioThread.execute(this::closeConnection);
+    }
+
+    private void scheduleDrain() {
+        if (this.drainScheduled.compareAndSet(false, true))
+            this.ioThread.execute(this::drain);
+    }
+
+    private void drain() {
+        this.drainScheduled.set(false);
+        if (this.closed.get())
+            return;
+        try {
+            ByteBuffer buffer;
+            while ((buffer = this.queue.peek()) != null) {
+                int written = this.channel.write(buffer);
+                this.pending.addAndGet(-written);
+                if (buffer.hasRemaining()) {
+                    this.channel.resumeWrites();
+                    return;
+                }
+                this.queue.poll();
+            }
+            if (!this.channel.flush()) {
+                this.channel.resumeWrites();
+                return;
+            }
+            this.channel.suspendWrites();
+            if (this.aborted) {
+                this.closeConnection();
+                return;
+            }
+            if (this.closing && this.queue.isEmpty()) {
+                this.finish();
+                return;
+            }
+            Runnable listener = this.writableListener;
+            if (listener != null && this.pending.get() < LOW_WATER) {
+                this.writableListener = null;
+                listener.run();
+            }
+        } catch (IOException e) {
+            logger.debug("Response stream aborted:{}", e.getMessage());
+            this.closeConnection();
+        }
+    }
+
+    private void finish() throws IOException {
+        this.channel.shutdownWrites();
+        if (this.channel.flush()) {
+            this.exchange.endExchange();
+            this.closed();
+            return;
+        }
+        this.channel.getWriteSetter().set(ChannelListeners.flushingChannelListener(channel -> {
+            this.exchange.endExchange();
+            this.closed();
+        }, (channel, e) -> this.closeConnection()));
+        this.channel.resumeWrites();
+    }
+
+    private void closeConnection() {
+        IoUtils.safeClose(this.exchange.getConnection());
+        this.closed();
+    }
+
+    private void closed() {
+        if (!this.closed.compareAndSet(false, true))
+            return;
+        this.closing = true;
+        this.timers.forEach(Timer::cancel);
+        this.queue.clear();
+        for (Runnable listener : this.closeListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                logger.warn("Close listener failed", e);
+            }
+        }
+        this.closeListeners.clear();
+    }
+
+    private final class Timer implements Runnable {
+        private final Runnable task;
+        private final long periodMillis;
+        private volatile XnioExecutor.Key key;
+
+        Timer(Runnable task, long periodMillis) {
+            this.task = task;
+            this.periodMillis = periodMillis;
+        }
+
+        void start() {
+            this.key = ioThread.executeAfter(this, this.periodMillis, TimeUnit.MILLISECONDS);
+        }
+
+        void cancel() {
+            this.key.remove();
+        }
+
+        @Override
+        public void run() {
+            if (closing)
+                return;
+            this.task.run();
+            this.start();
+        }
+    }
+}
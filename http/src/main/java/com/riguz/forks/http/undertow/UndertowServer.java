@@ -2,7 +2,10 @@ package com.riguz.forks.http.undertow;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.xnio.ChannelListener;
 import org.xnio.ChannelListeners;
 import org.xnio.OptionMap;
@@ -14,37 +17,52 @@ import org.xnio.channels.AcceptingChannel;
 
 import com.riguz.forks.http.NetworkServer;
 import com.riguz.forks.http.RequestDelegate;
+import com.riguz.forks.http.multipart.MultipartLimits;
 
 import io.undertow.UndertowOptions;
 import io.undertow.connector.ByteBufferPool;
 import io.undertow.server.DefaultByteBufferPool;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
 import io.undertow.server.protocol.http.HttpOpenListener;
+import io.undertow.util.Headers;
 
 public class UndertowServer extends NetworkServer {
+    public static final int DEFAULT_BACKLOG = 1024;
+    private static final long STOP_TIMEOUT_SECONDS = 10;
+    private static final Logger logger = LoggerFactory.getLogger(UndertowServer.class);
 
     private static int cpuCores;
 
     private Xnio xnio = Xnio.getInstance();
     private XnioWorker worker;
     private AcceptingChannel<StreamConnection> server;
+    private final MultipartLimits multipartLimits;
+    private int backlog = DEFAULT_BACKLOG;
+    private ConnectionStats connectionStats;
 
     static {
         cpuCores = Runtime.getRuntime().availableProcessors();
     }
 
     public UndertowServer(int port, RequestDelegate handler) {
+        this(port, handler, new MultipartLimits());
+    }
+
+    public UndertowServer(int port, RequestDelegate handler, MultipartLimits multipartLimits) {
         super(port, handler);
+        this.multipartLimits = multipartLimits;
     }
 
     private void bootstrap() {
         HttpOpenListener httpListener = this.createHttpListener();
-        httpListener.setRootHandler(
-            exchange -> this.handler.delegate(new UndertowRequest(exchange), new UndertowResponse(exchange)));
+        httpListener.setRootHandler(this.createRootHandler());
 
-        ChannelListener<AcceptingChannel<StreamConnection>> acceptListener = ChannelListeners
-            .openListenerAdapter(httpListener);
         try {
             this.worker = this.xnio.createWorker(this.createWorkerOptions());
+            this.connectionStats = new ConnectionStats(this.worker.getIoThreadCount());
+            ChannelListener<AcceptingChannel<StreamConnection>> acceptListener = ChannelListeners
+                .openListenerAdapter(this.countConnections(httpListener));
             this.server = this.worker.createStreamConnectionServer(new InetSocketAddress(this.port), acceptListener,
                 this.createSocketOptions());
         } catch (IOException e) {
@@ -54,6 +72,46 @@ public class UndertowServer extends NetworkServer {
         this.server.resumeAccepts();
     }
 
+    /**
+     * Requests without a body are handled right on the IO thread, the others are moved to a worker so that the body
+     * can be read as a blocking stream.
+     */
+    private HttpHandler createRootHandler() {
+        return new HttpHandler() {
+            @Override
+            public void handleRequest(HttpServerExchange exchange) throws Exception {
+                if (hasBody(exchange)) {
+                    if (exchange.isInIoThread()) {
+                        exchange.dispatch(this);
+                        return;
+                    }
+                    exchange.startBlocking();
+                }
+                handler.delegate(new UndertowRequest(exchange, multipartLimits), new UndertowResponse(exchange));
+            }
+        };
+    }
+
+    private static boolean hasBody(HttpServerExchange exchange) {
+        return exchange.getRequestContentLength() > 0
+            || exchange.getRequestHeaders().contains(Headers.TRANSFER_ENCODING);
+    }
+
+    private ChannelListener<StreamConnection> countConnections(HttpOpenListener httpListener) {
+        return connection -> {
+            int ioThread = connection.getIoThread().getNumber();
+            this.connectionStats.opened(ioThread);
+            httpListener.handleEvent(connection);
+            // the http connection installs its own close listener, chain ours after it
+            ChannelListener<? super StreamConnection> closeListener = connection.getCloseListener();
+            connection.setCloseListener(closed -> {
+                this.connectionStats.closed(ioThread);
+                if (closeListener != null)
+                    ChannelListeners.invokeChannelListener(closed, closeListener);
+            });
+        };
+    }
+
     private HttpOpenListener createHttpListener() {
         ByteBufferPool bufferPool = new DefaultByteBufferPool(true, 8192);
         return new HttpOpenListener(bufferPool, this.createServerOptions());
@@ -77,7 +135,20 @@ public class UndertowServer extends NetworkServer {
 
     private OptionMap createSocketOptions() {
         return OptionMap.builder().set(Options.WORKER_IO_THREADS, cpuCores * 2).set(Options.TCP_NODELAY, true)
-            .set(Options.REUSE_ADDRESSES, true).getMap();
+            .set(Options.REUSE_ADDRESSES, true).set(Options.BACKLOG, this.backlog).getMap();
+    }
+
+    /**
+     * Length of the queue of connections waiting to be accepted, the JDK default of 50 overflows during reconnect
+     * bursts and makes clients wait for SYN retransmits.
+     */
+    public UndertowServer setBacklog(int backlog) {
+        this.backlog = backlog;
+        return this;
+    }
+
+    public ConnectionStats getConnectionStats() {
+        return connectionStats;
     }
 
     @Override
@@ -89,6 +160,10 @@ public class UndertowServer extends NetworkServer {
     public void afterStart() {
     }
 
+    /**
+     * Closes the listening socket and every open connection, and waits for the IO threads to exit so that the port is
+     * released once this returns.
+     */
     @Override
     public void stop() {
         try {
@@ -97,6 +172,12 @@ public class UndertowServer extends NetworkServer {
             throw new RuntimeException(e);
         } finally {
             this.worker.shutdownNow();
+            try {
+                if (!this.worker.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                    logger.warn("Worker did not terminate within {}s", STOP_TIMEOUT_SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
     }
 }
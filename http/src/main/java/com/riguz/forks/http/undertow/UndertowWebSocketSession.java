@@ -0,0 +1,199 @@
+package com.riguz.forks.http.undertow;
+
+import com.riguz.forks.http.websocket.WebSocketHandler;
+import com.riguz.forks.http.websocket.WebSocketMessage;
+import com.riguz.forks.http.websocket.WebSocketSession;
+import io.undertow.connector.PooledByteBuffer;
+import io.undertow.websockets.core.AbstractReceiveListener;
+import io.undertow.websockets.core.BufferedBinaryMessage;
+import io.undertow.websockets.core.BufferedTextMessage;
+import io.undertow.websockets.core.CloseMessage;
+import io.undertow.websockets.core.WebSocketCallback;
+import io.undertow.websockets.core.WebSocketChannel;
+import io.undertow.websockets.core.WebSockets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnio.IoUtils;
+import org.xnio.Pooled;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class UndertowWebSocketSession extends AbstractReceiveListener implements WebSocketSession {
+    private static final Logger logger = LoggerFactory.getLogger(UndertowWebSocketSession.class);
+    private static final ThreadLocal<CharsetEncoder> encoders =
+            ThreadLocal.withInitial(StandardCharsets.UTF_8::newEncoder);
+
+    private final String id = UUID.randomUUID().toString();
+    private final WebSocketChannel channel;
+    private final WebSocketHandler handler;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile CloseMessage closeMessage;
+    private final WebSocketCallback<Void> callback = new WebSocketCallback<Void>() {
+        @Override
+        public void complete(WebSocketChannel channel, Void context) {
+        }
+
+        @Override
+        public void onError(WebSocketChannel channel, Void context, Throwable throwable) {
+            handler.onError(UndertowWebSocketSession.this, throwable);
+            IoUtils.safeClose(channel);
+        }
+    };
+
+    UndertowWebSocketSession(WebSocketChannel channel, WebSocketHandler handler) {
+        this.channel = channel;
+        this.handler = handler;
+    }
+
+    void open() {
+        // also covers connections dropped without a close frame
+        this.channel.addCloseTask(channel -> {
+            CloseMessage message = this.closeMessage;
+            int code = message == null ? CloseMessage.GOING_AWAY : message.getCode();
+            String reason = message == null ? "" : message.getReason();
+            this.handle(() -> this.handler.onClose(this, code, reason));
+        });
+        this.channel.getReceiveSetter().set(this);
+        this.channel.resumeReceives();
+        this.handler.onOpen(this);
+    }
+
+    @Override
+    protected void onFullTextMessage(WebSocketChannel channel, BufferedTextMessage message) {
+        String data = message.getData();
+        this.handle(() -> this.handler.onMessage(this, data));
+    }
+
+    @Override
+    protected void onFullBinaryMessage(WebSocketChannel channel, BufferedBinaryMessage message) {
+        Pooled<ByteBuffer[]> data = message.getData();
+        ByteBuffer merged = WebSockets.mergeBuffers(data.getResource());
+        data.free();
+        this.handle(() -> this.handler.onBinaryMessage(this, merged));
+    }
+
+    @Override
+    protected void onCloseMessage(CloseMessage message, WebSocketChannel channel) {
+        this.closeMessage = message;
+    }
+
+    @Override
+    protected void onError(WebSocketChannel channel, Throwable error) {
+        super.onError(channel, error);
+        this.handler.onError(this, error);
+    }
+
+    /**
+     * Tasks of blocking handlers are queued per session and drained by one worker task at a time, so the messages of a
+     * session are handled in order and never concurrently.
+     */
+    private void handle(Runnable task) {
+        if (!this.handler.isBlocking()) {
+            this.run(task);
+            return;
+        }
+        this.tasks.add(task);
+        if (this.pending.getAndIncrement() == 0)
+            this.channel.getWorker().execute(this::drain);
+    }
+
+    private void drain() {
+        do {
+            this.run(this.tasks.poll());
+        } while (this.pending.decrementAndGet() > 0);
+    }
+
+    private void run(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.error("WebSocket handler failed", e);
+            this.handler.onError(this, e);
+        }
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String getPath() {
+        return this.channel.getUrl();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return this.channel.isOpen() && !this.channel.isCloseFrameSent();
+    }
+
+    /**
+     * Encodes into a buffer of the connection's pool, which undertow releases once the frame was written.
+     */
+    @Override
+    public void send(String message) {
+        PooledByteBuffer pooled = this.channel.getBufferPool().allocate();
+        ByteBuffer buffer = pooled.getBuffer();
+        CharsetEncoder encoder = encoders.get().reset();
+        CoderResult result = encoder.encode(CharBuffer.wrap(message), buffer, true);
+        if (result.isUnderflow())
+            result = encoder.flush(buffer);
+        if (!result.isUnderflow()) {
+            pooled.close();
+            WebSockets.sendText(message, this.channel, this.callback);
+            return;
+        }
+        buffer.flip();
+        WebSockets.sendText(pooled, this.channel, this.callback);
+    }
+
+    @Override
+    public void send(WebSocketMessage message) {
+        if (message.isBinary())
+            WebSockets.sendBinary(message.getPayload(), this.channel, this.callback);
+        else
+            WebSockets.sendText(message.getPayload(), this.channel, this.callback);
+    }
+
+    @Override
+    public void sendBinary(ByteBuffer message) {
+        WebSockets.sendBinary(message, this.channel, this.callback);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getAttribute(String name) {
+        return (T) this.attributes.get(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null)
+            this.attributes.remove(name);
+        else
+            this.attributes.put(name, value);
+    }
+
+    @Override
+    public void close() {
+        this.close(CloseMessage.NORMAL_CLOSURE, "");
+    }
+
+    @Override
+    public void close(int code, String reason) {
+        WebSockets.sendClose(code, reason, this.channel, null);
+    }
+
+}
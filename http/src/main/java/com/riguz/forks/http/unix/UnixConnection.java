@@ -0,0 +1,339 @@
+package com.riguz.forks.http.unix;
+
+import com.riguz.forks.http.HttpMethod;
+import com.riguz.forks.http.RequestDelegate;
+import com.riguz.forks.http.multipart.MultipartLimits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Serves the keep-alive requests of one connection with blocking reads and writes, the proxy in front keeps a
+ * small pool of long lived connections so a thread each is cheap. The server closes a connection that waited longer
+ * than its idle timeout for a read, see {@link #isIdle}.
+ */
+class UnixConnection implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(UnixConnection.class);
+    static final int MAX_LINE = 8192;
+    static final int MAX_HEADERS = 100;
+    // unread request bodies up to this size are skipped to keep the connection, larger ones close it
+    static final long MAX_SKIPPED_BODY = 64 * 1024;
+    private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final SocketChannel channel;
+    private final RequestDelegate handler;
+    private final MultipartLimits multipartLimits;
+    private final ScheduledExecutorService timer;
+    private final StringBuilder line = new StringBuilder(256);
+    // when the pending read of the socket started, 0 while not reading
+    private volatile long readStarted;
+
+    UnixConnection(SocketChannel channel, RequestDelegate handler, MultipartLimits multipartLimits,
+                   ScheduledExecutorService timer) {
+        this.channel = channel;
+        this.handler = handler;
+        this.multipartLimits = multipartLimits;
+        this.timer = timer;
+    }
+
+    @Override
+    public void run() {
+        try (SocketChannel channel = this.channel) {
+            InputStream in = new BufferedInputStream(new WatchedInputStream(Channels.newInputStream(channel)), 8192);
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 8192);
+            while (this.serve(in, out)) {
+            }
+        } catch (IOException e) {
+            logger.debug("Connection closed:{}", e.getMessage());
+        }
+    }
+
+    /**
+     * Whether the connection has been waiting for the client longer than the timeout, time spent handling requests
+     * doesn't count.
+     */
+    boolean isIdle(long now, long timeoutNanos) {
+        long started = this.readStarted;
+        return started != 0 && now - started > timeoutNanos;
+    }
+
+    /**
+     * Closes the socket, failing the pending read.
+     */
+    void close() {
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close connection:{}", e.getMessage());
+        }
+    }
+
+    private boolean serve(InputStream in, OutputStream out) throws IOException {
+        String requestLine = this.readLine(in);
+        if (requestLine != null && requestLine.isEmpty())
+            requestLine = this.readLine(in);
+        if (requestLine == null)
+            return false;
+        String[] parts = requestLine.split(" ");
+        if (parts.length != 3 || !parts[2].startsWith("HTTP/1."))
+            return reject(out, 400);
+        Map<String, List<String>> headers = this.readHeaders(in);
+        if (headers == null)
+            return reject(out, 400);
+
+        boolean head = "HEAD".equals(parts[0]);
+        HttpMethod method;
+        try {
+            method = head ? HttpMethod.GET : HttpMethod.valueOf(parts[0]);
+        } catch (IllegalArgumentException e) {
+            return reject(out, 501);
+        }
+        String connection = first(headers, "Connection");
+        boolean keepAlive = "HTTP/1.1".equals(parts[2])
+                ? !"close".equalsIgnoreCase(connection)
+                : "keep-alive".equalsIgnoreCase(connection);
+
+        // anything but a single chunked coding, or a length next to it, could be framed differently by the proxy
+        long contentLength = 0;
+        InputStream body;
+        List<String> transferEncoding = headers.get("Transfer-Encoding");
+        List<String> lengths = headers.get("Content-Length");
+        if (transferEncoding != null) {
+            if (lengths != null || transferEncoding.size() != 1
+                    || !"chunked".equalsIgnoreCase(transferEncoding.get(0)))
+                return reject(out, 400);
+            contentLength = -1;
+            body = new ChunkedInputStream(in, this);
+        } else {
+            if (lengths != null) {
+                for (String length : lengths) {
+                    long parsed;
+                    try {
+                        parsed = Long.parseLong(length);
+                    } catch (NumberFormatException e) {
+                        return reject(out, 400);
+                    }
+                    if (parsed < 0 || (contentLength != 0 && parsed != contentLength))
+                        return reject(out, 400);
+                    contentLength = parsed;
+                }
+            }
+            body = new FixedLengthInputStream(in, contentLength);
+        }
+        if (contentLength != 0 && "100-continue".equalsIgnoreCase(first(headers, "Expect"))) {
+            out.write(CONTINUE);
+            out.flush();
+        }
+
+        UnixRequest request = new UnixRequest(method, parts[1], headers, contentLength, body,
+                this.multipartLimits);
+        UnixResponse response = new UnixResponse(out, this.timer, head, keepAlive);
+        try {
+            this.handler.delegate(request, response);
+        } catch (RuntimeException e) {
+            logger.error("Failed to handle request", e);
+            response.setStatus(500);
+        }
+        boolean reusable;
+        try {
+            reusable = response.complete();
+        } finally {
+            request.complete();
+        }
+        return reusable && body.skip(MAX_SKIPPED_BODY) < MAX_SKIPPED_BODY && body.read() < 0;
+    }
+
+    private Map<String, List<String>> readHeaders(InputStream in) throws IOException {
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int count = 0; count <= MAX_HEADERS; count++) {
+            String header = this.readLine(in);
+            if (header == null)
+                return null;
+            if (header.isEmpty())
+                return headers;
+            int colon = header.indexOf(':');
+            if (colon <= 0)
+                return null;
+            headers.computeIfAbsent(header.substring(0, colon).trim(), name -> new ArrayList<>(1))
+                    .add(header.substring(colon + 1).trim());
+        }
+        return null;
+    }
+
+    /**
+     * Reads up to the next LF, dropping the CR before it. Returns null at the end of the stream or when the line
+     * is longer than MAX_LINE.
+     */
+    String readLine(InputStream in) throws IOException {
+        this.line.setLength(0);
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0 || this.line.length() >= MAX_LINE)
+                return null;
+            this.line.append((char) b);
+        }
+        int length = this.line.length();
+        if (length > 0 && this.line.charAt(length - 1) == '\r')
+            this.line.setLength(length - 1);
+        return this.line.toString();
+    }
+
+    private static String first(Map<String, List<String>> headers, String name) {
+        List<String> values = headers.get(name);
+        return values == null ? null : values.get(0);
+    }
+
+    private static boolean reject(OutputStream out, int status) throws IOException {
+        out.write(("HTTP/1.1 " + status + " \r\nContent-Length: 0\r\nConnection: close\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return false;
+    }
+
+    /**
+     * Marks when a read of the socket starts and ends, for {@link #isIdle}.
+     */
+    private final class WatchedInputStream extends InputStream {
+        private final InputStream in;
+
+        WatchedInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            readStarted = System.nanoTime();
+            try {
+                return this.in.read();
+            } finally {
+                readStarted = 0;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            readStarted = System.nanoTime();
+            try {
+                return this.in.read(b, off, len);
+            } finally {
+                readStarted = 0;
+            }
+        }
+
+        @Override
+        public int available() throws IOException {
+            return this.in.available();
+        }
+    }
+
+    private static final class FixedLengthInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        FixedLengthInputStream(InputStream in, long length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (this.remaining <= 0)
+                return -1;
+            int b = this.in.read();
+            if (b >= 0)
+                this.remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (this.remaining <= 0)
+                return -1;
+            int read = this.in.read(b, off, (int) Math.min(len, this.remaining));
+            if (read > 0)
+                this.remaining -= read;
+            return read;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(this.in.available(), this.remaining);
+        }
+    }
+
+    private static final class ChunkedInputStream extends InputStream {
+        private final InputStream in;
+        private final UnixConnection connection;
+        private long chunkRemaining;
+        private boolean finished;
+
+        ChunkedInputStream(InputStream in, UnixConnection connection) {
+            this.in = in;
+            this.connection = connection;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!this.nextChunk())
+                return -1;
+            int b = this.in.read();
+            if (b >= 0)
+                this.chunkRemaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (!this.nextChunk())
+                return -1;
+            int read = this.in.read(b, off, (int) Math.min(len, this.chunkRemaining));
+            if (read > 0)
+                this.chunkRemaining -= read;
+            return read;
+        }
+
+        private boolean nextChunk() throws IOException {
+            if (this.finished)
+                return false;
+            if (this.chunkRemaining > 0)
+                return true;
+            String size = this.connection.readLine(this.in);
+            // the CRLF closing the previous chunk
+            if (size != null && size.isEmpty())
+                size = this.connection.readLine(this.in);
+            if (size == null)
+                throw new IOException("Truncated chunked body");
+            int extension = size.indexOf(';');
+            try {
+                this.chunkRemaining = Long.parseLong((extension < 0 ? size : size.substring(0, extension)).trim(),
+                        16);
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed chunk size:" + size);
+            }
+            if (this.chunkRemaining < 0)
+                throw new IOException("Malformed chunk size:" + size);
+            if (this.chunkRemaining == 0) {
+                // trailers, if any, end with an empty line
+                String trailer;
+                while ((trailer = this.connection.readLine(this.in)) != null && !trailer.isEmpty()) {
+                }
+                this.finished = true;
+                return false;
+            }
+            return true;
+        }
+    }
+}
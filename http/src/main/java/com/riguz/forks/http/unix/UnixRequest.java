@@ -0,0 +1,193 @@
+package com.riguz.forks.http.unix;
+
+import com.riguz.forks.http.HttpMethod;
+import com.riguz.forks.http.HttpRequest;
+import com.riguz.forks.http.HttpStatus;
+import com.riguz.forks.http.multipart.Multipart;
+import com.riguz.forks.http.multipart.MultipartException;
+import com.riguz.forks.http.multipart.MultipartLimits;
+import com.riguz.forks.http.multipart.MultipartParser;
+
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class UnixRequest implements HttpRequest {
+    private final HttpMethod method;
+    private final String uri;
+    private final String path;
+    private final String query;
+    private final Map<String, List<String>> headers;
+    private final long contentLength;
+    private final InputStream body;
+    private final MultipartLimits multipartLimits;
+    private Map<String, List<String>> params;
+    private Map<String, String> cookies;
+    private Multipart multipart;
+
+    UnixRequest(HttpMethod method, String uri, Map<String, List<String>> headers, long contentLength,
+                InputStream body, MultipartLimits multipartLimits) {
+        this.method = method;
+        this.uri = uri;
+        int queryStart = uri.indexOf('?');
+        this.path = decodePath(queryStart < 0 ? uri : uri.substring(0, queryStart));
+        this.query = queryStart < 0 ? "" : uri.substring(queryStart + 1);
+        this.headers = headers;
+        this.contentLength = contentLength;
+        this.body = body;
+        this.multipartLimits = multipartLimits;
+    }
+
+    @Override
+    public HttpMethod getHttpMethod() {
+        return this.method;
+    }
+
+    @Override
+    public String getPath() {
+        return this.path;
+    }
+
+    @Override
+    public boolean isSecure() {
+        return false;
+    }
+
+    @Override
+    public String getRequestQuery() {
+        return this.query;
+    }
+
+    @Override
+    public String getRequestURI() {
+        int queryStart = this.uri.indexOf('?');
+        return queryStart < 0 ? this.uri : this.uri.substring(0, queryStart);
+    }
+
+    @Override
+    public String getRequestURL() {
+        String host = this.getHeader("Host");
+        return "http://" + (host == null ? "localhost" : host) + this.getRequestURI();
+    }
+
+    /**
+     * Peers on a unix socket have no address, the proxy in front tells who the client was. Only the last entry of
+     * X-Forwarded-For is taken, the one appended by that proxy, the ones before it come from the client and can be
+     * forged.
+     */
+    @Override
+    public String getRemoteAddress() {
+        List<String> values = this.headers.get("X-Forwarded-For");
+        if (values == null)
+            return "127.0.0.1";
+        String forwarded = values.get(values.size() - 1);
+        return forwarded.substring(forwarded.lastIndexOf(',') + 1).trim();
+    }
+
+    @Override
+    public String getHeader(String name) {
+        List<String> values = this.headers.get(name);
+        return values == null ? null : values.get(0);
+    }
+
+    @Override
+    public String getCookie(String name) {
+        if (this.cookies == null)
+            this.cookies = this.parseCookies();
+        return this.cookies.get(name);
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return this.body;
+    }
+
+    @Override
+    public Multipart getMultipart() {
+        if (this.multipart != null)
+            return this.multipart;
+        String boundary = MultipartParser.boundaryOf(this.getHeader("Content-Type"));
+        if (boundary == null)
+            return null;
+        if (this.contentLength > this.multipartLimits.getMaxRequestSize())
+            throw new MultipartException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Request exceeds " + this.multipartLimits.getMaxRequestSize() + " bytes");
+        this.multipart = new Multipart(boundary, this.multipartLimits, () -> this.body);
+        return this.multipart;
+    }
+
+    @Override
+    public String getParamValue(String name) {
+        List<String> values = this.getParams().get(name);
+        return values == null ? null : values.get(0);
+    }
+
+    @Override
+    public String[] getParamValues(String name) {
+        List<String> values = this.getParams().get(name);
+        return values == null ? null : values.toArray(new String[values.size()]);
+    }
+
+    @Override
+    public Iterable<String> getParamNames() {
+        return this.getParams().keySet();
+    }
+
+    void complete() {
+        if (this.multipart != null)
+            this.multipart.delete();
+    }
+
+    private Map<String, List<String>> getParams() {
+        if (this.params != null)
+            return this.params;
+        Map<String, List<String>> params = new LinkedHashMap<>();
+        for (String pair : this.query.split("&")) {
+            if (pair.isEmpty())
+                continue;
+            int eq = pair.indexOf('=');
+            String name = decodeParam(eq < 0 ? pair : pair.substring(0, eq));
+            String value = eq < 0 ? "" : decodeParam(pair.substring(eq + 1));
+            params.computeIfAbsent(name, key -> new ArrayList<>(1)).add(value);
+        }
+        this.params = params;
+        return params;
+    }
+
+    private Map<String, String> parseCookies() {
+        List<String> headers = this.headers.get("Cookie");
+        if (headers == null)
+            return Collections.emptyMap();
+        Map<String, String> cookies = new LinkedHashMap<>();
+        for (String header : headers) {
+            for (String pair : header.split(";")) {
+                int eq = pair.indexOf('=');
+                if (eq <= 0)
+                    continue;
+                String value = pair.substring(eq + 1).trim();
+                if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\""))
+                    value = value.substring(1, value.length() - 1);
+                cookies.putIfAbsent(pair.substring(0, eq).trim(), value);
+            }
+        }
+        return cookies;
+    }
+
+    private static String decodeParam(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return value;
+        }
+    }
+
+    private static String decodePath(String path) {
+        // URLDecoder would turn '+' into a space, which only applies to query strings
+        return path.indexOf('%') < 0 ? path : decodeParam(path.replace("+", "%2B"));
+    }
+}
@@ -0,0 +1,269 @@
+package com.riguz.forks.http.unix;
+
+import com.riguz.forks.http.Cookie;
+import com.riguz.forks.http.HttpResponse;
+import com.riguz.forks.http.ResponseStream;
+import com.riguz.forks.http.websocket.WebSocketHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * The body is buffered and sent with a Content-Length once the request was handled, unless the handler switched
+ * to a chunked stream.
+ */
+class UnixResponse implements HttpResponse {
+    private static final Logger logger = LoggerFactory.getLogger(UnixResponse.class);
+
+    private final OutputStream out;
+    private final ScheduledExecutorService timer;
+    private final boolean head;
+    private final boolean keepAlive;
+    private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final List<String> cookies = new ArrayList<>();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final List<Runnable> completeListeners = new ArrayList<>();
+    private int status = 200;
+    private long bytesSent;
+    private boolean committed;
+    private UnixResponseStream stream;
+    private volatile CountDownLatch suspended;
+
+    UnixResponse(OutputStream out, ScheduledExecutorService timer, boolean head, boolean keepAlive) {
+        this.out = out;
+        this.timer = timer;
+        this.head = head;
+        this.keepAlive = keepAlive;
+    }
+
+    @Override
+    public HttpResponse setContentLength(long length) {
+        // the length of the buffered body is sent instead
+        return this;
+    }
+
+    @Override
+    public HttpResponse writeContent(String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        this.body.write(bytes, 0, bytes.length);
+        return this;
+    }
+
+    @Override
+    public HttpResponse writeContent(ByteBuffer byteBuffer) {
+        ByteBuffer view = byteBuffer.duplicate();
+        if (view.hasArray()) {
+            this.body.write(view.array(), view.arrayOffset() + view.position(), view.remaining());
+        } else {
+            byte[] bytes = new byte[view.remaining()];
+            view.get(bytes);
+            this.body.write(bytes, 0, bytes.length);
+        }
+        byteBuffer.position(byteBuffer.limit());
+        return this;
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        return this.body;
+    }
+
+    @Override
+    public void flash() {
+        try {
+            this.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public ResponseStream startStream() {
+        if (this.stream != null)
+            return this.stream;
+        this.headers.put("Transfer-Encoding", "chunked");
+        this.headers.remove("Content-Length");
+        try {
+            this.writeHead();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.committed = true;
+        this.stream = new UnixResponseStream(this.out, this.timer);
+        return this.stream;
+    }
+
+    @Override
+    public void suspend() {
+        this.suspended = new CountDownLatch(1);
+    }
+
+    /**
+     * Runs the task right on the calling thread, the connection thread waits for it in complete.
+     */
+    @Override
+    public void resume(Runnable task) {
+        CountDownLatch suspended = this.suspended;
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.error("Failed to resume response", e);
+            if (!this.committed)
+                this.status = 500;
+        } finally {
+            suspended.countDown();
+        }
+    }
+
+    @Override
+    public void resume(Executor executor, Runnable task) {
+        executor.execute(() -> this.resume(task));
+    }
+
+    @Override
+    public void acceptWebSocket(WebSocketHandler handler) {
+        this.sendError(501, "WebSocket is not available on unix socket listeners");
+    }
+
+    @Override
+    public HttpResponse sendError(int status, String message) {
+        this.status = status;
+        return this.writeContent(message);
+    }
+
+    @Override
+    public HttpResponse sendError(int status) {
+        this.status = status;
+        return this;
+    }
+
+    @Override
+    public HttpResponse sendRedirect(String url) {
+        if (this.status < 300 || this.status >= 400)
+            this.status = 302;
+        this.headers.put("Location", url);
+        return this;
+    }
+
+    @Override
+    public HttpResponse setHeader(String name, String value) {
+        this.headers.put(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpResponse addCookie(Cookie cookie) {
+        StringBuilder header = new StringBuilder(cookie.getName()).append('=').append(cookie.getValue());
+        if (cookie.getPath() != null)
+            header.append("; Path=").append(cookie.getPath());
+        if (cookie.getDomain() != null)
+            header.append("; Domain=").append(cookie.getDomain());
+        if (cookie.getMaxAge() >= 0)
+            header.append("; Max-Age=").append(cookie.getMaxAge());
+        if (cookie.isSecure())
+            header.append("; Secure");
+        if (cookie.isHttpOnly())
+            header.append("; HttpOnly");
+        this.cookies.add(header.toString());
+        return this;
+    }
+
+    @Override
+    public HttpResponse setStatus(int status) {
+        this.status = status;
+        return this;
+    }
+
+    @Override
+    public int getStatus() {
+        return this.status;
+    }
+
+    @Override
+    public long getBytesSent() {
+        return this.bytesSent;
+    }
+
+    @Override
+    public void onComplete(Runnable callback) {
+        this.completeListeners.add(callback);
+    }
+
+    /**
+     * Sends what the handler left behind, waiting for a started stream to be closed, and returns whether the
+     * connection may serve another request.
+     */
+    boolean complete() throws IOException {
+        boolean clean = true;
+        try {
+            if (this.suspended != null && !this.awaitResume())
+                return false;
+            if (this.stream != null)
+                clean = this.stream.drain();
+            else
+                this.commit();
+        } finally {
+            for (Runnable listener : this.completeListeners) {
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Complete listener failed", e);
+                }
+            }
+        }
+        return clean && this.keepAlive;
+    }
+
+    private boolean awaitResume() {
+        try {
+            // the task of resume may have suspended the response again
+            CountDownLatch suspended;
+            do {
+                suspended = this.suspended;
+                suspended.await();
+            } while (suspended != this.suspended);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void commit() throws IOException {
+        if (this.committed)
+            return;
+        this.committed = true;
+        this.headers.put("Content-Length", Integer.toString(this.body.size()));
+        this.writeHead();
+        if (!this.head) {
+            this.body.writeTo(this.out);
+            this.bytesSent = this.body.size();
+        }
+        this.out.flush();
+    }
+
+    private void writeHead() throws IOException {
+        StringBuilder head = new StringBuilder(128 + this.headers.size() * 32);
+        head.append("HTTP/1.1 ").append(this.status).append(" \r\n");
+        this.headers.forEach((name, value) -> head.append(name).append(": ").append(value).append("\r\n"));
+        for (String cookie : this.cookies)
+            head.append("Set-Cookie: ").append(cookie).append("\r\n");
+        if (!this.keepAlive)
+            head.append("Connection: close\r\n");
+        head.append("\r\n");
+        this.out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+    }
+}
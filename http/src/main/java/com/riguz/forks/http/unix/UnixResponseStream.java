@@ -0,0 +1,181 @@
+package com.riguz.forks.http.unix;
+
+import com.riguz.forks.http.ResponseStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writers from any thread append to a lock-free queue, the connection's own thread drains it with blocking chunk
+ * writes until the stream is closed.
+ */
+class UnixResponseStream implements ResponseStream {
+    private static final Logger logger = LoggerFactory.getLogger(UnixResponseStream.class);
+    static final long HIGH_WATER = 256 * 1024;
+    static final long LOW_WATER = 64 * 1024;
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream out;
+    private final ScheduledExecutorService timer;
+    private final Queue<ByteBuffer> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final Semaphore signal = new Semaphore(0);
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final List<Runnable> closeListeners = new CopyOnWriteArrayList<>();
+    private final List<ScheduledFuture<?>> timers = new CopyOnWriteArrayList<>();
+    private final byte[] copy = new byte[8192];
+    private volatile Runnable writableListener;
+    private volatile boolean closing;
+    private volatile boolean aborted;
+
+    UnixResponseStream(OutputStream out, ScheduledExecutorService timer) {
+        this.out = out;
+        this.timer = timer;
+    }
+
+    @Override
+    public boolean write(ByteBuffer data) {
+        if (this.closing || this.pending.get() >= HIGH_WATER)
+            return false;
+        ByteBuffer view = data.duplicate();
+        this.pending.addAndGet(view.remaining());
+        this.queue.offer(view);
+        this.signal.release();
+        return true;
+    }
+
+    @Override
+    public boolean isWritable() {
+        return !this.closing && this.pending.get() < HIGH_WATER;
+    }
+
+    @Override
+    public long getPendingBytes() {
+        return this.pending.get();
+    }
+
+    @Override
+    public void onWritable(Runnable callback) {
+        this.writableListener = callback;
+        this.signal.release();
+    }
+
+    @Override
+    public void onClose(Runnable callback) {
+        this.closeListeners.add(callback);
+        if (this.closed.get() && this.closeListeners.remove(callback))
+            callback.run();
+    }
+
+    @Override
+    public void schedule(Runnable task, long period, TimeUnit unit) {
+        this.timers.add(this.timer.scheduleAtFixedRate(() -> {
+            if (!this.closing)
+                task.run();
+        }, period, period, unit));
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !this.closing;
+    }
+
+    @Override
+    public void close() {
+        this.closing = true;
+        this.signal.release();
+    }
+
+    @Override
+    public void abort() {
+        this.aborted = true;
+        this.closing = true;
+        this.signal.release();
+    }
+
+    /**
+     * Blocks the calling connection thread until the stream was closed, returns whether the response ended cleanly
+     * so the connection can be kept alive.
+     */
+    boolean drain() {
+        try {
+            this.out.flush();
+            while (true) {
+                ByteBuffer buffer;
+                while ((buffer = this.queue.poll()) != null) {
+                    int length = buffer.remaining();
+                    this.writeChunk(buffer);
+                    this.pending.addAndGet(-length);
+                }
+                this.out.flush();
+                if (this.aborted)
+                    return false;
+                if (this.closing && this.queue.isEmpty()) {
+                    this.out.write(LAST_CHUNK);
+                    this.out.flush();
+                    return true;
+                }
+                Runnable listener = this.writableListener;
+                if (listener != null && this.pending.get() < LOW_WATER) {
+                    this.writableListener = null;
+                    listener.run();
+                    continue;
+                }
+                this.signal.acquire();
+                this.signal.drainPermits();
+            }
+        } catch (IOException e) {
+            logger.debug("Response stream aborted:{}", e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            this.closed();
+        }
+    }
+
+    private void writeChunk(ByteBuffer buffer) throws IOException {
+        if (!buffer.hasRemaining())
+            return;
+        this.out.write(Integer.toHexString(buffer.remaining()).getBytes(StandardCharsets.US_ASCII));
+        this.out.write(CRLF);
+        while (buffer.hasRemaining()) {
+            int length = Math.min(buffer.remaining(), this.copy.length);
+            buffer.get(this.copy, 0, length);
+            this.out.write(this.copy, 0, length);
+        }
+        this.out.write(CRLF);
+    }
+
+    private void closed() {
+        if (!this.closed.compareAndSet(false, true))
+            return;
+        this.closing = true;
+        this.timers.forEach(timer -> timer.cancel(false));
+        this.queue.clear();
+        for (Runnable listener : this.closeListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                logger.warn("Close listener failed", e);
+            }
+        }
+        this.closeListeners.clear();
+    }
+}
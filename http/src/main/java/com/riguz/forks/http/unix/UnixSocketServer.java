@@ -0,0 +1,177 @@
+package com.riguz.forks.http.unix;
+
+import com.riguz.forks.http.NetworkServer;
+import com.riguz.forks.http.RequestDelegate;
+import com.riguz.forks.http.multipart.MultipartLimits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves HTTP/1.1 on a unix domain socket, for a proxy on the same host that would otherwise pay for the loopback
+ * TCP stack on every request. Requests go to the same delegate as the TCP listener, run it next to an
+ * UndertowServer with a CompositeServer or on its own. Requires JDK 16 or later.
+ * <p>
+ * Each connection takes a thread, connections beyond the maximum are answered with 503 and closed, and connections
+ * that waited for the client longer than the idle timeout are closed.
+ */
+public class UnixSocketServer extends NetworkServer {
+    private static final Logger logger = LoggerFactory.getLogger(UnixSocketServer.class);
+    public static final int DEFAULT_MAX_CONNECTIONS = 256;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofSeconds(60);
+    private static final byte[] UNAVAILABLE =
+            "HTTP/1.1 503 \r\nContent-Length: 0\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final Path path;
+    private final MultipartLimits multipartLimits;
+    private final int maxConnections;
+    private final long idleTimeout;
+    private final Set<UnixConnection> active = ConcurrentHashMap.newKeySet();
+    private ServerSocketChannel server;
+    private ThreadPoolExecutor connections;
+    private ScheduledExecutorService timer;
+    private Thread acceptor;
+
+    public UnixSocketServer(Path path, RequestDelegate handler) {
+        this(path, handler, new MultipartLimits());
+    }
+
+    public UnixSocketServer(Path path, RequestDelegate handler, MultipartLimits multipartLimits) {
+        this(path, handler, multipartLimits, DEFAULT_MAX_CONNECTIONS, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    public UnixSocketServer(Path path,
+                            RequestDelegate handler,
+                            MultipartLimits multipartLimits,
+                            int maxConnections,
+                            Duration idleTimeout) {
+        super(-1, handler);
+        if (maxConnections <= 0 || idleTimeout.isNegative() || idleTimeout.isZero())
+            throw new IllegalArgumentException("Max connections and idle timeout should be positive");
+        this.path = path;
+        this.multipartLimits = multipartLimits;
+        this.maxConnections = maxConnections;
+        this.idleTimeout = idleTimeout.toNanos();
+    }
+
+    public static boolean isSupported() {
+        return UnixSockets.isSupported();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void start() {
+        try {
+            // a socket file left behind by a previous process would fail the bind
+            Files.deleteIfExists(this.path);
+            this.server = UnixSockets.openServer();
+            this.server.bind(UnixSockets.address(this.path));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        this.connections = new ThreadPoolExecutor(0, this.maxConnections, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), daemon("forks-unix-"));
+        this.timer = Executors.newSingleThreadScheduledExecutor(daemon("forks-unix-timer-"));
+        long period = Math.max(TimeUnit.MILLISECONDS.toNanos(10), this.idleTimeout / 4);
+        this.timer.scheduleAtFixedRate(this::closeIdle, period, period, TimeUnit.NANOSECONDS);
+        this.acceptor = daemon("forks-unix-acceptor-").newThread(this::accept);
+        this.acceptor.start();
+    }
+
+    private void accept() {
+        while (this.server.isOpen()) {
+            try {
+                SocketChannel channel = this.server.accept();
+                UnixConnection connection = new UnixConnection(channel, this.handler, this.multipartLimits,
+                        this.timer);
+                this.active.add(connection);
+                try {
+                    this.connections.execute(() -> {
+                        try {
+                            connection.run();
+                        } finally {
+                            this.active.remove(connection);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    this.active.remove(connection);
+                    this.refuse(channel);
+                }
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                logger.warn("Failed to accept connection:{}", e.getMessage());
+            }
+        }
+    }
+
+    private void refuse(SocketChannel channel) {
+        logger.warn("Refusing connection, {} connections are open", this.maxConnections);
+        try (SocketChannel refused = channel) {
+            refused.write(ByteBuffer.wrap(UNAVAILABLE));
+        } catch (IOException e) {
+            logger.debug("Failed to refuse connection:{}", e.getMessage());
+        }
+    }
+
+    private void closeIdle() {
+        long now = System.nanoTime();
+        for (UnixConnection connection : this.active) {
+            if (connection.isIdle(now, this.idleTimeout)) {
+                this.active.remove(connection);
+                connection.close();
+            }
+        }
+    }
+
+    @Override
+    public void afterStart() {
+    }
+
+    @Override
+    public void stop() {
+        try {
+            this.server.close();
+            Files.deleteIfExists(this.path);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            this.connections.shutdownNow();
+            this.timer.shutdownNow();
+            for (UnixConnection connection : this.active)
+                connection.close();
+            this.active.clear();
+        }
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.riguz.forks.http.unix;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Unix domain socket channels came with JDK 16, they are looked up reflectively so the module still runs on older
+ * releases where only the TCP listener is available.
+ */
+final class UnixSockets {
+    private static final Method ADDRESS_OF;
+    private static final Method OPEN_SERVER;
+    private static final Method OPEN_CLIENT;
+    private static final ProtocolFamily UNIX;
+
+    static {
+        Method addressOf = null;
+        Method openServer = null;
+        Method openClient = null;
+        ProtocolFamily unix = null;
+        try {
+            addressOf = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", Path.class);
+            openServer = ServerSocketChannel.class.getMethod("open", ProtocolFamily.class);
+            openClient = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+            unix = StandardProtocolFamily.valueOf("UNIX");
+        } catch (ReflectiveOperationException | IllegalArgumentException e) {
+            addressOf = null;
+        }
+        ADDRESS_OF = addressOf;
+        OPEN_SERVER = openServer;
+        OPEN_CLIENT = openClient;
+        UNIX = unix;
+    }
+
+    private UnixSockets() {
+    }
+
+    static boolean isSupported() {
+        return ADDRESS_OF != null;
+    }
+
+    static SocketAddress address(Path path) {
+        return (SocketAddress) invoke(ADDRESS_OF, path);
+    }
+
+    static ServerSocketChannel openServer() throws IOException {
+        return (ServerSocketChannel) invokeOpen(OPEN_SERVER);
+    }
+
+    static SocketChannel openClient() throws IOException {
+        return (SocketChannel) invokeOpen(OPEN_CLIENT);
+    }
+
+    private static Object invokeOpen(Method open) throws IOException {
+        try {
+            return invoke(open, UNIX);
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw e;
+        }
+    }
+
+    private static Object invoke(Method method, Object argument) {
+        if (method == null)
+            throw new UnsupportedOperationException("Unix domain sockets require JDK 16 or later");
+        try {
+            return method.invoke(null, argument);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.riguz.forks.http.websocket;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A group of sessions receiving the same messages, each message is encoded once for all of them.
+ */
+public class WebSocketBroadcaster {
+    private final Set<WebSocketSession> sessions = ConcurrentHashMap.newKeySet();
+
+    public void join(WebSocketSession session) {
+        this.sessions.add(session);
+    }
+
+    public void leave(WebSocketSession session) {
+        this.sessions.remove(session);
+    }
+
+    public int broadcast(String message) {
+        return this.broadcast(WebSocketMessage.text(message));
+    }
+
+    /**
+     * Returns the number of sessions the message was sent to, closed sessions are dropped on the way.
+     */
+    public int broadcast(WebSocketMessage message) {
+        int sent = 0;
+        for (WebSocketSession session : this.sessions) {
+            if (!session.isOpen()) {
+                this.sessions.remove(session);
+                continue;
+            }
+            session.send(message);
+            sent++;
+        }
+        return sent;
+    }
+
+    public int size() {
+        return this.sessions.size();
+    }
+}
@@ -0,0 +1,34 @@
+package com.riguz.forks.http.websocket;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Callbacks of a WebSocket endpoint, bound to a path with {@code ws /path Controller} in route.cf.
+ */
+public interface WebSocketHandler {
+
+    default void onOpen(WebSocketSession session) {
+    }
+
+    void onMessage(WebSocketSession session, String message);
+
+    /**
+     * The buffer is only valid during the call, copy it if it has to be kept.
+     */
+    default void onBinaryMessage(WebSocketSession session, ByteBuffer message) {
+    }
+
+    default void onClose(WebSocketSession session, int code, String reason) {
+    }
+
+    default void onError(WebSocketSession session, Throwable error) {
+    }
+
+    /**
+     * Messages of non-blocking handlers are handled right on the IO thread that read them, blocking handlers are
+     * called on a worker thread instead, still one at a time and in order for each session.
+     */
+    default boolean isBlocking() {
+        return false;
+    }
+}
@@ -0,0 +1,36 @@
+package com.riguz.forks.http.websocket;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A message payload encoded once, sessions only send views of the shared bytes.
+ */
+public class WebSocketMessage {
+    private final ByteBuffer payload;
+    private final boolean binary;
+
+    private WebSocketMessage(ByteBuffer payload, boolean binary) {
+        this.payload = payload.asReadOnlyBuffer();
+        this.binary = binary;
+    }
+
+    public static WebSocketMessage text(String message) {
+        return new WebSocketMessage(ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)), false);
+    }
+
+    public static WebSocketMessage binary(ByteBuffer message) {
+        return new WebSocketMessage(message, true);
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * A view of the payload for one send, the shared bytes are not copied.
+     */
+    public ByteBuffer getPayload() {
+        return this.payload.duplicate();
+    }
+}
@@ -0,0 +1,29 @@
+package com.riguz.forks.http.websocket;
+
+import java.nio.ByteBuffer;
+
+public interface WebSocketSession {
+
+    String getId();
+
+    String getPath();
+
+    boolean isOpen();
+
+    void send(String message);
+
+    /**
+     * Sends a message encoded beforehand, the same message can be sent to any number of sessions.
+     */
+    void send(WebSocketMessage message);
+
+    void sendBinary(ByteBuffer message);
+
+    <T> T getAttribute(String name);
+
+    void setAttribute(String name, Object value);
+
+    void close();
+
+    void close(int code, String reason);
+}
@@ -0,0 +1,28 @@
+package com.riguz.forks.http;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class QueryStringTest {
+    @Test
+    public void lookup() {
+        QueryString query = QueryString.parse("page=2&q=hello+world&flag&name%5B%5D=a%26b&page=3&&empty=");
+        assertEquals(6, query.size());
+        assertEquals("2", query.get("page"));
+        assertEquals("hello world", query.get("q"));
+        assertEquals("", query.get("flag"));
+        assertEquals("a&b", query.get("name[]"));
+        assertEquals("", query.get("empty"));
+        assertNull(query.get("missing"));
+        assertNull(query.get("pag"));
+    }
+
+    @Test
+    public void empty() {
+        assertEquals(0, QueryString.parse(null).size());
+        assertEquals(0, QueryString.parse("").size());
+        assertNull(QueryString.parse("&").get(""));
+    }
+}
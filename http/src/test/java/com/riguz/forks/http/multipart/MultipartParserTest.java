@@ -0,0 +1,161 @@
+package com.riguz.forks.http.multipart;
+
+import com.riguz.forks.http.HttpStatus;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MultipartParserTest {
+    private static final String BOUNDARY = "----forks7MA4YWxkTrZu0gW";
+
+    static class Body {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Body field(String name, String value) throws IOException {
+            return this.part("Content-Disposition: form-data; name=\"" + name + "\"\r\n",
+                    value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Body file(String name, String fileName, byte[] content) throws IOException {
+            return this.part("Content-Disposition: form-data; name=\"" + name + "\"; filename=\"" + fileName + "\"\r\n"
+                    + "Content-Type: application/octet-stream\r\n", content);
+        }
+
+        private Body part(String headers, byte[] content) throws IOException {
+            this.out.write(("--" + BOUNDARY + "\r\n" + headers + "\r\n").getBytes(StandardCharsets.UTF_8));
+            this.out.write(content);
+            this.out.write("\r\n".getBytes(StandardCharsets.UTF_8));
+            return this;
+        }
+
+        InputStream end() throws IOException {
+            this.out.write(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+            return new ByteArrayInputStream(this.out.toByteArray());
+        }
+    }
+
+    /**
+     * Hands out a few bytes per read, so that delimiters and headers get split across buffer refills.
+     */
+    static class TrickleInputStream extends InputStream {
+        private final InputStream in;
+        private final Random random = new Random(42);
+
+        TrickleInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return this.in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return this.in.read(b, off, Math.min(len, 1 + this.random.nextInt(7)));
+        }
+    }
+
+    private static byte[] random(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void parseFieldsAndFiles() throws IOException {
+        byte[] large = random(200 * 1024);
+        InputStream body = new Body()
+                .field("user", "riguz")
+                .file("avatar", "a.png", random(100))
+                .file("archive", "b.zip", large)
+                .end();
+        List<Part> parts = new MultipartParser(BOUNDARY, new MultipartLimits()).parse(body);
+
+        assertEquals(3, parts.size());
+        assertEquals("riguz", parts.get(0).getString());
+        assertNull(parts.get(0).getFileName());
+        assertTrue(parts.get(1).isInMemory());
+        assertArrayEquals(random(100), parts.get(1).getBytes());
+        assertEquals("application/octet-stream", parts.get(1).getContentType());
+
+        Part archive = parts.get(2);
+        assertEquals("b.zip", archive.getFileName());
+        assertFalse(archive.isInMemory());
+        assertEquals(large.length, archive.getSize());
+        assertArrayEquals(large, Files.readAllBytes(archive.getFile()));
+        Path file = archive.getFile();
+        archive.delete();
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void parseSplitReads() throws IOException {
+        byte[] content = random(50 * 1024);
+        InputStream body = new TrickleInputStream(new Body()
+                .field("a", "")
+                .file("b", "b.bin", content)
+                .field("c", "--" + BOUNDARY.substring(0, 10))
+                .end());
+        List<Part> parts = new MultipartParser(BOUNDARY, new MultipartLimits().setMemoryThreshold(1024)).parse(body);
+
+        assertEquals(Arrays.asList("a", "b", "c"), Arrays.asList(parts.get(0).getName(), parts.get(1).getName(), parts.get(2).getName()));
+        assertEquals("", parts.get(0).getString());
+        assertArrayEquals(content, parts.get(1).getBytes());
+        assertEquals("--" + BOUNDARY.substring(0, 10), parts.get(2).getString());
+        parts.forEach(Part::delete);
+    }
+
+    @Test
+    public void partLimit() throws IOException {
+        MultipartLimits limits = new MultipartLimits().setMemoryThreshold(64).setMaxPartSize(1024);
+        try {
+            new MultipartParser(BOUNDARY, limits).parse(new Body().file("f", "f.bin", random(4096)).end());
+            fail();
+        } catch (MultipartException e) {
+            assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, e.getStatus());
+        }
+    }
+
+    @Test
+    public void requestLimit() throws IOException {
+        MultipartLimits limits = new MultipartLimits().setMaxRequestSize(1024);
+        try {
+            new MultipartParser(BOUNDARY, limits).parse(new Body().field("a", "1").file("f", "f.bin", random(4096)).end());
+            fail();
+        } catch (MultipartException e) {
+            assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, e.getStatus());
+        }
+    }
+
+    @Test
+    public void truncatedBody() throws IOException {
+        String body = "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"a\"\r\n\r\nno end";
+        try {
+            new MultipartParser(BOUNDARY, new MultipartLimits())
+                    .parse(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+            fail();
+        } catch (MultipartException e) {
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+        }
+    }
+
+    @Test
+    public void boundaryOf() {
+        assertEquals("abc", MultipartParser.boundaryOf("multipart/form-data; boundary=abc"));
+        assertEquals("a b", MultipartParser.boundaryOf("Multipart/Form-Data; charset=utf-8; boundary=\"a b\""));
+        assertNull(MultipartParser.boundaryOf("application/json"));
+        assertNull(MultipartParser.boundaryOf(null));
+    }
+}
@@ -0,0 +1,46 @@
+package com.riguz.forks.http.undertow;
+
+import com.riguz.forks.http.RequestDelegate;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UndertowServerTest {
+    private final RequestDelegate hello = (request, response) -> response.writeContent("hello");
+
+    @Test
+    public void stopReleasesPortAndConnections() throws IOException {
+        int port = freePort();
+        UndertowServer server = new UndertowServer(port, this.hello);
+        server.start();
+        try (Socket client = new Socket("localhost", port)) {
+            client.getOutputStream().write("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            InputStream in = client.getInputStream();
+            assertTrue(in.read() > 0);
+
+            server.stop();
+            client.setSoTimeout(1000);
+            // the kept alive connection is closed by the server instead of lingering on the old worker
+            while (in.read() >= 0) {
+            }
+        }
+
+        UndertowServer restarted = new UndertowServer(port, this.hello);
+        restarted.start();
+        restarted.stop();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
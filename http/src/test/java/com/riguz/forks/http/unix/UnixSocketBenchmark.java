@@ -0,0 +1,112 @@
+package com.riguz.forks.http.unix;
+
+import com.riguz.forks.http.RequestDelegate;
+import com.riguz.forks.http.undertow.UndertowServer;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Compares the latency of sequential keep-alive GETs over the unix socket listener and over Undertow on loopback
+ * TCP. Not run with the tests, start it with the test class path:
+ * {@code java com.riguz.forks.http.unix.UnixSocketBenchmark [requests per round] [rounds]}
+ */
+public class UnixSocketBenchmark {
+    private static final int PORT = 18080;
+    private static final byte[] REQUEST = "GET /ping HTTP/1.1\r\nHost: localhost\r\n\r\n"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    public static void main(String[] args) throws Exception {
+        if (!UnixSocketServer.isSupported()) {
+            System.err.println("Unix domain sockets require JDK 16 or later");
+            return;
+        }
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        RequestDelegate pong = (request, response) -> response.writeContent("pong");
+        Path directory = Files.createTempDirectory("forks-bench");
+        Path socket = directory.resolve("http.sock");
+        UnixSocketServer unix = new UnixSocketServer(socket, pong);
+        UndertowServer tcp = new UndertowServer(PORT, pong);
+        unix.start();
+        tcp.start();
+        try {
+            for (int round = 0; round < rounds; round++) {
+                // the first round warms up both paths
+                SocketChannel unixClient = UnixSockets.openClient();
+                unixClient.connect(UnixSockets.address(socket));
+                report("unix", round, run(unixClient, requests));
+                SocketChannel tcpClient = SocketChannel.open(new InetSocketAddress("localhost", PORT));
+                tcpClient.socket().setTcpNoDelay(true);
+                report("tcp ", round, run(tcpClient, requests));
+            }
+        } finally {
+            unix.stop();
+            tcp.stop();
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static long[] run(SocketChannel channel, int requests) throws IOException {
+        long[] latencies = new long[requests];
+        try (SocketChannel client = channel) {
+            InputStream in = new BufferedInputStream(Channels.newInputStream(client));
+            OutputStream out = Channels.newOutputStream(client);
+            for (int i = 0; i < requests; i++) {
+                long started = System.nanoTime();
+                out.write(REQUEST);
+                readResponse(in);
+                latencies[i] = System.nanoTime() - started;
+            }
+        }
+        return latencies;
+    }
+
+    /**
+     * Reads the headers and a Content-Length body, checking the whole response arrived.
+     */
+    private static void readResponse(InputStream in) throws IOException {
+        int length = -1;
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            int b = in.read();
+            if (b < 0)
+                throw new IOException("Connection closed");
+            if (b != '\n') {
+                line.append((char) b);
+                continue;
+            }
+            String header = line.toString().trim();
+            line.setLength(0);
+            if (header.isEmpty())
+                break;
+            if (header.regionMatches(true, 0, "Content-Length:", 0, 15))
+                length = Integer.parseInt(header.substring(15).trim());
+        }
+        if (length < 0)
+            throw new IOException("Missing Content-Length");
+        for (int i = 0; i < length; i++) {
+            if (in.read() < 0)
+                throw new IOException("Truncated body");
+        }
+    }
+
+    private static void report(String name, int round, long[] latencies) {
+        Arrays.sort(latencies);
+        long total = 0;
+        for (long latency : latencies)
+            total += latency;
+        System.out.printf("%s round %d: mean %.1fus p50 %.1fus p99 %.1fus max %.1fus%n", name, round,
+                total / (double) latencies.length / 1000, latencies[latencies.length / 2] / 1000.0,
+                latencies[(int) (latencies.length * 0.99)] / 1000.0, latencies[latencies.length - 1] / 1000.0);
+    }
+}
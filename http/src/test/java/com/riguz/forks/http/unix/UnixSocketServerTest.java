@@ -0,0 +1,270 @@
+package com.riguz.forks.http.unix;
+
+import com.riguz.forks.http.RequestDelegate;
+import com.riguz.forks.http.ResponseStream;
+import com.riguz.forks.http.multipart.MultipartLimits;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class UnixSocketServerTest {
+    private Path socket;
+    private UnixSocketServer server;
+    private SocketChannel client;
+    private InputStream in;
+    private OutputStream out;
+
+    private final RequestDelegate echo = (request, response) -> {
+        if (request.getPath().equals("/stream")) {
+            response.setHeader("Content-Type", "text/plain");
+            ResponseStream stream = response.startStream();
+            stream.write(ByteBuffer.wrap("first".getBytes(StandardCharsets.UTF_8)));
+            new Thread(() -> {
+                stream.write(ByteBuffer.wrap("second".getBytes(StandardCharsets.UTF_8)));
+                stream.close();
+            }).start();
+            return;
+        }
+        if (request.getPath().equals("/aborted")) {
+            ResponseStream stream = response.startStream();
+            stream.write(ByteBuffer.wrap("first".getBytes(StandardCharsets.UTF_8)));
+            new Thread(stream::abort).start();
+            return;
+        }
+        if (request.getPath().equals("/remote")) {
+            response.writeContent(request.getRemoteAddress());
+            return;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        try {
+            while ((read = request.getInputStream().read(buffer)) > 0)
+                body.write(buffer, 0, read);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        response.setHeader("X-Path", request.getPath());
+        response.writeContent(request.getHttpMethod() + " " + request.getParamValue("name") + " "
+                + new String(body.toByteArray(), StandardCharsets.UTF_8));
+    };
+
+    @Before
+    public void start() throws IOException {
+        assumeTrue(UnixSocketServer.isSupported());
+        this.socket = Files.createTempDirectory("forks").resolve("http.sock");
+        this.server = new UnixSocketServer(this.socket, this.echo);
+        this.server.start();
+        this.client = UnixSockets.openClient();
+        this.client.connect(UnixSockets.address(this.socket));
+        this.in = new BufferedInputStream(Channels.newInputStream(this.client));
+        this.out = Channels.newOutputStream(this.client);
+    }
+
+    @After
+    public void stop() throws IOException {
+        if (this.server == null)
+            return;
+        this.client.close();
+        this.server.stop();
+        Files.deleteIfExists(this.socket.getParent());
+    }
+
+    @Test
+    public void keepAlive() throws IOException {
+        this.send("GET /users/1?name=a%20b HTTP/1.1\r\nHost: localhost\r\n\r\n");
+        assertEquals("HTTP/1.1 200 ", this.readLine());
+        assertEquals("GET a b ", this.readBody());
+
+        this.send("POST /users HTTP/1.1\r\nHost: localhost\r\nContent-Length: 5\r\n\r\nhello");
+        assertEquals("HTTP/1.1 200 ", this.readLine());
+        assertEquals("POST null hello", this.readBody());
+    }
+
+    @Test
+    public void chunkedRequest() throws IOException {
+        this.send("POST /upload HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n"
+                + "5\r\nhello\r\n6;ext=1\r\n world\r\n0\r\n\r\n");
+        assertEquals("HTTP/1.1 200 ", this.readLine());
+        assertEquals("POST null hello world", this.readBody());
+
+        this.send("GET /next HTTP/1.1\r\n\r\n");
+        assertEquals("HTTP/1.1 200 ", this.readLine());
+        assertEquals("GET null ", this.readBody());
+    }
+
+    @Test
+    public void streamedResponse() throws IOException {
+        this.send("GET /stream HTTP/1.1\r\n\r\n");
+        assertEquals("HTTP/1.1 200 ", this.readLine());
+        String line;
+        boolean chunked = false;
+        while (!(line = this.readLine()).isEmpty())
+            chunked |= line.equals("Transfer-Encoding: chunked");
+        assertTrue(chunked);
+        StringBuilder body = new StringBuilder();
+        int size;
+        while ((size = Integer.parseInt(this.readLine(), 16)) > 0) {
+            body.append(new String(this.read(size), StandardCharsets.UTF_8));
+            this.readLine();
+        }
+        this.readLine();
+        assertEquals("firstsecond", body.toString());
+
+        this.send("GET /after HTTP/1.1\r\n\r\n");
+        assertEquals("HTTP/1.1 200 ", this.readLine());
+        assertEquals("GET null ", this.readBody());
+    }
+
+    @Test
+    public void abortedStream() throws IOException {
+        this.send("GET /aborted HTTP/1.1\r\n\r\n");
+        assertEquals("HTTP/1.1 200 ", this.readLine());
+        while (!this.readLine().isEmpty()) {
+            // headers
+        }
+        assertEquals("5", this.readLine());
+        assertEquals("first", new String(this.read(5), StandardCharsets.UTF_8));
+        this.readLine();
+        // closed without the last chunk
+        assertEquals(-1, this.in.read());
+    }
+
+    @Test
+    public void remoteAddressFromProxy() throws IOException {
+        this.send("GET /remote HTTP/1.1\r\n\r\n");
+        assertEquals("HTTP/1.1 200 ", this.readLine());
+        assertEquals("127.0.0.1", this.readBody());
+
+        this.send("GET /remote HTTP/1.1\r\nX-Forwarded-For: 1.2.3.4, 10.0.0.1\r\n\r\n");
+        assertEquals("HTTP/1.1 200 ", this.readLine());
+        assertEquals("10.0.0.1", this.readBody());
+
+        this.send("GET /remote HTTP/1.1\r\nX-Forwarded-For: 1.2.3.4\r\nX-Forwarded-For: 10.0.0.2\r\n\r\n");
+        assertEquals("HTTP/1.1 200 ", this.readLine());
+        assertEquals("10.0.0.2", this.readBody());
+    }
+
+    @Test
+    public void malformedRequest() throws IOException {
+        this.send("GARBAGE\r\n\r\n");
+        assertEquals("HTTP/1.1 400 ", this.readLine());
+    }
+
+    @Test
+    public void rejectAmbiguousFraming() throws IOException {
+        this.send("POST /upload HTTP/1.1\r\nTransfer-Encoding: gzip, chunked\r\n\r\n0\r\n\r\n");
+        assertEquals("HTTP/1.1 400 ", this.readLine());
+        this.reconnect();
+        this.send("POST /upload HTTP/1.1\r\nTransfer-Encoding: chunked\r\nContent-Length: 5\r\n\r\n"
+                + "0\r\n\r\nhello");
+        assertEquals("HTTP/1.1 400 ", this.readLine());
+        this.reconnect();
+        this.send("POST /upload HTTP/1.1\r\nContent-Length: 5\r\nContent-Length: 6\r\n\r\nhello!");
+        assertEquals("HTTP/1.1 400 ", this.readLine());
+    }
+
+    @Test
+    public void rejectNegativeChunkSize() throws IOException {
+        this.send("POST /upload HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n-5\r\nhello\r\n0\r\n\r\n");
+        assertEquals("HTTP/1.1 500 ", this.readLine());
+        this.readBody();
+        assertEquals(-1, this.in.read());
+    }
+
+    @Test
+    public void closeIdleConnections() throws IOException {
+        this.restart(4, Duration.ofMillis(100));
+        this.send("GET /first HTTP/1.1\r\n\r\n");
+        assertEquals("HTTP/1.1 200 ", this.readLine());
+        assertEquals("GET null ", this.readBody());
+        long started = System.nanoTime();
+        assertEquals(-1, this.in.read());
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    public void refuseConnectionsBeyondLimit() throws IOException {
+        this.restart(1, Duration.ofMinutes(1));
+        this.send("GET /first HTTP/1.1\r\n\r\n");
+        assertEquals("HTTP/1.1 200 ", this.readLine());
+        assertEquals("GET null ", this.readBody());
+        try (SocketChannel second = UnixSockets.openClient()) {
+            second.connect(UnixSockets.address(this.socket));
+            InputStream in = new BufferedInputStream(Channels.newInputStream(second));
+            byte[] status = new byte[13];
+            assertEquals(13, in.read(status));
+            assertEquals("HTTP/1.1 503 ", new String(status, StandardCharsets.US_ASCII));
+        }
+    }
+
+    private void restart(int maxConnections, Duration idleTimeout) throws IOException {
+        this.client.close();
+        this.server.stop();
+        this.server = new UnixSocketServer(this.socket, this.echo, new MultipartLimits(), maxConnections,
+                idleTimeout);
+        this.server.start();
+        this.reconnect();
+    }
+
+    private void reconnect() throws IOException {
+        this.client.close();
+        this.client = UnixSockets.openClient();
+        this.client.connect(UnixSockets.address(this.socket));
+        this.in = new BufferedInputStream(Channels.newInputStream(this.client));
+        this.out = Channels.newOutputStream(this.client);
+    }
+
+    private void send(String request) throws IOException {
+        this.out.write(request.getBytes(StandardCharsets.ISO_8859_1));
+        this.out.flush();
+    }
+
+    private String readBody() throws IOException {
+        int length = -1;
+        String line;
+        while (!(line = this.readLine()).isEmpty()) {
+            if (line.startsWith("Content-Length: "))
+                length = Integer.parseInt(line.substring(16));
+        }
+        return new String(this.read(length), StandardCharsets.UTF_8);
+    }
+
+    private byte[] read(int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            int read = this.in.read(bytes, offset, length - offset);
+            assertTrue(read > 0);
+            offset += read;
+        }
+        return bytes;
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = this.in.read()) != '\n') {
+            assertTrue(b >= 0);
+            line.append((char) b);
+        }
+        return line.substring(0, line.length() - 1);
+    }
+}